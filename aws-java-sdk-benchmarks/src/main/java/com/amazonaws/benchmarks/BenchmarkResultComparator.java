@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH result files in JSON format, such as the files written by
+ * {@link BenchmarkRunner} for two versions of the SDK, and prints the score of
+ * every benchmark in both along with the relative change.
+ * <pre>
+ * java -cp benchmarks.jar com.amazonaws.benchmarks.BenchmarkResultComparator \
+ *     benchmark-results/aws-java-sdk-1.10.27.json benchmark-results/aws-java-sdk-1.10.28.json
+ * </pre>
+ * For throughput scores a positive change is an improvement; for time scores
+ * it is a regression.
+ */
+public class BenchmarkResultComparator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkResultComparator <baseline.json> <candidate.json>");
+            System.exit(1);
+        }
+        compare(new File(args[0]), new File(args[1]), System.out);
+    }
+
+    /**
+     * Prints one line per benchmark found in either result file.
+     */
+    public static void compare(File baseline, File candidate, PrintStream out)
+            throws IOException {
+        Map<String, JsonNode> baselineScores = readScores(baseline);
+        Map<String, JsonNode> candidateScores = readScores(candidate);
+
+        Map<String, Object> names = new TreeMap<String, Object>();
+        names.putAll(baselineScores);
+        names.putAll(candidateScores);
+
+        out.printf("%-90s %16s %16s %9s  %s%n", "Benchmark", "Baseline", "Candidate", "Change", "Unit");
+        for (String name : names.keySet()) {
+            JsonNode before = baselineScores.get(name);
+            JsonNode after = candidateScores.get(name);
+            double beforeScore = before == null ? Double.NaN : before.path("score").asDouble();
+            double afterScore = after == null ? Double.NaN : after.path("score").asDouble();
+            String unit = (after != null ? after : before).path("scoreUnit").asText();
+            String change = before == null || after == null
+                    ? "n/a"
+                    : String.format("%+.1f%%", (afterScore - beforeScore) / beforeScore * 100);
+            out.printf("%-90s %16.3f %16.3f %9s  %s%n", name, beforeScore, afterScore, change, unit);
+        }
+    }
+
+    /**
+     * Returns the primary metric of each benchmark in the file, keyed by the
+     * benchmark name and its parameters.
+     */
+    private static Map<String, JsonNode> readScores(File file) throws IOException {
+        Map<String, JsonNode> scores = new TreeMap<String, JsonNode>();
+        for (JsonNode result : MAPPER.readTree(file)) {
+            StringBuilder name = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            if (params.size() > 0) {
+                name.append(" {");
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    name.append(field.getKey()).append('=').append(field.getValue().asText());
+                    if (fields.hasNext()) name.append(", ");
+                }
+                name.append('}');
+            }
+            scores.put(name.toString(), result.path("primaryMetric"));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.amazonaws.util.VersionInfoUtils;
+
+/**
+ * Runs the SDK benchmarks and writes their results, in the JSON format of JMH,
+ * to a file named after the version of the SDK, so that the results of two
+ * versions can be compared with {@link BenchmarkResultComparator}.
+ * <pre>
+ * mvn -P benchmarks package
+ * java -cp aws-java-sdk-benchmarks/target/benchmarks.jar com.amazonaws.benchmarks.BenchmarkRunner [regexp]
+ * </pre>
+ * The optional argument selects the benchmarks to run, as for the JMH command
+ * line; all benchmarks run by default. The results are written to the
+ * directory named by the system property {@code benchmarks.resultDir}, or to
+ * "benchmark-results" in the working directory.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : "com\\.amazonaws\\.benchmarks\\..*";
+
+        File resultDir = new File(System.getProperty("benchmarks.resultDir", "benchmark-results"));
+        if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+            throw new IllegalStateException("Unable to create " + resultDir);
+        }
+        File resultFile = new File(resultDir,
+                "aws-java-sdk-" + VersionInfoUtils.getVersion() + ".json");
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getPath())
+                .build();
+        new Runner(options).run();
+
+        System.out.println("Benchmark results written to " + resultFile);
+    }
+}
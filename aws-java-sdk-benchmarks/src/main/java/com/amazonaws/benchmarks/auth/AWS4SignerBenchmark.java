@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.auth;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.auth.AWS4Signer;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.http.HttpMethodName;
+
+/**
+ * Measures signing a POST request with Signature Version 4, for payloads of
+ * different sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AWS4SignerBenchmark {
+
+    /** The size of the request payload, in bytes. */
+    @Param({"1024", "1048576"})
+    public int payloadSize;
+
+    private final AWSCredentials credentials = new BasicAWSCredentials(
+            "AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+    private AWS4Signer signer;
+    private DefaultRequest<Void> request;
+
+    @Setup
+    public void setUp() {
+        signer = new AWS4Signer();
+        signer.setServiceName("dynamodb");
+        signer.setRegionName("us-east-1");
+
+        byte[] payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'a');
+
+        request = new DefaultRequest<Void>("AmazonDynamoDBv2");
+        request.setHttpMethod(HttpMethodName.POST);
+        request.setEndpoint(URI.create("https://dynamodb.us-east-1.amazonaws.com"));
+        request.addHeader("X-Amz-Target", "DynamoDB_20120810.PutItem");
+        request.addHeader("Content-Type", "application/x-amz-json-1.0");
+        request.addHeader("Content-Length", Integer.toString(payloadSize));
+        // Signing marks and resets the content, so the request can be
+        // signed again by every invocation.
+        request.setContent(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public Object sign() {
+        signer.sign(request, credentials);
+        return request.getHeaders().get("Authorization");
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.dynamodbv2;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchema;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchemas;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+
+/**
+ * Measures the conversion of an annotated object to and from a DynamoDB item
+ * by {@link DynamoDBMapper}, with each conversion schema. Saving goes through
+ * a client that records the PutItem request instead of sending it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DynamoDBMapperBenchmark {
+
+    public enum Schema {
+        V2(ConversionSchemas.V2),
+        PRECOMPILED_V2(ConversionSchemas.precompiled(ConversionSchemas.V2));
+
+        private final ConversionSchema conversionSchema;
+
+        private Schema(ConversionSchema conversionSchema) {
+            this.conversionSchema = conversionSchema;
+        }
+    }
+
+    @Param
+    public Schema schema;
+
+    private DynamoDBMapper mapper;
+    private Order order;
+    private Map<String, AttributeValue> item;
+    private PutItemRequest lastPutItemRequest;
+
+    @Setup
+    public void setUp() {
+        AmazonDynamoDB client = (AmazonDynamoDB) Proxy.newProxyInstance(
+                AmazonDynamoDB.class.getClassLoader(),
+                new Class<?>[] { AmazonDynamoDB.class },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("putItem")
+                                && args[0] instanceof PutItemRequest) {
+                            lastPutItemRequest = (PutItemRequest) args[0];
+                            return new PutItemResult();
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        mapper = new DynamoDBMapper(client, new DynamoDBMapperConfig.Builder()
+                .withSaveBehavior(SaveBehavior.CLOBBER)
+                .withConversionSchema(schema.conversionSchema)
+                .build());
+
+        order = new Order();
+        order.setCustomerId("customer-1");
+        order.setOrderId(42);
+        order.setStatus("SHIPPED");
+        order.setTotal(142.25);
+        order.setGift(true);
+        order.setTags(new HashSet<String>(Arrays.asList("priority", "international")));
+        order.setCreated(new Date(1443700800000L));
+        order.setNotes("Leave at the front desk");
+
+        mapper.save(order);
+        item = lastPutItemRequest.getItem();
+    }
+
+    @Benchmark
+    public Object save() {
+        mapper.save(order);
+        return lastPutItemRequest;
+    }
+
+    @Benchmark
+    public Order marshallIntoObject() {
+        return mapper.marshallIntoObject(Order.class, item);
+    }
+
+    @DynamoDBTable(tableName = "Orders")
+    public static class Order {
+        private String customerId;
+        private long orderId;
+        private String status;
+        private double total;
+        private boolean gift;
+        private Set<String> tags;
+        private Date created;
+        private String notes;
+
+        @DynamoDBHashKey(attributeName = "CustomerId")
+        public String getCustomerId() { return customerId; }
+        public void setCustomerId(String customerId) { this.customerId = customerId; }
+
+        @DynamoDBRangeKey(attributeName = "OrderId")
+        public long getOrderId() { return orderId; }
+        public void setOrderId(long orderId) { this.orderId = orderId; }
+
+        @DynamoDBAttribute(attributeName = "Status")
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        @DynamoDBAttribute(attributeName = "Total")
+        public double getTotal() { return total; }
+        public void setTotal(double total) { this.total = total; }
+
+        @DynamoDBAttribute(attributeName = "Gift")
+        public boolean isGift() { return gift; }
+        public void setGift(boolean gift) { this.gift = gift; }
+
+        @DynamoDBAttribute(attributeName = "Tags")
+        public Set<String> getTags() { return tags; }
+        public void setTags(Set<String> tags) { this.tags = tags; }
+
+        @DynamoDBAttribute(attributeName = "Created")
+        public Date getCreated() { return created; }
+        public void setCreated(Date created) { this.created = created; }
+
+        @DynamoDBAttribute(attributeName = "Notes")
+        public String getNotes() { return notes; }
+        public void setNotes(String notes) { this.notes = notes; }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.benchmarks.transform.SampleJsonResponses;
+import com.amazonaws.benchmarks.transform.SampleXmlResponses;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.ec2.AmazonEC2Client;
+import com.amazonaws.services.ec2.model.DescribeInstancesResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Measures complete service calls through {@link com.amazonaws.http.AmazonHttpClient}
+ * (marshalling, signing, the HTTP exchange over a pooled local connection and
+ * unmarshalling) against an in-process HTTP server that returns canned
+ * responses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AmazonHttpClientBenchmark {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AmazonDynamoDBClient dynamoDB;
+    private AmazonEC2Client ec2;
+    private GetItemRequest getItemRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Otherwise the server waits for the delayed ACK of the response
+        // headers before sending the response body.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new CannedResponseHandler(
+                SampleJsonResponses.dynamoDbGetItem(),
+                SampleXmlResponses.ec2DescribeInstances(10)));
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+        BasicAWSCredentials credentials = new BasicAWSCredentials(
+                "AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+        ClientConfiguration configuration = new ClientConfiguration();
+
+        dynamoDB = new AmazonDynamoDBClient(credentials, configuration);
+        dynamoDB.setEndpoint(endpoint);
+        ec2 = new AmazonEC2Client(credentials, configuration);
+        ec2.setEndpoint(endpoint);
+
+        getItemRequest = new GetItemRequest()
+                .withTableName("Orders")
+                .addKeyEntry("CustomerId", new AttributeValue("customer-1"))
+                .addKeyEntry("OrderId", new AttributeValue().withN("42"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dynamoDB.shutdown();
+        ec2.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public GetItemResult dynamoDbGetItem() {
+        return dynamoDB.getItem(getItemRequest);
+    }
+
+    @Benchmark
+    public DescribeInstancesResult ec2DescribeInstances() {
+        return ec2.describeInstances();
+    }
+
+    /**
+     * Drains the request and replies with the canned JSON response to JSON
+     * protocol requests, and with the canned XML response to the others.
+     */
+    private static final class CannedResponseHandler implements HttpHandler {
+        private final byte[] jsonContent;
+        private final byte[] xmlContent;
+
+        CannedResponseHandler(byte[] jsonContent, byte[] xmlContent) {
+            this.jsonContent = jsonContent;
+            this.xmlContent = xmlContent;
+        }
+
+        public void handle(HttpExchange exchange) throws IOException {
+            InputStream in = exchange.getRequestBody();
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) != -1) {}
+            in.close();
+
+            boolean json = exchange.getRequestHeaders().containsKey("X-Amz-Target");
+            byte[] content = json ? jsonContent : xmlContent;
+            exchange.getResponseHeaders().set("Content-Type",
+                    json ? "application/x-amz-json-1.0" : "text/xml;charset=UTF-8");
+            exchange.getResponseHeaders().set("x-amzn-RequestId", "benchmark");
+            exchange.sendResponseHeaders(200, content.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(content);
+            out.close();
+        }
+    }
+}
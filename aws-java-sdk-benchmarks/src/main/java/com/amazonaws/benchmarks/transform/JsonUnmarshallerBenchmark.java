@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.transform;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.transform.QueryResultJsonUnmarshaller;
+import com.amazonaws.transform.JsonUnmarshallerContextImpl;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Measures the throughput of unmarshalling DynamoDB Query responses, the same
+ * way {@link com.amazonaws.http.JsonResponseHandler} does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonUnmarshallerBenchmark {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** The number of items in the response. */
+    @Param({"100", "1000"})
+    public int items;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = SampleJsonResponses.dynamoDbQuery(items);
+    }
+
+    @Benchmark
+    public QueryResult dynamoDbQuery() throws Exception {
+        JsonParser parser = JSON_FACTORY.createParser(content);
+        try {
+            return QueryResultJsonUnmarshaller.getInstance().unmarshall(
+                    new JsonUnmarshallerContextImpl(parser));
+        } finally {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.transform;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.Request;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.transform.PutItemRequestMarshaller;
+import com.amazonaws.services.ec2.model.BlockDeviceMapping;
+import com.amazonaws.services.ec2.model.EbsBlockDevice;
+import com.amazonaws.services.ec2.model.Placement;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.services.ec2.model.Tenancy;
+import com.amazonaws.services.ec2.model.transform.RunInstancesRequestMarshaller;
+
+/**
+ * Measures marshalling a request into its HTTP form, for the JSON protocol of
+ * DynamoDB and the Query protocol of EC2.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestMarshallerBenchmark {
+
+    private final PutItemRequestMarshaller putItemMarshaller = new PutItemRequestMarshaller();
+    private final RunInstancesRequestMarshaller runInstancesMarshaller = new RunInstancesRequestMarshaller();
+
+    private PutItemRequest putItemRequest;
+    private RunInstancesRequest runInstancesRequest;
+
+    @Setup
+    public void setUp() {
+        Map<String, AttributeValue> address = new HashMap<String, AttributeValue>();
+        address.put("Street", new AttributeValue("410 Terry Ave N"));
+        address.put("City", new AttributeValue("Seattle"));
+        address.put("Zip", new AttributeValue("98109"));
+
+        putItemRequest = new PutItemRequest()
+                .withTableName("Orders")
+                .addItemEntry("CustomerId", new AttributeValue("customer-1"))
+                .addItemEntry("OrderId", new AttributeValue().withN("42"))
+                .addItemEntry("Status", new AttributeValue("SHIPPED"))
+                .addItemEntry("Total", new AttributeValue().withN("142.25"))
+                .addItemEntry("Gift", new AttributeValue().withBOOL(true))
+                .addItemEntry("Tags", new AttributeValue().withSS("priority", "international"))
+                .addItemEntry("Address", new AttributeValue().withM(address))
+                .withConditionExpression("attribute_not_exists(OrderId)");
+
+        runInstancesRequest = new RunInstancesRequest("ami-1a2b3c4d", 1, 1)
+                .withInstanceType("m4.large")
+                .withKeyName("my-key-pair")
+                .withSecurityGroupIds("sg-1a2b3c4d", "sg-2b3c4d5e")
+                .withSubnetId("subnet-1a2b3c4d")
+                .withPlacement(new Placement("us-east-1a").withTenancy(Tenancy.Default))
+                .withBlockDeviceMappings(new BlockDeviceMapping()
+                        .withDeviceName("/dev/xvda")
+                        .withEbs(new EbsBlockDevice().withVolumeSize(100)
+                                .withVolumeType("gp2")
+                                .withDeleteOnTermination(true)))
+                .withUserData("IyEvYmluL2Jhc2gKZWNobyBIZWxsbw==");
+    }
+
+    @Benchmark
+    public Request<PutItemRequest> dynamoDbPutItem() {
+        return putItemMarshaller.marshall(putItemRequest);
+    }
+
+    @Benchmark
+    public Request<RunInstancesRequest> ec2RunInstances() {
+        return runInstancesMarshaller.marshall(runInstancesRequest);
+    }
+}
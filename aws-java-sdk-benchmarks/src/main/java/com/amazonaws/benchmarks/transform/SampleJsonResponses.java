@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.transform;
+
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Builds JSON service responses, shaped like the responses of the real
+ * services, to benchmark the JSON unmarshallers with.
+ */
+public final class SampleJsonResponses {
+
+    private SampleJsonResponses() {}
+
+    /**
+     * Returns a DynamoDB Query response with the specified number of items.
+     */
+    public static byte[] dynamoDbQuery(int items) {
+        StringBuilder json = new StringBuilder(items * 512);
+        json.append("{\"Count\":").append(items)
+            .append(",\"Items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) json.append(',');
+            appendItem(json, i);
+        }
+        json.append("],\"LastEvaluatedKey\":{\"CustomerId\":{\"S\":\"customer-1\"},")
+            .append("\"OrderId\":{\"N\":\"").append(items).append("\"}},")
+            .append("\"ScannedCount\":").append(items)
+            .append(",\"ConsumedCapacity\":{\"TableName\":\"Orders\",\"CapacityUnits\":")
+            .append(items / 8 + 1).append(".5}}");
+        return json.toString().getBytes(StringUtils.UTF8);
+    }
+
+    /**
+     * Returns a DynamoDB GetItem response holding one item.
+     */
+    public static byte[] dynamoDbGetItem() {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"Item\":");
+        appendItem(json, 0);
+        json.append('}');
+        return json.toString().getBytes(StringUtils.UTF8);
+    }
+
+    private static void appendItem(StringBuilder json, int i) {
+        json.append("{\"CustomerId\":{\"S\":\"customer-1\"},")
+            .append("\"OrderId\":{\"N\":\"").append(i).append("\"},")
+            .append("\"Status\":{\"S\":\"SHIPPED\"},")
+            .append("\"Total\":{\"N\":\"").append(100 + i).append(".25\"},")
+            .append("\"Gift\":{\"BOOL\":").append(i % 2 == 0).append("},")
+            .append("\"Tags\":{\"SS\":[\"priority\",\"international\"]},")
+            .append("\"Address\":{\"M\":{\"Street\":{\"S\":\"410 Terry Ave N\"},")
+            .append("\"City\":{\"S\":\"Seattle\"},\"Zip\":{\"S\":\"98109\"}}},")
+            .append("\"Lines\":{\"L\":[{\"M\":{\"Sku\":{\"S\":\"B00X4WHP5E\"},\"Quantity\":{\"N\":\"1\"}}},")
+            .append("{\"M\":{\"Sku\":{\"S\":\"B00ZV9RDKK\"},\"Quantity\":{\"N\":\"2\"}}}]},")
+            .append("\"Checksum\":{\"B\":\"dGhpcyB0ZXh0IGlzIGJhc2U2NC1lbmNvZGVk\"}}");
+    }
+}
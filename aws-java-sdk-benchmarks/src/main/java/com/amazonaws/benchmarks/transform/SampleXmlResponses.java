@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.transform;
+
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Builds large XML service responses, shaped like the responses of the real
+ * services, to benchmark the StAX unmarshallers with.
+ */
+public final class SampleXmlResponses {
+
+    private SampleXmlResponses() {}
+
+    /**
+     * Returns an EC2 DescribeInstances response with the specified number of
+     * instances, in reservations of ten instances.
+     */
+    public static byte[] ec2DescribeInstances(int instances) {
+        StringBuilder xml = new StringBuilder(instances * 2048);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+           .append("<DescribeInstancesResponse xmlns=\"http://ec2.amazonaws.com/doc/2015-04-15/\">\n")
+           .append("    <requestId>8f7724cf-496f-496e-8fe3-example</requestId>\n")
+           .append("    <reservationSet>\n");
+        for (int i = 0; i < instances; i++) {
+            if (i % 10 == 0) {
+                if (i > 0) xml.append("            </instancesSet>\n        </item>\n");
+                xml.append("        <item>\n")
+                   .append("            <reservationId>r-").append(hex(i)).append("</reservationId>\n")
+                   .append("            <ownerId>123456789012</ownerId>\n")
+                   .append("            <groupSet/>\n")
+                   .append("            <instancesSet>\n");
+            }
+            xml.append("                <item>\n")
+               .append("                    <instanceId>i-").append(hex(i)).append("</instanceId>\n")
+               .append("                    <imageId>ami-1a2b3c4d</imageId>\n")
+               .append("                    <instanceState>\n")
+               .append("                        <code>16</code>\n")
+               .append("                        <name>running</name>\n")
+               .append("                    </instanceState>\n")
+               .append("                    <privateDnsName>ip-10-0-0-").append(i % 256).append(".ec2.internal</privateDnsName>\n")
+               .append("                    <dnsName/>\n")
+               .append("                    <reason/>\n")
+               .append("                    <keyName>my-key-pair</keyName>\n")
+               .append("                    <amiLaunchIndex>0</amiLaunchIndex>\n")
+               .append("                    <productCodes/>\n")
+               .append("                    <instanceType>m4.large</instanceType>\n")
+               .append("                    <launchTime>2015-10-01T12:00:00.000Z</launchTime>\n")
+               .append("                    <placement>\n")
+               .append("                        <availabilityZone>us-east-1a</availabilityZone>\n")
+               .append("                        <groupName/>\n")
+               .append("                        <tenancy>default</tenancy>\n")
+               .append("                    </placement>\n")
+               .append("                    <monitoring>\n")
+               .append("                        <state>disabled</state>\n")
+               .append("                    </monitoring>\n")
+               .append("                    <subnetId>subnet-1a2b3c4d</subnetId>\n")
+               .append("                    <vpcId>vpc-1a2b3c4d</vpcId>\n")
+               .append("                    <privateIpAddress>10.0.0.").append(i % 256).append("</privateIpAddress>\n")
+               .append("                    <sourceDestCheck>true</sourceDestCheck>\n")
+               .append("                    <groupSet>\n")
+               .append("                        <item>\n")
+               .append("                            <groupId>sg-1a2b3c4d</groupId>\n")
+               .append("                            <groupName>default</groupName>\n")
+               .append("                        </item>\n")
+               .append("                    </groupSet>\n")
+               .append("                    <architecture>x86_64</architecture>\n")
+               .append("                    <rootDeviceType>ebs</rootDeviceType>\n")
+               .append("                    <rootDeviceName>/dev/xvda</rootDeviceName>\n")
+               .append("                    <blockDeviceMapping>\n")
+               .append("                        <item>\n")
+               .append("                            <deviceName>/dev/xvda</deviceName>\n")
+               .append("                            <ebs>\n")
+               .append("                                <volumeId>vol-").append(hex(i)).append("</volumeId>\n")
+               .append("                                <status>attached</status>\n")
+               .append("                                <attachTime>2015-10-01T12:00:01.000Z</attachTime>\n")
+               .append("                                <deleteOnTermination>true</deleteOnTermination>\n")
+               .append("                            </ebs>\n")
+               .append("                        </item>\n")
+               .append("                    </blockDeviceMapping>\n")
+               .append("                    <virtualizationType>hvm</virtualizationType>\n")
+               .append("                    <clientToken/>\n")
+               .append("                    <tagSet>\n")
+               .append("                        <item>\n")
+               .append("                            <key>Name</key>\n")
+               .append("                            <value>web-").append(i).append("</value>\n")
+               .append("                        </item>\n")
+               .append("                        <item>\n")
+               .append("                            <key>team</key>\n")
+               .append("                            <value>inventory &amp; billing</value>\n")
+               .append("                        </item>\n")
+               .append("                    </tagSet>\n")
+               .append("                    <hypervisor>xen</hypervisor>\n")
+               .append("                    <networkInterfaceSet/>\n")
+               .append("                    <ebsOptimized>false</ebsOptimized>\n")
+               .append("                </item>\n");
+        }
+        if (instances > 0) xml.append("            </instancesSet>\n        </item>\n");
+        xml.append("    </reservationSet>\n")
+           .append("</DescribeInstancesResponse>\n");
+        return toBytes(xml);
+    }
+
+    /**
+     * Returns a CloudFormation DescribeStacks response with the specified
+     * number of stacks.
+     */
+    public static byte[] cloudFormationDescribeStacks(int stacks) {
+        StringBuilder xml = new StringBuilder(stacks * 2048);
+        xml.append("<DescribeStacksResponse xmlns=\"http://cloudformation.amazonaws.com/doc/2010-05-15/\">\n")
+           .append("  <DescribeStacksResult>\n")
+           .append("    <Stacks>\n");
+        for (int i = 0; i < stacks; i++) {
+            xml.append("      <member>\n")
+               .append("        <StackId>arn:aws:cloudformation:us-east-1:123456789012:stack/stack-").append(i)
+               .append("/").append(hex(i)).append("-0000-11e5-0000-500c28604c82</StackId>\n")
+               .append("        <StackName>stack-").append(i).append("</StackName>\n")
+               .append("        <Description>Web tier &lt;").append(i).append("&gt;</Description>\n")
+               .append("        <Parameters>\n");
+            for (int p = 0; p < 4; p++) {
+                xml.append("          <member>\n")
+                   .append("            <ParameterKey>Parameter").append(p).append("</ParameterKey>\n")
+                   .append("            <ParameterValue>value-").append(p).append("</ParameterValue>\n")
+                   .append("          </member>\n");
+            }
+            xml.append("        </Parameters>\n")
+               .append("        <CreationTime>2015-10-01T12:00:00.000Z</CreationTime>\n")
+               .append("        <StackStatus>CREATE_COMPLETE</StackStatus>\n")
+               .append("        <DisableRollback>false</DisableRollback>\n")
+               .append("        <NotificationARNs/>\n")
+               .append("        <Capabilities>\n")
+               .append("          <member>CAPABILITY_IAM</member>\n")
+               .append("        </Capabilities>\n")
+               .append("        <Outputs>\n");
+            for (int o = 0; o < 3; o++) {
+                xml.append("          <member>\n")
+                   .append("            <OutputKey>Output").append(o).append("</OutputKey>\n")
+                   .append("            <OutputValue>https://example-").append(i).append(".com/").append(o).append("</OutputValue>\n")
+                   .append("            <Description>The URL of endpoint ").append(o).append("</Description>\n")
+                   .append("          </member>\n");
+            }
+            xml.append("        </Outputs>\n")
+               .append("        <Tags>\n")
+               .append("          <member>\n")
+               .append("            <Key>team</Key>\n")
+               .append("            <Value>inventory</Value>\n")
+               .append("          </member>\n")
+               .append("        </Tags>\n")
+               .append("      </member>\n");
+        }
+        xml.append("    </Stacks>\n")
+           .append("  </DescribeStacksResult>\n")
+           .append("  <ResponseMetadata>\n")
+           .append("    <RequestId>b9b4b068-3a41-11e5-94eb-example</RequestId>\n")
+           .append("  </ResponseMetadata>\n")
+           .append("</DescribeStacksResponse>\n");
+        return toBytes(xml);
+    }
+
+    /**
+     * Returns an IAM ListRoles response with the specified number of roles.
+     */
+    public static byte[] iamListRoles(int roles) {
+        StringBuilder xml = new StringBuilder(roles * 1024);
+        xml.append("<ListRolesResponse xmlns=\"https://iam.amazonaws.com/doc/2010-05-08/\">\n")
+           .append("  <ListRolesResult>\n")
+           .append("    <IsTruncated>false</IsTruncated>\n")
+           .append("    <Roles>\n");
+        for (int i = 0; i < roles; i++) {
+            xml.append("      <member>\n")
+               .append("        <Path>/application_abc/component_xyz/</Path>\n")
+               .append("        <Arn>arn:aws:iam::123456789012:role/application_abc/component_xyz/Role").append(i).append("</Arn>\n")
+               .append("        <RoleName>Role").append(i).append("</RoleName>\n")
+               .append("        <AssumeRolePolicyDocument>%7B%22Version%22%3A%222008-10-17%22%2C%22Statement%22%3A%5B%7B%22Effect%22%3A%22Allow%22%2C%22Principal%22%3A%7B%22Service%22%3A%5B%22ec2.amazonaws.com%22%5D%7D%2C%22Action%22%3A%5B%22sts%3AAssumeRole%22%5D%7D%5D%7D</AssumeRolePolicyDocument>\n")
+               .append("        <CreateDate>2015-10-01T12:00:00Z</CreateDate>\n")
+               .append("        <RoleId>AROADBQP57FF2AEXAMPLE").append(i).append("</RoleId>\n")
+               .append("      </member>\n");
+        }
+        xml.append("    </Roles>\n")
+           .append("  </ListRolesResult>\n")
+           .append("  <ResponseMetadata>\n")
+           .append("    <RequestId>20f7279f-99ee-11e1-a4c3-example</RequestId>\n")
+           .append("  </ResponseMetadata>\n")
+           .append("</ListRolesResponse>\n");
+        return toBytes(xml);
+    }
+
+    /**
+     * Returns an S3 ListObjects response with the specified number of keys.
+     */
+    public static byte[] s3ListObjects(int keys) {
+        StringBuilder xml = new StringBuilder(keys * 512);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+           .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+           .append("<Name>example-bucket</Name><Prefix>logs/</Prefix><Marker></Marker>")
+           .append("<MaxKeys>").append(keys).append("</MaxKeys><IsTruncated>false</IsTruncated>");
+        for (int i = 0; i < keys; i++) {
+            xml.append("<Contents>")
+               .append("<Key>logs/2015/10/01/host-").append(i % 64).append("/access-").append(hex(i)).append(".log.gz</Key>")
+               .append("<LastModified>2015-10-01T12:00:00.000Z</LastModified>")
+               .append("<ETag>&quot;").append(hex(i)).append("fba9dede5f27731c9771645a39863328&quot;</ETag>")
+               .append("<Size>").append(1024 + i).append("</Size>")
+               .append("<Owner><ID>75aa57f09aa0c8caeab4f8c24e99d10f8e7faeebf76c078efc7c6caea54ba06a</ID>")
+               .append("<DisplayName>owner</DisplayName></Owner>")
+               .append("<StorageClass>STANDARD</StorageClass>")
+               .append("</Contents>");
+        }
+        xml.append("</ListBucketResult>");
+        return toBytes(xml);
+    }
+
+    private static String hex(int i) {
+        return String.format("%08x", i);
+    }
+
+    private static byte[] toBytes(StringBuilder xml) {
+        return xml.toString().getBytes(StringUtils.UTF8);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks.transform;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.services.cloudformation.model.transform.DescribeStacksResultStaxUnmarshaller;
+import com.amazonaws.services.ec2.model.transform.DescribeInstancesResultStaxUnmarshaller;
+import com.amazonaws.services.identitymanagement.model.transform.ListRolesResultStaxUnmarshaller;
+import com.amazonaws.transform.StaxUnmarshallerContext;
+import com.amazonaws.transform.StaxUnmarshallerContextFactory;
+import com.amazonaws.transform.Unmarshaller;
+
+/**
+ * Measures the throughput of unmarshalling large XML responses with the event
+ * and the cursor APIs of StAX, the same way
+ * {@link com.amazonaws.http.StaxResponseHandler} does. The StAX implementation
+ * is whichever {@link javax.xml.stream.XMLInputFactory#newInstance()} finds,
+ * so put Woodstox or Aalto on the classpath to measure them.
+ * <pre>
+ * mvn -P benchmarks package
+ * java -jar aws-java-sdk-benchmarks/target/benchmarks.jar StaxUnmarshallerBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StaxUnmarshallerBenchmark {
+
+    public enum Response {
+        EC2_DESCRIBE_INSTANCES {
+            @Override
+            byte[] content(int size) {
+                return SampleXmlResponses.ec2DescribeInstances(size);
+            }
+
+            @Override
+            Unmarshaller<?, StaxUnmarshallerContext> unmarshaller() {
+                return DescribeInstancesResultStaxUnmarshaller.getInstance();
+            }
+        },
+        CLOUDFORMATION_DESCRIBE_STACKS {
+            @Override
+            byte[] content(int size) {
+                return SampleXmlResponses.cloudFormationDescribeStacks(size);
+            }
+
+            @Override
+            Unmarshaller<?, StaxUnmarshallerContext> unmarshaller() {
+                return DescribeStacksResultStaxUnmarshaller.getInstance();
+            }
+        },
+        IAM_LIST_ROLES {
+            @Override
+            byte[] content(int size) {
+                return SampleXmlResponses.iamListRoles(size);
+            }
+
+            @Override
+            Unmarshaller<?, StaxUnmarshallerContext> unmarshaller() {
+                return ListRolesResultStaxUnmarshaller.getInstance();
+            }
+        };
+
+        abstract byte[] content(int size);
+
+        abstract Unmarshaller<?, StaxUnmarshallerContext> unmarshaller();
+    }
+
+    @Param
+    public Response response;
+
+    /** The number of instances, stacks or roles in the response. */
+    @Param({"1000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean cursorParsing;
+
+    private byte[] content;
+    private Unmarshaller<?, StaxUnmarshallerContext> unmarshaller;
+    private StaxUnmarshallerContextFactory contextFactory;
+
+    @Setup
+    public void setUp() {
+        content = response.content(size);
+        unmarshaller = response.unmarshaller();
+        contextFactory = new StaxUnmarshallerContextFactory(cursorParsing);
+    }
+
+    @Benchmark
+    public Object unmarshall() throws Exception {
+        StaxUnmarshallerContext context = contextFactory.createContext(
+                new ByteArrayInputStream(content), null);
+        try {
+            context.registerMetadataExpression("ResponseMetadata/RequestId", 2, ResponseMetadata.AWS_REQUEST_ID);
+            context.registerMetadataExpression("requestId", 2, ResponseMetadata.AWS_REQUEST_ID);
+            return unmarshaller.unmarshall(context);
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -38,6 +38,8 @@ import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.amazonaws.util.AWSRequestMetricsLightweightSupport;
 import com.amazonaws.util.AwsHostNameUtils;
 import com.amazonaws.util.Classes;
 import com.amazonaws.util.HttpUtils;
@@ -454,8 +456,30 @@ public abstract class AmazonWebServiceClient {
     }
 
     protected ExecutionContext createExecutionContext(AmazonWebServiceRequest req) {
-        boolean isMetricsEnabled = isRequestMetricsEnabled(req) || isProfilingEnabled();
-        return new ExecutionContext(requestHandler2s, isMetricsEnabled, this);
+        return new ExecutionContext(requestHandler2s, createRequestMetrics(req), this);
+    }
+
+    /**
+     * Returns the request metrics for the execution of the given request:
+     * full support if profiling is enabled or the request metric collector
+     * needs it, lightweight support if the request metric collector is
+     * {@linkplain RequestMetricCollector#isLightweight() lightweight}, or the
+     * minimal support if request metric collection is disabled.
+     */
+    protected final AWSRequestMetrics createRequestMetrics(AmazonWebServiceRequest req) {
+        if (isProfilingEnabled()) {
+            return new AWSRequestMetricsFullSupport();
+        }
+        if (!isRequestMetricsEnabled(req)) {
+            return new AWSRequestMetrics();
+        }
+        RequestMetricCollector c = req.getRequestMetricCollector(); // request level collector
+        if (c == null) {
+            c = requestMetricCollector();
+        }
+        return c != null && c.isLightweight()
+             ? new AWSRequestMetricsLightweightSupport()
+             : new AWSRequestMetricsFullSupport();
     }
 
     protected final ExecutionContext createExecutionContext(Request<?> req) {
@@ -112,6 +112,22 @@ public class SDKGlobalConfiguration {
     public static final String ENFORCE_S3_SIGV4_SYSTEM_PROPERTY =
         "com.amazonaws.services.s3.enforceV4";
 
+    /**
+     * System property used when starting up the JVM to make the StAX
+     * unmarshallers parse XML service responses with the cursor API of
+     * {@link javax.xml.stream.XMLStreamReader} instead of the event API, which
+     * allocates an event object per token.
+     *
+     * <pre>
+     * Example:
+     *  -Dcom.amazonaws.sdk.enableStaxCursorParsing
+     * </pre>
+     *
+     * @see com.amazonaws.transform.StaxUnmarshallerContextFactory
+     */
+    public static final String ENABLE_STAX_CURSOR_PARSING_SYSTEM_PROPERTY =
+        "com.amazonaws.sdk.enableStaxCursorParsing";
+
     /**
      * @deprecated with {@link AmazonWebServiceRequest#getRequestClientOptions()}
      * and {@link RequestClientOptions#setReadLimit(int)}.
@@ -28,11 +28,11 @@ import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_EXPIRES;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SECURITY_TOKEN;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNATURE;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNED_HEADER;
+import static com.amazonaws.util.StringUtils.UTF8;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -46,7 +46,7 @@ import com.amazonaws.SignableRequest;
 import com.amazonaws.auth.internal.AWS4SignerRequestParams;
 import com.amazonaws.auth.internal.AWS4SignerUtils;
 import com.amazonaws.auth.internal.SignerKey;
-import com.amazonaws.internal.FIFOCache;
+import com.amazonaws.auth.internal.SignerKeyCache;
 import com.amazonaws.log.InternalLogApi;
 import com.amazonaws.log.InternalLogFactory;
 import com.amazonaws.util.BinaryUtils;
@@ -61,7 +61,13 @@ public class AWS4Signer extends AbstractAWSSigner implements
 
     protected static final InternalLogApi log = InternalLogFactory.getLog(AWS4Signer.class);
     private static final int SIGNER_CACHE_MAX_SIZE = 300;
-    private static final FIFOCache<SignerKey> signerCache = new FIFOCache<SignerKey>(SIGNER_CACHE_MAX_SIZE);
+    private static final SignerKeyCache signerCache = new SignerKeyCache(SIGNER_CACHE_MAX_SIZE);
+
+    /**
+     * Large enough for the canonical request of a typical request, so that
+     * the builder rarely has to grow.
+     */
+    private static final int CANONICAL_REQUEST_INITIAL_CAPACITY = 512;
 
     /**
      * Service name override for use when the endpoint can't be used to
@@ -279,18 +285,25 @@ public class AWS4Signer extends AbstractAWSSigner implements
         final String path = SdkHttpUtils.appendUri(
                 request.getEndpoint().getPath(), request.getResourcePath());
 
-        final StringBuilder canonicalRequestBuilder = new StringBuilder(request
-                .getHttpMethod().toString());
+        final List<String> sortedHeaders = getSortedHeaders(request);
 
-        canonicalRequestBuilder.append(LINE_SEPARATOR)
+        // The headers are written straight into the canonical request rather
+        // than through intermediate strings.
+        final StringBuilder canonicalRequestBuilder = new StringBuilder(
+                CANONICAL_REQUEST_INITIAL_CAPACITY);
+
+        canonicalRequestBuilder.append(request.getHttpMethod().toString())
+                .append(LINE_SEPARATOR)
                 // This would optionally double url-encode the resource path
                 .append(getCanonicalizedResourcePath(path, doubleUrlEncode))
                 .append(LINE_SEPARATOR)
                 .append(getCanonicalizedQueryString(request))
-                .append(LINE_SEPARATOR)
-                .append(getCanonicalizedHeaderString(request))
-                .append(LINE_SEPARATOR)
-                .append(getSignedHeadersString(request)).append(LINE_SEPARATOR)
+                .append(LINE_SEPARATOR);
+        appendCanonicalizedHeaders(canonicalRequestBuilder, sortedHeaders,
+                request.getHeaders());
+        canonicalRequestBuilder.append(LINE_SEPARATOR);
+        appendSignedHeaders(canonicalRequestBuilder, sortedHeaders);
+        canonicalRequestBuilder.append(LINE_SEPARATOR)
                 .append(contentSha256);
 
         final String canonicalRequest = canonicalRequestBuilder.toString();
@@ -335,19 +348,18 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private final byte[] deriveSigningKey(AWSCredentials credentials,
             AWS4SignerRequestParams signerRequestParams) {
 
-        final String cacheKey = computeSigningCacheKeyName(credentials,
-                signerRequestParams);
+        final String secretKey = credentials.getAWSSecretKey();
+        final String regionName = signerRequestParams.getRegionName();
+        final String serviceName = signerRequestParams.getServiceName();
         final long daysSinceEpochSigningDate = DateUtils
                 .numberOfDaysSinceEpoch(signerRequestParams
                         .getSigningDateTimeMilli());
 
-        SignerKey signerKey = signerCache.get(cacheKey);
+        SignerKey signerKey = signerCache.get(secretKey, regionName,
+                serviceName, daysSinceEpochSigningDate);
 
         if (signerKey != null) {
-            if (daysSinceEpochSigningDate == signerKey
-                    .getNumberOfDaysSinceEpoch()) {
-                return signerKey.getSigningKey();
-            }
+            return signerKey.getSigningKey();
         }
         if (log.isDebugEnabled()) {
             log.debug("Generating a new signing key as the signing key not available in the cache for the date "
@@ -355,25 +367,18 @@ public class AWS4Signer extends AbstractAWSSigner implements
         }
         byte[] signingKey = newSigningKey(credentials,
                 signerRequestParams.getFormattedSigningDate(),
-                signerRequestParams.getRegionName(),
-                signerRequestParams.getServiceName());
-        signerCache.add(cacheKey, new SignerKey(
+                regionName, serviceName);
+        signerCache.add(secretKey, regionName, serviceName, new SignerKey(
                 daysSinceEpochSigningDate, signingKey));
         return signingKey;
     }
 
     /**
-     * Computes the name to be used to reference the signing key in the cache.
+     * Returns the cache of signing keys shared by all AWS4 signers, whose
+     * hit and miss counts show how effective it is.
      */
-    private final String computeSigningCacheKeyName(AWSCredentials credentials,
-            AWS4SignerRequestParams signerRequestParams) {
-        final StringBuilder hashKeyBuilder = new StringBuilder(
-                credentials.getAWSSecretKey());
-
-        return hashKeyBuilder.append("-")
-                .append(signerRequestParams.getRegionName())
-                .append("-")
-                .append(signerRequestParams.getServiceName()).toString();
+    static SignerKeyCache getSignerCache() {
+        return signerCache;
     }
 
     /**
@@ -384,7 +389,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
      */
     protected final byte[] computeSignature(String stringToSign,
             byte[] signingKey, AWS4SignerRequestParams signerRequestParams) {
-        return sign(stringToSign.getBytes(Charset.forName("UTF-8")), signingKey,
+        return sign(stringToSign.getBytes(UTF8), signingKey,
                 SigningAlgorithm.HmacSHA256);
     }
 
@@ -443,40 +448,83 @@ public class AWS4Signer extends AbstractAWSSigner implements
     }
 
     protected String getCanonicalizedHeaderString(SignableRequest<?> request) {
-        final List<String> sortedHeaders = new ArrayList<String>(request.getHeaders()
-                .keySet());
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        StringBuilder buffer = new StringBuilder();
+        appendCanonicalizedHeaders(buffer, getSortedHeaders(request),
+                request.getHeaders());
+        return buffer.toString();
+    }
 
-        final Map<String, String> requestHeaders = request.getHeaders();
+    protected String getSignedHeadersString(SignableRequest<?> request) {
         StringBuilder buffer = new StringBuilder();
+        appendSignedHeaders(buffer, getSortedHeaders(request));
+        return buffer.toString();
+    }
+
+    private static List<String> getSortedHeaders(SignableRequest<?> request) {
+        final List<String> sortedHeaders = new ArrayList<String>(request
+                .getHeaders().keySet());
+        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        return sortedHeaders;
+    }
+
+    private static void appendCanonicalizedHeaders(StringBuilder buffer,
+            List<String> sortedHeaders, Map<String, String> requestHeaders) {
         for (String header : sortedHeaders) {
-            String key = header.toLowerCase().replaceAll("\\s+", " ");
-            String value = requestHeaders.get(header);
+            appendCompactedString(buffer, header.toLowerCase());
+            buffer.append(":");
 
-            buffer.append(key).append(":");
+            String value = requestHeaders.get(header);
             if (value != null) {
-                buffer.append(value.replaceAll("\\s+", " "));
+                appendCompactedString(buffer, value);
             }
 
             buffer.append("\n");
         }
-
-        return buffer.toString();
     }
 
-    protected String getSignedHeadersString(SignableRequest<?> request) {
-        final List<String> sortedHeaders = new ArrayList<String>(request
-                .getHeaders().keySet());
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
-
-        StringBuilder buffer = new StringBuilder();
+    private static void appendSignedHeaders(StringBuilder buffer,
+            List<String> sortedHeaders) {
+        boolean first = true;
         for (String header : sortedHeaders) {
-            if (buffer.length() > 0)
+            if (!first)
                 buffer.append(";");
             buffer.append(header.toLowerCase());
+            first = false;
         }
+    }
 
-        return buffer.toString();
+    /**
+     * Appends the given string to the buffer, replacing each run of white
+     * space with a single space. This is equivalent to
+     * {@code source.replaceAll("\\s+", " ")}, without compiling a regular
+     * expression for every header.
+     */
+    private static void appendCompactedString(StringBuilder buffer,
+            String source) {
+        boolean previousIsWhiteSpace = false;
+        int length = source.length();
+
+        for (int i = 0; i < length; i++) {
+            char ch = source.charAt(i);
+            if (isWhiteSpace(ch)) {
+                if (!previousIsWhiteSpace) {
+                    buffer.append(' ');
+                    previousIsWhiteSpace = true;
+                }
+            } else {
+                buffer.append(ch);
+                previousIsWhiteSpace = false;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given character is matched by {@code \s} in a
+     * regular expression.
+     */
+    private static boolean isWhiteSpace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\013'
+                || ch == '\f' || ch == '\r';
     }
 
     protected void addHostHeader(SignableRequest<?> request) {
@@ -572,7 +620,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private byte[] newSigningKey(AWSCredentials credentials,
             String dateStamp, String regionName, String serviceName) {
         byte[] kSecret = ("AWS4" + credentials.getAWSSecretKey())
-                .getBytes(Charset.forName("UTF-8"));
+                .getBytes(UTF8);
         byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         byte[] kService = sign(serviceName, kRegion,
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * A bounded cache of AWS4 signing keys, keyed on the secret key, region and
+ * service they were derived for.
+ * <p>
+ * The cache is split into independently locked stripes, each evicting its
+ * least recently used entry when full. A signing key is only valid for the
+ * day it was derived for, so a key cached for any other day is treated as a
+ * miss, and keys of earlier days are evicted first when a stripe fills up.
+ */
+@ThreadSafe
+public final class SignerKeyCache {
+
+    private static final int MAX_STRIPES = 16;
+
+    private final Stripe[] stripes;
+    private final int maxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param maxSize
+     *            the maximum number of entries of the cache
+     */
+    public SignerKeyCache(int maxSize) {
+        this(maxSize, Math.min(MAX_STRIPES, maxSize));
+    }
+
+    SignerKeyCache(int maxSize, int stripeCount) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize " + maxSize
+                    + " must be at least 1");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // Spread maxSize across the stripes without exceeding it
+            int capacity = maxSize / stripeCount
+                    + (i < maxSize % stripeCount ? 1 : 0);
+            stripes[i] = new Stripe(capacity);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the signing key derived from the given parameters for the
+     * given day, or null if no such key is cached.
+     */
+    public SignerKey get(String secretKey, String regionName,
+            String serviceName, long numberOfDaysSinceEpoch) {
+        Key key = new Key(secretKey, regionName, serviceName);
+        SignerKey signerKey = stripeFor(key).get(key);
+
+        if (signerKey != null
+                && signerKey.getNumberOfDaysSinceEpoch() == numberOfDaysSinceEpoch) {
+            hitCount.incrementAndGet();
+            return signerKey;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the given signing key, replacing any key previously cached for
+     * the same parameters.
+     */
+    public void add(String secretKey, String regionName, String serviceName,
+            SignerKey signerKey) {
+        Key key = new Key(secretKey, regionName, serviceName);
+        stripeFor(key).put(key, signerKey);
+    }
+
+    /**
+     * Returns the number of lookups which found a signing key for the
+     * requested day.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups which did not find a signing key for the
+     * requested day.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the current size of the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the maximum size of the cache.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private Stripe stripeFor(Key key) {
+        // Spread the hash so that keys differing only in high bits still
+        // land in different stripes
+        int h = key.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return stripes[(h & 0x7fffffff) % stripes.length];
+    }
+
+    /**
+     * The parameters a signing key is derived from, other than the date.
+     */
+    private static final class Key {
+        private final String secretKey;
+        private final String regionName;
+        private final String serviceName;
+        private final int hashCode;
+
+        Key(String secretKey, String regionName, String serviceName) {
+            this.secretKey = secretKey;
+            this.regionName = regionName;
+            this.serviceName = serviceName;
+
+            int h = secretKey.hashCode();
+            h = 31 * h + (regionName == null ? 0 : regionName.hashCode());
+            h = 31 * h + (serviceName == null ? 0 : serviceName.hashCode());
+            this.hashCode = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hashCode == other.hashCode
+                    && secretKey.equals(other.secretKey)
+                    && equal(regionName, other.regionName)
+                    && equal(serviceName, other.serviceName);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    /**
+     * A least recently used map of signing keys, guarded by its own lock.
+     */
+    private static final class Stripe {
+        private final int capacity;
+        private final LinkedHashMap<Key, SignerKey> map;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<Key, SignerKey>(16, 0.75f, true);
+        }
+
+        synchronized SignerKey get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, SignerKey signerKey) {
+            map.put(key, signerKey);
+            if (map.size() > capacity) {
+                evictEarlierDays(signerKey.getNumberOfDaysSinceEpoch());
+            }
+            if (map.size() > capacity) {
+                Iterator<Key> eldest = map.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        /**
+         * Removes the keys derived for days before the given one, which
+         * can no longer be used to sign current requests.
+         */
+        private void evictEarlierDays(long numberOfDaysSinceEpoch) {
+            Iterator<Map.Entry<Key, SignerKey>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getValue().getNumberOfDaysSinceEpoch() < numberOfDaysSinceEpoch) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -48,6 +48,18 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -151,6 +163,21 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Schedules the resubmission of asynchronous executions once their retry
+     * pause has elapsed; shared by all clients since it only hands tasks over
+     * to the executor of each execution.
+     */
+    private static final ScheduledExecutorService RETRY_SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "AmazonHttpClient-retry-scheduler");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
     /** Internal client for sending HTTP requests */
     private final HttpClient httpClient;
 
@@ -289,48 +316,69 @@ public class AmazonHttpClient {
             ExecutionContext executionContext) {
         if (executionContext == null)
             throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
-        final List<RequestHandler2> requestHandler2s = requestHandler2s(request, executionContext);
-        AmazonWebServiceRequest awsreq = request.getOriginalRequest();
-        ProgressListener listener = awsreq.getGeneralProgressListener();
-        // add custom headers
-        Map<String, String> customHeaders = awsreq.getCustomRequestHeaders();
-        if (customHeaders != null) {
-            request.getHeaders().putAll(customHeaders);
-        }
-        // add custom query parameters
-        Map<String, List<String>> customQueryParams = awsreq.getCustomQueryParameters();
-        if (customQueryParams != null) {
-            mergeQueryParameters(request, customQueryParams);
-        }
-        final AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
-        Response<T> response = null;
-        final InputStream origContent = request.getContent();
-        final InputStream toBeClosed = beforeRequest(request); // for progress tracking
-        // make "notCloseable", so reset would work with retries
-        final InputStream notCloseable = (toBeClosed == null)
-            ? null
-            : ReleasableInputStream.wrap(toBeClosed).disableClose()
-            ;
-        request.setContent(notCloseable);
+        final RequestExecution<T> execution = new RequestExecution<T>(request,
+                responseHandler, errorResponseHandler, executionContext);
         try {
-            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
-            response = executeHelper(request, responseHandler,
-                    errorResponseHandler, executionContext);
-            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_SUCCESS_EVENT);
-            TimingInfo timingInfo = awsRequestMetrics.getTimingInfo().endTiming();
-            afterResponse(request, requestHandler2s, response, timingInfo);
-            return response;
+            execution.start();
+            Response<T> response;
+            while ((response = execution.attempt()) == null) {
+                // retry
+            }
+            return execution.succeed(response);
         } catch (AmazonClientException e) {
-            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_FAILED_EVENT);
-            afterError(request, response, requestHandler2s, e);
+            execution.fail(e);
             throw e;
         } finally {
-            // Always close so any progress tracking would get the final events propagated.
-            closeQuietly(toBeClosed, log);
-            request.setContent(origContent); // restore the original content
+            execution.release();
         }
     }
 
+    /**
+     * Executes the request asynchronously and returns a future for the result.
+     * <p>
+     * Each attempt (signing, sending the HTTP request and unmarshalling the
+     * response) runs as a task on the given executor, and blocks that thread
+     * for the whole exchange as {@link #execute} does. Only the back-off delay
+     * between retries holds no thread: the next attempt is scheduled to be
+     * submitted to the executor once the delay computed by the configured
+     * {@link RetryPolicy} has elapsed. The returned future fails with an
+     * {@link java.util.concurrent.ExecutionException} whose cause is the same
+     * exception {@link #execute} would have thrown.
+     * <p>
+     * Not used by the service clients yet, so kept package-private until an
+     * async client is built on it.
+     *
+     * @param request
+     *            The AmazonWebServices request to send to the remote server
+     * @param responseHandler
+     *            A response handler to accept a successful response from the
+     *            remote server
+     * @param errorResponseHandler
+     *            A response handler to accept an unsuccessful response from the
+     *            remote server
+     * @param executionContext
+     *            Additional information about the context of this web service
+     *            call
+     * @param executor
+     *            The executor on which each attempt is run
+     */
+    <T> Future<Response<T>> executeAsync(Request<?> request,
+            HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            ExecutionContext executionContext,
+            Executor executor) {
+        if (executionContext == null)
+            throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
+        if (executor == null)
+            throw new IllegalArgumentException("executor must not be null");
+        final AsyncRequestExecution<T> future = new AsyncRequestExecution<T>(
+                new RequestExecution<T>(request, responseHandler,
+                        errorResponseHandler, executionContext),
+                executor);
+        future.submit();
+        return future;
+    }
+
     /**
      * Merge query parameters into the given request.
      */
@@ -437,41 +485,97 @@ public class AmazonHttpClient {
     }
 
     /**
-     * Internal method to execute the HTTP method given.
+     * The state of one call to {@link #execute} or {@link #executeAsync},
+     * carried across all of its attempts. Each call to {@link #attempt()}
+     * sends the request once and returns null if it should be retried.
      */
-    private <T> Response<T> executeHelper(final Request<?> request,
-            HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
-            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
-            final ExecutionContext executionContext) {
-        /*
-         * add the service endpoint to the logs. You can infer service name from
-         * service endpoint
-         */
-        final AWSRequestMetrics awsRequestMetrics =
-            executionContext.getAwsRequestMetrics()
-            .addPropertyWith(ServiceName, request.getServiceName())
-            .addPropertyWith(ServiceEndpoint, request.getEndpoint())
-            ;
-        // Apply whatever request options we know how to handle, such as
-        // user-agent.
-        setUserAgent(request);
-        // Make a copy of the original request params and headers so that we can
-        // permute it in this loop and start over with the original every time.
-        final Map<String, List<String>> originalParameters =
-            new LinkedHashMap<String, List<String>>(request.getParameters());
-        final Map<String, String> originalHeaders =
-            new HashMap<String, String>(request.getHeaders());
-        // Always mark the input stream before execution.
-        final ExecOneRequestParams p = new ExecOneRequestParams();
-        final InputStream originalContent = request.getContent();
-        if (originalContent != null && originalContent.markSupported()
-                && !(originalContent instanceof BufferedInputStream)) {
-            // Mark only once for non-BufferedInputStream
+    private final class RequestExecution<T> {
+        private final Request<?> request;
+        private final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler;
+        private final HttpResponseHandler<AmazonServiceException> errorResponseHandler;
+        private final ExecutionContext executionContext;
+        private final List<RequestHandler2> requestHandler2s;
+        private final ProgressListener listener;
+        private final InputStream origContent;
+        private final InputStream toBeClosed;
+        private final ExecOneRequestParams p = new ExecOneRequestParams();
+
+        private AWSRequestMetrics awsRequestMetrics;
+        private Map<String, List<String>> originalParameters;
+        private Map<String, String> originalHeaders;
+        private InputStream originalContent;
+        private Response<T> response;
+
+        RequestExecution(Request<?> request,
+                HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                ExecutionContext executionContext) {
+            this.request = request;
+            this.responseHandler = responseHandler;
+            this.errorResponseHandler = errorResponseHandler;
+            this.executionContext = executionContext;
+            this.requestHandler2s = requestHandler2s(request, executionContext);
             AmazonWebServiceRequest awsreq = request.getOriginalRequest();
-            final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
-            originalContent.mark(readLimit);
+            this.listener = awsreq.getGeneralProgressListener();
+            // add custom headers
+            Map<String, String> customHeaders = awsreq.getCustomRequestHeaders();
+            if (customHeaders != null) {
+                request.getHeaders().putAll(customHeaders);
+            }
+            // add custom query parameters
+            Map<String, List<String>> customQueryParams = awsreq.getCustomQueryParameters();
+            if (customQueryParams != null) {
+                mergeQueryParameters(request, customQueryParams);
+            }
+            this.origContent = request.getContent();
+            this.toBeClosed = beforeRequest(request); // for progress tracking
+            // make "notCloseable", so reset would work with retries
+            final InputStream notCloseable = (toBeClosed == null)
+                ? null
+                : ReleasableInputStream.wrap(toBeClosed).disableClose()
+                ;
+            request.setContent(notCloseable);
+        }
+
+        /**
+         * Prepares the request for its first attempt.
+         */
+        void start() {
+            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
+            /*
+             * add the service endpoint to the logs. You can infer service name from
+             * service endpoint
+             */
+            awsRequestMetrics =
+                executionContext.getAwsRequestMetrics()
+                .addPropertyWith(ServiceName, request.getServiceName())
+                .addPropertyWith(ServiceEndpoint, request.getEndpoint())
+                ;
+            // Apply whatever request options we know how to handle, such as
+            // user-agent.
+            setUserAgent(request);
+            // Make a copy of the original request params and headers so that we can
+            // permute it in each attempt and start over with the original every time.
+            originalParameters =
+                new LinkedHashMap<String, List<String>>(request.getParameters());
+            originalHeaders =
+                new HashMap<String, String>(request.getHeaders());
+            // Always mark the input stream before execution.
+            originalContent = request.getContent();
+            if (originalContent != null && originalContent.markSupported()
+                    && !(originalContent instanceof BufferedInputStream)) {
+                // Mark only once for non-BufferedInputStream
+                AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+                final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
+                originalContent.mark(readLimit);
+            }
         }
-        while (true) {
+
+        /**
+         * Sends the request once; returns the response, or null if the
+         * request should be retried.
+         */
+        Response<T> attempt() {
             if (originalContent instanceof BufferedInputStream && originalContent.markSupported()) {
                 // Mark everytime for BufferedInputStream, since the marker could
                 // have been invalidated
@@ -502,11 +606,9 @@ public class AmazonHttpClient {
                 request.setContent(originalContent);
             }
             try {
-                Response<T> response = executeOneRequest(request, responseHandler,
+                return executeOneRequest(request, responseHandler,
                     errorResponseHandler, executionContext, awsRequestMetrics,
                     p);
-                if (response != null)
-                    return response;
             } catch (IOException ioe) {
                 if (log.isInfoEnabled()) {
                     log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
@@ -525,6 +627,7 @@ public class AmazonHttpClient {
                 }
                 // Cache the retryable exception
                 p.retriedException = ace;
+                return null;
             } catch(RuntimeException e) {
                 throw lastReset(
                         captureExceptionMetrics(e, awsRequestMetrics),
@@ -554,7 +657,232 @@ public class AmazonHttpClient {
                     }
                 }
             }
-        } /* end while (true) */
+        }
+
+        /**
+         * Returns the delay in milliseconds to wait out before the next
+         * attempt, and records that the caller will do so instead of
+         * {@link #attempt()}. Returns -1 if the next attempt should not be
+         * delayed, such as when following a redirect.
+         */
+        long deferRetryPause() {
+            if (p.retriedException == null)
+                return -1;
+            p.retryPauseDeferred = true;
+            awsRequestMetrics.startEvent(RetryPauseTime);
+            return delayBeforeNextRetry(request.getOriginalRequest(),
+                    p.retriedException, p.requestCount + 1,
+                    config.getRetryPolicy());
+        }
+
+        /**
+         * Marks the end of a retry pause previously returned by
+         * {@link #deferRetryPause()}.
+         */
+        void endRetryPause() {
+            awsRequestMetrics.endEvent(RetryPauseTime);
+        }
+
+        Response<T> succeed(Response<T> response) {
+            this.response = response;
+            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_SUCCESS_EVENT);
+            TimingInfo timingInfo = executionContext.getAwsRequestMetrics()
+                    .getTimingInfo().endTiming();
+            afterResponse(request, requestHandler2s, response, timingInfo);
+            return response;
+        }
+
+        void fail(AmazonClientException e) {
+            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_FAILED_EVENT);
+            afterError(request, response, requestHandler2s, e);
+        }
+
+        /**
+         * Aborts the HTTP request of the attempt in progress, if any.
+         */
+        void abort() {
+            HttpRequestBase apacheRequest = p.apacheRequest;
+            if (apacheRequest != null)
+                apacheRequest.abort();
+        }
+
+        void release() {
+            // Always close so any progress tracking would get the final events propagated.
+            closeQuietly(toBeClosed, log);
+            request.setContent(origContent); // restore the original content
+        }
+    }
+
+    /**
+     * Drives a {@link RequestExecution} on an executor, one attempt per task,
+     * and exposes its outcome as a future. The execution is released once the
+     * future is done and no attempt is in progress, so that cancelling the
+     * future never races with an attempt still using the request.
+     */
+    private static final class AsyncRequestExecution<T>
+            implements Future<Response<T>>, Runnable {
+        private final RequestExecution<T> execution;
+        private final Executor executor;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicBoolean completing = new AtomicBoolean();
+
+        private volatile boolean cancelled;
+        private volatile boolean pausing;
+        private volatile ScheduledFuture<?> pendingRetry;
+        private Response<T> result;
+        private Throwable failure;
+
+        /* Guarded by this */
+        private boolean attempting;
+        private boolean released;
+
+        AsyncRequestExecution(RequestExecution<T> execution, Executor executor) {
+            this.execution = execution;
+            this.executor = executor;
+        }
+
+        void submit() {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                execution.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (completing.get())
+                    return;
+                attempting = true;
+            }
+            Response<T> response = null;
+            Throwable error = null;
+            long retryDelay = -1;
+            try {
+                if (pausing) {
+                    pausing = false;
+                    execution.endRetryPause();
+                } else {
+                    execution.start();
+                }
+                while (!cancelled) {
+                    response = execution.attempt();
+                    if (response != null)
+                        break;
+                    retryDelay = execution.deferRetryPause();
+                    if (retryDelay >= 0)
+                        break;
+                }
+                if (response != null && !cancelled)
+                    response = execution.succeed(response);
+            } catch (AmazonClientException e) {
+                // An attempt failing because the future was cancelled is not
+                // reported as a failed request.
+                if (!cancelled)
+                    execution.fail(e);
+                error = e;
+            } catch (RuntimeException e) {
+                error = e;
+            } catch (Error e) {
+                error = e;
+            }
+            synchronized (this) {
+                attempting = false;
+            }
+            if (error != null) {
+                complete(null, error);
+            } else if (response != null) {
+                complete(response, null);
+            } else if (retryDelay >= 0 && !cancelled) {
+                pausing = true;
+                pendingRetry = RETRY_SCHEDULER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            executor.execute(AsyncRequestExecution.this);
+                        } catch (RuntimeException e) {
+                            complete(null, new AmazonClientException(
+                                    "Unable to submit the retry of the request", e));
+                        }
+                    }
+                }, retryDelay, TimeUnit.MILLISECONDS);
+            }
+            // The future may have been cancelled during the attempt
+            releaseIfIdle();
+            if (error instanceof Error)
+                throw (Error) error;
+        }
+
+        private void complete(Response<T> result, Throwable failure) {
+            if (!completing.compareAndSet(false, true))
+                return;
+            this.result = result;
+            this.failure = failure;
+            releaseIfIdle();
+            done.countDown();
+        }
+
+        /**
+         * Releases the execution if the future is done and no attempt is in
+         * progress; otherwise the attempt in progress releases it when it
+         * ends.
+         */
+        private void releaseIfIdle() {
+            synchronized (this) {
+                if (!completing.get() || attempting || released)
+                    return;
+                released = true;
+            }
+            execution.release();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone())
+                return false;
+            cancelled = true;
+            ScheduledFuture<?> retry = pendingRetry;
+            if (retry != null)
+                retry.cancel(false);
+            if (mayInterruptIfRunning)
+                execution.abort();
+            complete(null, new CancellationException());
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public Response<T> get() throws InterruptedException, ExecutionException {
+            done.await();
+            return getResult();
+        }
+
+        @Override
+        public Response<T> get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!done.await(timeout, unit))
+                throw new TimeoutException();
+            return getResult();
+        }
+
+        private Response<T> getResult() throws ExecutionException {
+            if (cancelled)
+                throw new CancellationException();
+            if (failure != null)
+                throw new ExecutionException(failure);
+            return result;
+        }
     }
 
     /**
@@ -607,6 +935,11 @@ public class AmazonHttpClient {
          * any of the content until after a response is returned to the caller.
          */
         boolean leaveHttpConnectionOpen;
+        /*
+         * True if the pause before the next retry has been waited out by the
+         * caller instead of executeOneRequest.
+         */
+        boolean retryPauseDeferred;
 
         boolean isRetry() {
             return requestCount > 1 ||
@@ -692,17 +1025,23 @@ public class AmazonHttpClient {
         if (execParams.isRetry()) {
             publishProgress(listener, ProgressEventType.CLIENT_REQUEST_RETRY_EVENT);
             // Notify the progress listener of the retry
-            awsRequestMetrics.startEvent(RetryPauseTime);
-            try {
-                // don't pause if the retry was not due to a redirection
-                // ie when retried exception is null
-                if (execParams.retriedException != null) {
-                    pauseBeforeNextRetry(request.getOriginalRequest(),
-                        execParams.retriedException, execParams.requestCount,
-                        config.getRetryPolicy());
+            if (execParams.retryPauseDeferred) {
+                // the pause has already been waited out by an asynchronous
+                // execution, without holding this thread
+                execParams.retryPauseDeferred = false;
+            } else {
+                awsRequestMetrics.startEvent(RetryPauseTime);
+                try {
+                    // don't pause if the retry was not due to a redirection
+                    // ie when retried exception is null
+                    if (execParams.retriedException != null) {
+                        pauseBeforeNextRetry(request.getOriginalRequest(),
+                            execParams.retriedException, execParams.requestCount,
+                            config.getRetryPolicy());
+                    }
+                } finally {
+                    awsRequestMetrics.endEvent(RetryPauseTime);
                 }
-            } finally {
-                awsRequestMetrics.endEvent(RetryPauseTime);
             }
         }
 
@@ -1269,6 +1608,27 @@ public class AmazonHttpClient {
                                     AmazonClientException previousException,
                                     int requestCount,
                                     RetryPolicy retryPolicy) {
+        long delay = delayBeforeNextRetry(originalRequest, previousException,
+                requestCount, retryPolicy);
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the delay in milliseconds before the next retry, as computed by
+     * the back-off strategy of the given retry policy.
+     *
+     * @see #pauseBeforeNextRetry
+     */
+    private long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                                    AmazonClientException previousException,
+                                    int requestCount,
+                                    RetryPolicy retryPolicy) {
         final int retries = requestCount // including next attempt
                             - 1          // number of attempted requests
                             - 1;         // number of attempted retries
@@ -1280,13 +1640,7 @@ public class AmazonHttpClient {
             log.debug("Retriable error detected, " +
                     "will retry in " + delay + "ms, attempt number: " + retries);
         }
-
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AmazonClientException(e.getMessage(), e);
-        }
+        return delay;
     }
 
     // SWF: Signature not yet current: 20140819T173921Z is still later than 20140819T173829Z (20140819T173329Z + 5 min.)
@@ -53,10 +53,18 @@ public class ExecutionContext {
     public ExecutionContext(List<RequestHandler2> requestHandler2s,
                             boolean isMetricEnabled,
                             AmazonWebServiceClient awsClient) {
+        this(requestHandler2s,
+             isMetricEnabled
+                 ? new AWSRequestMetricsFullSupport()
+                 : new AWSRequestMetrics(),
+             awsClient);
+    }
+
+    public ExecutionContext(List<RequestHandler2> requestHandler2s,
+                            AWSRequestMetrics awsRequestMetrics,
+                            AmazonWebServiceClient awsClient) {
         this.requestHandler2s = requestHandler2s;
-        awsRequestMetrics = isMetricEnabled
-                          ? new AWSRequestMetricsFullSupport()
-                          : new AWSRequestMetrics();
+        this.awsRequestMetrics = awsRequestMetrics;
         this.awsClient = awsClient;
     }
 
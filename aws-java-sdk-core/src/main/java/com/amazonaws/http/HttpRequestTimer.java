@@ -16,35 +16,38 @@ package com.amazonaws.http;
 
 import com.amazonaws.annotation.ThreadSafe;
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.http.timertask.HashedWheelTimer;
 import com.amazonaws.http.timertask.HttpRequestAbortTask;
 import com.amazonaws.http.timertask.HttpRequestAbortTaskTracker;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.apache.http.client.methods.HttpRequestBase;
 
 /**
  * Represents a timer class to enforce http request timeouts.
+ * <p>
+ * The abort tasks of all clients are scheduled on a single shared
+ * {@link HashedWheelTimer}, so the number of timer threads does not grow with
+ * the number of clients, and scheduling and cancelling the timeout of a
+ * request are O(1).
  */
 @ThreadSafe
 public class HttpRequestTimer {
     
-    private final ScheduledThreadPoolExecutor executor;
+    /** Resolution of the shared timer; request timeouts may fire this much late. */
+    private static final long TICK_MILLIS = 10;
+    
+    /** Number of buckets of the shared timer; one round of the wheel is ~5s. */
+    private static final int TICKS_PER_WHEEL = 512;
+    
+    private static final HashedWheelTimer SHARED_TIMER = new HashedWheelTimer(
+            TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL, "AmazonHttpClient-request-timer");
+    
     private final long requestTimeoutMillis;
     private final boolean enabled;
     
-    private static ScheduledThreadPoolExecutor createExecutor() {
-        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(5);
-        executor.setRemoveOnCancelPolicy(true);
-        executor.setKeepAliveTime(5, TimeUnit.SECONDS);
-        executor.allowCoreThreadTimeOut(true);
-        return executor;
-     }
-    
     public HttpRequestTimer(final ClientConfiguration config) {
         this.requestTimeoutMillis = config.getRequestTimeout();
         this.enabled = (requestTimeoutMillis > 0) ? true : false;
-        this.executor = enabled ? createExecutor() : null;
     }
 
     public boolean isEnabled() {
@@ -56,21 +59,23 @@ public class HttpRequestTimer {
             throw new IllegalStateException("Trying to schedule a task on a disabled timer.");
         }
         HttpRequestAbortTask timerTask = new HttpRequestAbortTask(apacheRequest);
-        ScheduledFuture<?> timerTaskFuture = executor.schedule(timerTask, requestTimeoutMillis, TimeUnit.MILLISECONDS);
-        return new HttpRequestAbortTaskTracker(timerTask, timerTaskFuture);
+        HashedWheelTimer.Timeout timeout = SHARED_TIMER.schedule(timerTask, requestTimeoutMillis, TimeUnit.MILLISECONDS);
+        return new HttpRequestAbortTaskTracker(timerTask, timeout);
     }
     
+    /**
+     * Does nothing; the timer is shared by all clients and its thread parks
+     * when no request timeout is pending.
+     */
     public void shutdown() {
-        if(executor != null) {
-            executor.shutdown();
-        }
     }
     
     /**
-     * Package-protected for unit test purposes.
+     * Package-protected for unit test purposes; returns null if the timer is
+     * disabled.
      */
-    ScheduledThreadPoolExecutor getExecutor() {
-        return executor;
+    HashedWheelTimer getTimer() {
+        return enabled ? SHARED_TIMER : null;
     }
     
 }
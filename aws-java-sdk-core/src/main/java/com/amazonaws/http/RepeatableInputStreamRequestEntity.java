@@ -38,6 +38,16 @@ import com.amazonaws.metrics.internal.ServiceMetricTypeGuesser;
  */
 class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
 
+    /**
+     * The largest buffer used to copy the content to the connection. Matches
+     * the chunk size of aws-chunked uploads, and is large enough that bulk
+     * uploads are not dominated by the per-write cost of the socket.
+     */
+    private static final int MAX_COPY_BUFFER_SIZE = 128 * 1024;
+
+    /** The buffer used to copy content of unknown length. */
+    private static final int DEFAULT_COPY_BUFFER_SIZE = 4 * 1024;
+
     /** True if the request entity hasn't been written out yet */
     private boolean firstAttempt = true;
 
@@ -100,7 +110,7 @@ class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
                         ServiceMetricType.UPLOAD_BYTE_COUNT_NAME_SUFFIX);
         if (type == null) {
             inputStreamRequestEntity =
-                new InputStreamEntity(request.getContent(), contentLength);
+                new CopyingInputStreamEntity(request.getContent(), contentLength);
         } else {
             inputStreamRequestEntity =
                 new MetricInputStreamEntity(type, request.getContent(), contentLength);
@@ -157,4 +167,49 @@ class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
         }
     }
 
+    /**
+     * An {@link InputStreamEntity} that copies its content with a buffer sized
+     * to the content, up to {@link #MAX_COPY_BUFFER_SIZE}, rather than the
+     * fixed 4KB buffer of HttpClient.
+     */
+    private static class CopyingInputStreamEntity extends InputStreamEntity {
+
+        CopyingInputStreamEntity(InputStream instream, long length) {
+            super(instream, length);
+        }
+
+        @Override
+        public void writeTo(final OutputStream outstream) throws IOException {
+            if (outstream == null) {
+                throw new IllegalArgumentException("Output stream may not be null");
+            }
+            final long length = getContentLength();
+            final InputStream instream = getContent();
+            try {
+                final byte[] buffer = new byte[length < 0
+                        ? DEFAULT_COPY_BUFFER_SIZE
+                        : (int) Math.max(1, Math.min(MAX_COPY_BUFFER_SIZE, length))];
+                int l;
+                if (length < 0) {
+                    // consume until EOF
+                    while ((l = instream.read(buffer)) != -1) {
+                        outstream.write(buffer, 0, l);
+                    }
+                } else {
+                    // consume no more than length
+                    long remaining = length;
+                    while (remaining > 0) {
+                        l = instream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (l == -1) {
+                            break;
+                        }
+                        outstream.write(buffer, 0, l);
+                        remaining -= l;
+                    }
+                }
+            } finally {
+                instream.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.timertask;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * A hashed wheel timer for timeouts that are usually cancelled before they
+ * expire, such as http request timeouts.
+ * <p>
+ * Scheduling and cancelling a timeout are O(1) and never block: both only
+ * append to a concurrent queue, which the single worker thread drains on its
+ * next tick. The worker thread is started on the first call to
+ * {@link #schedule}, and parks whenever no timeout is pending, so an idle
+ * timer costs no CPU. Expired tasks are run on the worker thread and must
+ * therefore be short.
+ * <p>
+ * A timeout expires at the first tick after its deadline, so it can fire up
+ * to one tick duration late.
+ */
+@ThreadSafe
+public class HashedWheelTimer {
+
+    private static final Log log = LogFactory.getLog(HashedWheelTimer.class);
+
+    private static final int WORKER_INIT = 0;
+    private static final int WORKER_STARTED = 1;
+    private static final int WORKER_SHUTDOWN = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final String threadName;
+
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    /* Timeouts scheduled and not yet expired or removed by the worker. */
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_INIT);
+
+    private volatile Thread workerThread;
+
+    /**
+     * @param tickDuration
+     *            the interval between two ticks of the wheel
+     * @param unit
+     *            the unit of the tick duration
+     * @param ticksPerWheel
+     *            the number of buckets of the wheel; rounded up to a power of
+     *            two
+     * @param threadName
+     *            the name of the worker thread
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit,
+            int ticksPerWheel, String threadName) {
+        if (tickDuration <= 0)
+            throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30))
+            throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+        int size = 1;
+        while (size < ticksPerWheel)
+            size <<= 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+            wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.threadName = threadName;
+    }
+
+    /**
+     * Schedules the given task to be run on the worker thread after the given
+     * delay, unless the returned timeout is cancelled first.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null)
+            throw new IllegalArgumentException("task must not be null");
+        start();
+        Timeout timeout = new Timeout(this, task,
+                System.nanoTime() + unit.toNanos(Math.max(delay, 0)));
+        newTimeouts.add(timeout);
+        if (pending.getAndIncrement() == 0)
+            LockSupport.unpark(workerThread);
+        return timeout;
+    }
+
+    /**
+     * Returns the number of timeouts that have been scheduled but have neither
+     * expired nor been removed after cancellation.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Returns the number of timeouts that have expired since this timer was
+     * created.
+     */
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    /**
+     * Stops the worker thread. Pending timeouts will not expire, and no more
+     * timeouts can be scheduled.
+     */
+    public void stop() {
+        if (workerState.getAndSet(WORKER_SHUTDOWN) == WORKER_STARTED)
+            LockSupport.unpark(workerThread);
+    }
+
+    private void start() {
+        switch (workerState.get()) {
+        case WORKER_STARTED:
+            return;
+        case WORKER_SHUTDOWN:
+            throw new IllegalStateException("Cannot schedule a timeout on a stopped timer.");
+        default:
+            synchronized (this) {
+                if (workerState.get() == WORKER_INIT) {
+                    Thread t = new Thread(new Worker(), threadName);
+                    t.setDaemon(true);
+                    workerThread = t;
+                    workerState.set(WORKER_STARTED);
+                    t.start();
+                }
+            }
+        }
+    }
+
+    /**
+     * A task scheduled on a {@link HashedWheelTimer}.
+     */
+    public static final class Timeout {
+        private static final int ST_PENDING = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_PENDING);
+
+        /* The fields below are only accessed by the worker thread. */
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this timeout so that its task is not run. Returns false if
+         * the task has already been run or the timeout has already been
+         * cancelled.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_PENDING, ST_CANCELLED))
+                return false;
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private boolean expire() {
+            if (!state.compareAndSet(ST_PENDING, ST_EXPIRED))
+                return false;
+            // Counted before the task runs, so that whoever the task signals
+            // sees the count
+            timer.expired.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.warn("Timer task " + task + " threw an exception", t);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A doubly linked list of the timeouts that fall into one slot of the
+     * wheel; only accessed by the worker thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null)
+                timeout.prev.next = next;
+            if (next != null)
+                next.prev = timeout.prev;
+            if (timeout == head)
+                head = next;
+            if (timeout == tail)
+                tail = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private long startTime;
+        private long tick;
+
+        @Override
+        public void run() {
+            startTime = System.nanoTime();
+            while (workerState.get() == WORKER_STARTED) {
+                if (pending.get() == 0) {
+                    LockSupport.park(this);
+                    if (pending.get() == 0)
+                        continue;
+                    // The wheel is empty, so it can be realigned on the
+                    // current time instead of catching up on idle ticks.
+                    startTime = System.nanoTime();
+                    tick = 0;
+                }
+                waitForNextTick();
+                removeCancelledTimeouts();
+                transferNewTimeouts();
+                expireTimeouts(wheel[(int) (tick & mask)]);
+                tick++;
+            }
+        }
+
+        private void waitForNextTick() {
+            final long deadline = startTime + tickNanos * (tick + 1);
+            long sleepNanos;
+            while ((sleepNanos = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                if (workerState.get() != WORKER_STARTED)
+                    return;
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                // A timeout not yet in a bucket is dropped on transfer.
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                    pending.decrementAndGet();
+                }
+            }
+        }
+
+        private void transferNewTimeouts() {
+            Timeout timeout;
+            while ((timeout = newTimeouts.poll()) != null) {
+                if (timeout.isCancelled()) {
+                    pending.decrementAndGet();
+                    continue;
+                }
+                long calculated = (timeout.deadline - startTime) / tickNanos;
+                timeout.remainingRounds = (calculated - tick) / wheel.length;
+                // Timeouts already due go into the current bucket.
+                long ticks = Math.max(calculated, tick);
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+
+        private void expireTimeouts(Bucket bucket) {
+            Timeout timeout = bucket.head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0) {
+                    Timeout next = bucket.remove(timeout);
+                    pending.decrementAndGet();
+                    timeout.expire();
+                    timeout = next;
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+}
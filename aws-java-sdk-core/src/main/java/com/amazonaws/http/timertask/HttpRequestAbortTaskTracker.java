@@ -14,7 +14,7 @@
  */
 package com.amazonaws.http.timertask;
 
-import java.util.concurrent.ScheduledFuture;
+import com.amazonaws.http.timertask.HashedWheelTimer.Timeout;
 
 /**
  * Tracking object for a scheduled HttpRequestAbortTask.
@@ -22,11 +22,11 @@ import java.util.concurrent.ScheduledFuture;
 public class HttpRequestAbortTaskTracker {
     
     private final HttpRequestAbortTask task;
-    private final ScheduledFuture<?> future;
+    private final Timeout timeout;
     
-    public HttpRequestAbortTaskTracker(final HttpRequestAbortTask task, final ScheduledFuture<?> future) {
+    public HttpRequestAbortTaskTracker(final HttpRequestAbortTask task, final Timeout timeout) {
         this.task = task;
-        this.future = future;
+        this.timeout = timeout;
     }
     
     public boolean httpRequestAborted() {
@@ -34,7 +34,7 @@ public class HttpRequestAbortTaskTracker {
     }
  
     public void cancelTask() {
-        future.cancel(true);
+        timeout.cancel();
     }
     
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A metric collector which aggregates request metrics with a
+ * {@link LightweightRequestMetricCollector}, and periodically hands the
+ * {@link RequestMetricsSnapshot} drained from it to a {@link Listener}. For
+ * example:
+ * <pre>
+ * LightweightMetricCollector collector = new LightweightMetricCollector(60000,
+ *         new LightweightMetricCollector.Listener() {
+ *             public void metricsDrained(RequestMetricsSnapshot snapshot) {
+ *                 ...
+ *             }
+ *         });
+ * collector.start();
+ * AwsSdkMetrics.setMetricCollector(collector);
+ * </pre>
+ * Service metrics are not collected.
+ */
+public class LightweightMetricCollector extends MetricCollector {
+    private static final Log log = LogFactory.getLog(LightweightMetricCollector.class);
+
+    /**
+     * Receives the request metrics drained periodically.
+     */
+    public static interface Listener {
+        /**
+         * Called periodically from the thread of the collector, and once more
+         * when the collector is stopped, with the measurements collected
+         * since the previous call.
+         */
+        public void metricsDrained(RequestMetricsSnapshot snapshot);
+    }
+
+    private final LightweightRequestMetricCollector requestMetricCollector =
+            new LightweightRequestMetricCollector();
+    private final long drainIntervalMilli;
+    private final Listener listener;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param drainIntervalMilli
+     *            how often the request metrics are drained, in milliseconds
+     * @param listener
+     *            receives the drained request metrics
+     */
+    public LightweightMetricCollector(long drainIntervalMilli, Listener listener) {
+        if (drainIntervalMilli <= 0) {
+            throw new IllegalArgumentException("drainIntervalMilli must be positive: " + drainIntervalMilli);
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        this.drainIntervalMilli = drainIntervalMilli;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts draining the request metrics periodically.
+     *
+     * @return true if the collector is started; false if it was already
+     *         running.
+     */
+    @Override
+    public synchronized boolean start() {
+        if (scheduler != null) {
+            return false;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "java-sdk-lightweight-metric-collector");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, drainIntervalMilli, drainIntervalMilli, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Stops draining the request metrics periodically, after handing the
+     * metrics collected since the last drain to the listener.
+     */
+    @Override
+    public synchronized boolean stop() {
+        if (scheduler == null) {
+            return false;
+        }
+        scheduler.shutdown();
+        scheduler = null;
+        drain();
+        return true;
+    }
+
+    private void drain() {
+        try {
+            listener.metricsDrained(requestMetricCollector.drain());
+        } catch (RuntimeException e) {
+            log.warn("Unable to hand the request metrics to the listener", e);
+        }
+    }
+
+    /** Returns true if the collector is running; false otherwise. */
+    @Override
+    public synchronized boolean isEnabled() {
+        return scheduler != null;
+    }
+
+    @Override
+    public LightweightRequestMetricCollector getRequestMetricCollector() {
+        return requestMetricCollector;
+    }
+
+    @Override
+    public ServiceMetricCollector getServiceMetricCollector() {
+        return ServiceMetricCollector.NONE;
+    }
+}
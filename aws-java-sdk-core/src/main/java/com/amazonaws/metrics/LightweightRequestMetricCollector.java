@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsLightweightSupport;
+
+/**
+ * A request metric collector which aggregates the predefined {@link Field}s
+ * of each request into histograms, instead of keeping or logging the
+ * measurements of each request.
+ * <p>
+ * Since the collector is {@linkplain #isLightweight() lightweight}, the
+ * requests it collects record their measurements into
+ * {@link AWSRequestMetricsLightweightSupport}. Each thread collecting
+ * requests adds them to histograms of its own, so threads never contend, and
+ * {@link #drain()} sums and resets the histograms of all the threads. Drain
+ * the collector periodically, or use a {@link LightweightMetricCollector} to
+ * do so.
+ * <p>
+ * Requests whose metrics are not an {@link AWSRequestMetricsLightweightSupport},
+ * such as when profiling is enabled, are ignored.
+ */
+public class LightweightRequestMetricCollector extends RequestMetricCollector {
+    private static final Field[] FIELDS = Field.values();
+
+    /** The histograms of the threads which collected requests. */
+    private final List<ThreadHistograms> threadHistograms = new CopyOnWriteArrayList<ThreadHistograms>();
+
+    private final ThreadLocal<ThreadHistograms> currentThreadHistograms = new ThreadLocal<ThreadHistograms>() {
+        @Override
+        protected ThreadHistograms initialValue() {
+            ThreadHistograms histograms = new ThreadHistograms(Thread.currentThread());
+            threadHistograms.add(histograms);
+            return histograms;
+        }
+    };
+
+    private long lastDrainTimeMilli = System.currentTimeMillis();
+
+    @Override
+    public void collectMetrics(Request<?> request, Response<?> response) {
+        AWSRequestMetrics metrics = request.getAWSRequestMetrics();
+        if (!(metrics instanceof AWSRequestMetricsLightweightSupport)) {
+            return;
+        }
+        AWSRequestMetricsLightweightSupport lightweight = (AWSRequestMetricsLightweightSupport) metrics;
+        ThreadHistograms histograms = currentThreadHistograms.get();
+        for (Field f : FIELDS) {
+            if (lightweight.isEventRecorded(f)) {
+                histograms.record(f.ordinal(), lightweight.getEventTimeNano(f));
+            } else if (lightweight.isCounterRecorded(f)) {
+                histograms.record(f.ordinal(), lightweight.getCounter(f));
+            }
+        }
+    }
+
+    /** Always returns true. */
+    @Override
+    public final boolean isLightweight() {
+        return true;
+    }
+
+    /**
+     * Returns the measurements collected since the previous drain, and resets
+     * the histograms of all the threads.
+     */
+    public synchronized RequestMetricsSnapshot drain() {
+        MetricHistogram[] totals = new MetricHistogram[FIELDS.length];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new MetricHistogram();
+        }
+        for (ThreadHistograms histograms : threadHistograms) {
+            // Check before draining, so that no values recorded by the thread are lost
+            boolean ownerDead = histograms.isOwnerDead();
+            histograms.drainInto(totals);
+            if (ownerDead) {
+                threadHistograms.remove(histograms);
+            }
+        }
+        long now = System.currentTimeMillis();
+        RequestMetricsSnapshot snapshot = new RequestMetricsSnapshot(lastDrainTimeMilli, now, totals);
+        lastDrainTimeMilli = now;
+        return snapshot;
+    }
+
+    /**
+     * The histograms of the requests collected by one thread. Only that thread
+     * records values, and the collector drains them concurrently, so each
+     * update is atomic but never contended by another recording thread.
+     */
+    private static final class ThreadHistograms {
+        /** The index of the sum of the values after the bucket counts. */
+        private static final int SUM = MetricHistogram.BUCKET_COUNT;
+
+        private final WeakReference<Thread> owner;
+
+        /** The bucket counts and sum of each field, created when first recorded. */
+        private final AtomicReferenceArray<AtomicLongArray> histograms =
+                new AtomicReferenceArray<AtomicLongArray>(FIELDS.length);
+
+        ThreadHistograms(Thread owner) {
+            this.owner = new WeakReference<Thread>(owner);
+        }
+
+        void record(int field, long value) {
+            AtomicLongArray histogram = histograms.get(field);
+            if (histogram == null) {
+                histogram = new AtomicLongArray(SUM + 1);
+                histograms.set(field, histogram);
+            }
+            long v = value < 0 ? 0 : value;
+            histogram.getAndIncrement(MetricHistogram.bucketIndex(v));
+            histogram.getAndAdd(SUM, v);
+        }
+
+        /*
+         * A value recorded while draining may have its count and its sum in
+         * different snapshots, but it is never lost.
+         */
+        void drainInto(MetricHistogram[] totals) {
+            for (int field = 0; field < totals.length; field++) {
+                AtomicLongArray histogram = histograms.get(field);
+                if (histogram == null) {
+                    continue;
+                }
+                for (int i = 0; i < SUM; i++) {
+                    // Only write to the buckets in use, which the owner thread is likely to have cached
+                    if (histogram.get(i) != 0) {
+                        totals[field].addCount(i, histogram.getAndSet(i, 0));
+                    }
+                }
+                totals[field].addSum(histogram.getAndSet(SUM, 0));
+            }
+        }
+
+        boolean isOwnerDead() {
+            Thread t = owner.get();
+            return t == null || !t.isAlive();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+/**
+ * A histogram of non-negative long values, such as latencies in nanoseconds
+ * or counts, with a fixed number of buckets.
+ * <p>
+ * Values below 64 are counted exactly. Larger values are counted in 32
+ * buckets per power of two, so the value reported for a percentile is within
+ * about 3% of the recorded value. Values of 2<sup>40</sup> (about 18 minutes
+ * in nanoseconds) and above are counted as the largest trackable value.
+ */
+@NotThreadSafe
+public class MetricHistogram {
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BITS = 6;
+    private static final int MAX_BITS = 40;
+
+    /** The largest value which can be told apart from larger values. */
+    public static final long MAX_TRACKABLE_VALUE = (1L << MAX_BITS) - 1;
+
+    /** The number of buckets of a histogram. */
+    static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_BITS - LINEAR_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+
+    /**
+     * Returns the index of the bucket counting the given value.
+     */
+    static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        if (value > MAX_TRACKABLE_VALUE) {
+            value = MAX_TRACKABLE_VALUE;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (msb - LINEAR_BITS) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the lowest value counted by the bucket of the given index.
+     */
+    static long lowestValue(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int i = index - LINEAR_BUCKETS;
+        int msb = LINEAR_BITS + i / SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + i % SUB_BUCKETS) << (msb - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Returns the highest value counted by the bucket of the given index.
+     */
+    static long highestValue(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int msb = LINEAR_BITS + (index - LINEAR_BUCKETS) / SUB_BUCKETS;
+        return lowestValue(index) + (1L << (msb - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     */
+    public void recordValue(long value) {
+        long v = value < 0 ? 0 : value;
+        counts[bucketIndex(v)]++;
+        totalCount++;
+        sum += v;
+    }
+
+    /**
+     * Adds a count of values recorded in the bucket of the given index,
+     * without their sum.
+     */
+    void addCount(int index, long count) {
+        counts[index] += count;
+        totalCount += count;
+    }
+
+    /**
+     * Adds the sum of values whose counts are added separately.
+     */
+    void addSum(long sumOfValues) {
+        sum += sumOfValues;
+    }
+
+    /**
+     * Adds all the values recorded by the given histogram to this one.
+     */
+    public void add(MetricHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+    }
+
+    /** Returns the number of values recorded. */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /** Returns the exact sum of the values recorded. */
+    public long getSum() {
+        return sum;
+    }
+
+    /** Returns the exact mean of the values recorded; or 0 if none. */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Returns the lowest value recorded, to within the precision of the
+     * histogram; or 0 if none.
+     */
+    public long getMin() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                return lowestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the highest value recorded, to within the precision of the
+     * histogram; or 0 if none.
+     */
+    public long getMax() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value which the given percentage of the recorded values
+     * are less than or equal to, to within the precision of the histogram;
+     * or 0 if none.
+     *
+     * @param percentile
+     *            the percentage, between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0.0), 100.0);
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + totalCount + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50) + ", p99="
+                + getValueAtPercentile(99) + ", max=" + getMax();
+    }
+}
@@ -31,6 +31,12 @@ import com.amazonaws.internal.MetricAware;
  * stack to minimize runtime overhead.
  */
 public class MetricInputStreamEntity extends InputStreamEntity {
+    /**
+     * The largest buffer used to copy the content, matching the buffer used
+     * when metrics are not captured.
+     */
+    private final static int MAX_BUFFER_SIZE = 128 * 1024;
+    /** The buffer used to copy content of unknown length. */
     private final static int BUFFER_SIZE = 2048;
     private final ByteThroughputHelper helper;
 
@@ -75,7 +81,9 @@ public class MetricInputStreamEntity extends InputStreamEntity {
         final long length = getContentLength();
         InputStream instream = content;
         try {
-            byte[] buffer = new byte[BUFFER_SIZE];
+            byte[] buffer = new byte[length < 0
+                    ? BUFFER_SIZE
+                    : (int) Math.max(1, Math.min(MAX_BUFFER_SIZE, length))];
             int l;
             if (length < 0) {
                 // consume until EOF
@@ -88,7 +96,7 @@ public class MetricInputStreamEntity extends InputStreamEntity {
                 // consume no more than length
                 long remaining = length;
                 while (remaining > 0) {
-                    l = instream.read(buffer, 0, (int)Math.min(BUFFER_SIZE, remaining));
+                    l = instream.read(buffer, 0, (int)Math.min(buffer.length, remaining));
                     if (l == -1) {
                         break;
                     }
@@ -43,6 +43,15 @@ public abstract class RequestMetricCollector {
     public abstract void collectMetrics(Request<?> request, Response<?> response);
     public boolean isEnabled() { return true; }
 
+    /**
+     * Returns true if this collector only reads the predefined
+     * {@link com.amazonaws.util.AWSRequestMetrics.Field}s of the request
+     * metrics, so that they can be recorded by the cheaper
+     * {@link com.amazonaws.util.AWSRequestMetricsLightweightSupport};
+     * false otherwise. Returns false by default.
+     */
+    public boolean isLightweight() { return false; }
+
     /** A convenient instance of a no-op request metric collector. */
     public static final RequestMetricCollector NONE = new RequestMetricCollector() {
         @Override public void collectMetrics(Request<?> request, Response<?> response) {}
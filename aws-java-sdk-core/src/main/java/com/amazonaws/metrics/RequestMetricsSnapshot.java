@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+/**
+ * The request metrics aggregated by a {@link LightweightRequestMetricCollector}
+ * between two drains.
+ * <p>
+ * There is one {@link MetricHistogram} per {@link Field}. For the fields which
+ * are timed events, such as {@link Field#ClientExecuteTime}, it has the total
+ * time of the event in each request, in nanoseconds. For the fields which are
+ * counters, such as {@link Field#RequestCount}, it has the value of the
+ * counter in each request. Requests which did not record a field are not
+ * counted in its histogram.
+ */
+public class RequestMetricsSnapshot {
+    private static final Field[] FIELDS = Field.values();
+
+    private final long startTimeMilli;
+    private final long endTimeMilli;
+    private final MetricHistogram[] histograms;
+
+    RequestMetricsSnapshot(long startTimeMilli, long endTimeMilli, MetricHistogram[] histograms) {
+        this.startTimeMilli = startTimeMilli;
+        this.endTimeMilli = endTimeMilli;
+        this.histograms = histograms;
+    }
+
+    /**
+     * Returns the wall clock time, in milliseconds since Epoch, of the
+     * previous drain, or of the creation of the collector.
+     */
+    public long getStartTimeMilli() {
+        return startTimeMilli;
+    }
+
+    /**
+     * Returns the wall clock time, in milliseconds since Epoch, of the drain
+     * which returned this snapshot.
+     */
+    public long getEndTimeMilli() {
+        return endTimeMilli;
+    }
+
+    /**
+     * Returns the histogram of the given field; never null.
+     */
+    public MetricHistogram getHistogram(Field f) {
+        return histograms[f.ordinal()];
+    }
+
+    /**
+     * Returns the number of requests collected, which is the number of
+     * {@link Field#ClientExecuteTime} measurements.
+     */
+    public long getRequestCount() {
+        return getHistogram(Field.ClientExecuteTime).getTotalCount();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("RequestMetricsSnapshot [startTimeMilli=")
+                .append(startTimeMilli).append(", endTimeMilli=").append(endTimeMilli);
+        for (Field f : FIELDS) {
+            MetricHistogram h = histograms[f.ordinal()];
+            if (h.getTotalCount() > 0) {
+                builder.append(", ").append(f).append("={").append(h).append('}');
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amazonaws.annotation.Immutable;
+
+/**
+ * Maps the JSON field names of the members of a structure to their position
+ * in the list of members, so that a JSON unmarshaller can dispatch on the
+ * current field with a single hash lookup and a switch statement, instead of
+ * testing the field against each member name in turn.
+ *
+ * @see JsonUnmarshallerContext#getCurrentFieldName(int)
+ */
+@Immutable
+public final class JsonMemberIndex {
+
+    /** Returned by {@link #indexOf(String)} for fields that are not members. */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> indexes;
+
+    public JsonMemberIndex(String... memberNames) {
+        indexes = new HashMap<String, Integer>(memberNames.length * 2);
+        for (int i = 0; i < memberNames.length; i++) {
+            indexes.put(memberNames[i], i);
+        }
+    }
+
+    /**
+     * Returns the position of the given field name in the member names this
+     * index was created with, or {@link #UNKNOWN} if the field name is null or
+     * not a member.
+     */
+    public int indexOf(String fieldName) {
+        if (fieldName == null) {
+            return UNKNOWN;
+        }
+        Integer index = indexes.get(fieldName);
+        return index == null ? UNKNOWN : index.intValue();
+    }
+}
@@ -125,6 +125,23 @@ public abstract class JsonUnmarshallerContext {
         return false;
     }
 
+    /**
+     * Returns the JSON field name at the current position in the JSON document
+     * being parsed, if the current position is at the specified stack depth.
+     * This is the name that {@link #testExpression(String, int)} would match,
+     * so that an unmarshaller can look a field up once instead of testing it
+     * against each of its members in turn.
+     *
+     * @param stackDepth
+     *            The depth in the stack at which the field name must be.
+     *
+     * @return The current field name, or null if the current position is not
+     *         at the specified depth. Returns null by default.
+     */
+    public String getCurrentFieldName(int stackDepth) {
+        return null;
+    }
+
     /**
      * Returns the next JsonToken from the JsonParser. Returns null by default.
      */
@@ -21,9 +21,9 @@ import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
 import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Stack;
 
 import com.amazonaws.http.HttpResponse;
 import com.fasterxml.jackson.core.JsonParser;
@@ -42,7 +42,7 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
     private String currentHeader;
 
     /**
-     * A stack of JsonFieldTokenPair objects that indicates the current state of the context.
+     * A stack of (field, token) pairs that indicates the current state of the context.
      * For example, if we have a JSON object:
      * {
      *   A :
@@ -58,15 +58,19 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
      * }
      * When the parser points to "D", the state of this stack should be (from top to bottom):
      *  [ (C, START_OBJECT), (B, START_ARRAY), (A, START_OBJECT) ]
+     * The stack is only ever used by the thread parsing the document, so it is
+     * kept as two unsynchronized parallel arrays and pushing a pair allocates
+     * nothing.
      */
-    private final Stack<JsonFieldTokenPair> stack = new Stack<JsonFieldTokenPair>();
+    private String[] stackFields = new String[16];
+    private JsonToken[] stackTokens = new JsonToken[16];
+    private int stackSize;
 
     /**
      * The name of the field that is currently being parsed. This value is
      * nulled out when the parser reaches into the object/array structure of the
      * corresponding value, and then it will be pushed into the stack after
-     * wrapped into a JsonFieldTokenPair object with the START_OBJECT or
-     * START_ARRAY token following it.
+     * paired with the START_OBJECT or START_ARRAY token following it.
      * So in the same example as shown above:
      *   (1) when the parser moves from "C" to "{", (currentField, START_OBJECT)
      *       will be pushed into the stack and currentField will be set null;
@@ -109,7 +113,7 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
 
     @Override
     public int getCurrentDepth() {
-        int depth = stack.size();
+        int depth = stackSize;
         if (currentField != null) depth++;
         return depth;
     }
@@ -160,8 +164,8 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
             if (currentField != null) {
                 return currentField.equals(expression);
             } else {
-                return (!stack.isEmpty())
-                        && stack.peek().getField().equals(expression);
+                return stackSize > 0
+                        && stackFields[stackSize - 1].equals(expression);
             }
         }
     }
@@ -171,8 +175,8 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         String parentElement;
         if (currentField != null) {
             parentElement = currentField;
-        } else if ( !stack.isEmpty() ) {
-            parentElement = stack.peek().getField();
+        } else if (stackSize > 0) {
+            parentElement = stackFields[stackSize - 1];
         } else {
             parentElement = "";
         }
@@ -189,6 +193,17 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         }
     }
 
+    @Override
+    public String getCurrentFieldName(int stackDepth) {
+        if (stackDepth != getCurrentDepth()) {
+            return null;
+        }
+        if (currentField != null) {
+            return currentField;
+        }
+        return stackSize > 0 ? stackFields[stackSize - 1] : null;
+    }
+
     @Override
     public JsonToken nextToken() throws IOException {
         // Use the value from the nextToken field if
@@ -237,15 +252,18 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
 
         if (currentToken == START_OBJECT || currentToken == START_ARRAY) {
             if (currentField != null) {
-                stack.push(new JsonFieldTokenPair(currentField, currentToken));
+                push(currentField, currentToken);
                 currentField = null;
             }
         } else if (currentToken == END_OBJECT || currentToken == END_ARRAY) {
-            if (!stack.isEmpty()) {
-                boolean squareBracketsMatch = currentToken == END_ARRAY && stack.peek().getToken() == START_ARRAY;
-                boolean curlyBracketsMatch = currentToken == END_OBJECT && stack.peek().getToken() == START_OBJECT;
+            if (stackSize > 0) {
+                JsonToken top = stackTokens[stackSize - 1];
+                boolean squareBracketsMatch = currentToken == END_ARRAY && top == START_ARRAY;
+                boolean curlyBracketsMatch = currentToken == END_OBJECT && top == START_OBJECT;
                 if (squareBracketsMatch || curlyBracketsMatch) {
-                    lastParsedParentElement = stack.pop().getField();
+                    lastParsedParentElement = stackFields[--stackSize];
+                    stackFields[stackSize] = null;
+                    stackTokens[stackSize] = null;
                 }
             }
             currentField = null;
@@ -255,13 +273,23 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         }
     }
 
+    private void push(String field, JsonToken token) {
+        if (stackSize == stackFields.length) {
+            stackFields = Arrays.copyOf(stackFields, stackSize * 2);
+            stackTokens = Arrays.copyOf(stackTokens, stackSize * 2);
+        }
+        stackFields[stackSize] = field;
+        stackTokens[stackSize] = token;
+        stackSize++;
+    }
+
     @Override
     public String toString() {
         StringBuilder stackString = new StringBuilder();
 
-        for (JsonFieldTokenPair jsonFieldTokenPair : stack) {
+        for (int i = 0; i < stackSize; i++) {
             stackString.append("/")
-                       .append(jsonFieldTokenPair.getField());
+                       .append(stackFields[i]);
         }
 
         if (currentField != null) {
@@ -276,37 +304,4 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
     public String getLastParsedParentElement() {
         return lastParsedParentElement;
     }
-
-    /**
-     * An immutable class used to indicate a JSON field value followed by a
-     * subsequent JSON token. This inner class should only be used by the
-     * private stack to indicate the current state of the context.
-     */
-    private static class JsonFieldTokenPair {
-        private final String field;
-        private final JsonToken jsonToken;
-
-        /**
-         * @param fieldString
-         *            Not null.
-         * @param token
-         *            Not null.
-         */
-        public JsonFieldTokenPair(String fieldString, JsonToken token) {
-            field = fieldString;
-            jsonToken = token;
-        }
-
-        public String getField() {
-            return field;
-        }
-
-        public JsonToken getToken() {
-            return jsonToken;
-        }
-
-        public String toString() {
-            return field + ": " + jsonToken.asString();
-        }
-    }
 }
@@ -15,15 +15,18 @@
 package com.amazonaws.transform;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.XMLEvent;
 
@@ -34,14 +37,47 @@ import javax.xml.stream.events.XMLEvent;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * The current position is kept as an array of element names, and the
+ * psuedo-xpath expressions passed to {@link #testExpression(String, int)} are
+ * split into their path segments once and then cached, so that testing an
+ * expression against the current position does not allocate.
+ * <p>
+ * A context created from an {@link XMLStreamReader} parses with the cursor
+ * API instead of allocating an event object per token. In that mode
+ * {@link #nextEvent()} returns a single shared event which only describes the
+ * current position, and is only valid until the next call to this context.
  */
 public class StaxUnmarshallerContext {
 
     private XMLEvent currentEvent;
     private final XMLEventReader eventReader;
+    /** Set instead of the event reader when parsing with the cursor API. */
+    private final XMLStreamCursor cursor;
 
+    /**
+     * Shared by all contexts; the expressions tested by the unmarshallers are
+     * string constants, so this only grows up to the number of distinct
+     * expressions in the loaded unmarshallers.
+     */
+    private static final Map<String, PathExpression> compiledExpressions =
+            new ConcurrentHashMap<String, PathExpression>();
+
+    /**
+     * The local names of the enclosing elements, outermost first.
+     *
+     * @deprecated kept up to date only for binary compatibility; use
+     *             {@link #getCurrentDepth()} and {@link #testExpression(String, int)}
+     *             instead.
+     */
+    @Deprecated
     public final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+
+    /** The local names of the enclosing elements, outermost first. */
+    private String[] elementStack = new String[16];
+    private int depth;
+    /** The local name of the current attribute, or null if the position is not an attribute. */
+    private String attributeName;
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
@@ -71,6 +107,24 @@ public class StaxUnmarshallerContext {
      */
     public StaxUnmarshallerContext(XMLEventReader eventReader, Map<String, String> headers) {
         this.eventReader = eventReader;
+        this.cursor = null;
+        this.headers = headers;
+    }
+
+    /**
+     * Constructs a new unmarshaller context that parses with the cursor API
+     * of the specified reader, and a set of response headers.
+     *
+     * @param streamReader
+     *            The source of XML for this unmarshalling context, positioned
+     *            at the start of the document.
+     * @param headers
+     *            The set of response headers associated with this unmarshaller
+     *            context.
+     */
+    public StaxUnmarshallerContext(XMLStreamReader streamReader, Map<String, String> headers) {
+        this.eventReader = null;
+        this.cursor = new XMLStreamCursor(streamReader);
         this.headers = headers;
     }
 
@@ -97,6 +151,8 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public String readText() throws XMLStreamException {
+        if (cursor != null) return cursor.readText();
+
         if (currentEvent.isAttribute()) {
             Attribute attribute = (Attribute)currentEvent;
             return attribute.getValue();
@@ -124,7 +180,7 @@ public class StaxUnmarshallerContext {
      *         document being parsed.
      */
     public int getCurrentDepth() {
-        return stack.size();
+        return depth;
     }
 
     /**
@@ -138,7 +194,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression) {
         if (expression.equals(".")) return true;
-        return stackString.endsWith(expression);
+        return pathEndsWith(expression);
     }
 
     /**
@@ -157,18 +213,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression, int startingStackDepth) {
         if (expression.equals(".")) return true;
-
-        int index = -1;
-        while ((index = expression.indexOf("/", index + 1)) > -1) {
-            // Don't consider attributes a new depth level
-            if (expression.charAt(index + 1) != '@') {
-                startingStackDepth++;
-            }
-        }
-
-
-        return (startingStackDepth == getCurrentDepth()
-                && stackString.endsWith("/" + expression));
+        return compile(expression).matches(this, startingStackDepth);
     }
 
     /**
@@ -180,6 +225,9 @@ public class StaxUnmarshallerContext {
      *         yet).
      */
     public boolean isStartOfDocument() throws XMLStreamException {
+        if (cursor != null) {
+            return cursor.peekType() == XMLStreamConstants.START_DOCUMENT;
+        }
         return eventReader.peek().isStartDocument();
     }
 
@@ -191,6 +239,8 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public XMLEvent nextEvent() throws XMLStreamException {
+        if (cursor != null) return nextCursorEvent();
+
         if (attributeIterator != null && attributeIterator.hasNext()) {
             currentEvent = (XMLEvent)attributeIterator.next();
         } else {
@@ -217,6 +267,20 @@ public class StaxUnmarshallerContext {
         return currentEvent;
     }
 
+    /**
+     * Closes the underlying XML reader. This does not close the underlying
+     * input source.
+     *
+     * @throws XMLStreamException
+     */
+    public void close() throws XMLStreamException {
+        if (cursor != null) {
+            cursor.close();
+        } else {
+            eventReader.close();
+        }
+    }
+
     /**
      * Returns any metadata collected through metadata expressions while this
      * context was reading the XML events from the XML document.
@@ -267,25 +331,149 @@ public class StaxUnmarshallerContext {
         }
     }
 
+    private XMLEvent nextCursorEvent() throws XMLStreamException {
+        currentEvent = cursor.next();
+
+        if (currentEvent.isEndElement()) {
+            popElement();
+        } else if (currentEvent.isStartElement()) {
+            pushElement(cursor.getLocalName());
+        } else if (currentEvent.isAttribute()) {
+            attributeName = cursor.getLocalName();
+        }
+
+        if (!currentEvent.isEndDocument()) {
+            for (MetadataExpression metadataExpression : metadataExpressions) {
+                if (testExpression(metadataExpression.expression, metadataExpression.targetDepth)) {
+                    String data = cursor.peekCharacters();
+                    if (data != null) metadata.put(metadataExpression.key, data);
+                }
+            }
+        }
+
+        return currentEvent;
+    }
+
     private void updateContext(XMLEvent event) {
         if (event == null) return;
 
         if (event.isEndElement()) {
-            stack.pop();
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
-            }
+            popElement();
         } else if (event.isStartElement()) {
-            stack.push(event.asStartElement().getName().getLocalPart());
-            stackString += "/" + event.asStartElement().getName().getLocalPart();
+            pushElement(event.asStartElement().getName().getLocalPart());
         } else if (event.isAttribute()) {
             Attribute attribute = (Attribute)event;
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+            attributeName = attribute.getName().getLocalPart();
+        }
+    }
+
+    private void pushElement(String localName) {
+        if (depth == elementStack.length) {
+            elementStack = Arrays.copyOf(elementStack, depth * 2);
+        }
+        elementStack[depth++] = localName;
+        attributeName = null;
+        stack.push(localName);
+    }
+
+    private void popElement() {
+        elementStack[--depth] = null;
+        attributeName = null;
+        stack.pop();
+    }
+
+    /**
+     * Returns true if the current position, written as a path such as
+     * "/a/b/@c", ends with the specified suffix.
+     */
+    private boolean pathEndsWith(String suffix) {
+        int i = suffix.length();
+        if (attributeName != null) {
+            i = matchSegmentEnd(suffix, i, attributeName, '@');
+            if (i < 0) return i == -1;
+        }
+        for (int level = depth - 1; level >= 0; level--) {
+            i = matchSegmentEnd(suffix, i, elementStack[level], (char)0);
+            if (i < 0) return i == -1;
+        }
+        return i == 0;
+    }
+
+    /**
+     * Matches the end of the suffix ending at index {@code end} against the
+     * path segment "/" + prefix + name. Returns the index where the unmatched
+     * rest of the suffix ends, -1 if the whole suffix matched, or -2 on a
+     * mismatch.
+     */
+    private static int matchSegmentEnd(String suffix, int end, String name, char prefix) {
+        int nameLength = name.length();
+        if (end <= nameLength) {
+            return suffix.regionMatches(0, name, nameLength - end, end) ? -1 : -2;
+        }
+        if (!suffix.regionMatches(end - nameLength, name, 0, nameLength)) return -2;
+        end -= nameLength;
+        if (prefix != 0) {
+            if (suffix.charAt(end - 1) != prefix) return -2;
+            if (--end == 0) return -1;
+        }
+        if (suffix.charAt(end - 1) != '/') return -2;
+        return end == 1 ? -1 : end - 1;
+    }
+
+    private static PathExpression compile(String expression) {
+        PathExpression compiled = compiledExpressions.get(expression);
+        if (compiled == null) {
+            compiled = new PathExpression(expression);
+            compiledExpressions.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * A psuedo-xpath expression such as "a/b" or "a/@c", split into the
+     * element names it matches and an optional trailing attribute name.
+     */
+    private static final class PathExpression {
+        private final String[] elements;
+        private final String attribute;
+        /** The depth of the last element below the starting stack depth. */
+        private final int depthIncrement;
+
+        PathExpression(String expression) {
+            String[] segments = expression.split("/", -1);
+            int elementCount = segments.length;
+            String lastSegment = segments[elementCount - 1];
+            if (lastSegment.startsWith("@")) {
+                attribute = lastSegment.substring(1);
+                elementCount--;
+            } else {
+                attribute = null;
+            }
+            elements = Arrays.copyOf(segments, elementCount);
+            // Don't consider attributes a new depth level
+            depthIncrement = Math.max(elementCount - 1, 0);
+        }
+
+        /**
+         * Returns true if this expression matches the current position of the
+         * specified context, starting at the specified stack depth.
+         */
+        boolean matches(StaxUnmarshallerContext context, int startingStackDepth) {
+            int depth = context.depth;
+            if (startingStackDepth + depthIncrement != depth) return false;
+            if (elements.length > depth) return false;
+
+            if (attribute == null) {
+                if (context.attributeName != null) return false;
+            } else if (!attribute.equals(context.attributeName)) {
+                return false;
+            }
+
+            String[] elementStack = context.elementStack;
+            for (int i = elements.length - 1, level = depth - 1; i >= 0; i--, level--) {
+                if (!elements[i].equals(elementStack[level])) return false;
             }
-            stackString += "/@" + attribute.getName().getLocalPart();
+            return true;
         }
     }
 
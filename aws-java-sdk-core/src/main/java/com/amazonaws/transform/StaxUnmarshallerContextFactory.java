@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.amazonaws.SDKGlobalConfiguration;
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * Creates the {@link StaxUnmarshallerContext} used to parse an XML service
+ * response, which decides the StAX implementation and API used by all StAX
+ * unmarshallers.
+ * <p>
+ * By default, the StAX implementation is the one found by
+ * {@link XMLInputFactory#newInstance()}, which picks up Woodstox or Aalto when
+ * they are on the classpath, and each thread uses its own input factory so
+ * that creating a parser does not contend on a lock. Contexts parse with the
+ * event API, unless the system property
+ * {@link SDKGlobalConfiguration#ENABLE_STAX_CURSOR_PARSING_SYSTEM_PROPERTY} is
+ * set, in which case they parse with the cursor API and do not allocate an
+ * event object per token. A different factory can be installed with
+ * {@link #setDefault(StaxUnmarshallerContextFactory)}.
+ */
+@ThreadSafe
+public class StaxUnmarshallerContextFactory {
+
+    private static volatile StaxUnmarshallerContextFactory defaultFactory;
+
+    /** The shared input factory, or null to use one input factory per thread. */
+    private final XMLInputFactory inputFactory;
+    private final boolean cursorParsing;
+
+    private final ThreadLocal<XMLInputFactory> threadInputFactory =
+            new ThreadLocal<XMLInputFactory>() {
+                @Override
+                protected XMLInputFactory initialValue() {
+                    return XMLInputFactory.newInstance();
+                }
+            };
+
+    /**
+     * Constructs a factory that creates its parsers from per-thread instances
+     * of the default {@link XMLInputFactory}.
+     *
+     * @param cursorParsing
+     *            true to parse with the cursor API, false to parse with the
+     *            event API.
+     */
+    public StaxUnmarshallerContextFactory(boolean cursorParsing) {
+        this(null, cursorParsing);
+    }
+
+    /**
+     * Constructs a factory that creates its parsers from the specified input
+     * factory. As {@link XMLInputFactory} is not guaranteed to be thread safe,
+     * parsers are created while holding its lock.
+     *
+     * @param inputFactory
+     *            The input factory to create parsers from, or null to use
+     *            per-thread instances of the default input factory.
+     * @param cursorParsing
+     *            true to parse with the cursor API, false to parse with the
+     *            event API.
+     */
+    public StaxUnmarshallerContextFactory(XMLInputFactory inputFactory, boolean cursorParsing) {
+        this.inputFactory = inputFactory;
+        this.cursorParsing = cursorParsing;
+    }
+
+    /**
+     * Returns the factory used to create the unmarshaller contexts for service
+     * responses.
+     */
+    public static StaxUnmarshallerContextFactory getDefault() {
+        StaxUnmarshallerContextFactory factory = defaultFactory;
+        if (factory == null) {
+            synchronized (StaxUnmarshallerContextFactory.class) {
+                factory = defaultFactory;
+                if (factory == null) {
+                    factory = new StaxUnmarshallerContextFactory(System.getProperty(
+                            SDKGlobalConfiguration.ENABLE_STAX_CURSOR_PARSING_SYSTEM_PROPERTY) != null);
+                    defaultFactory = factory;
+                }
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * Sets the factory used to create the unmarshaller contexts for service
+     * responses, or restores the default one if null.
+     */
+    public static void setDefault(StaxUnmarshallerContextFactory factory) {
+        defaultFactory = factory;
+    }
+
+    /**
+     * Returns true if the contexts created by this factory parse with the
+     * cursor API.
+     */
+    public boolean isCursorParsing() {
+        return cursorParsing;
+    }
+
+    /**
+     * Creates an unmarshaller context that parses the specified XML document.
+     * The caller is responsible for closing the context once the document has
+     * been unmarshalled.
+     *
+     * @param content
+     *            The XML document to parse.
+     * @param headers
+     *            The response headers associated with the document, or null.
+     */
+    public StaxUnmarshallerContext createContext(InputStream content, Map<String, String> headers)
+            throws XMLStreamException {
+        if (inputFactory == null) {
+            return createContext(threadInputFactory.get(), content, headers);
+        }
+        synchronized (inputFactory) {
+            return createContext(inputFactory, content, headers);
+        }
+    }
+
+    private StaxUnmarshallerContext createContext(XMLInputFactory factory,
+            InputStream content, Map<String, String> headers) throws XMLStreamException {
+        if (cursorParsing) {
+            XMLStreamReader streamReader = factory.createXMLStreamReader(content);
+            return new StaxUnmarshallerContext(streamReader, headers);
+        }
+        XMLEventReader eventReader = factory.createXMLEventReader(content);
+        return new StaxUnmarshallerContext(eventReader, headers);
+    }
+}
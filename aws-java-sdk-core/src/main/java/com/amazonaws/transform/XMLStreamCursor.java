@@ -0,0 +1,363 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import com.amazonaws.annotation.NotThreadSafe;
+
+/**
+ * Presents an {@link XMLStreamReader} as the sequence of events a
+ * {@link javax.xml.stream.XMLEventReader} would return, with the attributes
+ * of each start element returned as separate events, without allocating an
+ * event object per token.
+ * <p>
+ * {@link #next()} always returns the same {@link XMLEvent} instance, which
+ * describes the current position of the cursor; it is only valid until the
+ * next call to this cursor. Its {@code isXxx} methods are free, while the
+ * {@code asXxx} methods create a detached copy of the event. The name and
+ * attributes of the current element are copied when the cursor moves onto it,
+ * so they remain available after the text of the element has been read; the
+ * text of a characters event is only available until the cursor moves on.
+ */
+@NotThreadSafe
+final class XMLStreamCursor {
+
+    private final XMLStreamReader reader;
+    private final CursorEvent event = new CursorEvent();
+
+    /** True if the reader is positioned on an event that next() has not returned yet. */
+    private boolean ahead = true;
+
+    private int type = -1;
+    private String localName;
+    private String namespaceURI;
+    private String prefix;
+
+    private int attributeCount;
+    /** The number of attributes of the current element returned so far. */
+    private int attributeIndex;
+    private String[] attributeLocalNames = new String[4];
+    private String[] attributeNamespaceURIs = new String[4];
+    private String[] attributePrefixes = new String[4];
+    private String[] attributeValues = new String[4];
+
+    private XMLEventFactory eventFactory;
+
+    /**
+     * @param reader
+     *            a reader positioned at the start of the document.
+     */
+    XMLStreamCursor(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Moves to the next event and returns the shared event describing it.
+     */
+    XMLEvent next() throws XMLStreamException {
+        if (attributeIndex < attributeCount) {
+            attributeIndex++;
+            type = XMLStreamConstants.ATTRIBUTE;
+            return event;
+        }
+
+        if (!ahead) reader.next();
+        ahead = false;
+        type = reader.getEventType();
+        attributeCount = 0;
+        attributeIndex = 0;
+
+        if (type == XMLStreamConstants.START_ELEMENT
+                || type == XMLStreamConstants.END_ELEMENT) {
+            localName = reader.getLocalName();
+            namespaceURI = reader.getNamespaceURI();
+            prefix = reader.getPrefix();
+            if (type == XMLStreamConstants.START_ELEMENT) {
+                copyAttributes();
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Returns the type of the event after the current one, without moving to
+     * it.
+     */
+    int peekType() throws XMLStreamException {
+        if (!ahead) {
+            reader.next();
+            ahead = true;
+        }
+        return reader.getEventType();
+    }
+
+    /**
+     * Returns the text of the event after the current one if it is a
+     * characters event, otherwise null.
+     */
+    String peekCharacters() throws XMLStreamException {
+        if (!ahead) {
+            if (!reader.hasNext()) return null;
+            reader.next();
+            ahead = true;
+        }
+        int nextType = reader.getEventType();
+        return nextType == XMLStreamConstants.CHARACTERS
+                || nextType == XMLStreamConstants.CDATA
+                || nextType == XMLStreamConstants.SPACE
+                ? reader.getText()
+                : null;
+    }
+
+    /**
+     * Returns the local name of the current element, or of the current
+     * attribute.
+     */
+    String getLocalName() {
+        return type == XMLStreamConstants.ATTRIBUTE
+                ? attributeLocalNames[attributeIndex - 1]
+                : localName;
+    }
+
+    /**
+     * Same as {@link StaxUnmarshallerContext#readText()}.
+     */
+    String readText() throws XMLStreamException {
+        if (type == XMLStreamConstants.ATTRIBUTE) {
+            return attributeValues[attributeIndex - 1];
+        }
+
+        String text = null;
+        StringBuilder sb = null;
+        while (true) {
+            int nextType = peekType();
+            // Parsers which do not coalesce text report CDATA sections and
+            // ignorable whitespace as separate events.
+            if (nextType == XMLStreamConstants.CHARACTERS
+                    || nextType == XMLStreamConstants.CDATA
+                    || nextType == XMLStreamConstants.SPACE) {
+                ahead = false;
+                // Most elements hold a single characters event.
+                if (text == null) {
+                    text = reader.getText();
+                } else {
+                    if (sb == null) sb = new StringBuilder(text);
+                    sb.append(reader.getTextCharacters(),
+                            reader.getTextStart(), reader.getTextLength());
+                }
+            } else if (nextType == XMLStreamConstants.END_ELEMENT) {
+                if (sb != null) return sb.toString();
+                return text == null ? "" : text;
+            } else {
+                throw new RuntimeException("Encountered unexpected event: "
+                        + eventTypeName(nextType));
+            }
+        }
+    }
+
+    void close() throws XMLStreamException {
+        reader.close();
+    }
+
+    private void copyAttributes() {
+        int count = reader.getAttributeCount();
+        if (count > attributeValues.length) {
+            int length = Math.max(count, attributeValues.length * 2);
+            attributeLocalNames = Arrays.copyOf(attributeLocalNames, length);
+            attributeNamespaceURIs = Arrays.copyOf(attributeNamespaceURIs, length);
+            attributePrefixes = Arrays.copyOf(attributePrefixes, length);
+            attributeValues = Arrays.copyOf(attributeValues, length);
+        }
+        for (int i = 0; i < count; i++) {
+            attributeLocalNames[i] = reader.getAttributeLocalName(i);
+            attributeNamespaceURIs[i] = reader.getAttributeNamespace(i);
+            attributePrefixes[i] = reader.getAttributePrefix(i);
+            attributeValues[i] = reader.getAttributeValue(i);
+        }
+        attributeCount = count;
+    }
+
+    private XMLEventFactory getEventFactory() {
+        if (eventFactory == null) eventFactory = XMLEventFactory.newInstance();
+        return eventFactory;
+    }
+
+    private Attribute createAttribute(int i) {
+        return getEventFactory().createAttribute(
+                nullToEmpty(attributePrefixes[i]),
+                nullToEmpty(attributeNamespaceURIs[i]),
+                attributeLocalNames[i], attributeValues[i]);
+    }
+
+    /**
+     * Creates a detached copy of the current event.
+     */
+    private XMLEvent createEvent() {
+        XMLEventFactory factory = getEventFactory();
+        switch (type) {
+        case XMLStreamConstants.START_ELEMENT:
+            List<Attribute> attributes = new ArrayList<Attribute>(attributeCount);
+            for (int i = 0; i < attributeCount; i++) {
+                attributes.add(createAttribute(i));
+            }
+            return factory.createStartElement(nullToEmpty(prefix),
+                    nullToEmpty(namespaceURI), localName,
+                    attributes.iterator(), null);
+        case XMLStreamConstants.END_ELEMENT:
+            return factory.createEndElement(nullToEmpty(prefix),
+                    nullToEmpty(namespaceURI), localName);
+        case XMLStreamConstants.ATTRIBUTE:
+            return createAttribute(attributeIndex - 1);
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+            if (ahead) {
+                throw new IllegalStateException(
+                        "The text of this event is no longer available");
+            }
+            return factory.createCharacters(reader.getText());
+        case XMLStreamConstants.START_DOCUMENT:
+            return factory.createStartDocument();
+        case XMLStreamConstants.END_DOCUMENT:
+            return factory.createEndDocument();
+        default:
+            throw new UnsupportedOperationException(
+                    "Cannot copy event " + eventTypeName(type));
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static String eventTypeName(int type) {
+        switch (type) {
+        case XMLStreamConstants.START_ELEMENT: return "START_ELEMENT";
+        case XMLStreamConstants.END_ELEMENT: return "END_ELEMENT";
+        case XMLStreamConstants.PROCESSING_INSTRUCTION: return "PROCESSING_INSTRUCTION";
+        case XMLStreamConstants.CHARACTERS: return "CHARACTERS";
+        case XMLStreamConstants.COMMENT: return "COMMENT";
+        case XMLStreamConstants.SPACE: return "SPACE";
+        case XMLStreamConstants.START_DOCUMENT: return "START_DOCUMENT";
+        case XMLStreamConstants.END_DOCUMENT: return "END_DOCUMENT";
+        case XMLStreamConstants.ENTITY_REFERENCE: return "ENTITY_REFERENCE";
+        case XMLStreamConstants.ATTRIBUTE: return "ATTRIBUTE";
+        case XMLStreamConstants.DTD: return "DTD";
+        case XMLStreamConstants.CDATA: return "CDATA";
+        default: return "UNKNOWN_EVENT_TYPE " + type;
+        }
+    }
+
+    /**
+     * The event describing the current position of the cursor.
+     */
+    private final class CursorEvent implements XMLEvent {
+
+        public int getEventType() {
+            return type;
+        }
+
+        public Location getLocation() {
+            return reader.getLocation();
+        }
+
+        public boolean isStartElement() {
+            return type == XMLStreamConstants.START_ELEMENT;
+        }
+
+        public boolean isAttribute() {
+            return type == XMLStreamConstants.ATTRIBUTE;
+        }
+
+        public boolean isNamespace() {
+            return type == XMLStreamConstants.NAMESPACE;
+        }
+
+        public boolean isEndElement() {
+            return type == XMLStreamConstants.END_ELEMENT;
+        }
+
+        public boolean isEntityReference() {
+            return type == XMLStreamConstants.ENTITY_REFERENCE;
+        }
+
+        public boolean isProcessingInstruction() {
+            return type == XMLStreamConstants.PROCESSING_INSTRUCTION;
+        }
+
+        public boolean isCharacters() {
+            return type == XMLStreamConstants.CHARACTERS
+                    || type == XMLStreamConstants.CDATA
+                    || type == XMLStreamConstants.SPACE;
+        }
+
+        public boolean isStartDocument() {
+            return type == XMLStreamConstants.START_DOCUMENT;
+        }
+
+        public boolean isEndDocument() {
+            return type == XMLStreamConstants.END_DOCUMENT;
+        }
+
+        public StartElement asStartElement() {
+            if (!isStartElement()) throw new ClassCastException("Not a start element: " + this);
+            return createEvent().asStartElement();
+        }
+
+        public EndElement asEndElement() {
+            if (!isEndElement()) throw new ClassCastException("Not an end element: " + this);
+            return createEvent().asEndElement();
+        }
+
+        public Characters asCharacters() {
+            if (!isCharacters()) throw new ClassCastException("Not a characters event: " + this);
+            return createEvent().asCharacters();
+        }
+
+        public QName getSchemaType() {
+            return null;
+        }
+
+        public void writeAsEncodedUnicode(Writer writer) throws XMLStreamException {
+            createEvent().writeAsEncodedUnicode(writer);
+        }
+
+        @Override
+        public String toString() {
+            if (type == XMLStreamConstants.START_ELEMENT
+                    || type == XMLStreamConstants.END_ELEMENT
+                    || type == XMLStreamConstants.ATTRIBUTE) {
+                return eventTypeName(type) + " " + getLocalName();
+            }
+            return eventTypeName(type);
+        }
+    }
+}
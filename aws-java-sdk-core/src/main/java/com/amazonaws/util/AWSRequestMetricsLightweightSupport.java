@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.metrics.LightweightRequestMetricCollector;
+import com.amazonaws.metrics.MetricType;
+import com.amazonaws.metrics.RequestMetricCollector;
+
+/**
+ * Request metrics which record into slots indexed by {@link Field}, instead
+ * of the maps of lists kept by {@link AWSRequestMetricsFullSupport}.
+ * <p>
+ * The total time of each event, the value of each counter and the last value
+ * of each property are kept in arrays allocated once per request. Events,
+ * counters and properties which are not predefined {@link Field}s are
+ * ignored, the {@link TimingInfo} only has the start and end time of the
+ * request, and nothing is logged per request.
+ * <p>
+ * This class is instantiated instead of {@link AWSRequestMetricsFullSupport}
+ * when the request metric collector in use is
+ * {@linkplain RequestMetricCollector#isLightweight() lightweight}, such as
+ * the {@link LightweightRequestMetricCollector}.
+ */
+@NotThreadSafe
+public class AWSRequestMetricsLightweightSupport extends AWSRequestMetrics {
+    private static final Field[] FIELDS = Field.values();
+
+    static {
+        // The fields recorded are tracked in the bits of a long
+        if (FIELDS.length > Long.SIZE) {
+            throw new IllegalStateException("Too many request metric fields: " + FIELDS.length);
+        }
+    }
+
+    private final long[] eventStartNanos = new long[FIELDS.length];
+    private final long[] eventNanos = new long[FIELDS.length];
+    private final long[] counters = new long[FIELDS.length];
+    private final Object[] properties = new Object[FIELDS.length];
+
+    /* Bits indexed by the ordinal of the fields */
+    private long startedEvents;
+    private long recordedEvents;
+    private long recordedCounters;
+
+    public AWSRequestMetricsLightweightSupport() {
+        super(TimingInfo.startTiming());
+    }
+
+    /**
+     * Starts timing an event. Starting an event again before ending it
+     * restarts its timing.
+     */
+    @Override
+    public void startEvent(MetricType f) {
+        if (f instanceof Field) {
+            int i = ((Field) f).ordinal();
+            eventStartNanos[i] = System.nanoTime();
+            startedEvents |= 1L << i;
+        }
+    }
+
+    /**
+     * Ends timing an event, adding the time since it was started to the total
+     * time of the event. Ending an event which was not started has no effect.
+     */
+    @Override
+    public void endEvent(MetricType f) {
+        if (f instanceof Field) {
+            int i = ((Field) f).ordinal();
+            long bit = 1L << i;
+            if ((startedEvents & bit) != 0) {
+                eventNanos[i] += System.nanoTime() - eventStartNanos[i];
+                startedEvents &= ~bit;
+                recordedEvents |= bit;
+            }
+        }
+    }
+
+    @Override
+    public void incrementCounter(MetricType f) {
+        if (f instanceof Field) {
+            int i = ((Field) f).ordinal();
+            counters[i]++;
+            recordedCounters |= 1L << i;
+        }
+    }
+
+    @Override
+    public void setCounter(MetricType f, long count) {
+        if (f instanceof Field) {
+            int i = ((Field) f).ordinal();
+            counters[i] = count;
+            recordedCounters |= 1L << i;
+        }
+    }
+
+    /**
+     * Sets a property. Only the last value of each property is kept.
+     */
+    @Override
+    public void addProperty(MetricType f, Object value) {
+        if (f instanceof Field) {
+            properties[((Field) f).ordinal()] = value;
+        }
+    }
+
+    @Override
+    public List<Object> getProperty(MetricType f) {
+        if (f instanceof Field) {
+            Object value = properties[((Field) f).ordinal()];
+            if (value != null) {
+                return Collections.singletonList(value);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns true if the event has been started and ended at least once;
+     * false otherwise.
+     */
+    public boolean isEventRecorded(Field f) {
+        return (recordedEvents & (1L << f.ordinal())) != 0;
+    }
+
+    /**
+     * Returns the total time of all the occurrences of the event, in
+     * nanoseconds.
+     */
+    public long getEventTimeNano(Field f) {
+        return eventNanos[f.ordinal()];
+    }
+
+    /**
+     * Returns true if the counter has been incremented or set; false
+     * otherwise.
+     */
+    public boolean isCounterRecorded(Field f) {
+        return (recordedCounters & (1L << f.ordinal())) != 0;
+    }
+
+    public long getCounter(Field f) {
+        return counters[f.ordinal()];
+    }
+
+    /** Always returns true. */
+    @Override
+    public final boolean isEnabled() {
+        return true;
+    }
+}
@@ -23,6 +23,8 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -33,6 +35,8 @@ import org.apache.commons.logging.LogFactory;
  */
 public class Md5Utils {
     private static final int SIXTEEN_K = 1 << 14;
+    /** The largest buffer used to read a file, matching the upload copy buffer. */
+    private static final int FILE_BUFFER_SIZE = 128 * 1024;
     /**
      * Computes the MD5 hash of the data in the given input stream and returns
      * it as an array of bytes.
@@ -94,7 +98,29 @@ public class Md5Utils {
      * Computes the MD5 of the given file.
      */
     public static byte[] computeMD5Hash(File file) throws FileNotFoundException, IOException {
-        return computeMD5Hash(new FileInputStream(file));
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel channel = fis.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(
+                    (int) Math.max(1, Math.min(FILE_BUFFER_SIZE, channel.size())));
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                messageDigest.update(buffer);
+                buffer.clear();
+            }
+            return messageDigest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // should never get here
+            throw new IllegalStateException(e);
+        } finally {
+            try {
+                fis.close();
+            } catch (Exception e) {
+                LogFactory.getLog(Md5Utils.class).debug(
+                        "Unable to close file of hash candidate: " + e);
+            }
+        }
     }
 
     /**
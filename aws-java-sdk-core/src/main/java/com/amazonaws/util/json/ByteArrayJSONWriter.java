@@ -0,0 +1,241 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.util.DateUtils;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A {@link JSONWriter} that writes UTF-8 encoded JSON through a Jackson
+ * {@link JsonGenerator} straight into a growable byte array, which then
+ * serves as the content of the request without being copied.
+ * <p>
+ * Marshallers that write into a {@link java.io.StringWriter} hold the JSON
+ * document three times: as the characters of the writer, as a String and as
+ * the UTF-8 bytes of that String. With this writer the document is held once,
+ * and its length is known as soon as it has been written.
+ * <p>
+ * Unlike {@link JSONWriter}, this writer does not check that the keys of an
+ * object are unique.
+ */
+public class ByteArrayJSONWriter extends JSONWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** The default initial capacity of the content buffer. */
+    private static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+    private final ContentBuffer buffer;
+    private final JsonGenerator generator;
+
+    public ByteArrayJSONWriter() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity
+     *            the number of bytes to allocate up front; the buffer grows as
+     *            needed.
+     */
+    public ByteArrayJSONWriter(int initialCapacity) {
+        super((Writer) null);
+        buffer = new ContentBuffer(initialCapacity);
+        try {
+            generator = JSON_FACTORY.createGenerator(buffer);
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to create a JSON generator", e);
+        }
+    }
+
+    @Override
+    public JSONWriter array() throws JSONException {
+        try {
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter endArray() throws JSONException {
+        try {
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter object() throws JSONException {
+        try {
+            generator.writeStartObject();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter endObject() throws JSONException {
+        try {
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter key(String s) throws JSONException {
+        if (s == null) {
+            throw new JSONException("Null key.");
+        }
+        try {
+            generator.writeFieldName(s);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(boolean b) throws JSONException {
+        try {
+            generator.writeBoolean(b);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(double d) throws JSONException {
+        return value(Double.valueOf(d));
+    }
+
+    @Override
+    public JSONWriter value(long l) throws JSONException {
+        try {
+            generator.writeNumber(l);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(Date date) throws JSONException {
+        try {
+            generator.writeNumber(DateUtils.formatServiceSpecificDate(date));
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(ByteBuffer b) throws JSONException {
+        try {
+            if (b.hasArray()) {
+                generator.writeBinary(b.array(),
+                        b.arrayOffset() + b.position(), b.remaining());
+            } else {
+                b.mark();
+                byte[] bytes = new byte[b.remaining()];
+                b.get(bytes, 0, bytes.length);
+                b.reset();
+                generator.writeBinary(bytes);
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(Object o) throws JSONException {
+        try {
+            if (o == null || JSONObject.NULL.equals(o)) {
+                generator.writeNull();
+            } else if (o instanceof String) {
+                generator.writeString((String) o);
+            } else if (o instanceof Integer || o instanceof Long
+                    || o instanceof Short || o instanceof Byte) {
+                generator.writeNumber(((Number) o).longValue());
+            } else if (o instanceof Number) {
+                // Same formatting as JSONWriter, e.g. 1.0 is written as 1
+                generator.writeNumber(JSONObject.numberToString((Number) o));
+            } else if (o instanceof Boolean) {
+                generator.writeBoolean(((Boolean) o).booleanValue());
+            } else {
+                generator.writeRawValue(JSONObject.valueToString(o));
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes of the JSON document written so far.
+     */
+    public int getContentLength() {
+        flush();
+        return buffer.size();
+    }
+
+    /**
+     * Returns an input stream over the JSON document written so far. The
+     * stream reads the bytes of this writer directly and supports mark and
+     * reset, so it can be replayed when the request is retried.
+     */
+    public InputStream getContent() {
+        flush();
+        return buffer.toInputStream();
+    }
+
+    private void flush() {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to flush the JSON generator", e);
+        }
+    }
+
+    /**
+     * A byte array output stream whose bytes can be read without copying.
+     */
+    private static final class ContentBuffer extends ByteArrayOutputStream {
+        ContentBuffer(int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -137,6 +137,49 @@ public class AWS4SignerTest {
         assertNull(request.getHeaders().get("Authorization"));
     }
 
+    @Test
+    public void testSigningKeyCached() throws Exception {
+        AWSCredentials credentials = new BasicAWSCredentials("access", "cached-secret");
+        signer.setOverrideDate(new Date(1444000000000L));
+
+        long hits = AWS4Signer.getSignerCache().getHitCount();
+        signer.sign(generateBasicRequest(), credentials);
+        signer.sign(generateBasicRequest(), credentials);
+
+        Assert.assertTrue(AWS4Signer.getSignerCache().getHitCount() > hits);
+    }
+
+    @Test
+    public void testCanonicalizedHeadersCompactWhiteSpace() {
+        Request<?> request = generateBasicRequest();
+        request.addHeader("X-Amz-Meta-Tabs", " a\t\tb \r\n c\u000b\fd ");
+
+        assertEquals(
+                "host:demo.us-east-1.amazonaws.com\n"
+                        + "x-amz-archive-description:test test\n"
+                        + "x-amz-meta-tabs: a b c d \n",
+                signer.getCanonicalizedHeaderString(request));
+        assertEquals("host;x-amz-archive-description;x-amz-meta-tabs",
+                signer.getSignedHeadersString(request));
+    }
+
+    @Test
+    public void testCanonicalRequest() {
+        Request<?> request = generateBasicRequest();
+        request.addParameter("b", "2");
+        request.addParameter("a", "1");
+
+        assertEquals("POST\n"
+                        + "/\n"
+                        + "a=1&b=2\n"
+                        + "host:demo.us-east-1.amazonaws.com\n"
+                        + "x-amz-archive-description:test test\n"
+                        + "\n"
+                        + "host;x-amz-archive-description\n"
+                        + "hash",
+                signer.createCanonicalRequest(request, "hash"));
+    }
+
     private Request<?> generateBasicRequest() {
         Request<?> request = new DefaultRequest<Void>("Foo");
         request.setContent(new ByteArrayInputStream("{\"TableName\": \"foo\"}".getBytes()));
@@ -2,8 +2,16 @@ package com.amazonaws.auth;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 import org.junit.Test;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.SignableRequest;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.StringUtils;
+
 public class AbstractAWSSignerTest {
 
     @Test
@@ -13,4 +21,66 @@ public class AbstractAWSSignerTest {
             AbstractAWSSigner.EMPTY_STRING_SHA256_HEX);
     }
 
+    @Test
+    public void testHashReusesDigest() throws Exception {
+        TestSigner signer = new TestSigner();
+        String expected = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+        assertEquals(expected, BinaryUtils.toHex(signer.hash("hello")));
+        assertEquals(expected, BinaryUtils.toHex(signer.hash("hello".getBytes(StringUtils.UTF8))));
+
+        // A failed hash must not leave state behind for the next one
+        try {
+            signer.hash(new FailingInputStream("partial".getBytes(StringUtils.UTF8)));
+        } catch (AmazonClientException expectedException) {
+        }
+        assertEquals(expected, BinaryUtils.toHex(signer.hash(
+                new ByteArrayInputStream("hello".getBytes(StringUtils.UTF8)))));
+    }
+
+    @Test
+    public void testSignReusesMac() {
+        TestSigner signer = new TestSigner();
+        byte[] key = "key".getBytes(StringUtils.UTF8);
+        String expected256 = "f7bc83f430538424b13298e6aa6fb143ef4d59a14946175997479dbc2d1a3cd8";
+        String expected1 = "de7c9b85b8b78aa6bc8a7a36f70a90701c9db4d9";
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(expected256, BinaryUtils.toHex(signer.sign(
+                    "The quick brown fox jumps over the lazy dog", key, SigningAlgorithm.HmacSHA256)));
+            assertEquals(expected1, BinaryUtils.toHex(signer.sign(
+                    "The quick brown fox jumps over the lazy dog", key, SigningAlgorithm.HmacSHA1)));
+        }
+    }
+
+    private static class TestSigner extends AbstractAWSSigner {
+        @Override
+        public void sign(SignableRequest<?> request, AWSCredentials credentials) {
+        }
+
+        @Override
+        protected void addSessionCredentials(SignableRequest<?> request,
+                AWSSessionCredentials credentials) {
+        }
+
+        @Override
+        public byte[] hash(InputStream input) {
+            return super.hash(input);
+        }
+    }
+
+    private static class FailingInputStream extends ByteArrayInputStream {
+        FailingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            if (available() == 0) {
+                throw new IllegalStateException("Boom");
+            }
+            return super.read(b, off, len);
+        }
+    }
+
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class SignerKeyCacheTest {
+
+    private static final long TODAY = 16000L;
+
+    @Test
+    public void testHitAndMiss() {
+        SignerKeyCache cache = new SignerKeyCache(10);
+        assertNull(cache.get("secret", "us-east-1", "s3", TODAY));
+
+        cache.add("secret", "us-east-1", "s3", key(TODAY, 1));
+        assertArrayEquals(new byte[] { 1 },
+                cache.get("secret", "us-east-1", "s3", TODAY).getSigningKey());
+        assertNull(cache.get("secret", "us-west-2", "s3", TODAY));
+        assertNull(cache.get("other", "us-east-1", "s3", TODAY));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testKeyOfAnotherDayIsMiss() {
+        SignerKeyCache cache = new SignerKeyCache(10);
+        cache.add("secret", "us-east-1", "s3", key(TODAY - 1, 1));
+
+        assertNull(cache.get("secret", "us-east-1", "s3", TODAY));
+
+        cache.add("secret", "us-east-1", "s3", key(TODAY, 2));
+        assertEquals(1, cache.size());
+        assertArrayEquals(new byte[] { 2 },
+                cache.get("secret", "us-east-1", "s3", TODAY).getSigningKey());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        SignerKeyCache cache = new SignerKeyCache(1);
+        cache.add("secret", "us-east-1", "s3", key(TODAY, 1));
+        cache.add("secret", "us-east-1", "sqs", key(TODAY, 2));
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("secret", "us-east-1", "s3", TODAY));
+        assertNotNull(cache.get("secret", "us-east-1", "sqs", TODAY));
+    }
+
+    @Test
+    public void testEarlierDaysEvictedFirst() {
+        SignerKeyCache cache = new SignerKeyCache(2, 1);
+        cache.add("secret", "us-east-1", "s3", key(TODAY - 1, 1));
+        cache.add("secret", "us-east-1", "sqs", key(TODAY, 2));
+
+        // The key of the earlier day goes first, though it was used last
+        assertNotNull(cache.get("secret", "us-east-1", "s3", TODAY - 1));
+        cache.add("secret", "us-east-1", "sns", key(TODAY, 3));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("secret", "us-east-1", "s3", TODAY - 1));
+        assertNotNull(cache.get("secret", "us-east-1", "sqs", TODAY));
+        assertNotNull(cache.get("secret", "us-east-1", "sns", TODAY));
+    }
+
+    @Test
+    public void testMaxSizeRespected() {
+        SignerKeyCache cache = new SignerKeyCache(300);
+        for (int i = 0; i < 1000; i++) {
+            cache.add("secret" + i, "region" + (i % 7), "service", key(TODAY, i));
+        }
+        assertEquals(true, cache.size() <= cache.getMaxSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroSize() {
+        new SignerKeyCache(0);
+    }
+
+    private static SignerKey key(long day, int value) {
+        return new SignerKey(day, new byte[] { (byte) value });
+    }
+}
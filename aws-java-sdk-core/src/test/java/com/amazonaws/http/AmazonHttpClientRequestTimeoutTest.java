@@ -20,8 +20,6 @@ package com.amazonaws.http;
 
 import java.io.IOException;
 import java.net.SocketTimeoutException;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import junit.framework.Assert;
 
@@ -47,6 +45,7 @@ import org.junit.Test;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.http.exception.HttpRequestTimeoutException;
+import com.amazonaws.http.timertask.HashedWheelTimer;
 import com.amazonaws.http.request.EmptyHttpRequest;
 import com.amazonaws.http.response.HttpResponseProxy;
 import com.amazonaws.http.response.NullErrorResponseHandler;
@@ -78,8 +77,8 @@ public class AmazonHttpClientRequestTimeoutTest {
             Assert.fail("Client-side socket read timeout is expected!");
         } catch (AmazonClientException e) {
             Assert.assertTrue(e.getCause() instanceof SocketTimeoutException);
-            /* The internal request timer should not have been instantiated. */
-            ScheduledThreadPoolExecutor httpRequestTimer = httpClient.getHttpRequestTimer().getExecutor();
+            /* The internal request timer should not have been used. */
+            HashedWheelTimer httpRequestTimer = httpClient.getHttpRequestTimer().getTimer();
             Assert.assertNull(httpRequestTimer);
         }
         
@@ -102,6 +101,8 @@ public class AmazonHttpClientRequestTimeoutTest {
         Request<?> request = new EmptyHttpRequest(localhostEndpoint, HttpMethodName.GET);
 
         AmazonHttpClient httpClient = new AmazonHttpClient(config, rawHttpClient, null);
+        HashedWheelTimer httpRequestTimer = httpClient.getHttpRequestTimer().getTimer();
+        long expiredBefore = httpRequestTimer.getExpiredCount();
 
         try {
             httpClient.execute(request, new NullResponseHandler(), new NullErrorResponseHandler(), new ExecutionContext());
@@ -111,8 +112,7 @@ public class AmazonHttpClientRequestTimeoutTest {
             Assert.assertTrue(e.getCause() instanceof HttpRequestTimeoutException);
             int expectedNumberOfRequests = 1 + maxRetries;
             verify(rawHttpClient, times(expectedNumberOfRequests)).execute(any(HttpRequestBase.class), any(HttpContext.class));
-            ScheduledThreadPoolExecutor httpRequestTimer = httpClient.getHttpRequestTimer().getExecutor();
-            Assert.assertEquals(expectedNumberOfRequests, httpRequestTimer.getCompletedTaskCount());
+            Assert.assertEquals(expectedNumberOfRequests, httpRequestTimer.getExpiredCount() - expiredBefore);
         }
         
         server.stopServer();
@@ -134,6 +134,8 @@ public class AmazonHttpClientRequestTimeoutTest {
         Request<?> request = new EmptyHttpRequest(localhostEndpoint, HttpMethodName.GET);
 
         AmazonHttpClient httpClient = new AmazonHttpClient(config, rawHttpClient, null);
+        HashedWheelTimer httpRequestTimer = httpClient.getHttpRequestTimer().getTimer();
+        long expiredBefore = httpRequestTimer.getExpiredCount();
 
         try {
             httpClient.execute(request, new NullResponseHandler(), new NullErrorResponseHandler(), new ExecutionContext());
@@ -147,13 +149,10 @@ public class AmazonHttpClientRequestTimeoutTest {
         /* Verify the response was buffered when enforcing the request timeout. */
         verify(responseProxy).setEntity(any(BufferedHttpEntity.class));
         
-        /* Verify cancelled tasks are removed on demand and the core threads die out after the keep alive time. */
-        ScheduledThreadPoolExecutor httpRequestTimer = httpClient.getHttpRequestTimer().getExecutor();
-        Assert.assertEquals(0, httpRequestTimer.getCompletedTaskCount());
-        Assert.assertEquals(0, httpRequestTimer.getQueue().size());
-        Assert.assertEquals(1, httpRequestTimer.getPoolSize());
-        Thread.sleep(httpRequestTimer.getKeepAliveTime(TimeUnit.MILLISECONDS) + 1000);
-        Assert.assertEquals(0, httpRequestTimer.getPoolSize());
+        /* Verify the cancelled task did not expire and is removed from the timer on its next tick. */
+        Thread.sleep(100);
+        Assert.assertEquals(0, httpRequestTimer.getExpiredCount() - expiredBefore);
+        Assert.assertEquals(0, httpRequestTimer.getPendingCount());
         
         httpClient.shutdown();
     }
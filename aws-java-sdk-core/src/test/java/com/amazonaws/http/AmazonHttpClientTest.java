@@ -22,6 +22,17 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.ProtocolVersion;
 import org.apache.http.client.HttpClient;
@@ -37,10 +48,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.AmazonWebServiceResponse;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.DefaultRequest;
 import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.SyncProgressListener;
 
 public class AmazonHttpClientTest {
 
@@ -159,6 +175,212 @@ public class AmazonHttpClientTest {
         EasyMock.verify(httpClient);
     }
 
+    @Test
+    public void testExecuteAsyncRetriesIOException() throws Exception {
+        IOException exception = new IOException("BOOM");
+
+        EasyMock.reset(httpClient);
+
+        EasyMock
+            .expect(httpClient.getConnectionManager())
+            .andReturn(null)
+            .anyTimes();
+
+        EasyMock
+            .expect(httpClient.execute(EasyMock.<HttpUriRequest>anyObject(),
+                                       EasyMock.<HttpContext>anyObject()))
+            .andThrow(exception)
+            .times(4);
+
+        EasyMock.replay(httpClient);
+
+        ExecutionContext context = new ExecutionContext();
+
+        Request<?> request = new DefaultRequest<Object>("testsvc");
+        request.setEndpoint(java.net.URI.create(
+                "http://testsvc.region.amazonaws.com"));
+        request.setContent(new ByteArrayInputStream(new byte[0]));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response<Object>> future =
+                client.executeAsync(request, null, null, context, executor);
+            future.get();
+            Assert.fail("No exception when request repeatedly fails!");
+
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof AmazonClientException);
+            Assert.assertSame(exception, e.getCause().getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        // Verify that we called execute 4 times.
+        EasyMock.verify(httpClient);
+    }
+
+    @Test
+    public void testExecuteAsyncReleasesThreadDuringRetryPause() throws Exception {
+        final CountDownLatch firstAttemptFailed = new CountDownLatch(1);
+        final List<String> sentPaths =
+            Collections.synchronizedList(new ArrayList<String>());
+
+        EasyMock.reset(httpClient);
+
+        EasyMock
+            .expect(httpClient.getConnectionManager())
+            .andReturn(null)
+            .anyTimes();
+
+        // The first request fails once and is retried after a pause, during
+        // which the second request runs on the same (only) executor thread.
+        EasyMock
+            .expect(httpClient.execute(EasyMock.<HttpUriRequest>anyObject(),
+                                       EasyMock.<HttpContext>anyObject()))
+            .andAnswer(new IAnswer<org.apache.http.HttpResponse>() {
+
+                @Override
+                public org.apache.http.HttpResponse answer()
+                        throws Throwable {
+
+                    HttpUriRequest request =
+                            (HttpUriRequest) EasyMock.getCurrentArguments()[0];
+                    sentPaths.add(request.getURI().getPath());
+                    if (firstAttemptFailed.getCount() > 0) {
+                        firstAttemptFailed.countDown();
+                        throw new IOException("BOOM");
+                    }
+
+                    BasicHttpEntity entity = new BasicHttpEntity();
+                    entity.setContent(new ByteArrayInputStream(new byte[0]));
+
+                    BasicHttpResponse response = new BasicHttpResponse(
+                            new ProtocolVersion("http", 1, 1),
+                            200,
+                            "OK");
+                    response.setEntity(entity);
+                    return response;
+                }
+            })
+            .times(3);
+
+        EasyMock.replay(httpClient);
+
+        HttpResponseHandler<AmazonWebServiceResponse<Object>> handler =
+            new HttpResponseHandler<AmazonWebServiceResponse<Object>>() {
+                @Override
+                public AmazonWebServiceResponse<Object> handle(HttpResponse response) {
+                    AmazonWebServiceResponse<Object> awsResponse =
+                        new AmazonWebServiceResponse<Object>();
+                    awsResponse.setResult("result");
+                    return awsResponse;
+                }
+
+                @Override
+                public boolean needsConnectionLeftOpen() {
+                    return false;
+                }
+            };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response<Object>> first = client.executeAsync(
+                    newRequest("/first"), handler, null, new ExecutionContext(), executor);
+            Assert.assertTrue(firstAttemptFailed.await(10, TimeUnit.SECONDS));
+            Future<Response<Object>> second = client.executeAsync(
+                    newRequest("/second"), handler, null, new ExecutionContext(), executor);
+
+            Assert.assertEquals("result", second.get().getAwsResponse());
+            Assert.assertEquals("result", first.get().getAwsResponse());
+        } finally {
+            executor.shutdown();
+        }
+
+        // The second request was sent before the retry of the first one.
+        Assert.assertEquals(Arrays.asList("/first", "/second", "/first"), sentPaths);
+        EasyMock.verify(httpClient);
+    }
+
+    @Test
+    public void testExecuteAsyncCancelledDuringAttempt() throws Exception {
+        final CountDownLatch attemptStarted = new CountDownLatch(1);
+        final CountDownLatch attemptResumed = new CountDownLatch(1);
+        final List<ProgressEventType> events =
+            Collections.synchronizedList(new ArrayList<ProgressEventType>());
+
+        EasyMock.reset(httpClient);
+
+        EasyMock
+            .expect(httpClient.getConnectionManager())
+            .andReturn(null)
+            .anyTimes();
+
+        EasyMock
+            .expect(httpClient.execute(EasyMock.<HttpUriRequest>anyObject(),
+                                       EasyMock.<HttpContext>anyObject()))
+            .andAnswer(new IAnswer<org.apache.http.HttpResponse>() {
+
+                @Override
+                public org.apache.http.HttpResponse answer()
+                        throws Throwable {
+                    attemptStarted.countDown();
+                    attemptResumed.await();
+                    throw new IOException("BOOM");
+                }
+            })
+            .once();
+
+        EasyMock.replay(httpClient);
+
+        AmazonHttpClient noRetryClient = new AmazonHttpClient(
+                new ClientConfiguration().withMaxErrorRetry(0), httpClient, null);
+
+        AmazonWebServiceRequest originalRequest = new AmazonWebServiceRequest() {};
+        originalRequest.setGeneralProgressListener(new SyncProgressListener() {
+            @Override
+            public void progressChanged(ProgressEvent progressEvent) {
+                events.add(progressEvent.getEventType());
+            }
+        });
+        Request<?> request = new DefaultRequest<Object>(originalRequest, "testsvc");
+        request.setEndpoint(URI.create("http://testsvc.region.amazonaws.com"));
+        InputStream content = new ByteArrayInputStream(new byte[0]);
+        request.setContent(content);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Response<Object>> future = noRetryClient.executeAsync(
+                request, null, null, new ExecutionContext(), executor);
+        Assert.assertTrue(attemptStarted.await(10, TimeUnit.SECONDS));
+
+        Assert.assertTrue(future.cancel(false));
+        Assert.assertTrue(future.isDone());
+        // The attempt in progress still uses the request.
+        Assert.assertNotSame(content, request.getContent());
+
+        attemptResumed.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Released once the attempt ended, without reporting a failure.
+        Assert.assertSame(content, request.getContent());
+        Assert.assertTrue(events.contains(ProgressEventType.CLIENT_REQUEST_STARTED_EVENT));
+        Assert.assertFalse(events.contains(ProgressEventType.CLIENT_REQUEST_FAILED_EVENT));
+        try {
+            future.get();
+            Assert.fail("Expected CancellationException");
+        } catch (CancellationException expected) {
+        }
+        EasyMock.verify(httpClient);
+    }
+
+    private static Request<?> newRequest(String resourcePath) {
+        Request<?> request = new DefaultRequest<Object>("testsvc");
+        request.setEndpoint(URI.create("http://testsvc.region.amazonaws.com"));
+        request.setResourcePath(resourcePath);
+        request.setContent(new ByteArrayInputStream(new byte[0]));
+        return request;
+    }
+
     @Test
     public void testPutRetryNoCL() throws Exception {
         Request<?> request = new DefaultRequest<Object>(null, "testsvc");
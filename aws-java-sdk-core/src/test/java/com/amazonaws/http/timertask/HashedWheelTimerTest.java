@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.timertask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.http.timertask.HashedWheelTimer.Timeout;
+
+public class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        // A small wheel, so that the tests also cover multiple rounds
+        timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8, "test-timer");
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test(timeout = 5 * 1000)
+    public void testTimeoutExpiresAfterDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        Timeout timeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 200, TimeUnit.MILLISECONDS);
+
+        latch.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Expired after " + elapsedMillis + "ms", elapsedMillis >= 200);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(1, timer.getExpiredCount());
+        assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotExpire() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(timer.schedule(task, 50, TimeUnit.MILLISECONDS).cancel());
+        }
+
+        Thread.sleep(200);
+        assertEquals(0, runs.get());
+        assertEquals(0, timer.getExpiredCount());
+        assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test(timeout = 5 * 1000)
+    public void testTimeoutsExpireInDeadlineOrder() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final StringBuffer order = new StringBuffer();
+        for (final String name : new String[] { "c", "a", "b" }) {
+            long delay = name.equals("a") ? 20 : name.equals("b") ? 60 : 120;
+            timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    order.append(name);
+                    latch.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        latch.await();
+        assertEquals("abc", order.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleOnStoppedTimer() {
+        timer.stop();
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.amazonaws.util.AWSRequestMetricsLightweightSupport;
+
+public class LightweightRequestMetricCollectorTest {
+
+    @Test
+    public void recordsFieldsIntoSlots() {
+        AWSRequestMetricsLightweightSupport metrics = new AWSRequestMetricsLightweightSupport();
+        assertTrue(metrics.isEnabled());
+        metrics.startEvent(Field.HttpRequestTime);
+        metrics.endEvent(Field.HttpRequestTime);
+        metrics.startEvent(Field.HttpRequestTime);
+        metrics.endEvent(Field.HttpRequestTime);
+        metrics.endEvent(Field.RequestSigningTime); // never started
+        metrics.incrementCounter(Field.Exception);
+        metrics.incrementCounter(Field.Exception);
+        metrics.setCounter(Field.RequestCount, 3);
+        metrics.addProperty(Field.StatusCode, 500);
+        metrics.addProperty(Field.StatusCode, 200);
+        metrics.startEvent("NotAField");
+        metrics.endEvent("NotAField");
+
+        assertTrue(metrics.isEventRecorded(Field.HttpRequestTime));
+        assertTrue(metrics.getEventTimeNano(Field.HttpRequestTime) >= 0);
+        assertFalse(metrics.isEventRecorded(Field.RequestSigningTime));
+        assertEquals(2, metrics.getCounter(Field.Exception));
+        assertEquals(3, metrics.getCounter(Field.RequestCount));
+        assertFalse(metrics.isCounterRecorded(Field.ThrottleException));
+        assertEquals(1, metrics.getProperty(Field.StatusCode).size());
+        assertEquals(200, metrics.getProperty(Field.StatusCode).get(0));
+        assertTrue(metrics.getProperty(Field.AWSRequestID).isEmpty());
+    }
+
+    @Test
+    public void drainsTheHistogramsOfAllThreads() throws Exception {
+        final LightweightRequestMetricCollector collector = new LightweightRequestMetricCollector();
+        assertTrue(collector.isLightweight());
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100; i++) {
+                        collector.collectMetrics(newRequest(new AWSRequestMetricsLightweightSupport(), i % 10 == 0),
+                                null);
+                    }
+                    // ignored
+                    collector.collectMetrics(newRequest(new AWSRequestMetricsFullSupport(), true), null);
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        RequestMetricsSnapshot snapshot = collector.drain();
+        assertEquals(400, snapshot.getRequestCount());
+        assertEquals(400, snapshot.getHistogram(Field.RequestCount).getTotalCount());
+        assertEquals(400, snapshot.getHistogram(Field.RequestCount).getSum());
+        assertEquals(40, snapshot.getHistogram(Field.Exception).getTotalCount());
+        assertEquals(0, snapshot.getHistogram(Field.RequestSigningTime).getTotalCount());
+        assertTrue(snapshot.getStartTimeMilli() <= snapshot.getEndTimeMilli());
+
+        // drained
+        snapshot = collector.drain();
+        assertEquals(0, snapshot.getRequestCount());
+        assertEquals(0, snapshot.getHistogram(Field.RequestCount).getSum());
+    }
+
+    private static DefaultRequest<Object> newRequest(AWSRequestMetrics metrics, boolean failed) {
+        metrics.startEvent(Field.ClientExecuteTime);
+        metrics.setCounter(Field.RequestCount, 1);
+        if (failed) {
+            metrics.incrementCounter(Field.Exception);
+        }
+        metrics.endEvent(Field.ClientExecuteTime);
+        DefaultRequest<Object> request = new DefaultRequest<Object>("test");
+        request.setAWSRequestMetrics(metrics);
+        return request;
+    }
+}
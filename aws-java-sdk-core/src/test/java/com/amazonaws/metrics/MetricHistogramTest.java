@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricHistogramTest {
+
+    @Test
+    public void bucketsCoverAllValuesInOrder() {
+        assertEquals(0, MetricHistogram.bucketIndex(-5));
+        assertEquals(63, MetricHistogram.bucketIndex(63));
+        assertEquals(MetricHistogram.BUCKET_COUNT - 1,
+                MetricHistogram.bucketIndex(MetricHistogram.MAX_TRACKABLE_VALUE));
+        assertEquals(MetricHistogram.BUCKET_COUNT - 1, MetricHistogram.bucketIndex(Long.MAX_VALUE));
+        for (int i = 0; i < MetricHistogram.BUCKET_COUNT; i++) {
+            long lowest = MetricHistogram.lowestValue(i);
+            long highest = MetricHistogram.highestValue(i);
+            assertEquals(i, MetricHistogram.bucketIndex(lowest));
+            assertEquals(i, MetricHistogram.bucketIndex(highest));
+            if (i > 0) {
+                assertEquals(MetricHistogram.highestValue(i - 1) + 1, lowest);
+            }
+            // within about 3%
+            assertTrue(highest - lowest <= lowest / 32);
+        }
+        assertEquals(MetricHistogram.MAX_TRACKABLE_VALUE,
+                MetricHistogram.highestValue(MetricHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void percentiles() {
+        MetricHistogram h = new MetricHistogram();
+        assertEquals(0, h.getValueAtPercentile(99));
+        for (long v = 1; v <= 1000; v++) {
+            h.recordValue(v * 1000);
+        }
+        assertEquals(1000, h.getTotalCount());
+        assertEquals(500500000, h.getSum());
+        assertEquals(500500.0, h.getMean(), 0.0);
+        assertWithin(500000, h.getValueAtPercentile(50));
+        assertWithin(990000, h.getValueAtPercentile(99));
+        assertWithin(1000000, h.getMax());
+        assertWithin(1000, h.getMin());
+    }
+
+    @Test
+    public void add() {
+        MetricHistogram a = new MetricHistogram();
+        MetricHistogram b = new MetricHistogram();
+        a.recordValue(10);
+        b.recordValue(20);
+        b.recordValue(30);
+        a.add(b);
+        assertEquals(3, a.getTotalCount());
+        assertEquals(60, a.getSum());
+        assertEquals(10, a.getMin());
+        assertEquals(30, a.getMax());
+        assertEquals(20, a.getValueAtPercentile(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 32);
+    }
+}
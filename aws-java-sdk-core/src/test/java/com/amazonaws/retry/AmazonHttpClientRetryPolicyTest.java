@@ -34,7 +34,7 @@ import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.util.AWSRequestMetrics;
 
 /**
- * Tests that {@link AmazonHttpClient#executeHelper()} method passes the correct
+ * Tests that {@link AmazonHttpClient#execute} method passes the correct
  * context information into the configured RetryPolicy.
  */
 public class AmazonHttpClientRetryPolicyTest extends RetryPolicyTestBase {
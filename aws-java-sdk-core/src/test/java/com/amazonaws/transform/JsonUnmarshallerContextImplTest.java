@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+
+public class JsonUnmarshallerContextImplTest {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Test
+    public void getCurrentFieldName_MatchesTestExpression() throws Exception {
+        JsonUnmarshallerContextImpl context = new JsonUnmarshallerContextImpl(
+                JSON_FACTORY.createParser("{\"A\":{\"B\":[{\"C\":{\"D\":\"E\"}}]}}"));
+
+        assertEquals(JsonToken.START_OBJECT, context.nextToken());
+        assertEquals(JsonToken.FIELD_NAME, context.nextToken());
+        assertEquals("A", context.getCurrentFieldName(1));
+        assertTrue(context.testExpression("A", 1));
+        assertNull(context.getCurrentFieldName(2));
+
+        assertEquals(JsonToken.START_OBJECT, context.nextToken());
+        // The field is pushed onto the stack with the object it starts
+        assertEquals("A", context.getCurrentFieldName(1));
+        assertEquals(JsonToken.FIELD_NAME, context.nextToken());
+        assertEquals("B", context.getCurrentFieldName(2));
+        assertFalse(context.testExpression("A", 2));
+
+        for (int i = 0; i < 6; i++) {
+            context.nextToken();
+        }
+        assertEquals(JsonToken.VALUE_STRING, context.getCurrentToken());
+        assertEquals("D", context.getCurrentFieldName(4));
+        assertEquals("/A/B/C/D", context.toString());
+        assertEquals("E", context.readText());
+
+        assertEquals(JsonToken.END_OBJECT, context.nextToken());
+        assertEquals("C", context.getLastParsedParentElement());
+        assertEquals(2, context.getCurrentDepth());
+    }
+
+    @Test
+    public void deeplyNestedDocument_GrowsStack() throws Exception {
+        StringBuilder json = new StringBuilder();
+        int depth = 100;
+        for (int i = 0; i < depth; i++) {
+            json.append("{\"f").append(i).append("\":");
+        }
+        json.append("null");
+        for (int i = 0; i < depth; i++) {
+            json.append('}');
+        }
+        JsonUnmarshallerContextImpl context = new JsonUnmarshallerContextImpl(
+                JSON_FACTORY.createParser(json.toString()));
+
+        while (context.nextToken() != JsonToken.VALUE_NULL) {
+        }
+        assertEquals(depth, context.getCurrentDepth());
+        assertEquals("f99", context.getCurrentFieldName(depth));
+
+        while (context.nextToken() != null) {
+        }
+        assertEquals(0, context.getCurrentDepth());
+        assertEquals("/", context.toString());
+    }
+}
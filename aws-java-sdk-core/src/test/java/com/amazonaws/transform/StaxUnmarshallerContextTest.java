@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import org.junit.Test;
+
+public class StaxUnmarshallerContextTest {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private static StaxUnmarshallerContext createContext(String xml) throws Exception {
+        return new StaxUnmarshallerContext(
+                XML_INPUT_FACTORY.createXMLEventReader(new StringReader(xml)));
+    }
+
+    private static StaxUnmarshallerContext createCursorContext(String xml) throws Exception {
+        return new StaxUnmarshallerContext(
+                XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml)), null);
+    }
+
+    /**
+     * Reads the document the way the generated unmarshallers do, and returns
+     * a trace of the events, depths and texts seen.
+     */
+    private static String trace(StaxUnmarshallerContext context) throws Exception {
+        StringBuilder trace = new StringBuilder();
+        trace.append(context.isStartOfDocument()).append(';');
+        while (true) {
+            XMLEvent event = context.nextEvent();
+            trace.append(event.getEventType()).append('@').append(context.getCurrentDepth());
+            if (event.isEndDocument()) return trace.toString();
+            if (event.isAttribute() || event.isStartElement()) {
+                if (context.testExpression("Value", 4) || context.testExpression("Name/@encoding", 4)) {
+                    trace.append('=').append(context.readText());
+                }
+            }
+            trace.append(';');
+        }
+    }
+
+    @Test
+    public void testExpression_TracksElementPath() throws Exception {
+        StaxUnmarshallerContext context = createContext(
+                "<Response><Items><member><Name>a</Name></member></Items></Response>");
+
+        assertTrue(context.nextEvent().isStartDocument());
+        assertTrue(context.nextEvent().isStartElement());
+        assertEquals(1, context.getCurrentDepth());
+        assertTrue(context.testExpression("Response", 1));
+        assertFalse(context.testExpression("Response", 0));
+
+        context.nextEvent();
+        context.nextEvent();
+        XMLEvent event = context.nextEvent();
+        assertEquals("Name", event.asStartElement().getName().getLocalPart());
+        assertEquals(4, context.getCurrentDepth());
+        assertEquals(Arrays.asList("Response", "Items", "member", "Name"), context.stack);
+        assertTrue(context.testExpression("Name", 4));
+        assertTrue(context.testExpression("member/Name", 3));
+        assertTrue(context.testExpression("Items/member/Name", 2));
+        assertFalse(context.testExpression("Items/Name", 3));
+        assertFalse(context.testExpression("member/Name", 4));
+        assertTrue(context.testExpression("."));
+        assertTrue(context.testExpression("/member/Name"));
+        assertTrue(context.testExpression("ame"));
+        assertFalse(context.testExpression("Items/Name"));
+
+        assertEquals("a", context.readText());
+        assertTrue(context.nextEvent().isEndElement());
+        assertEquals(3, context.getCurrentDepth());
+        assertEquals(Arrays.asList("Response", "Items", "member"), context.stack);
+        assertTrue(context.testExpression("Items/member", 2));
+        assertFalse(context.testExpression("member/Name", 3));
+    }
+
+    @Test
+    public void testExpression_MatchesAttributes() throws Exception {
+        StaxUnmarshallerContext context = createContext(
+                "<Response><Name encoding=\"base64\"><Child/></Name></Response>");
+
+        context.nextEvent();
+        context.nextEvent();
+        assertTrue(context.nextEvent().isStartElement());
+        assertTrue(context.testExpression("Name", 2));
+        assertFalse(context.testExpression("Name/@encoding", 2));
+
+        assertTrue(context.nextEvent().isAttribute());
+        assertEquals(2, context.getCurrentDepth());
+        assertTrue(context.testExpression("Name/@encoding", 2));
+        assertTrue(context.testExpression("Response/Name/@encoding", 1));
+        assertTrue(context.testExpression("@encoding", 2));
+        assertFalse(context.testExpression("Name", 2));
+        assertTrue(context.testExpression("Name/@encoding"));
+        assertEquals("base64", context.readText());
+
+        assertTrue(context.nextEvent().isStartElement());
+        assertTrue(context.testExpression("Name/Child", 2));
+        assertFalse(context.testExpression("Name/@encoding", 2));
+    }
+
+    @Test
+    public void registerMetadataExpression_CollectsMatchingText() throws Exception {
+        StaxUnmarshallerContext context = createContext(
+                "<Response><ResponseMetadata><RequestId>abc</RequestId></ResponseMetadata>"
+                + "<RequestId>other</RequestId></Response>");
+        context.registerMetadataExpression("ResponseMetadata/RequestId", 2, "requestId");
+
+        while (!context.nextEvent().isEndDocument()) {
+        }
+        assertEquals("abc", context.getMetadata().get("requestId"));
+    }
+
+    @Test
+    public void cursorParsing_MatchesEventParsing() throws Exception {
+        String xml = "<?xml version=\"1.0\"?>\n"
+                + "<Response xmlns=\"urn:test\"><Items>\n"
+                + "  <Item><Name encoding=\"base64\">YQ==</Name><Value>a &amp; b</Value></Item>\n"
+                + "  <Item><Name>c</Name><Value/><Value><![CDATA[d]]></Value></Item>\n"
+                + "</Items><!-- comment --><RequestId>id</RequestId></Response>";
+
+        String expected = trace(createContext(xml));
+        assertTrue(expected.contains("=a & b;"));
+        assertTrue(expected.contains("=base64;"));
+        assertEquals(expected, trace(createCursorContext(xml)));
+    }
+
+    @Test
+    public void cursorParsing_ReadsUncoalescedText() throws Exception {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Report CDATA sections as separate events, as non-coalescing
+        // parsers such as Woodstox do
+        factory.setProperty("http://java.sun.com/xml/stream/properties/report-cdata-event", true);
+        XMLStreamReader reader = new StreamReaderDelegate(factory.createXMLStreamReader(
+                new StringReader("<Response><Value>a<![CDATA[<b>]]> </Value></Response>"))) {
+            // Report whitespace as ignorable, as a validating parser would
+            @Override
+            public int next() throws XMLStreamException {
+                super.next();
+                return getEventType();
+            }
+
+            @Override
+            public int getEventType() {
+                int type = super.getEventType();
+                return type == XMLStreamConstants.CHARACTERS && isWhiteSpace()
+                        ? XMLStreamConstants.SPACE
+                        : type;
+            }
+        };
+        StaxUnmarshallerContext context = new StaxUnmarshallerContext(reader, null);
+
+        assertTrue(context.nextEvent().isStartDocument());
+        assertTrue(context.nextEvent().isStartElement());
+        assertTrue(context.nextEvent().isStartElement());
+        assertTrue(context.testExpression("Value", 2));
+        assertEquals("a<b> ", context.readText());
+        assertTrue(context.nextEvent().isEndElement());
+    }
+
+    @Test
+    public void cursorParsing_SharesOneEvent() throws Exception {
+        StaxUnmarshallerContext context = createCursorContext(
+                "<Response><Name encoding=\"base64\">a</Name></Response>");
+
+        XMLEvent startDocument = context.nextEvent();
+        assertTrue(startDocument.isStartDocument());
+        XMLEvent response = context.nextEvent();
+        assertSame(startDocument, response);
+        assertEquals("Response", response.asStartElement().getName().getLocalPart());
+
+        XMLEvent name = context.nextEvent();
+        assertEquals("a", context.readText());
+        assertEquals("base64", name.asStartElement()
+                .getAttributeByName(new QName("encoding")).getValue());
+        assertTrue(context.nextEvent().isAttribute());
+        assertTrue(context.testExpression("Name/@encoding", 2));
+        assertEquals("base64", context.readText());
+        XMLEvent end = context.nextEvent();
+        assertEquals("Name", end.asEndElement().getName().getLocalPart());
+        assertEquals(1, context.getCurrentDepth());
+        assertTrue(context.nextEvent().isEndElement());
+        assertTrue(context.nextEvent().isEndDocument());
+    }
+
+    @Test
+    public void cursorParsing_CollectsMetadata() throws Exception {
+        StaxUnmarshallerContextFactory factory = new StaxUnmarshallerContextFactory(true);
+        assertTrue(factory.isCursorParsing());
+        StaxUnmarshallerContext context = factory.createContext(new ByteArrayInputStream(
+                ("<Response><ResponseMetadata><RequestId>abc</RequestId></ResponseMetadata>"
+                + "</Response>").getBytes("UTF-8")), null);
+        context.registerMetadataExpression("ResponseMetadata/RequestId", 2, "requestId");
+
+        XMLEvent event;
+        do {
+            event = context.nextEvent();
+            if (event.isStartElement() && context.testExpression("RequestId", 3)) {
+                assertEquals("abc", context.readText());
+            }
+        } while (!event.isEndDocument());
+        context.close();
+        assertEquals("abc", context.getMetadata().get("requestId"));
+    }
+
+    @Test
+    public void deeplyNestedElements() throws Exception {
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; i < 40; i++) xml.append("<e").append(i).append('>');
+        for (int i = 39; i >= 0; i--) xml.append("</e").append(i).append('>');
+        StaxUnmarshallerContext context = createContext(xml.toString());
+
+        context.nextEvent();
+        for (int i = 0; i < 40; i++) context.nextEvent();
+        assertEquals(40, context.getCurrentDepth());
+        assertTrue(context.testExpression("e38/e39", 39));
+        for (int i = 0; i < 40; i++) context.nextEvent();
+        assertEquals(0, context.getCurrentDepth());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.amazonaws.util.json.ByteArrayJSONWriter;
+import com.amazonaws.util.json.JSONWriter;
+import com.amazonaws.util.json.Jackson;
+
+/**
+ * Unit tests for the ByteArrayJSONWriter class.
+ */
+public class ByteArrayJSONWriterTest {
+
+    /**
+     * Tests that ByteArrayJSONWriter writes the same JSON document as
+     * JSONWriter for the values the marshallers write.
+     */
+    @Test
+    public void testSameDocumentAsJSONWriter() throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        writeDocument(new JSONWriter(stringWriter));
+
+        ByteArrayJSONWriter byteArrayWriter = new ByteArrayJSONWriter(8);
+        writeDocument(byteArrayWriter);
+
+        byte[] content = IOUtils.toByteArray(byteArrayWriter.getContent());
+        assertEquals(content.length, byteArrayWriter.getContentLength());
+        assertEquals(Jackson.jsonNodeOf(stringWriter.toString()),
+                Jackson.jsonNodeOf(new String(content, StringUtils.UTF8)));
+    }
+
+    /**
+     * Tests that the content can be read again after a reset, as it is when a
+     * request is retried.
+     */
+    @Test
+    public void testContentIsResettable() throws Exception {
+        ByteArrayJSONWriter writer = new ByteArrayJSONWriter();
+        writer.object().key("key").value("value").endObject();
+
+        InputStream content = writer.getContent();
+        content.mark(writer.getContentLength());
+        String first = IOUtils.toString(content);
+        content.reset();
+        assertEquals(first, IOUtils.toString(content));
+        assertEquals("{\"key\":\"value\"}", first);
+    }
+
+    private static void writeDocument(JSONWriter writer) throws Exception {
+        writer.object();
+        writer.key("string").value("h\u00e9\"llo</x>\u0001");
+        writer.key("integer").value(Integer.valueOf(42));
+        writer.key("long").value(Long.MAX_VALUE);
+        writer.key("double").value(Double.valueOf(2.50));
+        writer.key("boolean").value(Boolean.TRUE);
+        writer.key("date").value(new Date(1234567L));
+        writer.key("binary").value(
+                ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5 }, 1, 3).slice());
+        writer.key("null").value((Object) null);
+        writer.key("array").array().value("a").object().endObject().endArray();
+        writer.endObject();
+    }
+}
@@ -18,11 +18,13 @@
  */
 package com.amazonaws.util;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Random;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.Test;
@@ -58,4 +60,21 @@ public class Md5UtilsTest {
         String b64 = Md5Utils.md5AsBase64(f);
         assertEquals("C09QO463cUzhJAJAaJXPaA==", b64);
     }
+
+    @Test
+    public void testFileLargerThanBuffer() throws Exception {
+        byte[] data = new byte[300 * 1024 + 7];
+        new Random(42).nextBytes(data);
+        File f = File.createTempFile("Md5UtilsTest-", "bin");
+        f.deleteOnExit();
+        FileUtils.writeByteArrayToFile(f, data);
+        assertArrayEquals(Md5Utils.computeMD5Hash(data), Md5Utils.computeMD5Hash(f));
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        File f = File.createTempFile("Md5UtilsTest-", "bin");
+        f.deleteOnExit();
+        assertArrayEquals(Md5Utils.computeMD5Hash(new byte[0]), Md5Utils.computeMD5Hash(f));
+    }
 }
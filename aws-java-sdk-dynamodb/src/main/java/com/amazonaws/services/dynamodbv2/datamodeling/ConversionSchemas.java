@@ -23,12 +23,15 @@ import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -158,6 +161,43 @@ public final class ConversionSchemas {
 
     static final ConversionSchema DEFAULT = V2_COMPATIBLE;
 
+    /**
+     * Returns a conversion schema with the same mapping as the given one, but
+     * which works out how to convert each mapped class once, the first time
+     * the class is used, instead of on every call. For each property the
+     * getter, setter, attribute name, marshaller and unmarshaller are
+     * resolved up front into a table that is reused by every converter of
+     * the schema, so converting an item no longer goes through per-call
+     * cache lookups and annotation checks. Properties whose conversion
+     * depends on the mapper, such as lists, maps, nested documents and S3
+     * links, are still resolved on each call.
+     * <p>
+     * Getters and setters are still invoked through reflection, which the
+     * JVM compiles into direct accessors for frequently used methods.
+     *
+     * @param schema one of the schemas defined in this class, such as
+     *            {@link #V2}
+     * @return a schema which precomputes its conversions per class
+     * @throws IllegalArgumentException if the given schema is not one of the
+     *             schemas defined in this class
+     */
+    public static ConversionSchema precompiled(ConversionSchema schema) {
+        if (!(schema instanceof StandardConversionSchema)) {
+            throw new IllegalArgumentException(
+                    "Only the conversion schemas defined in ConversionSchemas "
+                    + "can be precompiled: " + schema);
+        }
+        StandardConversionSchema standard = (StandardConversionSchema) schema;
+        if (standard.plans != null) {
+            return standard;
+        }
+        return new StandardConversionSchema(
+                standard.name + "Precompiled",
+                standard.marshallers,
+                standard.unmarshallers,
+                new PlanCache());
+    }
+
 
     static class StandardConversionSchema implements ConversionSchema {
 
@@ -165,17 +205,35 @@ public final class ConversionSchemas {
         private final MarshallerSet marshallers;
         private final UnmarshallerSet unmarshallers;
 
+        /**
+         * The conversion tables of the classes used so far, or null if
+         * conversions are not precomputed.
+         */
+        private final PlanCache plans;
+
         public StandardConversionSchema(
                 String name,
                 MarshallerSet marshallers,
                 UnmarshallerSet unmarshallers) {
 
-            this.name = name;
-            this.marshallers = new CachingMarshallerSet(
-                    new AnnotationAwareMarshallerSet(marshallers));
+            this(name,
+                 new CachingMarshallerSet(
+                         new AnnotationAwareMarshallerSet(marshallers)),
+                 new CachingUnmarshallerSet(
+                         new AnnotationAwareUnmarshallerSet(unmarshallers)),
+                 null);
+        }
 
-            this.unmarshallers = new CachingUnmarshallerSet(
-                    new AnnotationAwareUnmarshallerSet(unmarshallers));
+        private StandardConversionSchema(
+                String name,
+                MarshallerSet marshallers,
+                UnmarshallerSet unmarshallers,
+                PlanCache plans) {
+
+            this.name = name;
+            this.marshallers = marshallers;
+            this.unmarshallers = unmarshallers;
+            this.plans = plans;
         }
 
         @Override
@@ -190,6 +248,15 @@ public final class ConversionSchemas {
 
             S3ClientCache s3cc = dependencies.get(S3ClientCache.class);
 
+            if (plans != null) {
+                return new PrecompiledItemConverter(
+                        marshallers,
+                        unmarshallers,
+                        reflector,
+                        s3cc,
+                        plans);
+            }
+
             return new StandardItemConverter(
                     marshallers,
                     unmarshallers,
@@ -206,9 +273,9 @@ public final class ConversionSchemas {
 
     static class StandardItemConverter implements ItemConverter {
 
-        private final MarshallerSet marshallerSet;
-        private final UnmarshallerSet unmarshallerSet;
-        private final DynamoDBReflector reflector;
+        final MarshallerSet marshallerSet;
+        final UnmarshallerSet unmarshallerSet;
+        final DynamoDBReflector reflector;
         private final S3ClientCache s3cc;
 
         public StandardItemConverter(
@@ -433,7 +500,7 @@ public final class ConversionSchemas {
             return result;
         }
 
-        private void setValue(
+        void setValue(
                 Object target,
                 Method getter,
                 AttributeValue value) {
@@ -596,7 +663,7 @@ public final class ConversionSchemas {
             return new ObjectUnmarshaller(this, clazz);
         }
 
-        private static Object unmarshall(
+        static Object unmarshall(
                 ArgumentUnmarshaller unmarshaller,
                 Method setter,
                 AttributeValue value) {
@@ -620,7 +687,7 @@ public final class ConversionSchemas {
             }
         }
 
-        private static <T> T createObject(Class<T> clazz) {
+        static <T> T createObject(Class<T> clazz) {
             try {
 
                 return clazz.newInstance();
@@ -637,6 +704,243 @@ public final class ConversionSchemas {
 
     }
 
+    /**
+     * The conversion tables of a precompiled schema, shared by all of its
+     * converters.
+     */
+    static final class PlanCache {
+        private final ConcurrentMap<Class<?>, ItemPlan> items =
+                new ConcurrentHashMap<Class<?>, ItemPlan>();
+
+        private final ConcurrentMap<Method, PropertyPlan> properties =
+                new ConcurrentHashMap<Method, PropertyPlan>();
+    }
+
+    /**
+     * The conversion table of a mapped class.
+     */
+    static final class ItemPlan {
+        private final PropertyPlan[] properties;
+
+        ItemPlan(PropertyPlan[] properties) {
+            this.properties = properties;
+        }
+    }
+
+    /**
+     * How a single property of a mapped class is converted.
+     */
+    static final class PropertyPlan {
+        private final Method getter;
+        private final String attributeName;
+
+        /** The setter, or null if it could not be found. */
+        private final Method setter;
+
+        /**
+         * The marshaller and unmarshaller of the property, or null if they
+         * depend on the converter and must be resolved on each call.
+         */
+        private final ArgumentMarshaller marshaller;
+        private final ArgumentUnmarshaller unmarshaller;
+
+        PropertyPlan(
+                Method getter,
+                String attributeName,
+                Method setter,
+                ArgumentMarshaller marshaller,
+                ArgumentUnmarshaller unmarshaller) {
+
+            this.getter = getter;
+            this.attributeName = attributeName;
+            this.setter = setter;
+            this.marshaller = marshaller;
+            this.unmarshaller = unmarshaller;
+        }
+    }
+
+    /**
+     * An {@code ItemConverter} which converts items through the conversion
+     * table of their class, building the table the first time the class is
+     * converted.
+     */
+    static final class PrecompiledItemConverter extends StandardItemConverter {
+
+        private final PlanCache plans;
+
+        public PrecompiledItemConverter(
+                MarshallerSet marshallerSet,
+                UnmarshallerSet unmarshallerSet,
+                DynamoDBReflector reflector,
+                S3ClientCache s3cc,
+                PlanCache plans) {
+
+            super(marshallerSet, unmarshallerSet, reflector, s3cc);
+            this.plans = plans;
+        }
+
+        @Override
+        public AttributeValue convert(Method getter, Object object) {
+            if (object == null) {
+                return null;
+            }
+
+            ArgumentMarshaller marshaller = getPropertyPlan(getter).marshaller;
+            if (marshaller == null) {
+                return super.convert(getter, object);
+            }
+            return marshaller.marshall(object);
+        }
+
+        @Override
+        public Map<String, AttributeValue> convert(Object object) {
+            if (object == null) {
+                return null;
+            }
+
+            PropertyPlan[] properties = getPlan(object.getClass()).properties;
+            Map<String, AttributeValue> result =
+                    new HashMap<String, AttributeValue>(
+                            properties.length * 4 / 3 + 1);
+
+            for (PropertyPlan property : properties) {
+                Object getterResult =
+                        ReflectionUtils.safeInvoke(property.getter, object);
+
+                if (getterResult != null) {
+                    AttributeValue value = property.marshaller == null
+                            ? super.convert(property.getter, getterResult)
+                            : property.marshaller.marshall(getterResult);
+                    if (value != null) {
+                        result.put(property.attributeName, value);
+                    }
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public <T> T unconvert(
+                Class<T> clazz,
+                Map<String, AttributeValue> value) {
+
+            T result = createObject(clazz);
+            if (value == null || value.isEmpty()) {
+                return result;
+            }
+
+            for (PropertyPlan property : getPlan(clazz).properties) {
+                AttributeValue av = value.get(property.attributeName);
+                if (av == null) {
+                    continue;
+                }
+
+                if (property.setter == null || property.unmarshaller == null) {
+                    setValue(result, property.getter, av);
+                    continue;
+                }
+
+                Object unmarshalled =
+                        unmarshall(property.unmarshaller, property.setter, av);
+                ReflectionUtils.safeInvoke(property.setter, result, unmarshalled);
+            }
+
+            return result;
+        }
+
+        private ItemPlan getPlan(Class<?> clazz) {
+            ItemPlan plan = plans.items.get(clazz);
+            if (plan == null) {
+                Collection<Method> getters = reflector.getRelevantGetters(clazz);
+                PropertyPlan[] properties = new PropertyPlan[getters.size()];
+                int i = 0;
+                for (Method getter : getters) {
+                    properties[i++] = getPropertyPlan(getter);
+                }
+
+                plan = new ItemPlan(properties);
+                ItemPlan existing = plans.items.putIfAbsent(clazz, plan);
+                if (existing != null) {
+                    plan = existing;
+                }
+            }
+            return plan;
+        }
+
+        private PropertyPlan getPropertyPlan(Method getter) {
+            PropertyPlan plan = plans.properties.get(getter);
+            if (plan == null) {
+                Method setter = null;
+                try {
+                    setter = reflector.getSetter(getter);
+                } catch (DynamoDBMappingException e) {
+                    // Reported by the reflector once the setter is needed.
+                }
+
+                plan = new PropertyPlan(
+                        getter,
+                        reflector.getAttributeName(getter),
+                        setter,
+                        findStaticMarshaller(getter),
+                        setter == null ? null : findStaticUnmarshaller(getter, setter));
+
+                PropertyPlan existing = plans.properties.putIfAbsent(getter, plan);
+                if (existing != null) {
+                    plan = existing;
+                }
+            }
+            return plan;
+        }
+
+        /**
+         * Returns the marshaller of the given getter if it does not depend
+         * on this converter, or else null. Getters which cannot be marshalled
+         * also return null, so that the error is reported when a value is
+         * actually converted.
+         */
+        private ArgumentMarshaller findStaticMarshaller(Method getter) {
+            ArgumentMarshaller marshaller;
+            try {
+                marshaller = marshallerSet.getMarshaller(getter);
+            } catch (DynamoDBMappingException e) {
+                return null;
+            }
+
+            if (marshaller instanceof CollectionToListMarshaller
+                    || marshaller instanceof MapToMapMarshaller
+                    || marshaller instanceof ObjectToMapMarshaller) {
+                return null;
+            }
+            return marshaller;
+        }
+
+        /**
+         * Returns the unmarshaller of the given property if it does not
+         * depend on this converter, or else null.
+         */
+        private ArgumentUnmarshaller findStaticUnmarshaller(
+                Method getter,
+                Method setter) {
+
+            ArgumentUnmarshaller unmarshaller;
+            try {
+                unmarshaller = unmarshallerSet.getUnmarshaller(getter, setter);
+            } catch (DynamoDBMappingException e) {
+                return null;
+            }
+
+            if (unmarshaller instanceof S3LinkUnmarshaller
+                    || unmarshaller instanceof ObjectSetUnmarshaller
+                    || unmarshaller instanceof ListUnmarshaller
+                    || unmarshaller instanceof MapUnmarshaller
+                    || unmarshaller instanceof ObjectUnmarshaller) {
+                return null;
+            }
+            return new NullableUnmarshaller(unmarshaller);
+        }
+    }
+
     static interface MarshallerSet {
         ArgumentMarshaller getMarshaller(Method getter);
         ArgumentMarshaller getMemberMarshaller(Type memberType);
@@ -1309,13 +1613,17 @@ public final class ConversionSchemas {
         }
     }
 
+    /**
+     * Caches the marshallers of the wrapped set. Lookups of marshallers which
+     * have already been computed take no locks.
+     */
     static class CachingMarshallerSet implements MarshallerSet {
 
-        private final Map<Method, ArgumentMarshaller> cache =
-                new HashMap<Method, ArgumentMarshaller>();
+        private final ConcurrentMap<Method, ArgumentMarshaller> cache =
+                new ConcurrentHashMap<Method, ArgumentMarshaller>();
 
-        private final Map<Type, ArgumentMarshaller> memberCache =
-                new HashMap<Type, ArgumentMarshaller>();
+        private final ConcurrentMap<Type, ArgumentMarshaller> memberCache =
+                new ConcurrentHashMap<Type, ArgumentMarshaller>();
 
         private final MarshallerSet wrapped;
 
@@ -1325,40 +1633,41 @@ public final class ConversionSchemas {
 
         @Override
         public ArgumentMarshaller getMarshaller(Method getter) {
-            synchronized (cache) {
-                ArgumentMarshaller marshaler = cache.get(getter);
-                if (marshaler != null) {
-                    return marshaler;
-                }
-
-                marshaler = wrapped.getMarshaller(getter);
-                cache.put(getter, marshaler);
+            ArgumentMarshaller marshaler = cache.get(getter);
+            if (marshaler != null) {
                 return marshaler;
             }
+
+            marshaler = wrapped.getMarshaller(getter);
+            ArgumentMarshaller existing = cache.putIfAbsent(getter, marshaler);
+            return existing == null ? marshaler : existing;
         }
 
         @Override
         public ArgumentMarshaller getMemberMarshaller(Type memberType) {
-            synchronized (memberCache) {
-                ArgumentMarshaller marshaller = memberCache.get(memberType);
-                if (marshaller != null) {
-                    return marshaller;
-                }
-
-                marshaller = wrapped.getMemberMarshaller(memberType);
-                memberCache.put(memberType, marshaller);
+            ArgumentMarshaller marshaller = memberCache.get(memberType);
+            if (marshaller != null) {
                 return marshaller;
             }
+
+            marshaller = wrapped.getMemberMarshaller(memberType);
+            ArgumentMarshaller existing =
+                    memberCache.putIfAbsent(memberType, marshaller);
+            return existing == null ? marshaller : existing;
         }
     }
 
+    /**
+     * Caches the unmarshallers of the wrapped set. Lookups of unmarshallers
+     * which have already been computed take no locks.
+     */
     static class CachingUnmarshallerSet implements UnmarshallerSet {
 
-        private final Map<Method, ArgumentUnmarshaller> cache =
-                new HashMap<Method, ArgumentUnmarshaller>();
+        private final ConcurrentMap<Method, ArgumentUnmarshaller> cache =
+                new ConcurrentHashMap<Method, ArgumentUnmarshaller>();
 
-        private final Map<Type, ArgumentUnmarshaller> memberCache =
-                new HashMap<Type, ArgumentUnmarshaller>();
+        private final ConcurrentMap<Type, ArgumentUnmarshaller> memberCache =
+                new ConcurrentHashMap<Type, ArgumentUnmarshaller>();
 
         private final UnmarshallerSet wrapped;
 
@@ -1371,30 +1680,27 @@ public final class ConversionSchemas {
                 Method getter,
                 Method setter) {
 
-            synchronized (cache) {
-                ArgumentUnmarshaller unmarshaler = cache.get(getter);
-                if (unmarshaler != null) {
-                    return unmarshaler;
-                }
-
-                unmarshaler = wrapped.getUnmarshaller(getter, setter);
-                cache.put(getter, unmarshaler);
+            ArgumentUnmarshaller unmarshaler = cache.get(getter);
+            if (unmarshaler != null) {
                 return unmarshaler;
             }
+
+            unmarshaler = wrapped.getUnmarshaller(getter, setter);
+            ArgumentUnmarshaller existing = cache.putIfAbsent(getter, unmarshaler);
+            return existing == null ? unmarshaler : existing;
         }
 
         @Override
         public ArgumentUnmarshaller getMemberUnmarshaller(Type memberType) {
-            synchronized (memberCache) {
-                ArgumentUnmarshaller unmarshaller = memberCache.get(memberType);
-                if (unmarshaller != null) {
-                    return unmarshaller;
-                }
-
-                unmarshaller = wrapped.getMemberUnmarshaller(memberType);
-                memberCache.put(memberType, unmarshaller);
+            ArgumentUnmarshaller unmarshaller = memberCache.get(memberType);
+            if (unmarshaller != null) {
                 return unmarshaller;
             }
+
+            unmarshaller = wrapped.getMemberUnmarshaller(memberType);
+            ArgumentUnmarshaller existing =
+                    memberCache.putIfAbsent(memberType, unmarshaller);
+            return existing == null ? unmarshaller : existing;
         }
     }
 
@@ -39,6 +39,7 @@ import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchParallelism;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ConsistentReads;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
@@ -200,8 +201,18 @@ public class DynamoDBMapper {
      */
     static final long MAX_BACKOFF_IN_MILLISECONDS = 1000 * 3;
 
+    /**
+     * Base delay of the backoff after a batch write has been throttled.
+     */
+    static final long THROTTLING_BACKOFF_BASE_IN_MILLISECONDS = 200;
+
     /** The max number of items allowed in a BatchWrite request */
     static final int MAX_ITEMS_PER_BATCH = 25;
+
+    /**
+     * The max number of keys allowed in a single BatchGetItem request.
+     */
+    static final int MAX_KEYS_PER_BATCH_GET = 100;
     /**
      * This retry count is applicable only when every batch get item request
      * results in no data retrieved from server and the un processed keys is
@@ -1525,8 +1536,9 @@ public class DynamoDBMapper {
      *            {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)}
      *            API.
      * @param config
-     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()} and
-     *            {@link DynamoDBMapperConfig#getBatchWriteRetryStrategy()} are
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getBatchWriteRetryStrategy()} and
+     *            {@link DynamoDBMapperConfig#getBatchParallelism()} are
      *            considered. If TableNameOverride is specified, all objects in
      *            the two parameter lists will be considered to belong to the
      *            given table override. In particular, this method <b>always
@@ -1537,6 +1549,7 @@ public class DynamoDBMapper {
      *
      * @see DynamoDBMapperConfig#getTableNameOverride()
      * @see DynamoDBMapperConfig#getBatchWriteRetryStrategy()
+     * @see DynamoDBMapperConfig#getBatchParallelism()
      */
     public List<FailedBatch> batchWrite(List<? extends Object> objectsToWrite, List<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
         config = mergeConfig(config);
@@ -1602,7 +1615,16 @@ public class DynamoDBMapper {
                     new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
         }
 
+        BatchParallelism parallelism = config.getBatchParallelism();
+        if (parallelism != null && !parallelism.isSerial()) {
+            totalFailedBatches.addAll(new ParallelBatchWriter(
+                    db, config.getBatchWriteRetryStrategy(), parallelism)
+                    .write(requestItems));
+            requestItems.clear();
+        }
+
         // Break into chunks of 25 items and make service requests to DynamoDB
+        int consecutiveThrottles = 0;
         while ( !requestItems.isEmpty() ) {
 
             HashMap<String, List<WriteRequest>> batch =
@@ -1635,20 +1657,16 @@ public class DynamoDBMapper {
             if (failedBatches != null) {
                 totalFailedBatches.addAll(failedBatches);
 
-                // If contains throttling exception, we do a backoff
+                // If contains throttling exception, we do a backoff which
+                // grows as long as the following batches are throttled too
                 if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(1000 * 2);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new AmazonClientException(e.getMessage(), e);
-                    }
+                    pause(computeThrottlingBackoff(++consecutiveThrottles));
+                } else {
+                    consecutiveThrottles = 0;
                 }
             }
         }
 
-
-
         // Once the entire batch is processed, update assigned keys in memory
         for ( ValueUpdate update : inMemoryUpdates ) {
             update.apply();
@@ -1826,19 +1844,76 @@ public class DynamoDBMapper {
      *         mapping that table.
      */
     public Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config) {
+        final Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
+        batchLoad(itemsToGet, config, new BatchLoadHandler() {
+            @Override
+            public void handleLoadedItems(String tableName, List<Object> items) {
+                List<Object> objects = resultSet.get(tableName);
+                if ( objects == null ) {
+                    objects = new LinkedList<Object>();
+                    resultSet.put(tableName, objects);
+                }
+                objects.addAll(items);
+            }
+        });
+        return resultSet;
+    }
+
+    /**
+     * Retrieves multiple items from multiple tables using their primary keys,
+     * handing the loaded objects over to the given handler as each
+     * {@link AmazonDynamoDB#batchGetItem(BatchGetItemRequest)} response
+     * arrives, rather than collecting all of them in memory.
+     * <p>
+     * Keys are sent in requests of up to 100 keys each. Keys returned as
+     * unprocessed are merged into the next outgoing requests. Use
+     * {@link DynamoDBMapperConfig#getBatchParallelism()} to keep several
+     * requests in flight at the same time; the handler is always called from
+     * the thread calling this method.
+     *
+     * @param itemsToGet
+     *            Key objects, corresponding to the class to fetch, with their
+     *            primary key values set.
+     * @param config
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getConsistentReads()} and
+     *            {@link DynamoDBMapperConfig#getBatchParallelism()} are
+     *            considered.
+     * @param handler
+     *            Receives the loaded objects of each table, which can be cast
+     *            to the associated user defined type that is annotated as
+     *            mapping that table.
+     */
+    public void batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config, BatchLoadHandler handler) {
         config = mergeConfig(config);
         boolean consistentReads = (config.getConsistentReads() == ConsistentReads.CONSISTENT);
 
         if ( itemsToGet == null || itemsToGet.isEmpty() ) {
-            return new HashMap<String, List<Object>>();
+            return;
         }
 
-        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
-        Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
-        Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
-        int count = 0;
-
-        ItemConverter converter = getConverter(config);
+        final Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
+        final DynamoDBMapperConfig finalConfig = config;
+        final ItemConverter converter = getConverter(config);
+
+        ParallelBatchLoader loader = new ParallelBatchLoader(
+                db,
+                config.getBatchParallelism(),
+                consistentReads,
+                config.getRequestMetricCollector(),
+                new ParallelBatchLoader.ResponseConverter() {
+                    @Override
+                    public List<Object> convert(String tableName, List<Map<String, AttributeValue>> items) {
+                        Class<?> clazz = classesByTableName.get(tableName);
+                        List<Object> objects = new ArrayList<Object>(items.size());
+                        for ( Map<String, AttributeValue> item : items ) {
+                            AttributeTransformer.Parameters<?> parameters =
+                                toParameters(item, clazz, tableName, finalConfig);
+                            objects.add(privateMarshallIntoObject(converter, parameters));
+                        }
+                        return objects;
+                    }
+                });
 
         for ( Object keyObject : itemsToGet ) {
             Class<?> clazz = keyObject.getClass();
@@ -1846,29 +1921,10 @@ public class DynamoDBMapper {
             String tableName = getTableName(clazz, keyObject, config);
             classesByTableName.put(tableName, clazz);
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(
-                        tableName,
-                        new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
-                                new LinkedList<Map<String, AttributeValue>>()));
-            }
-
-            requestItems.get(tableName).getKeys().add(
-                    getKey(converter, keyObject));
-
-            // Reach the maximum number which can be handled in a single batchGet
-            if ( ++count == 100 ) {
-                processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-                requestItems.clear();
-                count = 0;
-            }
+            loader.addKey(tableName, getKey(converter, keyObject));
         }
 
-        if ( count > 0 ) {
-            processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-        }
-
-        return resultSet;
+        loader.load(handler);
     }
 
     /**
@@ -1898,8 +1954,9 @@ public class DynamoDBMapper {
      * @param itemsToGet
      *            Map from class to load to list of primary key attributes.
      * @param config
-     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()} and
-     *            {@link DynamoDBMapperConfig#getConsistentReads()} are
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getConsistentReads()} and
+     *            {@link DynamoDBMapperConfig#getBatchParallelism()} are
      *            considered.
      *
      * @return A map of the loaded objects. Each key in the map is the name of a
@@ -1909,7 +1966,22 @@ public class DynamoDBMapper {
      *         mapping that table.
      */
     public Map<String, List<Object>> batchLoad(Map<Class<?>, List<KeyPair>> itemsToGet, DynamoDBMapperConfig config) {
+        return batchLoad(toKeyObjects(itemsToGet), config);
+    }
+
+    /**
+     * Retrieves multiple items from multiple tables using their primary keys,
+     * handing the loaded objects over to the given handler as they arrive.
+     * Valid only for tables with a single hash key, or a single hash and range
+     * key.
+     *
+     * @see #batchLoad(List, DynamoDBMapperConfig, BatchLoadHandler)
+     */
+    public void batchLoad(Map<Class<?>, List<KeyPair>> itemsToGet, DynamoDBMapperConfig config, BatchLoadHandler handler) {
+        batchLoad(toKeyObjects(itemsToGet), config, handler);
+    }
 
+    private List<Object> toKeyObjects(Map<Class<?>, List<KeyPair>> itemsToGet) {
         List<Object> keys = new ArrayList<Object>();
         if ( itemsToGet != null ) {
             for ( Class<?> clazz : itemsToGet.keySet() ) {
@@ -1920,71 +1992,7 @@ public class DynamoDBMapper {
                 }
             }
         }
-
-        return batchLoad(keys, config);
-    }
-
-    /**
-     * @param config never null
-     */
-    private void processBatchGetRequest(
-            final Map<String, Class<?>> classesByTableName,
-            final Map<String, KeysAndAttributes> requestItems,
-            final Map<String, List<Object>> resultSet,
-            final DynamoDBMapperConfig config,
-            final ItemConverter converter) {
-
-        BatchGetItemResult batchGetItemResult = null;
-        BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest()
-            .withRequestMetricCollector(config.getRequestMetricCollector());
-        batchGetItemRequest.setRequestItems(requestItems);
-
-        int retries = 0;
-        int noOfItemsInOriginalRequest = requestItems.size();
-
-        do {
-            if ( batchGetItemResult != null ) {
-                retries++;
-
-                if (noOfItemsInOriginalRequest == batchGetItemResult
-                        .getUnprocessedKeys().size()){
-                    pauseExponentially(retries);
-                    if (retries > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
-                        throw new AmazonClientException(
-                                "Batch Get Item request to server hasn't received any data. "
-                                + "Please try again later.");
-                    }
-                }
-
-                batchGetItemRequest.setRequestItems(
-                        batchGetItemResult.getUnprocessedKeys());
-            }
-
-            batchGetItemResult = db.batchGetItem(
-                    applyBatchOperationUserAgent(batchGetItemRequest));
-
-            Map<String, List<Map<String, AttributeValue>>> responses = batchGetItemResult.getResponses();
-            for ( String tableName : responses.keySet() ) {
-                List<Object> objects = null;
-                if ( resultSet.get(tableName) != null ) {
-                    objects = resultSet.get(tableName);
-                } else {
-                    objects = new LinkedList<Object>();
-                }
-
-                Class<?> clazz = classesByTableName.get(tableName);
-
-                for ( Map<String, AttributeValue> item : responses.get(tableName) ) {
-                    AttributeTransformer.Parameters<?> parameters =
-                        toParameters(item, clazz, tableName, config);
-                    objects.add(privateMarshallIntoObject(converter, parameters));
-                }
-
-                resultSet.put(tableName, objects);
-            }
-            // To see whether there are unprocessed keys.
-        } while ( batchGetItemResult.getUnprocessedKeys() != null && batchGetItemResult.getUnprocessedKeys().size() > 0 );
-
+        return keys;
     }
 
     private final class ValueUpdate {
@@ -3007,7 +3015,26 @@ public class DynamoDBMapper {
         pause(delay);
     }
 
-    private void pause(long delay) {
+    /**
+     * Returns a jittered delay, growing exponentially with the number of
+     * consecutive batch requests which have been throttled or have left items
+     * unprocessed.
+     */
+    static long computeThrottlingBackoff(int consecutiveThrottles) {
+        if (consecutiveThrottles <= 0) {
+            return 0;
+        }
+        long ceiling = Math.min(
+                THROTTLING_BACKOFF_BASE_IN_MILLISECONDS << Math.min(consecutiveThrottles - 1, 16),
+                MAX_BACKOFF_IN_MILLISECONDS);
+
+        // Wait at least half the ceiling so that concurrent writers which
+        // were throttled together spread out their next requests.
+        long half = ceiling / 2;
+        return half + (long) (Math.random() * (ceiling - half + 1));
+    }
+
+    static void pause(long delay) {
         if (delay <= 0) {
             return;
         }
@@ -3078,6 +3105,21 @@ public class DynamoDBMapper {
         return request;
     }
 
+    /**
+     * Receives the objects loaded by
+     * {@link DynamoDBMapper#batchLoad(List, DynamoDBMapperConfig, BatchLoadHandler)}
+     * as each response arrives.
+     */
+    public static interface BatchLoadHandler {
+
+        /**
+         * Called with the objects of a single response loaded from the given
+         * table. Calls are made one at a time from the thread which started
+         * the batch load.
+         */
+        void handleLoadedItems(String tableName, List<Object> items);
+    }
+
     /**
      * The return type of batchWrite, batchDelete and batchSave. It contains the information about the unprocessed items
      * and the exception causing the failure.
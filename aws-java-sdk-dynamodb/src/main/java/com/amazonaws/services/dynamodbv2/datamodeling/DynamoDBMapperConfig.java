@@ -17,6 +17,7 @@ package com.amazonaws.services.dynamodbv2.datamodeling;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
@@ -56,6 +57,7 @@ public class DynamoDBMapperConfig {
         private RequestMetricCollector requestMetricCollector;
         private ConversionSchema conversionSchema;
         private BatchWriteRetryStrategy batchWriteRetryStrategy;
+        private BatchParallelism batchParallelism;
 
         /**
          * Creates a new builder initialized with the {@link #DEFAULT} values.
@@ -70,6 +72,7 @@ public class DynamoDBMapperConfig {
             requestMetricCollector = DEFAULT.getRequestMetricCollector();
             conversionSchema = DEFAULT.getConversionSchema();
             batchWriteRetryStrategy = DEFAULT.getBatchWriteRetryStrategy();
+            batchParallelism = DEFAULT.getBatchParallelism();
         }
 
         /**
@@ -291,6 +294,29 @@ public class DynamoDBMapperConfig {
             return this;
         }
 
+        /**
+         * @return the current BatchParallelism
+         */
+        public BatchParallelism getBatchParallelism() {
+            return batchParallelism;
+        }
+
+        /**
+         * @param value the new BatchParallelism
+         */
+        public void setBatchParallelism(BatchParallelism value) {
+            this.batchParallelism = value;
+        }
+
+        /**
+         * @param value the new BatchParallelism
+         * @return this builder
+         */
+        public Builder withBatchParallelism(BatchParallelism value) {
+            setBatchParallelism(value);
+            return this;
+        }
+
 
         /**
          * Builds a new {@code DynamoDBMapperConfig} object.
@@ -307,7 +333,8 @@ public class DynamoDBMapperConfig {
                     paginationLoadingStrategy,
                     requestMetricCollector,
                     conversionSchema,
-                    batchWriteRetryStrategy);
+                    batchWriteRetryStrategy,
+                    batchParallelism);
         }
     }
 
@@ -632,6 +659,90 @@ public class DynamoDBMapperConfig {
 
     }
 
+    /**
+     * Controls how many requests DynamoDBMapper batch operations, such as
+     * {@link DynamoDBMapper#batchWrite(List, List, DynamoDBMapperConfig)},
+     * keep in flight at the same time. By default the requests are sent one
+     * after another from the calling thread.
+     * <p>
+     * When more than one concurrent request is allowed, the requests are sent
+     * from the given executor, or else from a thread pool created for the
+     * duration of each batch operation.
+     */
+    public static final class BatchParallelism {
+
+        /**
+         * Sends the requests of a batch operation one after another from the
+         * calling thread.
+         */
+        public static final BatchParallelism SERIAL = new BatchParallelism(1, null);
+
+        private final int maxConcurrentRequests;
+        private final ExecutorService executor;
+
+        /**
+         * Returns a new {@link BatchParallelism} object that keeps up to the
+         * given number of requests in flight, each sent from a thread pool
+         * created for the duration of the batch operation.
+         */
+        public static BatchParallelism withMaxConcurrentRequests(
+                int maxConcurrentRequests) {
+
+            return new BatchParallelism(maxConcurrentRequests, null);
+        }
+
+        /**
+         * Returns a new {@link BatchParallelism} object that keeps up to the
+         * given number of requests in flight, each sent from the given
+         * executor. The executor is not shut down by the mapper.
+         */
+        public static BatchParallelism withExecutor(
+                ExecutorService executor,
+                int maxConcurrentRequests) {
+
+            if (executor == null) {
+                throw new IllegalArgumentException("executor must not be null");
+            }
+            return new BatchParallelism(maxConcurrentRequests, executor);
+        }
+
+        private BatchParallelism(
+                int maxConcurrentRequests,
+                ExecutorService executor) {
+
+            if (maxConcurrentRequests < 1) {
+                throw new IllegalArgumentException(
+                        "maxConcurrentRequests must be at least 1");
+            }
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.executor = executor;
+        }
+
+        /**
+         * Returns the maximum number of requests kept in flight at the same
+         * time by a batch operation.
+         */
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        /**
+         * Returns the executor the requests are sent from, or null if a
+         * thread pool is created for the duration of each batch operation.
+         */
+        public ExecutorService getExecutor() {
+            return executor;
+        }
+
+        /**
+         * Returns true if the requests are sent one after another from the
+         * calling thread.
+         */
+        public boolean isSerial() {
+            return maxConcurrentRequests == 1;
+        }
+    }
+
     private final SaveBehavior saveBehavior;
     private final ConsistentReads consistentReads;
     private final TableNameOverride tableNameOverride;
@@ -641,6 +752,7 @@ public class DynamoDBMapperConfig {
     private final RequestMetricCollector requestMetricCollector;
     private final ConversionSchema conversionSchema;
     private final BatchWriteRetryStrategy batchWriteRetryStrategy;
+    private final BatchParallelism batchParallelism;
 
     /**
      * Legacy constructor, using default PaginationLoadingStrategy
@@ -711,7 +823,7 @@ public class DynamoDBMapperConfig {
                 paginationLoadingStrategy,
                 requestMetricCollector,
                 ConversionSchemas.DEFAULT,
-                new DefaultBatchWriteRetryStrategy());
+                new DefaultBatchWriteRetryStrategy(), null);
     }
 
     private DynamoDBMapperConfig(
@@ -723,7 +835,8 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy paginationLoadingStrategy,
             RequestMetricCollector requestMetricCollector,
             ConversionSchema conversionSchema,
-            BatchWriteRetryStrategy batchWriteRetryStrategy) {
+            BatchWriteRetryStrategy batchWriteRetryStrategy,
+            BatchParallelism batchParallelism) {
 
         this.saveBehavior = saveBehavior;
         this.consistentReads = consistentReads;
@@ -734,6 +847,7 @@ public class DynamoDBMapperConfig {
         this.requestMetricCollector = requestMetricCollector;
         this.conversionSchema = conversionSchema;
         this.batchWriteRetryStrategy = batchWriteRetryStrategy;
+        this.batchParallelism = batchParallelism;
     }
 
     /**
@@ -741,7 +855,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(SaveBehavior saveBehavior) {
         this(saveBehavior, null, null, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
@@ -750,7 +864,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ConsistentReads consistentReads) {
         this(null, consistentReads, null, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
@@ -758,7 +872,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameOverride tableNameOverride) {
         this(null, null, tableNameOverride, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
@@ -766,7 +880,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver) {
         this(null, null, null, tableNameResolver, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
@@ -774,7 +888,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, null, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
@@ -782,7 +896,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver, ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, tableNameResolver, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
@@ -793,14 +907,14 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy paginationLoadingStrategy) {
 
         this(null, null, null, null, null, paginationLoadingStrategy, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
      * Constructs a new configuration object with the conversion schema given.
      */
     public DynamoDBMapperConfig(ConversionSchema conversionSchema) {
-        this(null, null, null, null, null, null, null, conversionSchema, new DefaultBatchWriteRetryStrategy());
+        this(null, null, null, null, null, null, null, conversionSchema, new DefaultBatchWriteRetryStrategy(), null);
     }
 
     /**
@@ -833,6 +947,7 @@ public class DynamoDBMapperConfig {
             this.requestMetricCollector = defaults.getRequestMetricCollector();
             this.conversionSchema = defaults.getConversionSchema();
             this.batchWriteRetryStrategy = defaults.getBatchWriteRetryStrategy();
+            this.batchParallelism = defaults.getBatchParallelism();
 
         } else {
 
@@ -874,6 +989,10 @@ public class DynamoDBMapperConfig {
                     ? defaults.getBatchWriteRetryStrategy()
                     : overrides.getBatchWriteRetryStrategy();
 
+            this.batchParallelism = (overrides.getBatchParallelism() == null)
+                    ? defaults.getBatchParallelism()
+                    : overrides.getBatchParallelism();
+
         }
     }
 
@@ -957,6 +1076,13 @@ public class DynamoDBMapperConfig {
         return batchWriteRetryStrategy;
     }
 
+    /**
+     * @return the BatchParallelism for this config object
+     */
+    public BatchParallelism getBatchParallelism() {
+        return batchParallelism;
+    }
+
     /**
      * Default configuration uses UPDATE behavior for saves and EVENTUALly
      * consistent reads, with no table name override and lazy-loading strategy.
@@ -970,5 +1096,6 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy.LAZY_LOADING,
             null,  // RequestMetricCollector
             ConversionSchemas.DEFAULT,
-            new DefaultBatchWriteRetryStrategy());
+            new DefaultBatchWriteRetryStrategy(),
+            BatchParallelism.SERIAL);
 }
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS;
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.MAX_BACKOFF_IN_MILLISECONDS;
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.MAX_KEYS_PER_BATCH_GET;
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.applyBatchOperationUserAgent;
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.computeThrottlingBackoff;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.BatchLoadHandler;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchParallelism;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+
+/**
+ * Loads the keys of a
+ * {@link DynamoDBMapper#batchLoad(List, DynamoDBMapperConfig, BatchLoadHandler)}
+ * call with BatchGetItem requests of up to 100 keys each.
+ * <p>
+ * The calling thread forms the requests and keeps up to the configured number
+ * of them in flight. When only one request is allowed in flight, and no
+ * executor has been given, the requests are sent from the calling thread
+ * itself. Keys returned as unprocessed are merged into the next outgoing
+ * requests. Unprocessed keys are taken as a sign of exceeded capacity: the
+ * number of requests in flight is halved and no new request is sent for a
+ * jittered, exponentially growing delay.
+ * <p>
+ * The items of each response are converted into objects by the thread which
+ * sent the request, and handed over to the {@link BatchLoadHandler} on the
+ * calling thread as soon as the response arrives.
+ */
+final class ParallelBatchLoader {
+
+    /**
+     * Converts the items of a BatchGetItem response into objects.
+     */
+    interface ResponseConverter {
+        List<Object> convert(String tableName, List<Map<String, AttributeValue>> items);
+    }
+
+    /** Runs the requests on the calling thread. */
+    private static final Executor CALLER_RUNS = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final AmazonDynamoDB db;
+    private final int maxConcurrentRequests;
+    private final ExecutorService executor;
+    private final boolean consistentReads;
+    private final RequestMetricCollector requestMetricCollector;
+    private final ResponseConverter responseConverter;
+
+    /** Keys waiting to be sent, unprocessed keys first. */
+    private final LinkedList<PendingKey> pendingKeys = new LinkedList<PendingKey>();
+
+    /** The current limit on the number of requests in flight. */
+    private int concurrencyLimit;
+
+    private int inFlight;
+
+    /** The number of consecutive responses with unprocessed keys. */
+    private int consecutiveThrottles;
+
+    /** The number of consecutive responses in which no key was processed. */
+    private int consecutiveEmptyResponses;
+
+    /** No new request is sent before this time. */
+    private long backoffUntil;
+
+    ParallelBatchLoader(
+            AmazonDynamoDB db,
+            BatchParallelism parallelism,
+            boolean consistentReads,
+            RequestMetricCollector requestMetricCollector,
+            ResponseConverter responseConverter) {
+
+        if (parallelism == null) {
+            parallelism = BatchParallelism.SERIAL;
+        }
+        this.db = db;
+        this.maxConcurrentRequests = parallelism.getMaxConcurrentRequests();
+        this.executor = parallelism.getExecutor();
+        this.consistentReads = consistentReads;
+        this.requestMetricCollector = requestMetricCollector;
+        this.responseConverter = responseConverter;
+        this.concurrencyLimit = maxConcurrentRequests;
+    }
+
+    /**
+     * Adds a key to be loaded from the given table.
+     */
+    void addKey(String tableName, Map<String, AttributeValue> key) {
+        pendingKeys.addLast(new PendingKey(tableName, key));
+    }
+
+    /**
+     * Loads all the keys added so far, handing the loaded objects over to the
+     * given handler as they arrive. The first exception thrown by a request
+     * stops the load and is rethrown.
+     */
+    void load(BatchLoadHandler handler) {
+        Executor pool = executor;
+        if (pool == null) {
+            pool = maxConcurrentRequests == 1
+                    ? CALLER_RUNS
+                    : Executors.newFixedThreadPool(maxConcurrentRequests);
+        }
+        CompletionService<BatchOutcome> completionService =
+                new ExecutorCompletionService<BatchOutcome>(pool);
+        List<Future<BatchOutcome>> futures = new LinkedList<Future<BatchOutcome>>();
+
+        try {
+            while (inFlight > 0 || !pendingKeys.isEmpty()) {
+                long now = currentTimeMillis();
+                while (inFlight < concurrencyLimit && now >= backoffUntil
+                        && !pendingKeys.isEmpty()) {
+                    futures.add(completionService.submit(new BatchGetTask(nextBatch())));
+                    inFlight++;
+                }
+
+                Future<BatchOutcome> done;
+                long wait = backoffUntil - now;
+                if (inFlight == 0) {
+                    DynamoDBMapper.pause(wait);
+                    continue;
+                } else if (inFlight < concurrencyLimit && !pendingKeys.isEmpty() && wait > 0) {
+                    done = completionService.poll(wait, TimeUnit.MILLISECONDS);
+                } else {
+                    done = completionService.take();
+                }
+                if (done != null) {
+                    futures.remove(done);
+                    inFlight--;
+                    handle(getOutcome(done), handler);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } finally {
+            for (Future<BatchOutcome> future : futures) {
+                future.cancel(true);
+            }
+            if (executor == null && pool instanceof ExecutorService) {
+                ((ExecutorService) pool).shutdown();
+            }
+        }
+    }
+
+    /**
+     * Removes up to 100 keys from the head of the queue and groups them by
+     * table.
+     */
+    private Map<String, KeysAndAttributes> nextBatch() {
+        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+        for (int i = 0; i < MAX_KEYS_PER_BATCH_GET && !pendingKeys.isEmpty(); i++) {
+            PendingKey pendingKey = pendingKeys.removeFirst();
+            KeysAndAttributes keysAndAttributes = requestItems.get(pendingKey.tableName);
+            if (keysAndAttributes == null) {
+                keysAndAttributes = new KeysAndAttributes()
+                        .withConsistentRead(consistentReads)
+                        .withKeys(new LinkedList<Map<String, AttributeValue>>());
+                requestItems.put(pendingKey.tableName, keysAndAttributes);
+            }
+            keysAndAttributes.getKeys().add(pendingKey.key);
+        }
+        return requestItems;
+    }
+
+    private BatchOutcome getOutcome(Future<BatchOutcome> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException(cause.getMessage(), cause);
+        }
+    }
+
+    private void handle(BatchOutcome outcome, BatchLoadHandler handler) {
+        for (Entry<String, List<Object>> entry : outcome.objects.entrySet()) {
+            handler.handleLoadedItems(entry.getKey(), entry.getValue());
+        }
+
+        Map<String, KeysAndAttributes> unprocessedKeys =
+                outcome.result.getUnprocessedKeys();
+        if (unprocessedKeys == null || unprocessedKeys.isEmpty()) {
+            consecutiveThrottles = 0;
+            consecutiveEmptyResponses = 0;
+            concurrencyLimit = Math.min(concurrencyLimit + 1, maxConcurrentRequests);
+            return;
+        }
+
+        long now = currentTimeMillis();
+        consecutiveThrottles++;
+        concurrencyLimit = Math.max(concurrencyLimit / 2, 1);
+        long delay = computeThrottlingBackoff(consecutiveThrottles);
+
+        if (unprocessedKeys.size() == outcome.requestItems.size()
+                && outcome.objects.isEmpty()) {
+            // None of the keys could be processed; give up if the service
+            // keeps on returning no data.
+            if (++consecutiveEmptyResponses > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
+                throw new AmazonClientException(
+                        "Batch Get Item request to server hasn't received any data. "
+                        + "Please try again later.");
+            }
+            delay = Math.max(delay, exponentialBackoff(consecutiveEmptyResponses));
+        } else {
+            consecutiveEmptyResponses = 0;
+        }
+        backoffUntil = Math.max(backoffUntil, now + delay);
+
+        // Merge the unprocessed keys into the next outgoing requests
+        LinkedList<PendingKey> retryKeys = new LinkedList<PendingKey>();
+        for (Entry<String, KeysAndAttributes> entry : unprocessedKeys.entrySet()) {
+            for (Map<String, AttributeValue> key : entry.getValue().getKeys()) {
+                retryKeys.add(new PendingKey(entry.getKey(), key));
+            }
+        }
+        pendingKeys.addAll(0, retryKeys);
+    }
+
+    private static long exponentialBackoff(int retries) {
+        long scaleFactor = 500 + new Random().nextInt(100);
+        return Math.min((1L << retries) * scaleFactor, MAX_BACKOFF_IN_MILLISECONDS);
+    }
+
+    private static long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * A single key waiting to be sent.
+     */
+    private static final class PendingKey {
+        private final String tableName;
+        private final Map<String, AttributeValue> key;
+
+        PendingKey(String tableName, Map<String, AttributeValue> key) {
+            this.tableName = tableName;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The result of a single BatchGetItem request, along with the objects
+     * converted from its responses.
+     */
+    private static final class BatchOutcome {
+        private final Map<String, KeysAndAttributes> requestItems;
+        private final BatchGetItemResult result;
+        private final Map<String, List<Object>> objects;
+
+        BatchOutcome(
+                Map<String, KeysAndAttributes> requestItems,
+                BatchGetItemResult result,
+                Map<String, List<Object>> objects) {
+
+            this.requestItems = requestItems;
+            this.result = result;
+            this.objects = objects;
+        }
+    }
+
+    private final class BatchGetTask implements Callable<BatchOutcome> {
+        private final Map<String, KeysAndAttributes> requestItems;
+
+        BatchGetTask(Map<String, KeysAndAttributes> requestItems) {
+            this.requestItems = requestItems;
+        }
+
+        @Override
+        public BatchOutcome call() {
+            BatchGetItemRequest request = new BatchGetItemRequest()
+                    .withRequestMetricCollector(requestMetricCollector);
+            request.setRequestItems(requestItems);
+
+            BatchGetItemResult result = db.batchGetItem(
+                    applyBatchOperationUserAgent(request));
+
+            Map<String, List<Object>> objects = new HashMap<String, List<Object>>();
+            Map<String, List<Map<String, AttributeValue>>> responses = result.getResponses();
+            if (responses != null) {
+                for (Entry<String, List<Map<String, AttributeValue>>> entry : responses.entrySet()) {
+                    objects.put(entry.getKey(), responseConverter.convert(entry.getKey(), entry.getValue()));
+                }
+            }
+            return new BatchOutcome(requestItems, result, objects);
+        }
+    }
+}
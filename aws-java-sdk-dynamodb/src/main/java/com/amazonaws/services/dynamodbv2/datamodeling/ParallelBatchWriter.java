@@ -0,0 +1,402 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.MAX_ITEMS_PER_BATCH;
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.applyBatchOperationUserAgent;
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.computeThrottlingBackoff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchParallelism;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Sends the write requests of a
+ * {@link DynamoDBMapper#batchWrite(List, List, DynamoDBMapperConfig)} call
+ * as concurrent BatchWriteItem requests.
+ * <p>
+ * The calling thread forms the batches and keeps up to the configured number
+ * of them in flight; the requests themselves are sent from the executor.
+ * Items returned as unprocessed are put back into the queue and sent with the
+ * next outgoing batches, after the delay given by the
+ * {@link BatchWriteRetryStrategy}. Unprocessed items and throttling errors
+ * are taken as a sign of exceeded capacity: the number of requests in flight
+ * is halved and no new request is sent for a jittered, exponentially growing
+ * delay. Each request which succeeds without unprocessed items allows one
+ * more request in flight, up to the configured maximum.
+ * <p>
+ * No ordering is guaranteed between the write requests.
+ */
+final class ParallelBatchWriter {
+
+    private final AmazonDynamoDB db;
+    private final BatchWriteRetryStrategy retryStrategy;
+    private final int maxConcurrentRequests;
+    private final ExecutorService executor;
+
+    /** Items which have not been sent yet, in their original order. */
+    private final LinkedList<PendingItem> newItems = new LinkedList<PendingItem>();
+
+    /** Unprocessed items waiting to be sent again, earliest first. */
+    private final PriorityQueue<PendingItem> retryItems = new PriorityQueue<PendingItem>(
+            11, new Comparator<PendingItem>() {
+                @Override
+                public int compare(PendingItem a, PendingItem b) {
+                    return a.notBefore < b.notBefore ? -1
+                         : a.notBefore > b.notBefore ? 1 : 0;
+                }
+            });
+
+    /** Halves of batches which were too large, to be sent first. */
+    private final LinkedList<List<PendingItem>> splitBatches = new LinkedList<List<PendingItem>>();
+
+    private final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
+
+    /** The current limit on the number of requests in flight. */
+    private int concurrencyLimit;
+
+    private int inFlight;
+
+    /** The number of consecutive requests which signaled exceeded capacity. */
+    private int consecutiveThrottles;
+
+    /** No new request is sent before this time. */
+    private long backoffUntil;
+
+    ParallelBatchWriter(
+            AmazonDynamoDB db,
+            BatchWriteRetryStrategy retryStrategy,
+            BatchParallelism parallelism) {
+
+        this.db = db;
+        this.retryStrategy = retryStrategy;
+        this.maxConcurrentRequests = parallelism.getMaxConcurrentRequests();
+        this.executor = parallelism.getExecutor();
+        this.concurrencyLimit = maxConcurrentRequests;
+    }
+
+    /**
+     * Writes all the given items and returns the batches which failed.
+     */
+    List<FailedBatch> write(Map<String, List<WriteRequest>> requestItems) {
+        for (Entry<String, List<WriteRequest>> entry : requestItems.entrySet()) {
+            for (WriteRequest writeRequest : entry.getValue()) {
+                newItems.add(new PendingItem(entry.getKey(), writeRequest, 0, 0));
+            }
+        }
+
+        ExecutorService pool = executor;
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(maxConcurrentRequests);
+        }
+        CompletionService<BatchOutcome> completionService =
+                new ExecutorCompletionService<BatchOutcome>(pool);
+        List<Future<BatchOutcome>> futures = new LinkedList<Future<BatchOutcome>>();
+
+        try {
+            while (inFlight > 0 || hasPendingItems()) {
+                long now = currentTimeMillis();
+                while (inFlight < concurrencyLimit && now >= backoffUntil) {
+                    List<PendingItem> batch = nextBatch(now);
+                    if (batch == null) {
+                        break;
+                    }
+                    futures.add(completionService.submit(new BatchWriteTask(batch)));
+                    inFlight++;
+                }
+
+                long wait = millisUntilNextBatch(now);
+                Future<BatchOutcome> done;
+                if (inFlight == 0) {
+                    DynamoDBMapper.pause(wait);
+                    continue;
+                } else if (wait > 0) {
+                    done = completionService.poll(wait, TimeUnit.MILLISECONDS);
+                } else {
+                    done = completionService.take();
+                }
+                if (done != null) {
+                    futures.remove(done);
+                    inFlight--;
+                    handle(getOutcome(done));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } finally {
+            for (Future<BatchOutcome> future : futures) {
+                future.cancel(true);
+            }
+            if (executor == null) {
+                pool.shutdown();
+            }
+        }
+        return failedBatches;
+    }
+
+    private boolean hasPendingItems() {
+        return !newItems.isEmpty() || !retryItems.isEmpty() || !splitBatches.isEmpty();
+    }
+
+    /**
+     * Returns the next batch to be sent, or null if no item can be sent yet.
+     * The halves of batches which were too large are sent as they are;
+     * otherwise unprocessed items which are due are sent first, and the
+     * batch is filled up with items not sent yet.
+     */
+    private List<PendingItem> nextBatch(long now) {
+        if (!splitBatches.isEmpty()) {
+            return splitBatches.removeFirst();
+        }
+        List<PendingItem> batch = new ArrayList<PendingItem>(MAX_ITEMS_PER_BATCH);
+        while (batch.size() < MAX_ITEMS_PER_BATCH
+                && !retryItems.isEmpty()
+                && retryItems.peek().notBefore <= now) {
+            batch.add(retryItems.poll());
+        }
+        while (batch.size() < MAX_ITEMS_PER_BATCH && !newItems.isEmpty()) {
+            batch.add(newItems.removeFirst());
+        }
+        return batch.isEmpty() ? null : batch;
+    }
+
+    /**
+     * Returns the number of milliseconds until another batch can be sent, or
+     * zero if none is pending or a batch can only be sent once a request in
+     * flight has completed.
+     */
+    private long millisUntilNextBatch(long now) {
+        if (inFlight >= concurrencyLimit || !hasPendingItems()) {
+            return 0;
+        }
+        long next = backoffUntil;
+        if (splitBatches.isEmpty() && newItems.isEmpty()) {
+            next = Math.max(next, retryItems.peek().notBefore);
+        }
+        return Math.max(next - now, 1);
+    }
+
+    private BatchOutcome getOutcome(Future<BatchOutcome> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException(cause.getMessage(), cause);
+        }
+    }
+
+    private void handle(BatchOutcome outcome) {
+        Exception exception = outcome.exception;
+        if (exception != null) {
+            handleException(outcome.batch, exception);
+            return;
+        }
+
+        Map<String, List<WriteRequest>> unprocessedItems =
+                outcome.result.getUnprocessedItems();
+        if (unprocessedItems == null || unprocessedItems.isEmpty()) {
+            consecutiveThrottles = 0;
+            concurrencyLimit = Math.min(concurrencyLimit + 1, maxConcurrentRequests);
+            return;
+        }
+
+        throttled();
+        requeue(outcome.batch, unprocessedItems);
+    }
+
+    private void handleException(List<PendingItem> batch, Exception exception) {
+        if (exception instanceof AmazonServiceException) {
+            AmazonServiceException ase = (AmazonServiceException) exception;
+
+            // Divide batches which exceed the request size limit; a single
+            // item which is too large can never be written.
+            if (RetryUtils.isRequestEntityTooLargeException(ase) && batch.size() > 1) {
+                int half = batch.size() / 2;
+                splitBatches.addFirst(new ArrayList<PendingItem>(batch.subList(half, batch.size())));
+                splitBatches.addFirst(new ArrayList<PendingItem>(batch.subList(0, half)));
+                return;
+            }
+            if (RetryUtils.isThrottlingException(ase)) {
+                throttled();
+            }
+        }
+
+        FailedBatch failedBatch = new FailedBatch();
+        failedBatch.setUnprocessedItems(toRequestItems(batch));
+        failedBatch.setException(exception);
+        failedBatches.add(failedBatch);
+    }
+
+    /**
+     * Puts the unprocessed items of a batch back into the queue. Items which
+     * have already been retried as many times as allowed by the retry
+     * strategy are reported as a failed batch instead.
+     */
+    private void requeue(
+            List<PendingItem> batch,
+            Map<String, List<WriteRequest>> unprocessedItems) {
+
+        Map<WriteRequest, PendingItem> sent = new HashMap<WriteRequest, PendingItem>();
+        int batchRetries = 0;
+        for (PendingItem item : batch) {
+            sent.put(item.writeRequest, item);
+            batchRetries = Math.max(batchRetries, item.retries);
+        }
+
+        int maxRetries = retryStrategy.getMaxRetryOnUnprocessedItems(
+                Collections.unmodifiableMap(toRequestItems(batch)));
+        long notBefore = currentTimeMillis()
+                + retryStrategy.getDelayBeforeRetryUnprocessedItems(
+                        Collections.unmodifiableMap(unprocessedItems), batchRetries);
+
+        List<PendingItem> exhausted = new LinkedList<PendingItem>();
+        for (Entry<String, List<WriteRequest>> entry : unprocessedItems.entrySet()) {
+            for (WriteRequest writeRequest : entry.getValue()) {
+                PendingItem item = sent.get(writeRequest);
+                int retries = item == null ? batchRetries : item.retries;
+                if (maxRetries >= 0 && retries >= maxRetries) {
+                    exhausted.add(new PendingItem(entry.getKey(), writeRequest, retries, 0));
+                } else {
+                    retryItems.add(new PendingItem(
+                            entry.getKey(), writeRequest, retries + 1, notBefore));
+                }
+            }
+        }
+
+        if (!exhausted.isEmpty()) {
+            FailedBatch failedBatch = new FailedBatch();
+            failedBatch.setUnprocessedItems(toRequestItems(exhausted));
+            failedBatch.setException(null);
+            failedBatches.add(failedBatch);
+        }
+    }
+
+    /**
+     * Records a sign of exceeded capacity: halves the number of requests in
+     * flight and delays the next request.
+     */
+    private void throttled() {
+        consecutiveThrottles++;
+        concurrencyLimit = Math.max(concurrencyLimit / 2, 1);
+        backoffUntil = Math.max(backoffUntil,
+                currentTimeMillis() + computeThrottlingBackoff(consecutiveThrottles));
+    }
+
+    private static Map<String, List<WriteRequest>> toRequestItems(List<PendingItem> batch) {
+        Map<String, List<WriteRequest>> requestItems =
+                new LinkedHashMap<String, List<WriteRequest>>();
+        for (PendingItem item : batch) {
+            List<WriteRequest> writeRequests = requestItems.get(item.tableName);
+            if (writeRequests == null) {
+                writeRequests = new LinkedList<WriteRequest>();
+                requestItems.put(item.tableName, writeRequests);
+            }
+            writeRequests.add(item.writeRequest);
+        }
+        return requestItems;
+    }
+
+    private static long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * A single write request waiting to be sent.
+     */
+    private static final class PendingItem {
+        private final String tableName;
+        private final WriteRequest writeRequest;
+
+        /** The number of times this item has been returned as unprocessed. */
+        private final int retries;
+
+        /** The item is not sent again before this time. */
+        private final long notBefore;
+
+        PendingItem(String tableName, WriteRequest writeRequest, int retries, long notBefore) {
+            this.tableName = tableName;
+            this.writeRequest = writeRequest;
+            this.retries = retries;
+            this.notBefore = notBefore;
+        }
+    }
+
+    /**
+     * The result of, or the exception thrown by, a single BatchWriteItem
+     * request.
+     */
+    private static final class BatchOutcome {
+        private final List<PendingItem> batch;
+        private final BatchWriteItemResult result;
+        private final Exception exception;
+
+        BatchOutcome(List<PendingItem> batch, BatchWriteItemResult result, Exception exception) {
+            this.batch = batch;
+            this.result = result;
+            this.exception = exception;
+        }
+    }
+
+    private final class BatchWriteTask implements Callable<BatchOutcome> {
+        private final List<PendingItem> batch;
+
+        BatchWriteTask(List<PendingItem> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public BatchOutcome call() {
+            try {
+                BatchWriteItemResult result = db.batchWriteItem(
+                        applyBatchOperationUserAgent(new BatchWriteItemRequest()
+                                .withRequestItems(toRequestItems(batch))));
+                return new BatchOutcome(batch, result, null);
+            } catch (Exception e) {
+                return new BatchOutcome(batch, null, e);
+            }
+        }
+    }
+}
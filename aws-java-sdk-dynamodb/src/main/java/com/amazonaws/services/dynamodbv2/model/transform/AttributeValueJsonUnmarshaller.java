@@ -31,6 +31,32 @@ import static com.fasterxml.jackson.core.JsonToken.*;
 public class AttributeValueJsonUnmarshaller implements
         Unmarshaller<AttributeValue, JsonUnmarshallerContext> {
 
+    private static final int S = 0;
+    private static final int N = 1;
+    private static final int B = 2;
+    private static final int SS = 3;
+    private static final int NS = 4;
+    private static final int BS = 5;
+    private static final int M = 6;
+    private static final int L = 7;
+    private static final int NULL = 8;
+    private static final int BOOL = 9;
+
+    private static final JsonMemberIndex MEMBERS = new JsonMemberIndex("S",
+            "N", "B", "SS", "NS", "BS", "M", "L", "NULL", "BOOL");
+
+    private static final ListUnmarshaller<String> STRING_LIST_UNMARSHALLER = new ListUnmarshaller<String>(
+            StringJsonUnmarshaller.getInstance());
+
+    private static final ListUnmarshaller<java.nio.ByteBuffer> BYTE_BUFFER_LIST_UNMARSHALLER = new ListUnmarshaller<java.nio.ByteBuffer>(
+            ByteBufferJsonUnmarshaller.getInstance());
+
+    private final MapUnmarshaller<String, AttributeValue> mapUnmarshaller = new MapUnmarshaller<String, AttributeValue>(
+            StringJsonUnmarshaller.getInstance(), this);
+
+    private final ListUnmarshaller<AttributeValue> listUnmarshaller = new ListUnmarshaller<AttributeValue>(
+            this);
+
     public AttributeValue unmarshall(JsonUnmarshallerContext context)
             throws Exception {
         AttributeValue attributeValue = new AttributeValue();
@@ -50,63 +76,58 @@ public class AttributeValueJsonUnmarshaller implements
                 break;
 
             if (token == FIELD_NAME || token == START_OBJECT) {
-                if (context.testExpression("S", targetDepth)) {
+                switch (MEMBERS.indexOf(context
+                        .getCurrentFieldName(targetDepth))) {
+                case S:
                     context.nextToken();
                     attributeValue.setS(StringJsonUnmarshaller.getInstance()
                             .unmarshall(context));
-                }
-                if (context.testExpression("N", targetDepth)) {
+                    break;
+                case N:
                     context.nextToken();
                     attributeValue.setN(StringJsonUnmarshaller.getInstance()
                             .unmarshall(context));
-                }
-                if (context.testExpression("B", targetDepth)) {
+                    break;
+                case B:
                     context.nextToken();
                     attributeValue.setB(ByteBufferJsonUnmarshaller
                             .getInstance().unmarshall(context));
-                }
-                if (context.testExpression("SS", targetDepth)) {
+                    break;
+                case SS:
                     context.nextToken();
-                    attributeValue.setSS(new ListUnmarshaller<String>(
-                            StringJsonUnmarshaller.getInstance())
+                    attributeValue.setSS(STRING_LIST_UNMARSHALLER
                             .unmarshall(context));
-                }
-                if (context.testExpression("NS", targetDepth)) {
+                    break;
+                case NS:
                     context.nextToken();
-                    attributeValue.setNS(new ListUnmarshaller<String>(
-                            StringJsonUnmarshaller.getInstance())
+                    attributeValue.setNS(STRING_LIST_UNMARSHALLER
                             .unmarshall(context));
-                }
-                if (context.testExpression("BS", targetDepth)) {
+                    break;
+                case BS:
                     context.nextToken();
-                    attributeValue
-                            .setBS(new ListUnmarshaller<java.nio.ByteBuffer>(
-                                    ByteBufferJsonUnmarshaller.getInstance())
-                                    .unmarshall(context));
-                }
-                if (context.testExpression("M", targetDepth)) {
+                    attributeValue.setBS(BYTE_BUFFER_LIST_UNMARSHALLER
+                            .unmarshall(context));
+                    break;
+                case M:
                     context.nextToken();
-                    attributeValue
-                            .setM(new MapUnmarshaller<String, AttributeValue>(
-                                    StringJsonUnmarshaller.getInstance(),
-                                    AttributeValueJsonUnmarshaller
-                                            .getInstance()).unmarshall(context));
-                }
-                if (context.testExpression("L", targetDepth)) {
+                    attributeValue.setM(mapUnmarshaller.unmarshall(context));
+                    break;
+                case L:
                     context.nextToken();
-                    attributeValue.setL(new ListUnmarshaller<AttributeValue>(
-                            AttributeValueJsonUnmarshaller.getInstance())
-                            .unmarshall(context));
-                }
-                if (context.testExpression("NULL", targetDepth)) {
+                    attributeValue.setL(listUnmarshaller.unmarshall(context));
+                    break;
+                case NULL:
                     context.nextToken();
                     attributeValue.setNULL(BooleanJsonUnmarshaller
                             .getInstance().unmarshall(context));
-                }
-                if (context.testExpression("BOOL", targetDepth)) {
+                    break;
+                case BOOL:
                     context.nextToken();
                     attributeValue.setBOOL(BooleanJsonUnmarshaller
                             .getInstance().unmarshall(context));
+                    break;
+                default:
+                    break;
                 }
             } else if (token == END_ARRAY || token == END_OBJECT) {
                 if (context.getLastParsedParentElement() == null
@@ -31,6 +31,23 @@ import static com.fasterxml.jackson.core.JsonToken.*;
 public class ScanResultJsonUnmarshaller implements
         Unmarshaller<ScanResult, JsonUnmarshallerContext> {
 
+    private static final int ITEMS = 0;
+    private static final int COUNT = 1;
+    private static final int SCANNED_COUNT = 2;
+    private static final int LAST_EVALUATED_KEY = 3;
+    private static final int CONSUMED_CAPACITY = 4;
+
+    private static final JsonMemberIndex MEMBERS = new JsonMemberIndex(
+            "Items", "Count", "ScannedCount", "LastEvaluatedKey",
+            "ConsumedCapacity");
+
+    private static final MapUnmarshaller<String, AttributeValue> ATTRIBUTE_MAP_UNMARSHALLER = new MapUnmarshaller<String, AttributeValue>(
+            StringJsonUnmarshaller.getInstance(),
+            AttributeValueJsonUnmarshaller.getInstance());
+
+    private static final ListUnmarshaller<java.util.Map<String, AttributeValue>> ITEMS_UNMARSHALLER = new ListUnmarshaller<java.util.Map<String, AttributeValue>>(
+            ATTRIBUTE_MAP_UNMARSHALLER);
+
     public ScanResult unmarshall(JsonUnmarshallerContext context)
             throws Exception {
         ScanResult scanResult = new ScanResult();
@@ -50,40 +67,35 @@ public class ScanResultJsonUnmarshaller implements
                 break;
 
             if (token == FIELD_NAME || token == START_OBJECT) {
-                if (context.testExpression("Items", targetDepth)) {
+                switch (MEMBERS.indexOf(context
+                        .getCurrentFieldName(targetDepth))) {
+                case ITEMS:
                     context.nextToken();
-                    scanResult
-                            .setItems(new ListUnmarshaller<java.util.Map<String, AttributeValue>>(
-                                    new MapUnmarshaller<String, AttributeValue>(
-                                            StringJsonUnmarshaller
-                                                    .getInstance(),
-                                            AttributeValueJsonUnmarshaller
-                                                    .getInstance()))
-                                    .unmarshall(context));
-                }
-                if (context.testExpression("Count", targetDepth)) {
+                    scanResult.setItems(ITEMS_UNMARSHALLER.unmarshall(context));
+                    break;
+                case COUNT:
                     context.nextToken();
                     scanResult.setCount(IntegerJsonUnmarshaller.getInstance()
                             .unmarshall(context));
-                }
-                if (context.testExpression("ScannedCount", targetDepth)) {
+                    break;
+                case SCANNED_COUNT:
                     context.nextToken();
                     scanResult.setScannedCount(IntegerJsonUnmarshaller
                             .getInstance().unmarshall(context));
-                }
-                if (context.testExpression("LastEvaluatedKey", targetDepth)) {
+                    break;
+                case LAST_EVALUATED_KEY:
                     context.nextToken();
-                    scanResult
-                            .setLastEvaluatedKey(new MapUnmarshaller<String, AttributeValue>(
-                                    StringJsonUnmarshaller.getInstance(),
-                                    AttributeValueJsonUnmarshaller
-                                            .getInstance()).unmarshall(context));
-                }
-                if (context.testExpression("ConsumedCapacity", targetDepth)) {
+                    scanResult.setLastEvaluatedKey(ATTRIBUTE_MAP_UNMARSHALLER
+                            .unmarshall(context));
+                    break;
+                case CONSUMED_CAPACITY:
                     context.nextToken();
                     scanResult
                             .setConsumedCapacity(ConsumedCapacityJsonUnmarshaller
                                     .getInstance().unmarshall(context));
+                    break;
+                default:
+                    break;
                 }
             } else if (token == END_ARRAY || token == END_OBJECT) {
                 if (context.getLastParsedParentElement() == null
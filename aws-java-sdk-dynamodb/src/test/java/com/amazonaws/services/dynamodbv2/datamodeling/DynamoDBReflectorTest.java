@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DynamoDBReflectorTest {
+
+    private final DynamoDBReflector reflector = new DynamoDBReflector();
+
+    @Test
+    public void testClassModel() throws Exception {
+        Collection<Method> getters = reflector.getRelevantGetters(Item.class);
+        Assert.assertEquals(4, getters.size());
+        Assert.assertSame(getters, reflector.getRelevantGetters(Item.class));
+
+        Method hashKey = Item.class.getMethod("getId");
+        Method rangeKey = Item.class.getMethod("getSort");
+        Assert.assertEquals(hashKey, reflector.getPrimaryHashKeyGetter(Item.class));
+        Assert.assertEquals(rangeKey, reflector.getPrimaryRangeKeyGetter(Item.class));
+        Assert.assertEquals(2, reflector.getPrimaryKeyGetters(Item.class).size());
+        Assert.assertTrue(reflector.hasPrimaryRangeKey(Item.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRelevantGettersUnmodifiable() {
+        reflector.getRelevantGetters(Item.class).clear();
+    }
+
+    @Test(expected = DynamoDBMappingException.class)
+    public void testNoHashKey() {
+        reflector.getPrimaryHashKeyGetter(NoHashKey.class);
+    }
+
+    @Test
+    public void testGetterModel() throws Exception {
+        Method id = Item.class.getMethod("getId");
+        Method version = Item.class.getMethod("getVersion");
+        Method readOnly = Item.class.getMethod("getReadOnly");
+
+        Assert.assertEquals("key", reflector.getAttributeName(id));
+        Assert.assertEquals("version", reflector.getAttributeName(version));
+        Assert.assertEquals(Item.class.getMethod("setId", String.class), reflector.getSetter(id));
+
+        Assert.assertTrue(reflector.isAssignableKey(id));
+        Assert.assertFalse(reflector.isAssignableKey(version));
+        Assert.assertTrue(reflector.isVersionAttributeGetter(version));
+        Assert.assertFalse(reflector.isVersionAttributeGetter(id));
+
+        // A missing setter is reported every time it is asked for
+        for (int i = 0; i < 2; i++) {
+            try {
+                reflector.getSetter(readOnly);
+                Assert.fail("Expected a DynamoDBMappingException");
+            } catch (DynamoDBMappingException expected) {
+                Assert.assertTrue(expected.getCause() instanceof NoSuchMethodException);
+            }
+        }
+    }
+
+    @DynamoDBTable(tableName = "table")
+    public static class Item {
+
+        @DynamoDBHashKey(attributeName = "key")
+        @DynamoDBAutoGeneratedKey
+        public String getId() { return null; }
+        public void setId(String id) { }
+
+        @DynamoDBRangeKey
+        public String getSort() { return null; }
+        public void setSort(String sort) { }
+
+        @DynamoDBVersionAttribute
+        public Long getVersion() { return null; }
+        public void setVersion(Long version) { }
+
+        public String getReadOnly() { return null; }
+    }
+
+    @DynamoDBTable(tableName = "table")
+    public static class NoHashKey {
+
+        public String getValue() { return null; }
+        public void setValue(String value) { }
+    }
+}
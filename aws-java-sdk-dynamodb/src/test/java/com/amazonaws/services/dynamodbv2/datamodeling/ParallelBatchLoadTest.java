@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.BatchLoadHandler;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchParallelism;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+
+public class ParallelBatchLoadTest {
+
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final int MAX_KEYS = 100;
+    private static final String TABLE_NAME = "tableName";
+    private static final String HASH_ATTR = "hash";
+
+    private AmazonDynamoDB ddbMock;
+    private ExecutorService executor;
+    private DynamoDBMapper mapper;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        ddbMock = createMock(AmazonDynamoDB.class);
+        executor = Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS);
+        mapper = new DynamoDBMapper(
+                ddbMock,
+                new DynamoDBMapperConfig.Builder()
+                        .withBatchParallelism(BatchParallelism.withExecutor(executor, MAX_CONCURRENT_REQUESTS))
+                        .build());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAllKeysLoadedWithBoundedConcurrency() {
+
+        // 1000 keys are loaded in exactly 10 requests
+        expect(ddbMock.batchGetItem(isA(BatchGetItemRequest.class)))
+                .andAnswer(new BatchGetAnswer(0)).times(10);
+
+        replay(ddbMock);
+        Map<String, List<Object>> results = mapper.batchLoad(createKeys(1000));
+        verify(ddbMock);
+
+        Assert.assertEquals(1000, toHashKeys(results.get(TABLE_NAME)).size());
+        Assert.assertTrue(
+                "No more than " + MAX_CONCURRENT_REQUESTS + " requests should be in flight",
+                maxInFlight.get() <= MAX_CONCURRENT_REQUESTS);
+    }
+
+    @Test
+    public void testUnprocessedKeysMergedIntoLaterRequests() {
+
+        // The first request leaves 30 keys unprocessed; they are sent again
+        // along with the remaining keys
+        expect(ddbMock.batchGetItem(isA(BatchGetItemRequest.class)))
+                .andAnswer(new BatchGetAnswer(30)).once();
+        expect(ddbMock.batchGetItem(isA(BatchGetItemRequest.class)))
+                .andAnswer(new BatchGetAnswer(0)).times(2);
+
+        replay(ddbMock);
+        Map<String, List<Object>> results = mapper.batchLoad(createKeys(150));
+        verify(ddbMock);
+
+        Assert.assertEquals(150, toHashKeys(results.get(TABLE_NAME)).size());
+    }
+
+    @Test
+    public void testLoadedItemsStreamedToHandler() {
+
+        expect(ddbMock.batchGetItem(isA(BatchGetItemRequest.class)))
+                .andAnswer(new BatchGetAnswer(0)).times(3);
+
+        replay(ddbMock);
+        final Thread caller = Thread.currentThread();
+        final List<Object> loaded = new ArrayList<Object>();
+        final AtomicInteger calls = new AtomicInteger();
+        mapper.batchLoad(createKeys(250), null, new BatchLoadHandler() {
+            @Override
+            public void handleLoadedItems(String tableName, List<Object> items) {
+                Assert.assertSame(caller, Thread.currentThread());
+                Assert.assertEquals(TABLE_NAME, tableName);
+                calls.incrementAndGet();
+                loaded.addAll(items);
+            }
+        });
+        verify(ddbMock);
+
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(250, toHashKeys(loaded).size());
+    }
+
+    @Test
+    public void testSerialLoad() {
+        mapper = new DynamoDBMapper(ddbMock);
+
+        expect(ddbMock.batchGetItem(isA(BatchGetItemRequest.class)))
+                .andAnswer(new BatchGetAnswer(10)).once();
+        // The 10 unprocessed keys fit in the request with the remaining 80
+        expect(ddbMock.batchGetItem(isA(BatchGetItemRequest.class)))
+                .andAnswer(new BatchGetAnswer(0)).once();
+
+        replay(ddbMock);
+        Map<String, List<Object>> results = mapper.batchLoad(createKeys(180));
+        verify(ddbMock);
+
+        Assert.assertEquals(180, toHashKeys(results.get(TABLE_NAME)).size());
+        Assert.assertEquals(1, maxInFlight.get());
+    }
+
+    private static List<Object> createKeys(int count) {
+        List<Object> keys = new ArrayList<Object>();
+        for (int i = 0; i < count; i++) {
+            keys.add(new Item("item" + i));
+        }
+        return keys;
+    }
+
+    private static Set<String> toHashKeys(List<Object> items) {
+        Set<String> hashKeys = new HashSet<String>();
+        for (Object item : items) {
+            hashKeys.add(((Item) item).getHash());
+        }
+        return hashKeys;
+    }
+
+    /**
+     * Returns the requested items, except for the given number of keys
+     * returned as unprocessed.
+     */
+    private class BatchGetAnswer implements IAnswer<BatchGetItemResult> {
+
+        private final int unprocessedCount;
+
+        BatchGetAnswer(int unprocessedCount) {
+            this.unprocessedCount = unprocessedCount;
+        }
+
+        @Override
+        public BatchGetItemResult answer() throws Throwable {
+            BatchGetItemRequest request =
+                    (BatchGetItemRequest) EasyMock.getCurrentArguments()[0];
+            int current = inFlight.incrementAndGet();
+            try {
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                Thread.sleep(10);
+
+                List<Map<String, AttributeValue>> keys = request.getRequestItems().get(TABLE_NAME).getKeys();
+                Assert.assertTrue(keys.size() <= MAX_KEYS);
+
+                int unprocessed = Math.min(unprocessedCount, keys.size());
+                BatchGetItemResult result = new BatchGetItemResult()
+                        .withResponses(Collections.<String, List<Map<String, AttributeValue>>>singletonMap(TABLE_NAME,
+                                new ArrayList<Map<String, AttributeValue>>(keys.subList(unprocessed, keys.size()))));
+                if (unprocessed > 0) {
+                    result.setUnprocessedKeys(Collections.singletonMap(TABLE_NAME,
+                            new KeysAndAttributes().withKeys(keys.subList(0, unprocessed))));
+                }
+                return result;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    @DynamoDBTable(tableName = TABLE_NAME)
+    public static class Item {
+
+        private String hash;
+
+        public Item() {
+        }
+
+        public Item(String hash) {
+            this.hash = hash;
+        }
+
+        @DynamoDBHashKey(attributeName = HASH_ATTR)
+        public String getHash() {
+            return hash;
+        }
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchParallelism;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+public class ParallelBatchWriteTest {
+
+    private static final int MAX_RETRY = 3;
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final int MAX_ITEMS = 25;
+    private static final String TABLE_NAME = "tableName";
+    private static final String HASH_ATTR = "hash";
+
+    private AmazonDynamoDB ddbMock;
+    private DynamoDBMapper mapper;
+
+    /** The hash keys of all the items written successfully. */
+    private final Set<String> writtenKeys = Collections.synchronizedSet(new HashSet<String>());
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        ddbMock = createMock(AmazonDynamoDB.class);
+        mapper = new DynamoDBMapper(
+                ddbMock,
+                new DynamoDBMapperConfig.Builder()
+                        .withBatchWriteRetryStrategy(new BatchWriteRetryStrategyWithNoDelay(MAX_RETRY))
+                        .withBatchParallelism(BatchParallelism.withMaxConcurrentRequests(MAX_CONCURRENT_REQUESTS))
+                        .build());
+    }
+
+    @Test
+    public void testAllItemsWrittenWithBoundedConcurrency() {
+
+        // 250 items are written in exactly 10 batches
+        expect(ddbMock.batchWriteItem(isA(BatchWriteItemRequest.class)))
+                .andAnswer(new BatchWriteAnswer(0)).times(10);
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(createItems(250));
+        verify(ddbMock);
+
+        Assert.assertEquals(0, failedBatches.size());
+        Assert.assertEquals(250, writtenKeys.size());
+        Assert.assertTrue(
+                "No more than " + MAX_CONCURRENT_REQUESTS + " requests should be in flight",
+                maxInFlight.get() <= MAX_CONCURRENT_REQUESTS);
+    }
+
+    @Test
+    public void testUnprocessedItemsRequeued() {
+
+        // The first request leaves 5 items unprocessed; they are sent again
+        // along with the remaining items
+        expect(ddbMock.batchWriteItem(isA(BatchWriteItemRequest.class)))
+                .andAnswer(new BatchWriteAnswer(5)).once();
+        expect(ddbMock.batchWriteItem(isA(BatchWriteItemRequest.class)))
+                .andAnswer(new BatchWriteAnswer(0)).times(1, 3);
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(createItems(40));
+        verify(ddbMock);
+
+        Assert.assertEquals(0, failedBatches.size());
+        Assert.assertEquals(40, writtenKeys.size());
+    }
+
+    @Test
+    public void testUnprocessedItemsExceedMaxRetry() {
+
+        // Every request leaves its items unprocessed
+        expect(ddbMock.batchWriteItem(isA(BatchWriteItemRequest.class)))
+                .andAnswer(new BatchWriteAnswer(MAX_ITEMS)).times(MAX_RETRY + 1);
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(createItems(1));
+        verify(ddbMock);
+
+        Assert.assertEquals(1, failedBatches.size());
+        FailedBatch failedBatch = failedBatches.get(0);
+        Assert.assertEquals(1, failedBatch.getUnprocessedItems().get(TABLE_NAME).size());
+        Assert.assertNull(
+                "No exception should be set if the batch failed after max retry",
+                failedBatch.getException());
+        Assert.assertEquals(0, writtenKeys.size());
+    }
+
+    @Test
+    public void testExceptionThrown_NoRetry() {
+
+        RuntimeException exception = new RuntimeException("BOOM");
+        expect(ddbMock.batchWriteItem(isA(BatchWriteItemRequest.class)))
+                .andThrow(exception).once();
+        expect(ddbMock.batchWriteItem(isA(BatchWriteItemRequest.class)))
+                .andAnswer(new BatchWriteAnswer(0)).once();
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(createItems(50));
+        verify(ddbMock);
+
+        Assert.assertEquals(1, failedBatches.size());
+        FailedBatch failedBatch = failedBatches.get(0);
+        Assert.assertEquals(25, failedBatch.getUnprocessedItems().get(TABLE_NAME).size());
+        Assert.assertSame(exception, failedBatch.getException());
+        Assert.assertEquals(25, writtenKeys.size());
+    }
+
+    private static List<Item> createItems(int count) {
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("item" + i));
+        }
+        return items;
+    }
+
+    /**
+     * Records the items of each request as written, except for the given
+     * number of items returned as unprocessed.
+     */
+    private class BatchWriteAnswer implements IAnswer<BatchWriteItemResult> {
+
+        private final int unprocessedCount;
+
+        BatchWriteAnswer(int unprocessedCount) {
+            this.unprocessedCount = unprocessedCount;
+        }
+
+        @Override
+        public BatchWriteItemResult answer() throws Throwable {
+            int current = inFlight.incrementAndGet();
+            try {
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                Thread.sleep(10);
+
+                BatchWriteItemRequest request =
+                        (BatchWriteItemRequest) EasyMock.getCurrentArguments()[0];
+                List<WriteRequest> writeRequests = request.getRequestItems().get(TABLE_NAME);
+                Assert.assertTrue(writeRequests.size() <= MAX_ITEMS);
+
+                int unprocessed = Math.min(unprocessedCount, writeRequests.size());
+                for (WriteRequest writeRequest : writeRequests.subList(unprocessed, writeRequests.size())) {
+                    Assert.assertTrue("Items should only be written once", writtenKeys.add(
+                            writeRequest.getPutRequest().getItem().get(HASH_ATTR).getS()));
+                }
+
+                Map<String, List<WriteRequest>> unprocessedItems =
+                        Collections.<String, List<WriteRequest>>emptyMap();
+                if (unprocessed > 0) {
+                    unprocessedItems = Collections.<String, List<WriteRequest>>singletonMap(TABLE_NAME,
+                            new ArrayList<WriteRequest>(writeRequests.subList(0, unprocessed)));
+                }
+                return new BatchWriteItemResult().withUnprocessedItems(unprocessedItems);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private static class BatchWriteRetryStrategyWithNoDelay implements
+            BatchWriteRetryStrategy {
+
+        private final int maxRetry;
+
+        public BatchWriteRetryStrategyWithNoDelay(int maxRety) {
+            this.maxRetry = maxRety;
+        }
+
+        @Override
+        public int getMaxRetryOnUnprocessedItems(
+                Map<String, List<WriteRequest>> batchWriteItemInput) {
+            return maxRetry;
+        }
+
+        @Override
+        public long getDelayBeforeRetryUnprocessedItems(
+                Map<String, List<WriteRequest>> unprocessedItems,
+                int retriesAttempted) {
+            return 0;
+        }
+
+    }
+
+    @DynamoDBTable(tableName = TABLE_NAME)
+    public static class Item {
+
+        private String hash;
+
+        public Item(String hash) {
+            this.hash = hash;
+        }
+
+        @DynamoDBAttribute(attributeName = HASH_ATTR)
+        public String getHash() {
+            return hash;
+        }
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+public class PrecompiledConversionSchemaTest {
+
+    private static final ItemConverter STANDARD = ConversionSchemas.V2
+            .getConverter(new ConversionSchema.Dependencies());
+
+    private static final ConversionSchema PRECOMPILED_SCHEMA =
+            ConversionSchemas.precompiled(ConversionSchemas.V2);
+
+    private static final ItemConverter PRECOMPILED = PRECOMPILED_SCHEMA
+            .getConverter(new ConversionSchema.Dependencies());
+
+    @Test
+    public void testSchema() {
+        Assert.assertEquals("V2ConversionSchemaPrecompiled", PRECOMPILED_SCHEMA.toString());
+        Assert.assertSame(PRECOMPILED_SCHEMA,
+                ConversionSchemas.precompiled(PRECOMPILED_SCHEMA));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSchema() {
+        ConversionSchemas.precompiled(new ConversionSchema() {
+            @Override
+            public ItemConverter getConverter(Dependencies dependencies) {
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testConvertMatchesStandard() throws Exception {
+        Item item = createItem();
+
+        Map<String, AttributeValue> expected = STANDARD.convert(item);
+        Assert.assertEquals(expected, PRECOMPILED.convert(item));
+
+        // Converting a second time goes through the cached table
+        Assert.assertEquals(expected, PRECOMPILED.convert(item));
+
+        for (String name : Arrays.asList("getName", "getCount", "getTags", "getList", "getNested")) {
+            Object value = Item.class.getMethod(name).invoke(item);
+            Assert.assertEquals(
+                    STANDARD.convert(Item.class.getMethod(name), value),
+                    PRECOMPILED.convert(Item.class.getMethod(name), value));
+        }
+    }
+
+    @Test
+    public void testUnconvertMatchesStandard() {
+        Map<String, AttributeValue> values = STANDARD.convert(createItem());
+
+        Item standard = STANDARD.unconvert(Item.class, values);
+        Item precompiled = PRECOMPILED.unconvert(Item.class, values);
+
+        Assert.assertEquals(STANDARD.convert(standard), STANDARD.convert(precompiled));
+        Assert.assertEquals("name", precompiled.getName());
+        Assert.assertEquals(Integer.valueOf(42), precompiled.getCount());
+        Assert.assertEquals(new Date(0), precompiled.getDate());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("a", "b")), precompiled.getTags());
+        Assert.assertEquals(Arrays.asList("x", "y"), precompiled.getList());
+        Assert.assertEquals(Collections.singletonMap("k", 1L), precompiled.getMap());
+        Assert.assertEquals("inner", precompiled.getNested().getValue());
+    }
+
+    @Test(expected = DynamoDBMappingException.class)
+    public void testMissingSetter() {
+        Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+        values.put("readOnly", new AttributeValue("value"));
+        PRECOMPILED.unconvert(Item.class, values);
+    }
+
+    private static Item createItem() {
+        Nested nested = new Nested();
+        nested.setValue("inner");
+
+        Item item = new Item();
+        item.setName("name");
+        item.setCount(42);
+        item.setDate(new Date(0));
+        item.setTags(new HashSet<String>(Arrays.asList("a", "b")));
+        item.setList(Arrays.asList("x", "y"));
+        item.setMap(Collections.singletonMap("k", 1L));
+        item.setNested(nested);
+        return item;
+    }
+
+    @DynamoDBTable(tableName = "table")
+    public static class Item {
+
+        private String name;
+        private Integer count;
+        private Date date;
+        private Set<String> tags;
+        private List<String> list;
+        private Map<String, Long> map;
+        private Nested nested;
+
+        @DynamoDBHashKey
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        @DynamoDBAttribute(attributeName = "cnt")
+        public Integer getCount() { return count; }
+        public void setCount(Integer count) { this.count = count; }
+
+        public Date getDate() { return date; }
+        public void setDate(Date date) { this.date = date; }
+
+        public Set<String> getTags() { return tags; }
+        public void setTags(Set<String> tags) { this.tags = tags; }
+
+        public List<String> getList() { return list; }
+        public void setList(List<String> list) { this.list = list; }
+
+        public Map<String, Long> getMap() { return map; }
+        public void setMap(Map<String, Long> map) { this.map = map; }
+
+        public Nested getNested() { return nested; }
+        public void setNested(Nested nested) { this.nested = nested; }
+
+        public String getReadOnly() { return null; }
+    }
+
+    @DynamoDBDocument
+    public static class Nested {
+
+        private String value;
+
+        public String getValue() { return value; }
+        public void setValue(String value) { this.value = value; }
+    }
+}
@@ -86,7 +86,7 @@ public class TreeHashGenerator {
         try {
             TreeHashInputStream treeHashInputStream =
                 new TreeHashInputStream(input);
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[1024 * 64];
             while (treeHashInputStream.read(buffer, 0, buffer.length) != -1);
             // closing is currently required to compute the checksum 
             treeHashInputStream.close();
@@ -22,14 +22,25 @@ import static com.amazonaws.util.IOUtils.release;
 import static com.amazonaws.util.Throwables.failure;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,6 +80,10 @@ import com.amazonaws.util.BinaryUtils;
 
 /**
  * Utilities for uploading and downloading data to and from AWS Glacier.
+ * <p>
+ * The parts of a multipart upload, and the chunks of a download, are
+ * transferred concurrently by a pool of threads created for each transfer; the
+ * number of threads can be set with {@link #setTransferConcurrency(int)}.
  */
 public class ArchiveTransferManager {
 
@@ -84,6 +99,20 @@ public class ArchiveTransferManager {
     /** Threshold, in bytes, for when to use the multipart upload operations */
     private static final long MULTIPART_UPLOAD_SIZE_THRESHOLD = 1024L * 1024L * 100;
 
+    /** The maximum number of parts in a Glacier multipart upload. */
+    private static final long MAXIMUM_UPLOAD_PARTS = 10000;
+
+    /**
+     * The largest part, in bytes, that is read into memory before it is
+     * uploaded, so that the file is read only once. Larger parts are streamed
+     * from the file, which is then read once for the tree hash and once for the
+     * upload.
+     */
+    private static final long MAXIMUM_BUFFERED_PART_SIZE = 1024L * 1024 * 16;
+
+    /** The default number of parts or chunks transferred concurrently. */
+    private static final int DEFAULT_TRANSFER_CONCURRENCY = 4;
+
     /** Default retry time when downloading in multiple chunks using range retrieval */
     private static final int DEFAULT_MAX_RETRIES = 3;
 
@@ -98,6 +127,9 @@ public class ArchiveTransferManager {
 
     private final AmazonSNSClient sns;
 
+    /** The number of parts or chunks each transfer transfers concurrently. */
+    private volatile int transferConcurrency = DEFAULT_TRANSFER_CONCURRENCY;
+
     private static final Log log = LogFactory.getLog(ArchiveTransferManager.class);
 
     /**
@@ -197,6 +229,30 @@ public class ArchiveTransferManager {
         this.sns = sns;
     }
 
+    /**
+     * Returns the number of parts of a multipart upload, or chunks of a
+     * download, that are transferred concurrently.
+     */
+    public int getTransferConcurrency() {
+        return transferConcurrency;
+    }
+
+    /**
+     * Sets the number of parts of a multipart upload, or chunks of a download,
+     * that are transferred concurrently. Each part being uploaded is held in
+     * memory, so a multipart upload uses up to this many times 16MB of memory.
+     * The default is 4.
+     *
+     * @param transferConcurrency
+     *            The number of concurrent transfers; must be positive.
+     */
+    public void setTransferConcurrency(int transferConcurrency) {
+        if (transferConcurrency < 1) {
+            throw new IllegalArgumentException("transferConcurrency must be positive, was " + transferConcurrency);
+        }
+        this.transferConcurrency = transferConcurrency;
+    }
+
     /**
      * Uploads the specified file to Amazon Glacier for archival storage in the
      * specified vault for the user's current account. For small archives, this
@@ -531,27 +587,46 @@ public class ArchiveTransferManager {
             throw new AmazonClientException("Unable to open the output file " + file.getPath(), e);
         }
 
+        final FileChannel channel = output.getChannel();
+        ExecutorService threadPool = newTransferThreadPool();
         try {
             publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
+            List<Future<Void>> chunks = new ArrayList<Future<Void>>();
             while (currentPosition < archiveSize) {
                 if (currentPosition + chunkSize > archiveSize) {
                     endPosition = archiveSize - 1;
                 } else {
                     endPosition = currentPosition + chunkSize - 1;
                 }
-    
-                // Download the chunk
-                try {
-                    downloadOneChunk(accountId, vaultName, jobId, output,
-                            currentPosition, endPosition, progressListener);
-                } catch (Throwable t) {
-                    publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
-                    throw failure(t);
-                }
+
+                final String finalAccountId = accountId;
+                final String finalVaultName = vaultName;
+                final String finalJobId = jobId;
+                final long chunkStart = currentPosition;
+                final long chunkEnd = endPosition;
+                final ProgressListener listener = progressListener;
+                chunks.add(threadPool.submit(new Callable<Void>() {
+                    public Void call() {
+                        downloadOneChunk(finalAccountId, finalVaultName, finalJobId, channel,
+                                chunkStart, chunkEnd, listener);
+                        return null;
+                    }
+                }));
                 currentPosition += chunkSize;
             }
+
+            // Wait for the chunks, in order, failing fast on the first error
+            try {
+                for (Future<Void> chunk : chunks) {
+                    waitForTransfer(chunk);
+                }
+            } catch (Throwable t) {
+                publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                throw failure(t);
+            }
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
         } finally {
+            threadPool.shutdownNow();
             closeQuietly(output, log);
         }
     }
@@ -568,11 +643,12 @@ public class ArchiveTransferManager {
     }
 
     /**
-     * Download one chunk from Amazon Glacier. It will do the retry if any
-     * errors are encountered while streaming the data from Amazon Glacier.
+     * Download one chunk from Amazon Glacier, and write it to its position in
+     * the output file. It will do the retry if any errors are encountered while
+     * streaming the data from Amazon Glacier.
      */
     private void downloadOneChunk(String accountId, String vaultName,
-            String jobId, RandomAccessFile output, long currentPosition,
+            String jobId, FileChannel output, long currentPosition,
             long endPosition, ProgressListener progressListener) {
         final long chunkSize = endPosition - currentPosition + 1;
         TreeHashInputStream input = null;
@@ -589,7 +665,7 @@ public class ArchiveTransferManager {
                 GetJobOutputResult jobOutputResult = glacier.getJobOutput(req);
                 try {
                     input = new TreeHashInputStream(new BufferedInputStream(jobOutputResult.getBody()));
-                    appendToFile(output, input);
+                    writeToFile(output, currentPosition, input);
                 } catch (NoSuchAlgorithmException e) {
                     throw failure(e, "Unable to compute hash for data integrity");
                 } finally {
@@ -624,11 +700,6 @@ public class ArchiveTransferManager {
                                 + currentPosition + " endPosition="
                                 + endPosition);
                     }
-                    try {
-                        output.seek(currentPosition);
-                    } catch (IOException e) {
-                        throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), e);
-                    }
                 } else {
                     throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), ioe);
                 }
@@ -637,9 +708,11 @@ public class ArchiveTransferManager {
     }
 
     /**
-     * Writes the data from the given input stream to the given output stream.
+     * Writes the data from the given input stream to the given file channel,
+     * starting at the given position. Positional writes leave the position of
+     * the channel unchanged, so chunks can be written concurrently.
      */
-    private void appendToFile(RandomAccessFile output, InputStream input)
+    private void writeToFile(FileChannel output, long position, InputStream input)
             throws IOException {
         byte[] buffer = new byte[1024 * 1024];
         int bytesRead = 0;
@@ -647,7 +720,10 @@ public class ArchiveTransferManager {
             bytesRead = input.read(buffer);
             if (bytesRead < 0)
                 break;
-            output.write(buffer, 0, bytesRead);
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, bytesRead);
+            while (bytes.hasRemaining()) {
+                position += output.write(bytes, position);
+            }
         } while (bytesRead > 0);
         return;
     }
@@ -657,7 +733,8 @@ public class ArchiveTransferManager {
      * specified size using Glacier's multipart upload APIs. Because of the tree
      * hashing algorithm, part sizes must be aligned on 2^n MB boundaries (ex:
      * 1MB, 2MB, 4MB, 8MB, etc). All parts must be the same size, except for the
-     * last part.
+     * last part. Parts are kept small enough to be buffered in memory, unless
+     * the archive would then need more parts than Glacier allows.
      *
      * @param fileSize
      *            The size of the file being uploaded.
@@ -667,16 +744,19 @@ public class ArchiveTransferManager {
     private long calculatePartSize(long fileSize) {
         long partSize = MINIMUM_PART_SIZE;
         int approxNumParts = 1;
-        while (partSize * approxNumParts < fileSize && partSize*2 <= MAXIMUM_UPLOAD_PART_SIZE) {
+        while (partSize * approxNumParts < fileSize && partSize*2 <= MAXIMUM_BUFFERED_PART_SIZE) {
             partSize *= 2;
             approxNumParts *= 2;
         }
+        while (partSize * MAXIMUM_UPLOAD_PARTS < fileSize && partSize*2 <= MAXIMUM_UPLOAD_PART_SIZE) {
+            partSize *= 2;
+        }
         return partSize;
     }
 
     private UploadResult uploadInMultipleParts(final String accountId,
             final String vaultName, final String archiveDescription,
-            final File file, ProgressListener progressListener) {
+            final File file, final ProgressListener progressListener) {
         final long partSize = calculatePartSize(file.length());
         String partSizeString = Long.toString(partSize);
 
@@ -694,56 +774,28 @@ public class ArchiveTransferManager {
             throw failure(t);
         }
         publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
-        final String fileNotFoundMsg = "Unable to find file '"
-                + file.getAbsolutePath() + "'";
+        ExecutorService threadPool = newTransferThreadPool();
         try {
-            List<byte[]> binaryChecksums = new LinkedList<byte[]>();
-
+            List<Future<byte[]>> parts = new ArrayList<Future<byte[]>>();
+            final String finalUploadId = uploadId;
             long currentPosition = 0;
             while (currentPosition < file.length()) {
-                long length = partSize;
-                if (currentPosition + partSize > file.length()) {
-                    length = file.length() - currentPosition;
-                }
-
-                Exception failedException = null;
-                boolean completed = false;
-                int tries = 0;
-                    while (!completed && tries < 5){
-                        tries++;
-                        InputSubstream inputSubStream = null;
-                        try {
-                            inputSubStream = new InputSubstream(
-                                    newResettableInputStream(file, fileNotFoundMsg)
-                                        .disableClose(), // requires explicit release
-                                    currentPosition, length, true);
-                            String checksum = TreeHashGenerator.calculateTreeHash(inputSubStream);
-                            byte[] binaryChecksum = BinaryUtils.fromHex(checksum);
-                            inputSubStream.reset();
-                            UploadMultipartPartRequest req = new UploadMultipartPartRequest()
-                                .withAccountId(accountId)
-                                .withChecksum(checksum)
-                                .withBody(inputSubStream)
-                                .withRange("bytes " + currentPosition + "-" + (currentPosition + length - 1) + "/*")
-                                .withUploadId(uploadId)
-                                .withVaultName(vaultName)
-                                .withGeneralProgressListener(progressListener)
-                                ;
-                            
-                            glacier.uploadMultipartPart(req);
-                            completed = true;
-                            binaryChecksums.add(binaryChecksum);
-                        } catch (Exception e){
-                            failedException = e;
-                        } finally {
-                            // We opened the file underneath; so need to release it
-                            release(inputSubStream, log);
-                        }
-                    } // end inner while
-                if (!completed && failedException!=null)
-                    throw failedException;
+                final long partStart = currentPosition;
+                final long length = Math.min(partSize, file.length() - currentPosition);
+                parts.add(threadPool.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        return uploadOnePart(accountId, vaultName, finalUploadId,
+                                file, partStart, length, progressListener);
+                    }
+                }));
                 currentPosition += partSize;
-            } // end outer while
+            }
+
+            // The part checksums, in order, make up the archive's tree hash
+            List<byte[]> binaryChecksums = new ArrayList<byte[]>(parts.size());
+            for (Future<byte[]> part : parts) {
+                binaryChecksums.add(waitForTransfer(part));
+            }
 
             String checksum = TreeHashGenerator.calculateTreeHash(binaryChecksums);
 
@@ -760,12 +812,140 @@ public class ArchiveTransferManager {
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
             return new UploadResult(artifactId);
         } catch (Throwable t) {
+            // Stop the parts still being uploaded before aborting the upload
+            threadPool.shutdownNow();
             publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
             glacier.abortMultipartUpload(new AbortMultipartUploadRequest(accountId, vaultName, uploadId));
             throw failure(t, "Unable to finish the upload");
+        } finally {
+            threadPool.shutdownNow();
         }
     }
 
+    /**
+     * Uploads one part of a multipart upload, trying up to five times.
+     * <p>
+     * A part that is small enough is read into memory once, computing the
+     * checksum of each megabyte as it is read, and every try is then made from
+     * memory. A larger part is read from the file by every try, once to
+     * compute its tree hash and once to upload it.
+     *
+     * @return the binary tree hash of the part
+     */
+    private byte[] uploadOnePart(String accountId, String vaultName,
+            String uploadId, File file, long position, long length,
+            ProgressListener progressListener) throws Exception {
+        final String fileNotFoundMsg = "Unable to find file '"
+                + file.getAbsolutePath() + "'";
+        byte[] data = null;
+        String checksum = null;
+        if (length <= MAXIMUM_BUFFERED_PART_SIZE) {
+            data = new byte[(int) length];
+            InputSubstream inputSubStream = new InputSubstream(
+                    newResettableInputStream(file, fileNotFoundMsg)
+                        .disableClose(), // requires explicit release
+                    position, length, true);
+            try {
+                TreeHashInputStream treeHashInputStream = new TreeHashInputStream(inputSubStream);
+                readFully(treeHashInputStream, data);
+                // closing is currently required to compute the checksum
+                treeHashInputStream.close();
+                checksum = treeHashInputStream.getTreeHash();
+            } finally {
+                // We opened the file underneath; so need to release it
+                release(inputSubStream, log);
+            }
+        }
+
+        Exception failedException = null;
+        for (int tries = 0; tries < 5; tries++) {
+            InputSubstream inputSubStream = null;
+            try {
+                InputStream body;
+                if (data != null) {
+                    body = new ByteArrayInputStream(data);
+                } else {
+                    inputSubStream = new InputSubstream(
+                            newResettableInputStream(file, fileNotFoundMsg)
+                                .disableClose(), // requires explicit release
+                            position, length, true);
+                    checksum = TreeHashGenerator.calculateTreeHash(inputSubStream);
+                    inputSubStream.reset();
+                    body = inputSubStream;
+                }
+                UploadMultipartPartRequest req = new UploadMultipartPartRequest()
+                    .withAccountId(accountId)
+                    .withChecksum(checksum)
+                    .withBody(body)
+                    .withRange("bytes " + position + "-" + (position + length - 1) + "/*")
+                    .withUploadId(uploadId)
+                    .withVaultName(vaultName)
+                    .withGeneralProgressListener(progressListener)
+                    ;
+
+                glacier.uploadMultipartPart(req);
+                return BinaryUtils.fromHex(checksum);
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // the upload is being aborted
+                    throw e;
+                }
+                failedException = e;
+            } finally {
+                // We opened the file underneath; so need to release it
+                release(inputSubStream, log);
+            }
+        }
+        throw failedException;
+    }
+
+    private static void readFully(InputStream input, byte[] data) throws IOException {
+        int offset = 0;
+        while (offset < data.length) {
+            int bytesRead = input.read(data, offset, data.length - offset);
+            if (bytesRead < 0) {
+                throw new EOFException("Reached the end of the file after " + offset
+                        + " of " + data.length + " bytes of the part");
+            }
+            offset += bytesRead;
+        }
+    }
+
+    /**
+     * Returns the result of a part or chunk transfer, or throws the exception
+     * that made it fail.
+     */
+    private static <T> T waitForTransfer(Future<T> transfer) throws Exception {
+        try {
+            return transfer.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    /**
+     * Returns a new thread pool for the parts or chunks of one transfer. The
+     * threads are daemon threads, so a transfer that is abandoned does not keep
+     * the JVM alive.
+     */
+    private ExecutorService newTransferThreadPool() {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger(1);
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName("glacier-transfer-manager-worker-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        return Executors.newFixedThreadPool(transferConcurrency, threadFactory);
+    }
+
     private UploadResult uploadInSinglePart(final String accountId,
             final String vaultName, final String archiveDescription,
             final File file, ProgressListener progressListener) {
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.kinesis.AmazonKinesis;
+import com.amazonaws.services.kinesis.model.DescribeStreamRequest;
+import com.amazonaws.services.kinesis.model.ExpiredIteratorException;
+import com.amazonaws.services.kinesis.model.GetRecordsRequest;
+import com.amazonaws.services.kinesis.model.GetRecordsResult;
+import com.amazonaws.services.kinesis.model.GetShardIteratorRequest;
+import com.amazonaws.services.kinesis.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.kinesis.model.Record;
+import com.amazonaws.services.kinesis.model.Shard;
+import com.amazonaws.services.kinesis.model.ShardIteratorType;
+import com.amazonaws.services.kinesis.model.StreamDescription;
+import com.amazonaws.util.VersionInfoUtils;
+
+/**
+ * AmazonKinesisBufferedConsumer reads all the shards of a stream in parallel and delivers their
+ * records through a bounded queue. <br>
+ * Each shard is polled by a task on a shared pool of threads, which manages the shard iterator,
+ * and fetches the next batch of records as soon as it has queued the current one, so that the
+ * next batch is usually ready by the time the current batch has been processed. Once the queue is
+ * full, polling stops until batches are taken. The batches of a shard are queued in order. <br>
+ * A shard that is throttled is polled less often: the delay between two requests on the shard
+ * doubles every time a request is throttled, up to a configurable limit, and halves every time a
+ * request succeeds. <br>
+ * When a shard is closed by resharding, its child shards are read once the parent has been read
+ * to the end, so records with the same partition key are delivered in order. <br>
+ * The position of each shard can be stored in a {@link ShardCheckpointer}, which is asked where
+ * to start reading a shard, and is told by {@link ShardRecords#checkpoint()} how far a shard has
+ * been processed. <br>
+ * AmazonKinesisBufferedConsumer is thread-safe. When several threads take batches, the batches of
+ * a shard may be processed out of order.
+ */
+public class AmazonKinesisBufferedConsumer {
+    private static final Log log = LogFactory.getLog(AmazonKinesisBufferedConsumer.class);
+
+    public static final String USER_AGENT = AmazonKinesisBufferedConsumer.class.getSimpleName() + "/"
+            + VersionInfoUtils.getVersion();
+
+    /** How long a shard waits before trying again to queue a batch into a full queue. */
+    private static final long QUEUE_FULL_RETRY_MS = 50;
+
+    private final AmazonKinesis kinesis;
+    private final String streamName;
+    private final KinesisConsumerConfig config;
+    private final ShardCheckpointer checkpointer;
+
+    private final BlockingQueue<ShardRecords> queue;
+    private final ScheduledExecutorService executor;
+
+    /** Shards being read. Synchronized by {@code this}. */
+    private final Map<String, ShardPoller> pollers = new HashMap<String, ShardPoller>();
+
+    /** Shards read to the end, or skipped. Synchronized by {@code this}. */
+    private final Set<String> finishedShards = new HashSet<String>();
+
+    /** Whether the shards of the stream have been listed. Synchronized by {@code this}. */
+    private boolean started;
+
+    private volatile boolean shutdown;
+
+    public AmazonKinesisBufferedConsumer(AmazonKinesis kinesis, String streamName) {
+        this(kinesis, streamName, new KinesisConsumerConfig(), null);
+    }
+
+    /**
+     * @param checkpointer
+     *            stores the positions of the shards; may be null
+     */
+    public AmazonKinesisBufferedConsumer(AmazonKinesis kinesis, String streamName, KinesisConsumerConfig config,
+            ShardCheckpointer checkpointer) {
+        config.validate();
+        this.kinesis = kinesis;
+        this.streamName = streamName;
+        this.config = new KinesisConsumerConfig(config);
+        this.checkpointer = checkpointer;
+        this.queue = new ArrayBlockingQueue<ShardRecords>(config.getMaxBufferedBatches());
+        this.executor = new ScheduledThreadPoolExecutor(config.getMaxShardThreads(), new DaemonThreadFactory());
+    }
+
+    /**
+     * Lists the shards of the stream and starts reading them.
+     *
+     * @throws AmazonClientException
+     *             if the shards could not be listed
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        startEligibleShards();
+        started = true;
+    }
+
+    /**
+     * Takes the next batch of records, waiting if none has been fetched yet.
+     */
+    public ShardRecords take() throws InterruptedException {
+        return queue.take();
+    }
+
+    /**
+     * Takes the next batch of records, waiting up to the specified time if none has been fetched
+     * yet.
+     *
+     * @return the batch, or null if none was fetched in time
+     */
+    public ShardRecords poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Stops reading the shards. The batches already fetched can still be taken.
+     */
+    public void shutdown() {
+        shutdown = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts reading the shards that are not being read, have not been read to the end, and
+     * whose parents, if any, have been read to the end.
+     */
+    private synchronized void startEligibleShards() {
+        List<Shard> shards = describeShards();
+        Set<String> listed = new HashSet<String>();
+        for (Shard shard : shards) {
+            listed.add(shard.getShardId());
+        }
+
+        // when starting at the tip of the stream, the closed shards have nothing to offer
+        Set<String> skipped = new HashSet<String>();
+        if (!started && config.getInitialPosition() == ShardIteratorType.LATEST) {
+            for (Shard shard : shards) {
+                boolean closed = shard.getSequenceNumberRange() != null
+                        && shard.getSequenceNumberRange().getEndingSequenceNumber() != null;
+                if (closed && (checkpointer == null || checkpointer.getCheckpoint(shard.getShardId()) == null)) {
+                    skipped.add(shard.getShardId());
+                    finishedShards.add(shard.getShardId());
+                }
+            }
+        }
+
+        for (Shard shard : shards) {
+            String shardId = shard.getShardId();
+            if (pollers.containsKey(shardId) || finishedShards.contains(shardId)) {
+                continue;
+            }
+            if (!isFinishedOrUnlisted(shard.getParentShardId(), listed)
+                    || !isFinishedOrUnlisted(shard.getAdjacentParentShardId(), listed)) {
+                continue;
+            }
+
+            String checkpoint = checkpointer == null ? null : checkpointer.getCheckpoint(shardId);
+            ShardIteratorType initialPosition = config.getInitialPosition();
+            if (started || isReadParent(shard.getParentShardId(), listed, skipped)
+                    || isReadParent(shard.getAdjacentParentShardId(), listed, skipped)) {
+                // created by resharding after we started, or read after its parents;
+                // either way, none of it has been read yet
+                initialPosition = ShardIteratorType.TRIM_HORIZON;
+            }
+
+            ShardPoller poller = new ShardPoller(shardId, checkpoint, initialPosition);
+            pollers.put(shardId, poller);
+            if (log.isDebugEnabled()) {
+                log.debug("Stream " + streamName + ": reading shard " + shardId + " from "
+                        + (checkpoint != null ? "after " + checkpoint : initialPosition.toString()));
+            }
+            executor.execute(poller);
+        }
+    }
+
+    private boolean isFinishedOrUnlisted(String shardId, Set<String> listed) {
+        return shardId == null || !listed.contains(shardId) || finishedShards.contains(shardId);
+    }
+
+    private static boolean isReadParent(String shardId, Set<String> listed, Set<String> skipped) {
+        return shardId != null && listed.contains(shardId) && !skipped.contains(shardId);
+    }
+
+    private List<Shard> describeShards() {
+        List<Shard> shards = new ArrayList<Shard>();
+        String exclusiveStartShardId = null;
+        while (true) {
+            DescribeStreamRequest request = new DescribeStreamRequest()
+                    .withStreamName(streamName)
+                    .withExclusiveStartShardId(exclusiveStartShardId);
+            request.getRequestClientOptions().appendUserAgent(USER_AGENT);
+            StreamDescription description = kinesis.describeStream(request).getStreamDescription();
+            shards.addAll(description.getShards());
+            if (!Boolean.TRUE.equals(description.getHasMoreShards()) || description.getShards().isEmpty()) {
+                return shards;
+            }
+            exclusiveStartShardId = shards.get(shards.size() - 1).getShardId();
+        }
+    }
+
+    /**
+     * Called when a shard has been read to the end, to start reading the shards that were
+     * waiting for it.
+     */
+    private synchronized void onShardFinished(String shardId) {
+        pollers.remove(shardId);
+        finishedShards.add(shardId);
+        if (!shutdown) {
+            startEligibleShards();
+        }
+    }
+
+    /**
+     * Polls one shard. Each run makes at most one request, and schedules the next run.
+     */
+    private class ShardPoller implements Runnable {
+        private final String shardId;
+        private final ShardIteratorType initialPosition;
+
+        /** the sequence number of the last record read, to get a new iterator after one expires */
+        private String lastSequenceNumber;
+        private String shardIterator;
+
+        /** a batch that could not be queued because the queue was full */
+        private ShardRecords pending;
+
+        /** whether the shard has been read to the end */
+        private boolean ended;
+
+        /** the extra delay after the shard was throttled */
+        private long throttleDelayMs;
+
+        ShardPoller(String shardId, String checkpoint, ShardIteratorType initialPosition) {
+            this.shardId = shardId;
+            this.lastSequenceNumber = checkpoint;
+            this.initialPosition = initialPosition;
+        }
+
+        @Override
+        public void run() {
+            if (shutdown) {
+                return;
+            }
+            long delayMs;
+            try {
+                if (pending != null) {
+                    if (!queue.offer(pending)) {
+                        schedule(QUEUE_FULL_RETRY_MS);
+                        return;
+                    }
+                    pending = null;
+                }
+                if (ended) {
+                    onShardFinished(shardId);
+                    return;
+                }
+                delayMs = getRecords();
+            } catch (ProvisionedThroughputExceededException e) {
+                throttleDelayMs = Math.min(Math.max(2 * throttleDelayMs, config.getPollIntervalMs()),
+                        config.getMaxThrottleDelayMs());
+                if (log.isDebugEnabled()) {
+                    log.debug("Stream " + streamName + ": shard " + shardId + " throttled, delaying by "
+                            + throttleDelayMs + " ms");
+                }
+                delayMs = config.getPollIntervalMs();
+            } catch (ExpiredIteratorException e) {
+                shardIterator = null;
+                delayMs = 0;
+            } catch (RuntimeException e) {
+                // not only client errors: the executor would silently drop a poller that throws,
+                // and the shard would stop being read. Starting the shards that were waiting for
+                // a finished one is tried again by the next run.
+                log.warn("Stream " + streamName + ": unable to read shard " + shardId, e);
+                delayMs = config.getIdlePollIntervalMs();
+            }
+            schedule(delayMs + throttleDelayMs);
+        }
+
+        /**
+         * Fetches the next batch and queues it, or keeps it as pending if the queue is full.
+         *
+         * @return how long to wait before the next request
+         */
+        private long getRecords() {
+            if (shardIterator == null) {
+                shardIterator = getShardIterator();
+            }
+
+            GetRecordsRequest request = new GetRecordsRequest()
+                    .withShardIterator(shardIterator)
+                    .withLimit(config.getMaxRecordsPerGet());
+            request.getRequestClientOptions().appendUserAgent(USER_AGENT);
+            GetRecordsResult result = kinesis.getRecords(request);
+            throttleDelayMs /= 2;
+
+            shardIterator = result.getNextShardIterator();
+            ended = shardIterator == null;
+
+            List<Record> records = result.getRecords();
+            if (records.isEmpty()) {
+                return ended ? 0 : config.getIdlePollIntervalMs();
+            }
+            ShardRecords batch = new ShardRecords(shardId, records, result.getMillisBehindLatest(), checkpointer);
+            lastSequenceNumber = batch.getLastSequenceNumber();
+            if (!queue.offer(batch)) {
+                pending = batch;
+                return QUEUE_FULL_RETRY_MS;
+            }
+            return ended ? 0 : config.getPollIntervalMs();
+        }
+
+        private String getShardIterator() {
+            GetShardIteratorRequest request = new GetShardIteratorRequest()
+                    .withStreamName(streamName)
+                    .withShardId(shardId);
+            if (lastSequenceNumber != null) {
+                request.setShardIteratorType(ShardIteratorType.AFTER_SEQUENCE_NUMBER);
+                request.setStartingSequenceNumber(lastSequenceNumber);
+            } else {
+                request.setShardIteratorType(initialPosition);
+            }
+            request.getRequestClientOptions().appendUserAgent(USER_AGENT);
+            return kinesis.getShardIterator(request).getShardIterator();
+        }
+
+        private void schedule(long delayMs) {
+            try {
+                executor.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shut down
+            }
+        }
+    }
+
+    /**
+     * The DaemonThreadFactory creates daemon threads, which means they won't block the JVM from
+     * exiting if only they are still around.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        static AtomicInteger threadCount = new AtomicInteger(0);
+
+        public Thread newThread(Runnable r) {
+            int threadNumber = threadCount.addAndGet(1);
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("KinesisConsumerWorkerThread-" + threadNumber);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.kinesis.AmazonKinesis;
+import com.amazonaws.services.kinesis.model.PutRecordRequest;
+import com.amazonaws.services.kinesis.model.PutRecordResult;
+import com.amazonaws.util.StringUtils;
+import com.amazonaws.util.VersionInfoUtils;
+
+/**
+ * AmazonKinesisBufferedProducer batches the records put to Kinesis streams into PutRecords
+ * requests. <br>
+ * Rather than being sent right away, a record is added to an open batch for its stream. The batch
+ * is sent when it reaches the record count or size limit of a PutRecords request, or when it has
+ * been open for a configurable linger time (default=100ms), whichever comes first. The records that
+ * the service reports as failed in the PutRecords result, for instance because their shard was
+ * throttled, are sent again on their own with exponential back-off. Each record is given its own
+ * future, which completes with the shard and sequence number of the record, or fails once the
+ * record runs out of retries. <br>
+ * The number of records that have been put but not completed is bounded; once the bound is
+ * reached, putting a record blocks until earlier records complete, which keeps a producer that is
+ * faster than its streams from exhausting memory. <br>
+ * Records retried after a partial failure can be written after records put later, so the producer
+ * does not preserve the order of records within a shard. Sequence numbers for ordering are not
+ * supported by PutRecords, and records that specify one are rejected. <br>
+ * AmazonKinesisBufferedProducer is thread-safe.
+ */
+public class AmazonKinesisBufferedProducer {
+
+    public static final String USER_AGENT = AmazonKinesisBufferedProducer.class.getSimpleName() + "/"
+            + VersionInfoUtils.getVersion();
+
+    private final AmazonKinesis kinesis;
+    private final KinesisProducerConfig config;
+    private final ConcurrentMap<String, StreamBuffer> buffers = new ConcurrentHashMap<String, StreamBuffer>();
+
+    /** Runs the batches and the async handlers. */
+    private final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory());
+
+    /**
+     * This scheduler closes the batches of all producers once their linger time expires, and
+     * hands the records to retry back to the executors once their back-off elapses, so that no
+     * thread waits for a batch to fill or for a retry.
+     */
+    static final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+
+    /** Permits for the records that have been put but not completed. */
+    private final Semaphore bufferedRecords;
+
+    /** Releases a permit of {@code bufferedRecords} when a record completes. */
+    private final Runnable releaseBufferedRecord = new Runnable() {
+        public void run() {
+            bufferedRecords.release();
+        }
+    };
+
+    private volatile boolean shutdown;
+
+    public AmazonKinesisBufferedProducer(AmazonKinesis kinesis) {
+        this(kinesis, new KinesisProducerConfig());
+    }
+
+    public AmazonKinesisBufferedProducer(AmazonKinesis kinesis, KinesisProducerConfig config) {
+        config.validate();
+        this.kinesis = kinesis;
+        // copy, so later changes to the caller's config can not break the buffers
+        this.config = new KinesisProducerConfig(config);
+        this.bufferedRecords = new Semaphore(config.getMaxBufferedRecords());
+    }
+
+    /**
+     * Puts a record into the specified stream.
+     *
+     * @see #putRecord(PutRecordRequest, AsyncHandler)
+     */
+    public Future<PutRecordResult> putRecord(String streamName, ByteBuffer data, String partitionKey) {
+        return putRecord(new PutRecordRequest()
+                .withStreamName(streamName)
+                .withData(data)
+                .withPartitionKey(partitionKey), null);
+    }
+
+    /**
+     * Puts a record into a stream.
+     *
+     * @see #putRecord(PutRecordRequest, AsyncHandler)
+     */
+    public Future<PutRecordResult> putRecord(PutRecordRequest putRecordRequest) {
+        return putRecord(putRecordRequest, null);
+    }
+
+    /**
+     * Adds a record to the batch of its stream, blocking while the maximum number of records is
+     * buffered. The data of the record must not be modified until the returned future is done.
+     *
+     * @param putRecordRequest
+     *            the record to put; the sequence number for ordering must not be set
+     * @param asyncHandler
+     *            called when the record has been put or has failed; may be null
+     * @return a future that completes with the shard and sequence number of the record; never null
+     * @throws IllegalArgumentException
+     *             if the record is larger than a single record may be, or specifies a sequence
+     *             number for ordering
+     * @throws AmazonClientException
+     *             if the producer has been shut down, or the calling thread was interrupted while
+     *             waiting for buffer space
+     */
+    public Future<PutRecordResult> putRecord(PutRecordRequest putRecordRequest,
+            AsyncHandler<PutRecordRequest, PutRecordResult> asyncHandler) {
+        if (putRecordRequest.getSequenceNumberForOrdering() != null) {
+            throw new IllegalArgumentException("SequenceNumberForOrdering is not supported by PutRecords");
+        }
+        long sizeBytes = putRecordRequest.getData().remaining()
+                + putRecordRequest.getPartitionKey().getBytes(StringUtils.UTF8).length;
+        if (sizeBytes > KinesisProducerConfig.SERVICE_MAX_RECORD_SIZE_BYTES) {
+            throw new IllegalArgumentException("The data and partition key of a record may not exceed "
+                    + KinesisProducerConfig.SERVICE_MAX_RECORD_SIZE_BYTES + " bytes, was " + sizeBytes);
+        }
+        if (shutdown) {
+            throw new AmazonClientException("The producer has been shut down");
+        }
+
+        try {
+            bufferedRecords.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            AmazonClientException toThrow = new AmazonClientException("Interrupted while waiting for buffer space.");
+            toThrow.initCause(e);
+            throw toThrow;
+        }
+
+        PutRecordFuture future = new PutRecordFuture(putRecordRequest, asyncHandler, executor,
+                releaseBufferedRecord);
+        try {
+            getBuffer(putRecordRequest.getStreamName()).putRecord(future, sizeBytes);
+        } catch (RuntimeException e) {
+            bufferedRecords.release();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * Sends the open batches without waiting for their linger time to expire, and returns when
+     * all the records put before the call are completed.
+     */
+    public void flush() {
+        for (StreamBuffer buffer : buffers.values()) {
+            buffer.flush();
+        }
+    }
+
+    /**
+     * Flushes the producer and stops its threads. Records can not be put once the producer has
+     * been shut down. The wrapped client is not shut down.
+     */
+    public void shutdown() {
+        shutdown = true;
+        flush();
+        executor.shutdown();
+    }
+
+    private StreamBuffer getBuffer(String streamName) {
+        StreamBuffer buffer = buffers.get(streamName);
+        if (buffer == null) {
+            StreamBuffer newBuffer = new StreamBuffer(kinesis, executor, scheduler, config, streamName);
+            buffer = buffers.putIfAbsent(streamName, newBuffer);
+            if (buffer == null) {
+                buffer = newBuffer;
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * The DaemonThreadFactory creates daemon threads, which means they won't block the JVM from
+     * exiting if only they are still around.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        static AtomicInteger threadCount = new AtomicInteger(0);
+
+        public Thread newThread(Runnable r) {
+            int threadNumber = threadCount.addAndGet(1);
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("KinesisProducerWorkerThread-" + threadNumber);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.kinesis.model.ShardIteratorType;
+
+/**
+ * Configuration of an {@link AmazonKinesisBufferedConsumer}.
+ */
+public class KinesisConsumerConfig {
+
+    /** The maximum number of records the service returns from one GetRecords request. */
+    public static final int SERVICE_MAX_RECORDS_PER_GET = 10000;
+
+    /**
+     * Where to start reading a shard that has no checkpoint. Only {@code TRIM_HORIZON} and
+     * {@code LATEST} are allowed. Shards created by resharding after the consumer started are
+     * always read from their start, so that no record is skipped.
+     */
+    private ShardIteratorType initialPosition;
+
+    /** LATEST */
+    public static final ShardIteratorType INITIAL_POSITION_DEFAULT = ShardIteratorType.LATEST;
+
+    /** The maximum number of records requested from a shard by one GetRecords request. */
+    private int maxRecordsPerGet;
+
+    /** 10000 records */
+    public static final int MAX_RECORDS_PER_GET_DEFAULT = SERVICE_MAX_RECORDS_PER_GET;
+
+    /**
+     * The time (milliseconds) between two GetRecords requests on a shard that returned records.
+     * A shard supports up to five GetRecords requests per second.
+     */
+    private long pollIntervalMs;
+
+    /** 200 milliseconds */
+    public static final long POLL_INTERVAL_MS_DEFAULT = 200;
+
+    /** The time (milliseconds) between two GetRecords requests on a shard that returned none. */
+    private long idlePollIntervalMs;
+
+    /** 1 second */
+    public static final long IDLE_POLL_INTERVAL_MS_DEFAULT = 1000;
+
+    /**
+     * The longest time (milliseconds) polling a shard is delayed by after the shard was throttled.
+     * The delay doubles each time a GetRecords request on the shard is throttled and halves each
+     * time one succeeds.
+     */
+    private long maxThrottleDelayMs;
+
+    /** 10 seconds */
+    public static final long MAX_THROTTLE_DELAY_MS_DEFAULT = 10000;
+
+    /**
+     * The maximum number of fetched batches of records waiting to be taken from the consumer.
+     * Once this many are waiting, the shards are not polled until batches are taken.
+     */
+    private int maxBufferedBatches;
+
+    /** 20 batches */
+    public static final int MAX_BUFFERED_BATCHES_DEFAULT = 20;
+
+    /** The number of threads polling the shards. */
+    private int maxShardThreads;
+
+    /** 10 threads */
+    public static final int MAX_SHARD_THREADS_DEFAULT = 10;
+
+    public KinesisConsumerConfig(ShardIteratorType initialPosition, int maxRecordsPerGet, long pollIntervalMs,
+            long idlePollIntervalMs, long maxThrottleDelayMs, int maxBufferedBatches, int maxShardThreads) {
+        this.initialPosition = initialPosition;
+        this.maxRecordsPerGet = maxRecordsPerGet;
+        this.pollIntervalMs = pollIntervalMs;
+        this.idlePollIntervalMs = idlePollIntervalMs;
+        this.maxThrottleDelayMs = maxThrottleDelayMs;
+        this.maxBufferedBatches = maxBufferedBatches;
+        this.maxShardThreads = maxShardThreads;
+    }
+
+    public KinesisConsumerConfig() {
+        this(INITIAL_POSITION_DEFAULT, MAX_RECORDS_PER_GET_DEFAULT, POLL_INTERVAL_MS_DEFAULT,
+                IDLE_POLL_INTERVAL_MS_DEFAULT, MAX_THROTTLE_DELAY_MS_DEFAULT, MAX_BUFFERED_BATCHES_DEFAULT,
+                MAX_SHARD_THREADS_DEFAULT);
+    }
+
+    /** copy constructor */
+    public KinesisConsumerConfig(KinesisConsumerConfig other) {
+        initialPosition = other.initialPosition;
+        maxRecordsPerGet = other.maxRecordsPerGet;
+        pollIntervalMs = other.pollIntervalMs;
+        idlePollIntervalMs = other.idlePollIntervalMs;
+        maxThrottleDelayMs = other.maxThrottleDelayMs;
+        maxBufferedBatches = other.maxBufferedBatches;
+        maxShardThreads = other.maxShardThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "KinesisConsumerConfig [initialPosition=" + initialPosition + ", maxRecordsPerGet="
+                + maxRecordsPerGet + ", pollIntervalMs=" + pollIntervalMs + ", idlePollIntervalMs="
+                + idlePollIntervalMs + ", maxThrottleDelayMs=" + maxThrottleDelayMs + ", maxBufferedBatches="
+                + maxBufferedBatches + ", maxShardThreads=" + maxShardThreads + "]";
+    }
+
+    /**
+     * Where to start reading a shard that has no checkpoint. Only {@code TRIM_HORIZON} and
+     * {@code LATEST} are allowed. Shards created by resharding after the consumer started are
+     * always read from their start, so that no record is skipped.
+     */
+    public ShardIteratorType getInitialPosition() {
+        return initialPosition;
+    }
+
+    /**
+     * Where to start reading a shard that has no checkpoint. Only {@code TRIM_HORIZON} and
+     * {@code LATEST} are allowed. Shards created by resharding after the consumer started are
+     * always read from their start, so that no record is skipped.
+     */
+    public void setInitialPosition(ShardIteratorType initialPosition) {
+        this.initialPosition = initialPosition;
+    }
+
+    /**
+     * Where to start reading a shard that has no checkpoint. Only {@code TRIM_HORIZON} and
+     * {@code LATEST} are allowed. Shards created by resharding after the consumer started are
+     * always read from their start, so that no record is skipped.
+     */
+    public KinesisConsumerConfig withInitialPosition(ShardIteratorType initialPosition) {
+        setInitialPosition(initialPosition);
+        return this;
+    }
+
+    /**
+     * The maximum number of records requested from a shard by one GetRecords request. Can not
+     * exceed {@value #SERVICE_MAX_RECORDS_PER_GET}.
+     */
+    public int getMaxRecordsPerGet() {
+        return maxRecordsPerGet;
+    }
+
+    /**
+     * The maximum number of records requested from a shard by one GetRecords request. Can not
+     * exceed {@value #SERVICE_MAX_RECORDS_PER_GET}.
+     */
+    public void setMaxRecordsPerGet(int maxRecordsPerGet) {
+        this.maxRecordsPerGet = maxRecordsPerGet;
+    }
+
+    /**
+     * The maximum number of records requested from a shard by one GetRecords request. Can not
+     * exceed {@value #SERVICE_MAX_RECORDS_PER_GET}.
+     */
+    public KinesisConsumerConfig withMaxRecordsPerGet(int maxRecordsPerGet) {
+        setMaxRecordsPerGet(maxRecordsPerGet);
+        return this;
+    }
+
+    /**
+     * The time (milliseconds) between two GetRecords requests on a shard that returned records.
+     * A shard supports up to five GetRecords requests per second.
+     */
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    /**
+     * The time (milliseconds) between two GetRecords requests on a shard that returned records.
+     * A shard supports up to five GetRecords requests per second.
+     */
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * The time (milliseconds) between two GetRecords requests on a shard that returned records.
+     * A shard supports up to five GetRecords requests per second.
+     */
+    public KinesisConsumerConfig withPollIntervalMs(long pollIntervalMs) {
+        setPollIntervalMs(pollIntervalMs);
+        return this;
+    }
+
+    /**
+     * The time (milliseconds) between two GetRecords requests on a shard that returned none.
+     */
+    public long getIdlePollIntervalMs() {
+        return idlePollIntervalMs;
+    }
+
+    /**
+     * The time (milliseconds) between two GetRecords requests on a shard that returned none.
+     */
+    public void setIdlePollIntervalMs(long idlePollIntervalMs) {
+        this.idlePollIntervalMs = idlePollIntervalMs;
+    }
+
+    /**
+     * The time (milliseconds) between two GetRecords requests on a shard that returned none.
+     */
+    public KinesisConsumerConfig withIdlePollIntervalMs(long idlePollIntervalMs) {
+        setIdlePollIntervalMs(idlePollIntervalMs);
+        return this;
+    }
+
+    /**
+     * The longest time (milliseconds) polling a shard is delayed by after the shard was throttled.
+     * The delay doubles each time a GetRecords request on the shard is throttled and halves each
+     * time one succeeds.
+     */
+    public long getMaxThrottleDelayMs() {
+        return maxThrottleDelayMs;
+    }
+
+    /**
+     * The longest time (milliseconds) polling a shard is delayed by after the shard was throttled.
+     * The delay doubles each time a GetRecords request on the shard is throttled and halves each
+     * time one succeeds.
+     */
+    public void setMaxThrottleDelayMs(long maxThrottleDelayMs) {
+        this.maxThrottleDelayMs = maxThrottleDelayMs;
+    }
+
+    /**
+     * The longest time (milliseconds) polling a shard is delayed by after the shard was throttled.
+     * The delay doubles each time a GetRecords request on the shard is throttled and halves each
+     * time one succeeds.
+     */
+    public KinesisConsumerConfig withMaxThrottleDelayMs(long maxThrottleDelayMs) {
+        setMaxThrottleDelayMs(maxThrottleDelayMs);
+        return this;
+    }
+
+    /**
+     * The maximum number of fetched batches of records waiting to be taken from the consumer.
+     * Once this many are waiting, the shards are not polled until batches are taken.
+     */
+    public int getMaxBufferedBatches() {
+        return maxBufferedBatches;
+    }
+
+    /**
+     * The maximum number of fetched batches of records waiting to be taken from the consumer.
+     * Once this many are waiting, the shards are not polled until batches are taken.
+     */
+    public void setMaxBufferedBatches(int maxBufferedBatches) {
+        this.maxBufferedBatches = maxBufferedBatches;
+    }
+
+    /**
+     * The maximum number of fetched batches of records waiting to be taken from the consumer.
+     * Once this many are waiting, the shards are not polled until batches are taken.
+     */
+    public KinesisConsumerConfig withMaxBufferedBatches(int maxBufferedBatches) {
+        setMaxBufferedBatches(maxBufferedBatches);
+        return this;
+    }
+
+    /**
+     * The number of threads polling the shards.
+     */
+    public int getMaxShardThreads() {
+        return maxShardThreads;
+    }
+
+    /**
+     * The number of threads polling the shards.
+     */
+    public void setMaxShardThreads(int maxShardThreads) {
+        this.maxShardThreads = maxShardThreads;
+    }
+
+    /**
+     * The number of threads polling the shards.
+     */
+    public KinesisConsumerConfig withMaxShardThreads(int maxShardThreads) {
+        setMaxShardThreads(maxShardThreads);
+        return this;
+    }
+
+    /**
+     * this method checks the config for validity. If the config is deemed to be invalid, an
+     * informative exception is thrown.
+     *
+     * @throws AmazonClientException
+     *             with a message explaining why the config was invalid
+     */
+    void validate() {
+        if (initialPosition != ShardIteratorType.LATEST && initialPosition != ShardIteratorType.TRIM_HORIZON) {
+            throw new AmazonClientException("initialPosition must be LATEST or TRIM_HORIZON, was " + initialPosition);
+        }
+        if (maxRecordsPerGet < 1 || maxRecordsPerGet > SERVICE_MAX_RECORDS_PER_GET) {
+            throw new AmazonClientException("maxRecordsPerGet must be between 1 and " + SERVICE_MAX_RECORDS_PER_GET
+                    + ", was " + maxRecordsPerGet);
+        }
+        if (pollIntervalMs < 0 || idlePollIntervalMs < 0 || maxThrottleDelayMs < 0) {
+            throw new AmazonClientException("Polling intervals may not be negative");
+        }
+        if (maxBufferedBatches < 1) {
+            throw new AmazonClientException("maxBufferedBatches must be positive, was " + maxBufferedBatches);
+        }
+        if (maxShardThreads < 1) {
+            throw new AmazonClientException("maxShardThreads must be positive, was " + maxShardThreads);
+        }
+    }
+
+}
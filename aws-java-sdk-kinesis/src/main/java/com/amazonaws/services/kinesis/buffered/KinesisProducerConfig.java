@@ -0,0 +1,297 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Configuration of an {@link AmazonKinesisBufferedProducer}.
+ */
+public class KinesisProducerConfig {
+
+    /** The maximum number of records the service accepts in one PutRecords request. */
+    public static final int SERVICE_MAX_BATCH_RECORDS = 500;
+
+    /** The maximum size the service accepts for one PutRecords request, partition keys included. */
+    public static final long SERVICE_MAX_BATCH_SIZE_BYTES = 5 * 1024 * 1024;
+
+    /** The maximum size of a single record, partition key included. */
+    public static final long SERVICE_MAX_RECORD_SIZE_BYTES = 1024 * 1024;
+
+    /** The maximum number of records in a PutRecords request sent by the producer. */
+    private int maxBatchRecords;
+
+    /** 500 records */
+    public static final int MAX_BATCH_RECORDS_DEFAULT = SERVICE_MAX_BATCH_RECORDS;
+
+    /** The maximum size of a PutRecords request sent by the producer. */
+    private long maxBatchSizeBytes;
+
+    /** 5 MiB */
+    public static final long MAX_BATCH_SIZE_BYTES_DEFAULT = SERVICE_MAX_BATCH_SIZE_BYTES;
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional records. The longer this
+     * time, the fuller the batches and the fewer the calls made, at the expense of the latency of
+     * individual records.
+     */
+    private long maxLingerMs;
+
+    /** 100 milliseconds */
+    public static final long MAX_LINGER_MS_DEFAULT = 100;
+
+    /**
+     * The maximum number of records that have been submitted to the producer but not yet
+     * completed. Once this many records are outstanding, further calls to put a record block until
+     * earlier records complete.
+     */
+    private int maxBufferedRecords;
+
+    /** 10000 records */
+    public static final int MAX_BUFFERED_RECORDS_DEFAULT = 10000;
+
+    /** The maximum number of concurrent PutRecords requests for each stream. */
+    private int maxInflightBatches;
+
+    /** 5 batches */
+    public static final int MAX_INFLIGHT_BATCHES_DEFAULT = 5;
+
+    /**
+     * The number of times a record that the service reports as failed in a PutRecords result is
+     * sent again before its future fails.
+     */
+    private int maxRecordRetries;
+
+    /** 3 retries */
+    public static final int MAX_RECORD_RETRIES_DEFAULT = 3;
+
+    public KinesisProducerConfig(int maxBatchRecords, long maxBatchSizeBytes, long maxLingerMs,
+            int maxBufferedRecords, int maxInflightBatches, int maxRecordRetries) {
+        this.maxBatchRecords = maxBatchRecords;
+        this.maxBatchSizeBytes = maxBatchSizeBytes;
+        this.maxLingerMs = maxLingerMs;
+        this.maxBufferedRecords = maxBufferedRecords;
+        this.maxInflightBatches = maxInflightBatches;
+        this.maxRecordRetries = maxRecordRetries;
+    }
+
+    public KinesisProducerConfig() {
+        this(MAX_BATCH_RECORDS_DEFAULT, MAX_BATCH_SIZE_BYTES_DEFAULT, MAX_LINGER_MS_DEFAULT,
+                MAX_BUFFERED_RECORDS_DEFAULT, MAX_INFLIGHT_BATCHES_DEFAULT, MAX_RECORD_RETRIES_DEFAULT);
+    }
+
+    /** copy constructor */
+    public KinesisProducerConfig(KinesisProducerConfig other) {
+        maxBatchRecords = other.maxBatchRecords;
+        maxBatchSizeBytes = other.maxBatchSizeBytes;
+        maxLingerMs = other.maxLingerMs;
+        maxBufferedRecords = other.maxBufferedRecords;
+        maxInflightBatches = other.maxInflightBatches;
+        maxRecordRetries = other.maxRecordRetries;
+    }
+
+    @Override
+    public String toString() {
+        return "KinesisProducerConfig [maxBatchRecords=" + maxBatchRecords + ", maxBatchSizeBytes="
+                + maxBatchSizeBytes + ", maxLingerMs=" + maxLingerMs + ", maxBufferedRecords="
+                + maxBufferedRecords + ", maxInflightBatches=" + maxInflightBatches + ", maxRecordRetries="
+                + maxRecordRetries + "]";
+    }
+
+    /**
+     * The maximum number of records in a PutRecords request sent by the producer. Can not exceed
+     * {@value #SERVICE_MAX_BATCH_RECORDS}.
+     */
+    public int getMaxBatchRecords() {
+        return maxBatchRecords;
+    }
+
+    /**
+     * The maximum number of records in a PutRecords request sent by the producer. Can not exceed
+     * {@value #SERVICE_MAX_BATCH_RECORDS}.
+     */
+    public void setMaxBatchRecords(int maxBatchRecords) {
+        this.maxBatchRecords = maxBatchRecords;
+    }
+
+    /**
+     * The maximum number of records in a PutRecords request sent by the producer. Can not exceed
+     * {@value #SERVICE_MAX_BATCH_RECORDS}.
+     */
+    public KinesisProducerConfig withMaxBatchRecords(int maxBatchRecords) {
+        setMaxBatchRecords(maxBatchRecords);
+        return this;
+    }
+
+    /**
+     * The maximum size in bytes of the data and partition keys in a PutRecords request sent by the
+     * producer. Can not exceed {@value #SERVICE_MAX_BATCH_SIZE_BYTES}.
+     */
+    public long getMaxBatchSizeBytes() {
+        return maxBatchSizeBytes;
+    }
+
+    /**
+     * The maximum size in bytes of the data and partition keys in a PutRecords request sent by the
+     * producer. Can not exceed {@value #SERVICE_MAX_BATCH_SIZE_BYTES}.
+     */
+    public void setMaxBatchSizeBytes(long maxBatchSizeBytes) {
+        this.maxBatchSizeBytes = maxBatchSizeBytes;
+    }
+
+    /**
+     * The maximum size in bytes of the data and partition keys in a PutRecords request sent by the
+     * producer. Can not exceed {@value #SERVICE_MAX_BATCH_SIZE_BYTES}.
+     */
+    public KinesisProducerConfig withMaxBatchSizeBytes(long maxBatchSizeBytes) {
+        setMaxBatchSizeBytes(maxBatchSizeBytes);
+        return this;
+    }
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional records. The longer this
+     * time, the fuller the batches and the fewer the calls made, at the expense of the latency of
+     * individual records.
+     */
+    public long getMaxLingerMs() {
+        return maxLingerMs;
+    }
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional records. The longer this
+     * time, the fuller the batches and the fewer the calls made, at the expense of the latency of
+     * individual records.
+     */
+    public void setMaxLingerMs(long maxLingerMs) {
+        this.maxLingerMs = maxLingerMs;
+    }
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional records. The longer this
+     * time, the fuller the batches and the fewer the calls made, at the expense of the latency of
+     * individual records.
+     */
+    public KinesisProducerConfig withMaxLingerMs(long maxLingerMs) {
+        setMaxLingerMs(maxLingerMs);
+        return this;
+    }
+
+    /**
+     * The maximum number of records that have been submitted to the producer but not yet
+     * completed. Once this many records are outstanding, further calls to put a record block until
+     * earlier records complete.
+     */
+    public int getMaxBufferedRecords() {
+        return maxBufferedRecords;
+    }
+
+    /**
+     * The maximum number of records that have been submitted to the producer but not yet
+     * completed. Once this many records are outstanding, further calls to put a record block until
+     * earlier records complete.
+     */
+    public void setMaxBufferedRecords(int maxBufferedRecords) {
+        this.maxBufferedRecords = maxBufferedRecords;
+    }
+
+    /**
+     * The maximum number of records that have been submitted to the producer but not yet
+     * completed. Once this many records are outstanding, further calls to put a record block until
+     * earlier records complete.
+     */
+    public KinesisProducerConfig withMaxBufferedRecords(int maxBufferedRecords) {
+        setMaxBufferedRecords(maxBufferedRecords);
+        return this;
+    }
+
+    /**
+     * The maximum number of concurrent PutRecords requests for each stream.
+     */
+    public int getMaxInflightBatches() {
+        return maxInflightBatches;
+    }
+
+    /**
+     * The maximum number of concurrent PutRecords requests for each stream.
+     */
+    public void setMaxInflightBatches(int maxInflightBatches) {
+        this.maxInflightBatches = maxInflightBatches;
+    }
+
+    /**
+     * The maximum number of concurrent PutRecords requests for each stream.
+     */
+    public KinesisProducerConfig withMaxInflightBatches(int maxInflightBatches) {
+        setMaxInflightBatches(maxInflightBatches);
+        return this;
+    }
+
+    /**
+     * The number of times a record that the service reports as failed in a PutRecords result is
+     * sent again before its future fails.
+     */
+    public int getMaxRecordRetries() {
+        return maxRecordRetries;
+    }
+
+    /**
+     * The number of times a record that the service reports as failed in a PutRecords result is
+     * sent again before its future fails.
+     */
+    public void setMaxRecordRetries(int maxRecordRetries) {
+        this.maxRecordRetries = maxRecordRetries;
+    }
+
+    /**
+     * The number of times a record that the service reports as failed in a PutRecords result is
+     * sent again before its future fails.
+     */
+    public KinesisProducerConfig withMaxRecordRetries(int maxRecordRetries) {
+        setMaxRecordRetries(maxRecordRetries);
+        return this;
+    }
+
+    /**
+     * this method checks the config for validity. If the config is deemed to be invalid, an
+     * informative exception is thrown.
+     *
+     * @throws AmazonClientException
+     *             with a message explaining why the config was invalid
+     */
+    void validate() {
+        if (maxBatchRecords < 1 || maxBatchRecords > SERVICE_MAX_BATCH_RECORDS) {
+            throw new AmazonClientException("maxBatchRecords must be between 1 and "
+                    + SERVICE_MAX_BATCH_RECORDS + ", was " + maxBatchRecords);
+        }
+        if (maxBatchSizeBytes < SERVICE_MAX_RECORD_SIZE_BYTES || maxBatchSizeBytes > SERVICE_MAX_BATCH_SIZE_BYTES) {
+            throw new AmazonClientException("maxBatchSizeBytes must be between " + SERVICE_MAX_RECORD_SIZE_BYTES
+                    + " and " + SERVICE_MAX_BATCH_SIZE_BYTES + ", was " + maxBatchSizeBytes);
+        }
+        if (maxLingerMs < 0) {
+            throw new AmazonClientException("maxLingerMs may not be negative, was " + maxLingerMs);
+        }
+        if (maxBufferedRecords < 1) {
+            throw new AmazonClientException("maxBufferedRecords must be positive, was " + maxBufferedRecords);
+        }
+        if (maxInflightBatches < 1) {
+            throw new AmazonClientException("maxInflightBatches must be positive, was " + maxInflightBatches);
+        }
+        if (maxRecordRetries < 0) {
+            throw new AmazonClientException("maxRecordRetries may not be negative, was " + maxRecordRetries);
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.kinesis.model.PutRecordRequest;
+import com.amazonaws.services.kinesis.model.PutRecordResult;
+
+/**
+ * Delivers the result of one record put through an {@link AmazonKinesisBufferedProducer}. The
+ * futures are not cancellable.
+ */
+class PutRecordFuture implements Future<PutRecordResult> {
+    private PutRecordResult result = null;
+    private Exception e = null;
+    private boolean done = false;
+
+    private final PutRecordRequest request;
+
+    /**
+     * handler we should call after the future is done. may be null
+     */
+    private final AsyncHandler<PutRecordRequest, PutRecordResult> handler;
+
+    /** the executor the handler is called on, so it does not hold up the batch */
+    private final Executor handlerExecutor;
+
+    /**
+     * called once when the future is done, before any thread waiting for the result is woken.
+     */
+    private final Runnable onDone;
+
+    PutRecordFuture(PutRecordRequest request, AsyncHandler<PutRecordRequest, PutRecordResult> handler,
+            Executor handlerExecutor, Runnable onDone) {
+        this.request = request;
+        this.handler = handler;
+        this.handlerExecutor = handlerExecutor;
+        this.onDone = onDone;
+    }
+
+    PutRecordRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Report that the record this future represents has been put.
+     */
+    void setSuccess(PutRecordResult paramResult) {
+        synchronized (this) {
+            if (done)
+                return; // can't mark done twice
+            result = paramResult;
+            done = true;
+            notifyAll();
+        }
+        onDone.run();
+
+        if (handler != null) {
+            handlerExecutor.execute(new Runnable() {
+                public void run() {
+                    handler.onSuccess(request, result);
+                }
+            });
+        }
+    }
+
+    /**
+     * Report that the record this future represents could not be put.
+     */
+    void setFailure(Exception paramE) {
+        synchronized (this) {
+            if (done)
+                return; // can't mark done twice
+            e = paramE;
+            done = true;
+            notifyAll();
+        }
+        onDone.run();
+
+        if (handler != null) {
+            handlerExecutor.execute(new Runnable() {
+                public void run() {
+                    handler.onError(e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        // not cancellable
+        return false;
+    }
+
+    @Override
+    public synchronized PutRecordResult get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized PutRecordResult get(long timeout, TimeUnit unit) throws InterruptedException,
+            ExecutionException, TimeoutException {
+        long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            // wait(0) means "wait forever", which is the opposite of what we want.
+            if (remainingMs <= 0) {
+                throw new TimeoutException("Timed out waiting for results after " + timeout + " " + unit);
+            }
+            wait(remainingMs);
+        }
+        return getResult();
+    }
+
+    private PutRecordResult getResult() throws ExecutionException {
+        if (e != null) {
+            throw new ExecutionException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        // not cancellable
+        return false;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+/**
+ * Stores the position an {@link AmazonKinesisBufferedConsumer} has processed each shard up to, so
+ * that a new consumer can resume where an earlier one stopped. Implementations are called from
+ * several threads.
+ */
+public interface ShardCheckpointer {
+
+    /**
+     * Returns the sequence number of the last processed record of the shard, or null if the shard
+     * has not been checkpointed. Called when the consumer starts, and before a shard is first read.
+     */
+    String getCheckpoint(String shardId);
+
+    /**
+     * Records that all the records of the shard up to and including the specified sequence number
+     * have been processed. Called by {@link ShardRecords#checkpoint()}.
+     */
+    void checkpoint(String shardId, String sequenceNumber);
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+import java.util.List;
+
+import com.amazonaws.services.kinesis.model.Record;
+
+/**
+ * The records returned by one GetRecords request on a shard, as delivered by an
+ * {@link AmazonKinesisBufferedConsumer}. Never empty.
+ */
+public class ShardRecords {
+
+    private final String shardId;
+    private final List<Record> records;
+    private final Long millisBehindLatest;
+    private final ShardCheckpointer checkpointer;
+
+    ShardRecords(String shardId, List<Record> records, Long millisBehindLatest, ShardCheckpointer checkpointer) {
+        this.shardId = shardId;
+        this.records = records;
+        this.millisBehindLatest = millisBehindLatest;
+        this.checkpointer = checkpointer;
+    }
+
+    /**
+     * @return the shard the records were read from
+     */
+    public String getShardId() {
+        return shardId;
+    }
+
+    /**
+     * @return the records, in the order of their sequence numbers
+     */
+    public List<Record> getRecords() {
+        return records;
+    }
+
+    /**
+     * @return how far, in milliseconds, these records were behind the tip of the stream when they
+     *         were read; may be null
+     */
+    public Long getMillisBehindLatest() {
+        return millisBehindLatest;
+    }
+
+    /**
+     * @return the sequence number of the last record
+     */
+    public String getLastSequenceNumber() {
+        return records.get(records.size() - 1).getSequenceNumber();
+    }
+
+    /**
+     * Reports to the consumer's {@link ShardCheckpointer}, if it has one, that these records and
+     * all the earlier records of the shard have been processed.
+     */
+    public void checkpoint() {
+        if (checkpointer != null) {
+            checkpointer.checkpoint(shardId, getLastSequenceNumber());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ShardRecords [shardId=" + shardId + ", records=" + records.size() + ", lastSequenceNumber="
+                + getLastSequenceNumber() + ", millisBehindLatest=" + millisBehindLatest + "]";
+    }
+}
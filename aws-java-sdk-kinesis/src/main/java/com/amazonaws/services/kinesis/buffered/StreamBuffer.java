@@ -0,0 +1,336 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesis.buffered;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.services.kinesis.AmazonKinesis;
+import com.amazonaws.services.kinesis.model.PutRecordRequest;
+import com.amazonaws.services.kinesis.model.PutRecordResult;
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
+
+/**
+ * Buffers the records put to one stream. <br>
+ * When a record arrives, the buffer adds it to the open batch (creating one if there currently
+ * isn't one). When the open batch reaches the record count or size limit of a PutRecords request,
+ * or when the linger time expires, the batch is sent as a single PutRecords request. The records
+ * the service reports as failed are sent again, on their own, until they succeed or run out of
+ * retries. <br>
+ * No thread waits for a batch to fill, or for the back-off before a retry: the linger times and
+ * back-offs of the batches of all the streams are run by a single shared scheduler, and a batch
+ * only uses an executor thread while its PutRecords request is being sent. <br>
+ * Instances of this class are thread-safe.
+ */
+class StreamBuffer {
+    private static final Log log = LogFactory.getLog(StreamBuffer.class);
+
+    private final AmazonKinesis kinesis;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final KinesisProducerConfig config;
+    private final String streamName;
+
+    /** Object used to serialize the addition of records. */
+    private final Object lock = new Object();
+
+    /** The batch accepting records. Synchronized by {@code lock}. */
+    private PutRecordsBatchTask openBatch;
+
+    /**
+     * Permits controlling the number of in flight PutRecords batches. Fair, so that a flush is not
+     * starved by the records put after it.
+     */
+    private final Semaphore inflightBatches;
+
+    StreamBuffer(AmazonKinesis kinesis, Executor executor, ScheduledExecutorService scheduler,
+            KinesisProducerConfig config, String streamName) {
+        this.kinesis = kinesis;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.config = config;
+        this.streamName = streamName;
+        this.inflightBatches = new Semaphore(config.getMaxInflightBatches(), true);
+    }
+
+    /**
+     * Adds the record of the future to a batch, blocking while the maximum number of batches is in
+     * flight and the open batch can not take the record.
+     *
+     * @param sizeBytes
+     *            the size of the record's data and partition key
+     */
+    void putRecord(PutRecordFuture future, long sizeBytes) {
+        synchronized (lock) {
+            if (openBatch != null && openBatch.addRecord(future, sizeBytes)) {
+                return;
+            }
+        }
+
+        // wait for a free slot without holding the lock, so that the records which fit in the
+        // open batch are not held up
+        try {
+            inflightBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            AmazonClientException toThrow = new AmazonClientException("Interrupted while waiting for lock.");
+            toThrow.initCause(e);
+            throw toThrow;
+        }
+
+        PutRecordsBatchTask batch = new PutRecordsBatchTask();
+        synchronized (lock) {
+            if (openBatch != null && openBatch.addRecord(future, sizeBytes)) {
+                // another caller opened a batch in the meantime
+                inflightBatches.release();
+                return;
+            }
+            openBatch = batch;
+            if (!batch.addRecord(future, sizeBytes)) {
+                // can only happen for a record too large for any batch,
+                // which the producer rejects before it gets here
+                openBatch = null;
+                inflightBatches.release();
+                throw new AmazonClientException("Failed to schedule record " + future.getRequest()
+                        + " for execution");
+            }
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("Stream " + streamName + " created new batch, "
+                    + inflightBatches.availablePermits() + " free slots remain");
+        }
+        batch.open();
+    }
+
+    /**
+     * Sends the open batch without waiting for its linger time to expire, and returns when all
+     * the batches of this stream, including their retries, are completed.
+     */
+    void flush() {
+        synchronized (lock) {
+            if (openBatch != null) {
+                openBatch.close();
+            }
+        }
+        try {
+            inflightBatches.acquire(config.getMaxInflightBatches());
+            inflightBatches.release(config.getMaxInflightBatches());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Task to send a batch of records to Kinesis.
+     * <p>
+     * The batch task is constructed open and accepts records until full, or until
+     * {@code maxLingerMs} elapses. At that point, the batch closes and is handed to the executor,
+     * which sends the collected records in a single PutRecords request. The records reported as
+     * failed are handed back to the executor, by the scheduler, once the back-off before their
+     * retry elapses. The in flight permit of the batch is released once all its records are
+     * completed.
+     */
+    private class PutRecordsBatchTask implements Runnable {
+
+        private final List<PutRecordFuture> futures = new ArrayList<PutRecordFuture>(
+                config.getMaxBatchRecords());
+
+        private long batchSizeBytes;
+
+        private boolean closed;
+
+        /** The records to send by the next run, and the number of times they were sent. */
+        private List<PutRecordFuture> pending;
+        private int retries;
+
+        /**
+         * Schedules the batch to close once {@code maxLingerMs} elapses.
+         */
+        void open() {
+            scheduler.schedule(new Runnable() {
+                public void run() {
+                    close();
+                }
+            }, config.getMaxLingerMs(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Adds a record to the batch if it is still open and has capacity.
+         *
+         * @return true if the record was added
+         */
+        boolean addRecord(PutRecordFuture future, long sizeBytes) {
+            boolean added;
+            boolean full;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                added = futures.size() < config.getMaxBatchRecords()
+                        && batchSizeBytes + sizeBytes <= config.getMaxBatchSizeBytes();
+                if (added) {
+                    futures.add(future);
+                    batchSizeBytes += sizeBytes;
+                }
+                full = futures.size() >= config.getMaxBatchRecords()
+                        || batchSizeBytes >= config.getMaxBatchSizeBytes();
+            }
+
+            // if the addition did not work, or this addition made us full,
+            // we can close the batch.
+            if (!added || full) {
+                close();
+            }
+            return added;
+        }
+
+        /**
+         * Closes the batch, and hands it to the executor unless it was already closed.
+         */
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending = new ArrayList<PutRecordFuture>(futures);
+            }
+            submit();
+        }
+
+        private void submit() {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                failAll(pending, e);
+                inflightBatches.release();
+                log.warn("Stream " + streamName + ": unable to send a batch of " + pending.size() + " records", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean completed = true;
+            try {
+                completed = process();
+            } catch (AmazonClientException e) {
+                failAll(pending, e);
+            } catch (RuntimeException e) {
+                failAll(pending, e);
+                throw e;
+            } catch (Error e) {
+                failAll(pending, new AmazonClientException("Error encountered", e));
+                throw e;
+            } finally {
+                if (completed) {
+                    inflightBatches.release();
+                }
+            }
+        }
+
+        /**
+         * Sends the pending records, and schedules the records reported as failed to be sent
+         * again after a back-off, unless they ran out of retries.
+         *
+         * @return true if all the records of the batch are completed
+         */
+        private boolean process() {
+            PutRecordsRequest batchRequest = new PutRecordsRequest().withStreamName(streamName);
+            batchRequest.getRequestClientOptions().appendUserAgent(AmazonKinesisBufferedProducer.USER_AGENT);
+
+            List<PutRecordsRequestEntry> entries = new ArrayList<PutRecordsRequestEntry>(pending.size());
+            for (PutRecordFuture future : pending) {
+                PutRecordRequest request = future.getRequest();
+                entries.add(new PutRecordsRequestEntry()
+                        .withData(request.getData())
+                        .withPartitionKey(request.getPartitionKey())
+                        .withExplicitHashKey(request.getExplicitHashKey()));
+            }
+            batchRequest.setRecords(entries);
+
+            PutRecordsResult batchResult = kinesis.putRecords(batchRequest);
+
+            // the result entries are in the order of the request entries
+            List<PutRecordsResultEntry> resultEntries = batchResult.getRecords();
+            List<PutRecordFuture> failed = new ArrayList<PutRecordFuture>();
+            AmazonServiceException lastError = null;
+            for (int i = 0, n = pending.size(); i < n; i++) {
+                PutRecordsResultEntry entry = resultEntries.get(i);
+                if (entry.getErrorCode() == null) {
+                    pending.get(i).setSuccess(new PutRecordResult()
+                            .withShardId(entry.getShardId())
+                            .withSequenceNumber(entry.getSequenceNumber()));
+                } else {
+                    lastError = convert(entry);
+                    if (retries < config.getMaxRecordRetries()) {
+                        failed.add(pending.get(i));
+                    } else {
+                        pending.get(i).setFailure(lastError);
+                    }
+                }
+            }
+
+            if (failed.isEmpty()) {
+                return true;
+            }
+
+            long delay = PredefinedRetryPolicies.DEFAULT_BACKOFF_STRATEGY.delayBeforeNextRetry(
+                    batchRequest, lastError, retries);
+            if (log.isDebugEnabled()) {
+                log.debug("Stream " + streamName + ": " + failed.size() + " of " + pending.size()
+                        + " records failed, last error " + lastError.getErrorCode()
+                        + ", retrying in " + delay + " ms");
+            }
+            pending = failed;
+            retries++;
+            scheduler.schedule(new Runnable() {
+                public void run() {
+                    submit();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            return false;
+        }
+
+        private void failAll(List<PutRecordFuture> futures, Exception e) {
+            for (PutRecordFuture future : futures) {
+                future.setFailure(e);
+            }
+        }
+    }
+
+    private static AmazonServiceException convert(PutRecordsResultEntry entry) {
+        AmazonServiceException toReturn = new AmazonServiceException(entry.getErrorMessage());
+        toReturn.setErrorCode(entry.getErrorCode());
+        toReturn.setErrorType(ErrorType.Service);
+        toReturn.setServiceName("AmazonKinesis");
+        return toReturn;
+    }
+}
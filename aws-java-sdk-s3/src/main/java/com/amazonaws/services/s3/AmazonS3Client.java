@@ -3550,8 +3550,7 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
 
     @Override
     protected final ExecutionContext createExecutionContext(AmazonWebServiceRequest req) {
-        boolean isMetricsEnabled = isRequestMetricsEnabled(req) || isProfilingEnabled();
-        return new S3ExecutionContext(requestHandler2s, isMetricsEnabled, this);
+        return new S3ExecutionContext(requestHandler2s, createRequestMetrics(req), this);
     }
 
     private <X, Y extends AmazonWebServiceRequest> X invoke(Request<Y> request,
@@ -27,6 +27,7 @@ import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3URI;
+import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AwsHostNameUtils;
 
 public class S3ExecutionContext extends ExecutionContext {
@@ -40,6 +41,11 @@ public class S3ExecutionContext extends ExecutionContext {
         super(requestHandler2s, isMetricEnabled, awsClient);
     }
 
+    public S3ExecutionContext(List<RequestHandler2> requestHandler2s,
+            AWSRequestMetrics awsRequestMetrics, AmazonWebServiceClient awsClient) {
+        super(requestHandler2s, awsRequestMetrics, awsClient);
+    }
+
     @Override
     public void setSigner(Signer signer) {
         this.signer = signer;
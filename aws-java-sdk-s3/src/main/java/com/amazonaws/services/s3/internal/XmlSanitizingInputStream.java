@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+
+/**
+ * Input stream that replaces any carriage return (\r) characters of an UTF-8
+ * encoded XML document with explicit XML character entities as the document
+ * is being read, to prevent the SAX parser from misinterpreting 0x0D
+ * characters as 0x0A and being unable to parse the XML.
+ * <p>
+ * The substitution is done on the raw bytes, which is safe for UTF-8 since
+ * the byte 0x0D never occurs as part of a multi-byte sequence.
+ */
+public class XmlSanitizingInputStream extends SdkFilterInputStream {
+
+    /** Character entity written out in place of each carriage return. */
+    private static final byte[] CARRIAGE_RETURN_ENTITY = { '&', '#', '0', '1', '3', ';' };
+
+    /** Bytes read ahead from the underlying stream. */
+    private final byte[] buffer = new byte[8192];
+
+    /** The position of the next byte to be returned in the buffer. */
+    private int pos;
+
+    /** The number of valid bytes in the buffer. */
+    private int limit;
+
+    /**
+     * The position of the next byte of the carriage return entity to be
+     * returned, or the length of the entity if there is none pending.
+     */
+    private int entityPos = CARRIAGE_RETURN_ENTITY.length;
+
+    public XmlSanitizingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int count = read(b, 0, 1);
+        return count == -1 ? -1 : (b[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (len == 0)
+            return 0;
+        int count = 0;
+        while (count < len) {
+            if (entityPos < CARRIAGE_RETURN_ENTITY.length) {
+                b[off + count++] = CARRIAGE_RETURN_ENTITY[entityPos++];
+                continue;
+            }
+            if (pos == limit) {
+                // Don't block for more input once some bytes can be returned
+                if (count > 0)
+                    break;
+                int read = in.read(buffer, 0, buffer.length);
+                if (read == -1)
+                    return -1;
+                pos = 0;
+                limit = read;
+                continue;
+            }
+            byte c = buffer[pos++];
+            if (c == '\r') {
+                entityPos = 0;
+            } else {
+                b[off + count++] = c;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0)
+            return 0;
+        byte[] skipBuffer = new byte[(int) Math.min(n, 1024 * 8)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(skipBuffer, 0, (int) Math.min(remaining, skipBuffer.length));
+            if (read == -1)
+                break;
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public int available() throws IOException {
+        abortIfNeeded();
+        return (limit - pos) + (CARRIAGE_RETURN_ENTITY.length - entityPos);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
@@ -36,11 +36,11 @@ import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.internal.InputSubstream;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.internal.RepeatableCipherInputStream;
-import com.amazonaws.services.s3.internal.RepeatableFileInputStream;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterials;
 import com.amazonaws.services.s3.model.EncryptionMaterialsAccessor;
@@ -712,7 +712,7 @@ public class EncryptionUtils {
             if (request.getFile() != null) {
                 // Historically file takes precedence over the original input
                 // stream
-                is = new RepeatableFileInputStream(request.getFile());
+                is = new ResettableInputStream(request.getFile());
             }
             if (plaintextLength > -1) {
                 // This ensures the plain-text read from the underlying data
@@ -734,7 +734,7 @@ public class EncryptionUtils {
         try {
             InputStream originalInputStream = request.getInputStream();
             if (request.getFile() != null) {
-                originalInputStream = new InputSubstream(new RepeatableFileInputStream(request.getFile()),
+                originalInputStream = new InputSubstream(new ResettableInputStream(request.getFile()),
                         request.getFileOffset(), request.getPartSize(), request.isLastPart());
             }
 
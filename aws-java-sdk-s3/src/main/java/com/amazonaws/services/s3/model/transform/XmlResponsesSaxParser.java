@@ -17,10 +17,7 @@
  */
 package com.amazonaws.services.s3.model.transform;
 
-import static com.amazonaws.util.StringUtils.UTF8;
-
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -47,6 +44,7 @@ import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
 import com.amazonaws.services.s3.internal.ObjectExpirationResult;
 import com.amazonaws.services.s3.internal.ServerSideEncryptionResult;
 import com.amazonaws.services.s3.internal.ServiceUtils;
+import com.amazonaws.services.s3.internal.XmlSanitizingInputStream;
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
@@ -99,7 +97,17 @@ import com.amazonaws.util.DateUtils;
 public class XmlResponsesSaxParser {
     private static final Log log = LogFactory.getLog(XmlResponsesSaxParser.class);
 
-    private XMLReader xr = null;
+    /**
+     * SAX readers are not thread safe and are expensive to create, so each
+     * thread reuses its own reader across parses.
+     */
+    private static final ThreadLocal<XMLReader> xmlReaders = new ThreadLocal<XMLReader>();
+
+    /**
+     * Handler installed on an idle reader so that it does not hold on to the
+     * handler (and everything it parsed) of the last document.
+     */
+    private static final DefaultHandler NO_OP_HANDLER = new DefaultHandler();
 
     private boolean sanitizeXmlDocument = true;
 
@@ -111,12 +119,24 @@ public class XmlResponsesSaxParser {
     public XmlResponsesSaxParser() throws AmazonClientException {
         // Ensure we can load the XML Reader.
         try {
-            xr = XMLReaderFactory.createXMLReader();
+            getXmlReader();
         } catch (SAXException e) {
             throw new AmazonClientException("Couldn't initialize a SAX driver to create an XMLReader", e);
         }
     }
 
+    /**
+     * Returns the XML reader of the current thread, creating it on first use.
+     */
+    private static XMLReader getXmlReader() throws SAXException {
+        XMLReader xr = xmlReaders.get();
+        if (xr == null) {
+            xr = XMLReaderFactory.createXMLReader();
+            xmlReaders.set(xr);
+        }
+        return xr;
+    }
+
     /**
      * Parses an XML document from an input stream using a document handler.
      *
@@ -140,14 +160,20 @@ public class XmlResponsesSaxParser {
 
             BufferedReader breader = new BufferedReader(new InputStreamReader(inputStream,
                 Constants.DEFAULT_ENCODING));
+            XMLReader xr = getXmlReader();
             xr.setContentHandler(handler);
             xr.setErrorHandler(handler);
             xr.parse(new InputSource(breader));
+            xr.setContentHandler(NO_OP_HANDLER);
+            xr.setErrorHandler(NO_OP_HANDLER);
 
         } catch (IOException e) {
+            // Don't reuse a reader which may be left in an inconsistent state
+            xmlReaders.remove();
             throw e;
 
         } catch (Throwable t) {
+            xmlReaders.remove();
             try {
                 inputStream.close();
             } catch (IOException e) {
@@ -160,6 +186,13 @@ public class XmlResponsesSaxParser {
         }
     }
 
+    /**
+     * Returns an input stream which replaces any carriage return (\r)
+     * characters with explicit XML character entities as the document is
+     * being consumed by the SAX parser, to prevent the parser from
+     * misinterpreting 0x0D characters as 0x0A and being unable to parse the
+     * XML.
+     */
     protected InputStream sanitizeXmlDocument(DefaultHandler handler, InputStream inputStream)
             throws IOException {
 
@@ -170,53 +203,7 @@ public class XmlResponsesSaxParser {
             if (log.isDebugEnabled()) {
                 log.debug("Sanitizing XML document destined for handler " + handler.getClass());
             }
-
-            InputStream sanitizedInputStream = null;
-
-            try {
-
-                /*
-                 * Read object listing XML document from input stream provided into a
-                 * string buffer, so we can replace troublesome characters before
-                 * sending the document to the XML parser.
-                 */
-                StringBuilder listingDocBuffer = new StringBuilder();
-                BufferedReader br = new BufferedReader(
-                    new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                    listingDoc.getBytes(UTF8));
-
-            } catch (IOException e) {
-                throw e;
-
-            } catch (Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error("Unable to close response InputStream after failure sanitizing XML document", e);
-                    }
-                }
-                throw new AmazonClientException("Failed to sanitize XML document destined for handler "
-                    + handler.getClass(), t);
-            }
-            return sanitizedInputStream;
+            return new XmlSanitizingInputStream(inputStream);
         }
     }
 
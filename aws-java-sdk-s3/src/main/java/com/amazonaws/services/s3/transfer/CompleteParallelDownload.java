@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.ParallelDownloadContext;
+
+/**
+ * Waits for all the parts of a parallel download to exit and then updates
+ * the state of the download accordingly. This task is submitted to the thread
+ * pool after all the part tasks, so it does not hold on to a thread while the
+ * parts are still waiting to be executed.
+ */
+final class CompleteParallelDownload implements Callable<File> {
+
+    private final DownloadImpl download;
+    private final File dstfile;
+    private final ParallelDownloadContext context;
+
+    /** The futures of threads that download individual parts. */
+    private final List<Future<Long>> futures;
+
+    CompleteParallelDownload(DownloadImpl download, File dstfile,
+            ParallelDownloadContext context, List<Future<Long>> futures) {
+        this.download = download;
+        this.dstfile = dstfile;
+        this.context = context;
+        this.futures = futures;
+    }
+
+    @Override
+    public File call() throws Exception {
+        try {
+            for (Future<Long> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    context.fail(e.getCause());
+                }
+            }
+            Throwable failure = context.getFailure();
+            if (failure != null) {
+                if (failure instanceof AmazonClientException)
+                    throw (AmazonClientException) failure;
+                throw new AmazonClientException(
+                        "Unable to complete parallel download. Individual part download failed : "
+                                + failure.getMessage(), failure);
+            }
+            if (context.isComplete()) {
+                download.setState(TransferState.Completed);
+            } else {
+                download.setState(TransferState.Canceled);
+            }
+            return dstfile;
+        } catch (Throwable t) {
+            // Downloads aren't allowed to move from canceled to failed
+            if (download.getState() != TransferState.Canceled) {
+                download.setState(TransferState.Failed);
+            }
+            if (t instanceof Exception)
+                throw (Exception) t;
+            else
+                throw (Error) t;
+        }
+    }
+}
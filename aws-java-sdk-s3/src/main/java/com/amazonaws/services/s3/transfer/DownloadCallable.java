@@ -16,9 +16,13 @@ package com.amazonaws.services.s3.transfer;
 
 import java.io.File;
 import java.net.SocketException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.net.ssl.SSLProtocolException;
 
@@ -37,6 +41,7 @@ import com.amazonaws.services.s3.transfer.exception.FileLockException;
 import com.amazonaws.services.s3.transfer.internal.AbstractTransfer;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.services.s3.transfer.internal.ParallelDownloadContext;
 
 final class DownloadCallable implements Callable<File> {
     private static final Log log = LogFactory.getLog(DownloadCallable.class);
@@ -48,6 +53,9 @@ final class DownloadCallable implements Callable<File> {
     private final DownloadImpl download;
     private final File dstfile;
     private final long origStartingByte;
+    private final ExecutorService threadPool;
+    /** Size of each byte range fetched in parallel; or zero for a single connection download. */
+    private final long partSize;
     
     private long expectedFileLength;
 
@@ -55,10 +63,12 @@ final class DownloadCallable implements Callable<File> {
             GetObjectRequest req,
             boolean resumeExistingDownload,
             DownloadImpl download, File dstfile, long origStartingByte,
-            long expectedFileLength) 
+            long expectedFileLength, ExecutorService threadPool, long partSize)
     {
         if (s3 == null || latch == null || req == null || dstfile == null || download == null)
             throw new IllegalArgumentException();
+        if (partSize > 0 && threadPool == null)
+            throw new IllegalArgumentException();
         this.s3 = s3;
         this.latch = latch;
         this.req = req;
@@ -67,6 +77,8 @@ final class DownloadCallable implements Callable<File> {
         this.dstfile = dstfile;
         this.origStartingByte = origStartingByte;
         this.expectedFileLength = expectedFileLength;
+        this.threadPool = threadPool;
+        this.partSize = partSize;
     }
 
     /**
@@ -81,6 +93,10 @@ final class DownloadCallable implements Callable<File> {
         try {
             latch.await();
             download.setState(TransferState.InProgress);
+            if (partSize > 0) {
+                downloadInParallel();
+                return null;
+            }
             S3Object s3Object = retryableDownloadS3ObjectToFile(dstfile,
                 new DownloadTaskImpl(s3, download, req), 
                 resumeExistingDownload);
@@ -104,6 +120,87 @@ final class DownloadCallable implements Callable<File> {
         }
     }
 
+    /**
+     * Splits the requested range into parts, submitting each part download
+     * task to the thread pool, followed by a task that completes the download
+     * once all the parts have exited. The monitor of the download is updated
+     * to track the completion task, so the caller must not treat the null
+     * return value of {@link #call()} as the end of the download.
+     */
+    private void downloadInParallel() throws Exception {
+        final long[] range = req.getRange();
+        final long firstByte = range[0];
+        final long lastByte = range[1];
+        // Any existing content beyond the expected length of a resumed
+        // download is not trusted and gets overwritten.
+        final long fileOffset = resumeExistingDownload
+                ? Math.max(expectedFileLength, 0) : 0;
+
+        File parentDirectory = dstfile.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()) {
+            if (!(parentDirectory.mkdirs())) {
+                throw new AmazonClientException(
+                        "Unable to create directory in the path"
+                                + parentDirectory.getAbsolutePath());
+            }
+        }
+        if (!FileLocks.lock(dstfile)) {
+            throw new FileLockException("Fail to lock " + dstfile
+                    + " for parallel download");
+        }
+        final ParallelDownloadContext context;
+        try {
+            if (resumeExistingDownload && dstfile.length() != fileOffset) {
+                // Fail fast to prevent data corruption
+                throw new IllegalStateException(
+                        "Expected file length to append is " + fileOffset
+                                + " but actual length is " + dstfile.length()
+                                + " for file " + dstfile);
+            }
+            context = new ParallelDownloadContext(dstfile, fileOffset,
+                    lastByte - firstByte + 1, partSize);
+        } catch (Exception e) {
+            FileLocks.unlock(dstfile);
+            throw e;
+        }
+        download.setParallelDownloadContext(context);
+        if (Thread.currentThread().isInterrupted()) {
+            // Paused or aborted before the parts could be registered
+            context.abort();
+        }
+
+        final int numParts = context.getNumberOfParts();
+        final List<Future<Long>> futures = new ArrayList<Future<Long>>(numParts);
+        int submitted = 0;
+        try {
+            for (; submitted < numParts; submitted++) {
+                long partFirstByte = firstByte + context.getPartOffset(submitted);
+                GetObjectRequest partReq = (GetObjectRequest) req.clone();
+                partReq.setRange(partFirstByte, partFirstByte
+                        + context.getPartLength(submitted) - 1);
+                futures.add(threadPool.submit(new DownloadPartCallable(s3,
+                        download, partReq, context, submitted)));
+            }
+        } catch (RuntimeException e) {
+            context.fail(e);
+            throw e;
+        } finally {
+            // Parts that never made it to the thread pool still have to be
+            // accounted for, so that the file gets released.
+            for (int i = submitted; i < numParts; i++) {
+                context.partExited();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Downloading " + Arrays.toString(range) + " of "
+                    + req.getKey() + " (bucket " + req.getBucketName()
+                    + ") in " + numParts + " parts to " + dstfile);
+        }
+        ((DownloadMonitor) download.getMonitor()).setFuture(threadPool
+                .submit(new CompleteParallelDownload(download, dstfile,
+                        context, futures)));
+    }
+
     /**
      * This method is called only if it is a resumed download.
      *
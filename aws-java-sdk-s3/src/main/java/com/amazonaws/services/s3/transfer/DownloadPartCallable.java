@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.ParallelDownloadContext;
+import com.amazonaws.util.IOUtils;
+
+/**
+ * Fetches a single byte range of a parallel download and writes it into the
+ * destination file at its offset. A part whose content stream fails midway
+ * is retried from the first byte not yet written.
+ */
+final class DownloadPartCallable implements Callable<Long> {
+    private static final Log log = LogFactory.getLog(DownloadPartCallable.class);
+
+    /** Maximum number of times the content of a single part is re-requested. */
+    private static final int MAX_PART_RETRIES = 3;
+
+    private final AmazonS3 s3;
+    private final DownloadImpl download;
+    private final GetObjectRequest req;
+    private final ParallelDownloadContext context;
+    private final int partIndex;
+
+    /**
+     * @param req
+     *            the ranged request for this part; its range is adjusted in
+     *            place when the part is retried.
+     */
+    DownloadPartCallable(AmazonS3 s3, DownloadImpl download,
+            GetObjectRequest req, ParallelDownloadContext context,
+            int partIndex) {
+        this.s3 = s3;
+        this.download = download;
+        this.req = req;
+        this.context = context;
+        this.partIndex = partIndex;
+    }
+
+    /**
+     * Returns the number of bytes written for this part, which is less than
+     * the length of the part if the download has been aborted.
+     */
+    @Override
+    public Long call() throws Exception {
+        try {
+            downloadPart();
+            return context.getBytesWritten(partIndex);
+        } catch (Throwable t) {
+            context.fail(t);
+            if (t instanceof Exception)
+                throw (Exception) t;
+            else
+                throw (Error) t;
+        } finally {
+            context.partExited();
+        }
+    }
+
+    private void downloadPart() {
+        final long firstByte = req.getRange()[0];
+        int retries = 0;
+        for (;;) {
+            if (context.isAborted())
+                return;
+            S3Object s3Object = new DownloadTaskImpl(s3, download, req)
+                    .getS3ObjectStream();
+            if (s3Object == null) {
+                // Constraints specified in the request are no longer met;
+                // stop the download just like a single connection download.
+                context.abort();
+                return;
+            }
+            try {
+                if (!context.register(s3Object))
+                    return;
+                copyToFile(s3Object.getObjectContent());
+                if (context.isPartComplete(partIndex) || context.isAborted())
+                    return;
+                throw new AmazonClientException("Unexpected end of stream for "
+                        + s3Object.getKey() + " (bucket "
+                        + s3Object.getBucketName() + "): received "
+                        + context.getBytesWritten(partIndex) + " of "
+                        + context.getPartLength(partIndex) + " bytes");
+            } catch (AmazonClientException ace) {
+                // An aborted download surfaces as a socket error; that is
+                // not a reason to retry.
+                if (context.isAborted())
+                    return;
+                if (!ace.isRetryable() || retries++ >= MAX_PART_RETRIES)
+                    throw ace;
+                long nextByte = firstByte + context.getBytesWritten(partIndex);
+                log.info("Retry the download of bytes " + nextByte + "-"
+                        + req.getRange()[1] + " of object " + s3Object.getKey()
+                        + " (bucket " + s3Object.getBucketName() + ")", ace);
+                req.setRange(nextByte, req.getRange()[1]);
+            } finally {
+                context.unregister(s3Object);
+                s3Object.getObjectContent().abort();
+            }
+        }
+    }
+
+    private void copyToFile(InputStream content) {
+        byte[] buffer = new byte[1024 * 10];
+        try {
+            int bytesRead;
+            while ((bytesRead = content.read(buffer)) > -1) {
+                if (context.isAborted())
+                    return;
+                context.write(partIndex, buffer, bytesRead);
+            }
+            // Release the connection back to the pool once fully read
+            IOUtils.closeQuietly(content, log);
+        } catch (IOException e) {
+            throw new AmazonClientException(
+                    "Unable to store object contents to disk: " + e.getMessage(), e);
+        }
+    }
+}
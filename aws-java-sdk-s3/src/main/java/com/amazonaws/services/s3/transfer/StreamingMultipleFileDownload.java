@@ -0,0 +1,391 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.TransferMonitor;
+import com.amazonaws.services.s3.transfer.internal.TransferStateChangeListener;
+
+/**
+ * Multiple file download of a virtual directory which downloads objects as
+ * soon as they are listed, instead of listing the whole directory first.
+ * <p>
+ * Each virtual subdirectory is listed by a separate task, so subdirectories
+ * are listed concurrently. At most a fixed number of listed objects are
+ * waiting to be downloaded or being downloaded at once; listing pauses until
+ * some of them finish. Downloads which complete are forgotten, so memory use
+ * does not grow with the number of objects in the directory, and the total
+ * size of the transfer grows as objects are listed.
+ */
+final class StreamingMultipleFileDownload extends MultipleFileDownloadImpl {
+
+    private static final Log log = LogFactory.getLog(StreamingMultipleFileDownload.class);
+
+    private static final ThreadFactory listingThreadFactory = new ThreadFactory() {
+        final AtomicInteger threadCount = new AtomicInteger( 0 );
+        public Thread newThread(Runnable r) {
+            int threadNumber = threadCount.incrementAndGet();
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("S3TransferManagerListingThread-" + threadNumber);
+            return thread;
+        }
+    };
+
+    private final TransferManager transferManager;
+    private final AmazonS3 s3;
+    private final File destinationDirectory;
+    private final String delimiter;
+
+    /** Updates the progress of this transfer from the progress of each download. */
+    private final ProgressListener progressListener;
+
+    /** The downloads which are in progress, failed or were canceled. */
+    private final Set<DownloadImpl> downloads;
+
+    private final ExecutorService listingPool;
+
+    /** One permit for each object which may be queued for download. */
+    private final Semaphore downloadPermits;
+
+    /** The number of virtual directories submitted but not listed yet. */
+    private final AtomicInteger pendingListings = new AtomicInteger();
+
+    /** The number of downloads started but not finished yet. */
+    private final AtomicInteger pendingDownloads = new AtomicInteger();
+
+    private final AtomicBoolean finishing = new AtomicBoolean();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile boolean listingDone;
+
+    /** Set when no more objects should be listed or downloaded. */
+    private volatile boolean stopped;
+    private volatile boolean aborted;
+    private volatile Throwable listingFailure;
+
+    StreamingMultipleFileDownload(TransferManager transferManager, AmazonS3 s3, String bucketName,
+            String keyPrefix, String delimiter, File destinationDirectory, int listingThreads, int maximumQueuedDownloads) {
+        this(transferManager, s3, bucketName, keyPrefix, delimiter, destinationDirectory, listingThreads,
+                maximumQueuedDownloads, Collections.newSetFromMap(new ConcurrentHashMap<DownloadImpl, Boolean>()));
+    }
+
+    private StreamingMultipleFileDownload(TransferManager transferManager, AmazonS3 s3, String bucketName,
+            String keyPrefix, String delimiter, File destinationDirectory, int listingThreads,
+            int maximumQueuedDownloads, Set<DownloadImpl> downloads) {
+        super("Downloading from " + bucketName + "/" + keyPrefix, new TransferProgress(),
+                new ProgressListenerChain(), keyPrefix, bucketName, downloads);
+        this.transferManager = transferManager;
+        this.s3 = s3;
+        this.delimiter = delimiter;
+        this.destinationDirectory = destinationDirectory;
+        this.downloads = downloads;
+        this.progressListener = new MultipleFileTransferProgressUpdatingListener(getProgress(), listenerChain);
+        this.listingPool = Executors.newFixedThreadPool(listingThreads, listingThreadFactory);
+        this.downloadPermits = new Semaphore(maximumQueuedDownloads);
+        getProgress().setTotalBytesToTransfer(0);
+        setMonitor(new StreamingDownloadMonitor());
+    }
+
+    /**
+     * Starts listing the virtual directory.
+     */
+    void start() {
+        setState(TransferState.InProgress);
+        submitListing(getKeyPrefix());
+    }
+
+    /**
+     * Stops listing the virtual directory and aborts all outstanding
+     * downloads.
+     */
+    @Override
+    public void abort() throws IOException {
+        aborted = true;
+        stopped = true;
+        List<Runnable> unstarted = listingPool.shutdownNow();
+        for (int i = 0; i < unstarted.size(); i++) {
+            listingFinished();
+        }
+        super.abort();
+    }
+
+    /**
+     * Waits for all the objects to be listed and downloaded. Completed
+     * downloads are dropped from the sub-transfers, so having none left does
+     * not mean there is nothing to wait for.
+     */
+    @Override
+    public void waitForCompletion() throws AmazonClientException, AmazonServiceException, InterruptedException {
+        if (subTransfers.isEmpty() && getState() == TransferState.Completed)
+            return;
+        try {
+            getMonitor().getFuture().get();
+        } catch (ExecutionException e) {
+            rethrowExecutionException(e);
+        }
+    }
+
+    private void submitListing(String prefix) {
+        pendingListings.incrementAndGet();
+        try {
+            listingPool.execute(new ListingTask(prefix));
+        } catch (RejectedExecutionException e) {
+            // Only happens once the download has been aborted
+            listingFinished();
+        }
+    }
+
+    private void listingFinished() {
+        if (pendingListings.decrementAndGet() == 0) {
+            listingDone = true;
+            listingPool.shutdown();
+            finishIfDone();
+        }
+    }
+
+    private void list(String prefix) throws InterruptedException {
+        ObjectListing listing = null;
+        do {
+            if (stopped)
+                return;
+            if (listing == null) {
+                listing = s3.listObjects(new ListObjectsRequest().withBucketName(getBucketName())
+                        .withDelimiter(delimiter).withPrefix(prefix));
+            } else {
+                listing = s3.listNextBatchOfObjects(listing);
+            }
+
+            List<String> commonPrefixes = listing.getCommonPrefixes();
+            for (String commonPrefix : commonPrefixes) {
+                submitListing(commonPrefix);
+            }
+
+            Set<String> virtualDirectories = new HashSet<String>(commonPrefixes);
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                // Skip any files that are also virtual directories, since we
+                // can't save both a directory and a file of the same name.
+                if (summary.getKey().equals(prefix) || virtualDirectories.contains(summary.getKey() + delimiter)) {
+                    log.debug("Skipping download for object " + summary.getKey()
+                            + " since it is also a virtual directory");
+                    continue;
+                }
+                download(summary);
+            }
+        } while (listing.isTruncated());
+    }
+
+    private void download(S3ObjectSummary summary) throws InterruptedException {
+        downloadPermits.acquire();
+        if (stopped) {
+            downloadPermits.release();
+            return;
+        }
+
+        File f = new File(destinationDirectory, summary.getKey());
+        File parentFile = f.getParentFile();
+        // Another listing task may create the same directory concurrently
+        if (!parentFile.mkdirs() && !parentFile.isDirectory()) {
+            downloadPermits.release();
+            throw new RuntimeException("Couldn't create parent directories for " + f.getAbsolutePath());
+        }
+
+        getProgress().addTotalBytesToTransfer(summary.getSize());
+        pendingDownloads.incrementAndGet();
+        DownloadStateChangeListener stateListener = new DownloadStateChangeListener();
+        DownloadImpl download;
+        try {
+            download = transferManager.downloadDirectoryObject(
+                    new GetObjectRequest(summary.getBucketName(), summary.getKey())
+                            .<GetObjectRequest>withGeneralProgressListener(progressListener),
+                    f, stateListener);
+        } catch (RuntimeException e) {
+            downloadPermits.release();
+            pendingDownloads.decrementAndGet();
+            throw e;
+        }
+
+        downloads.add(download);
+        // The download may have completed before it was added
+        if (stateListener.done.get() && download.getState() == TransferState.Completed) {
+            downloads.remove(download);
+        }
+        if (aborted) {
+            try {
+                download.abort();
+            } catch (IOException e) {
+                log.debug("Unable to abort download of " + summary.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Sets the final state of this transfer once the virtual directory has
+     * been listed and all the downloads are finished.
+     */
+    private void finishIfDone() {
+        if (!listingDone || pendingDownloads.get() > 0 || !finishing.compareAndSet(false, true))
+            return;
+
+        if (listingFailure != null) {
+            setState(TransferState.Failed);
+        } else if (aborted && downloads.isEmpty()) {
+            setState(TransferState.Canceled);
+        } else {
+            collateFinalState();
+        }
+        finished.countDown();
+    }
+
+    private final class ListingTask implements Runnable {
+        private final String prefix;
+
+        ListingTask(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void run() {
+            try {
+                list(prefix);
+            } catch (InterruptedException e) {
+                // Aborted
+            } catch (Throwable t) {
+                if (!stopped) {
+                    log.debug("Unable to list " + prefix, t);
+                    listingFailure = t;
+                    stopped = true;
+                }
+            } finally {
+                listingFinished();
+            }
+        }
+    }
+
+    /**
+     * Forgets completed downloads and lets another object be queued once a
+     * download is finished.
+     */
+    private final class DownloadStateChangeListener implements TransferStateChangeListener {
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        @Override
+        public void transferStateChanged(Transfer transfer, TransferState state) {
+            if (state == TransferState.Waiting || state == TransferState.InProgress)
+                return;
+            if (!done.compareAndSet(false, true))
+                return;
+
+            if (state == TransferState.Completed) {
+                downloads.remove(transfer);
+            }
+            downloadPermits.release();
+            pendingDownloads.decrementAndGet();
+            finishIfDone();
+        }
+    }
+
+    private final class StreamingDownloadMonitor implements TransferMonitor {
+
+        /*
+         * The future object is not publicly exposed, so we only need to worry
+         * about implementing get().
+         */
+        private final Future<Object> future = new Future<Object>() {
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return false;
+            }
+
+            @Override
+            public Object get() throws InterruptedException, ExecutionException {
+                finished.await();
+                return getResult();
+            }
+
+            @Override
+            public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+                    TimeoutException {
+                if (!finished.await(timeout, unit))
+                    throw new TimeoutException();
+                return getResult();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return getState() == TransferState.Canceled;
+            }
+
+            @Override
+            public boolean isDone() {
+                return StreamingDownloadMonitor.this.isDone();
+            }
+        };
+
+        private Object getResult() throws InterruptedException, ExecutionException {
+            if (listingFailure != null)
+                throw new ExecutionException(listingFailure);
+            // Only failed and canceled downloads are left
+            for (DownloadImpl download : downloads) {
+                download.getMonitor().getFuture().get();
+            }
+            return destinationDirectory;
+        }
+
+        @Override
+        public Future<?> getFuture() {
+            return future;
+        }
+
+        @Override
+        public boolean isDone() {
+            return finished.getCount() == 0;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileUploadImpl;
+import com.amazonaws.services.s3.transfer.internal.TransferMonitor;
+import com.amazonaws.services.s3.transfer.internal.TransferStateChangeListener;
+import com.amazonaws.services.s3.transfer.internal.UploadImpl;
+
+/**
+ * Multiple file upload which uploads files as soon as they are found, instead
+ * of collecting all the files of the directory first.
+ * <p>
+ * Each subdirectory is listed by a separate task, so subdirectories are
+ * listed concurrently. At most a fixed number of files are waiting to be
+ * uploaded or being uploaded at once; listing pauses until some of them
+ * finish. Uploads which complete are forgotten, so memory use does not grow
+ * with the number of files, and {@link #getSubTransfers()} only returns the
+ * uploads which are in progress, failed or were canceled. The total size of
+ * the transfer grows by the size of each listed directory's files.
+ */
+final class StreamingMultipleFileUpload extends MultipleFileUploadImpl {
+
+    private static final Log log = LogFactory.getLog(StreamingMultipleFileUpload.class);
+
+    private static final ThreadFactory listingThreadFactory = new ThreadFactory() {
+        final AtomicInteger threadCount = new AtomicInteger( 0 );
+        public Thread newThread(Runnable r) {
+            int threadNumber = threadCount.incrementAndGet();
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("S3TransferManagerFileListingThread-" + threadNumber);
+            return thread;
+        }
+    };
+
+    private final TransferManager transferManager;
+    private final File directory;
+    private final ObjectMetadataProvider metadataProvider;
+
+    /** The position in the absolute path of a file where its key starts. */
+    private final int startingPosition;
+
+    /** Updates the progress of this transfer from the progress of each upload. */
+    private final ProgressListener progressListener;
+
+    /** The uploads which are in progress, failed or were canceled. */
+    private final Set<UploadImpl> uploads;
+
+    private final ExecutorService listingPool;
+
+    /** One permit for each file which may be queued for upload. */
+    private final Semaphore uploadPermits;
+
+    /** The number of listing tasks submitted but not finished yet. */
+    private final AtomicInteger pendingListings = new AtomicInteger();
+
+    /** The number of uploads started but not finished yet. */
+    private final AtomicInteger pendingUploads = new AtomicInteger();
+
+    private final AtomicBoolean finishing = new AtomicBoolean();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile boolean listingDone;
+    private volatile Throwable listingFailure;
+
+    StreamingMultipleFileUpload(TransferManager transferManager, String bucketName, String virtualDirectoryKeyPrefix,
+            File directory, ObjectMetadataProvider metadataProvider, int listingThreads, int maximumQueuedUploads) {
+        this(transferManager, bucketName, virtualDirectoryKeyPrefix, directory, metadataProvider, listingThreads,
+                maximumQueuedUploads, Collections.newSetFromMap(new ConcurrentHashMap<UploadImpl, Boolean>()));
+    }
+
+    private StreamingMultipleFileUpload(TransferManager transferManager, String bucketName,
+            String virtualDirectoryKeyPrefix, File directory, ObjectMetadataProvider metadataProvider,
+            int listingThreads, int maximumQueuedUploads, Set<UploadImpl> uploads) {
+        super("Uploading etc", new TransferProgress(), new ProgressListenerChain(), virtualDirectoryKeyPrefix,
+                bucketName, uploads);
+        this.transferManager = transferManager;
+        this.directory = directory;
+        this.metadataProvider = metadataProvider;
+        this.uploads = uploads;
+        this.progressListener = new MultipleFileTransferProgressUpdatingListener(getProgress(), listenerChain);
+        this.listingPool = Executors.newFixedThreadPool(listingThreads, listingThreadFactory);
+        this.uploadPermits = new Semaphore(maximumQueuedUploads);
+
+        /*
+         * If the absolute path for the common/base directory does NOT end in
+         * a separator (which is the case for anything but root directories),
+         * then we know there's still a separator between the base directory
+         * and the rest of the file's path, so we increment the starting
+         * position by one.
+         */
+        int position = directory.getAbsolutePath().length();
+        if (!(directory.getAbsolutePath().endsWith(File.separator)))
+            position++;
+        this.startingPosition = position;
+
+        getProgress().setTotalBytesToTransfer(0);
+        setMonitor(new StreamingUploadMonitor());
+    }
+
+    /**
+     * Starts uploading the files of the directory, optionally including its
+     * subdirectories.
+     */
+    void uploadDirectory(boolean includeSubdirectories) {
+        setState(TransferState.InProgress);
+        submitListing(new DirectoryListingTask(directory, includeSubdirectories));
+    }
+
+    /**
+     * Starts uploading the files given.
+     */
+    void uploadFiles(final List<File> files) {
+        setState(TransferState.InProgress);
+        submitListing(new ListingTask() {
+            @Override
+            void list() throws InterruptedException {
+                upload(files);
+            }
+        });
+    }
+
+    /**
+     * Waits for all the files to be listed and uploaded. Completed uploads are
+     * dropped from the sub-transfers, so having none left does not mean there
+     * is nothing to wait for.
+     */
+    @Override
+    public void waitForCompletion() throws AmazonClientException, AmazonServiceException, InterruptedException {
+        if (subTransfers.isEmpty() && getState() == TransferState.Completed)
+            return;
+        try {
+            getMonitor().getFuture().get();
+        } catch (ExecutionException e) {
+            rethrowExecutionException(e);
+        }
+    }
+
+    private void submitListing(ListingTask task) {
+        pendingListings.incrementAndGet();
+        try {
+            listingPool.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Only happens once listing has failed
+            listingFinished();
+        }
+    }
+
+    private void listingFinished() {
+        if (pendingListings.decrementAndGet() == 0) {
+            listingDone = true;
+            listingPool.shutdown();
+            finishIfDone();
+        }
+    }
+
+    /**
+     * Uploads the files given, after adding their total size to the progress
+     * of this transfer.
+     */
+    private void upload(List<File> files) throws InterruptedException {
+        long totalSize = 0;
+        for (File f : files) {
+            if (f.isFile()) {
+                totalSize += f.length();
+            }
+        }
+        getProgress().addTotalBytesToTransfer(totalSize);
+
+        for (File f : files) {
+            // Check, if file, since only files can be uploaded.
+            if (f.isFile()) {
+                if (listingFailure != null)
+                    return;
+                upload(f);
+            }
+        }
+    }
+
+    private void upload(File f) throws InterruptedException {
+        uploadPermits.acquire();
+
+        String key = f.getAbsolutePath()
+                .substring(startingPosition)
+                .replaceAll("\\\\", "/");
+
+        UploadStateChangeListener stateListener = new UploadStateChangeListener();
+        pendingUploads.incrementAndGet();
+        UploadImpl upload;
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+
+            // Invoke the callback if it's present.
+            // The callback allows the user to customize the metadata
+            // for each file being uploaded.
+            if (metadataProvider != null) {
+                metadataProvider.provideObjectMetadata(f, metadata);
+            }
+
+            upload = transferManager.uploadDirectoryFile(
+                    new PutObjectRequest(getBucketName(), getKeyPrefix() + key, f)
+                            .withMetadata(metadata)
+                            .<PutObjectRequest> withGeneralProgressListener(progressListener),
+                    stateListener);
+        } catch (RuntimeException e) {
+            uploadPermits.release();
+            pendingUploads.decrementAndGet();
+            throw e;
+        }
+
+        uploads.add(upload);
+        // The upload may have completed before it was added
+        if (stateListener.done.get() && upload.getState() == TransferState.Completed) {
+            uploads.remove(upload);
+        }
+    }
+
+    /**
+     * Sets the final state of this transfer once all the files have been
+     * listed and all the uploads are finished.
+     */
+    private void finishIfDone() {
+        if (!listingDone || pendingUploads.get() > 0 || !finishing.compareAndSet(false, true))
+            return;
+
+        if (listingFailure != null) {
+            setState(TransferState.Failed);
+        } else {
+            collateFinalState();
+        }
+        finished.countDown();
+    }
+
+    private abstract class ListingTask implements Runnable {
+
+        abstract void list() throws InterruptedException;
+
+        @Override
+        public void run() {
+            try {
+                if (listingFailure == null) {
+                    list();
+                }
+            } catch (InterruptedException e) {
+                listingFailure = e;
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                if (listingFailure == null) {
+                    log.debug("Unable to list the files to upload", t);
+                    listingFailure = t;
+                }
+            } finally {
+                listingFinished();
+            }
+        }
+    }
+
+    /**
+     * Uploads the files of one directory and submits a task for each of its
+     * subdirectories.
+     */
+    private final class DirectoryListingTask extends ListingTask {
+        private final File dir;
+        private final boolean includeSubdirectories;
+
+        DirectoryListingTask(File dir, boolean includeSubdirectories) {
+            this.dir = dir;
+            this.includeSubdirectories = includeSubdirectories;
+        }
+
+        @Override
+        void list() throws InterruptedException {
+            File[] found = dir.listFiles();
+            if (found == null)
+                return;
+
+            List<File> files = new ArrayList<File>(found.length);
+            for (File f : found) {
+                if (f.isDirectory()) {
+                    if (includeSubdirectories) {
+                        submitListing(new DirectoryListingTask(f, includeSubdirectories));
+                    }
+                } else {
+                    files.add(f);
+                }
+            }
+            upload(files);
+        }
+    }
+
+    /**
+     * Forgets completed uploads and lets another file be queued once an
+     * upload is finished.
+     */
+    private final class UploadStateChangeListener implements TransferStateChangeListener {
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        @Override
+        public void transferStateChanged(Transfer transfer, TransferState state) {
+            if (state == TransferState.Waiting || state == TransferState.InProgress)
+                return;
+            if (!done.compareAndSet(false, true))
+                return;
+
+            if (state == TransferState.Completed) {
+                uploads.remove(transfer);
+            }
+            uploadPermits.release();
+            pendingUploads.decrementAndGet();
+            finishIfDone();
+        }
+    }
+
+    private final class StreamingUploadMonitor implements TransferMonitor {
+
+        /*
+         * The future object is not publicly exposed, so we only need to worry
+         * about implementing get().
+         */
+        private final Future<Object> future = new Future<Object>() {
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return false;
+            }
+
+            @Override
+            public Object get() throws InterruptedException, ExecutionException {
+                finished.await();
+                return getResult();
+            }
+
+            @Override
+            public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+                    TimeoutException {
+                if (!finished.await(timeout, unit))
+                    throw new TimeoutException();
+                return getResult();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return getState() == TransferState.Canceled;
+            }
+
+            @Override
+            public boolean isDone() {
+                return StreamingUploadMonitor.this.isDone();
+            }
+        };
+
+        private Object getResult() throws InterruptedException, ExecutionException {
+            if (listingFailure != null)
+                throw new ExecutionException(listingFailure);
+            // Only failed and canceled uploads are left
+            for (UploadImpl upload : uploads) {
+                upload.getMonitor().getFuture().get();
+            }
+            return directory;
+        }
+
+        @Override
+        public Future<?> getFuture() {
+            return future;
+        }
+
+        @Override
+        public boolean isDone() {
+            return finished.getCount() == 0;
+        }
+    }
+}
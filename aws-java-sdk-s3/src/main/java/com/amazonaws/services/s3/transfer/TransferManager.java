@@ -21,8 +21,10 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.Stack;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -46,6 +48,7 @@ import com.amazonaws.event.ProgressListener;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.AmazonS3Encryption;
 import com.amazonaws.services.s3.internal.FileLocks;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
@@ -821,16 +824,35 @@ public class TransferManager {
                     "Unable to determine the range for download operation.");
         }
 
+        long partSize = 0;
+        if (TransferManagerUtils.shouldUseParallelDownload(
+                totalBytesToDownload, configuration,
+                s3 instanceof AmazonS3Encryption)) {
+            partSize = TransferManagerUtils.calculateOptimalPartSizeForDownload(
+                    totalBytesToDownload, configuration);
+            // The parts are fetched with ranged requests
+            getObjectRequest.setRange(startingByte, lastByte);
+        }
+
         final CountDownLatch latch = new CountDownLatch(1);
         Future<?> future = threadPool.submit(
             new DownloadCallable(s3, latch,
                 getObjectRequest, resumeExistingDownload, download, file,
-                origStartingByte, fileLength));
+                origStartingByte, fileLength, threadPool, partSize));
         download.setMonitor(new DownloadMonitor(download, future));
         latch.countDown();
         return download;
     }
 
+    /**
+     * Starts the download of one object of a virtual directory downloaded by
+     * a {@link StreamingMultipleFileDownload}.
+     */
+    DownloadImpl downloadDirectoryObject(GetObjectRequest getObjectRequest, File file,
+            TransferStateChangeListener stateListener) {
+        return (DownloadImpl) doDownload(getObjectRequest, file, stateListener, null, false);
+    }
+
     /**
      * Downloads all objects in the virtual directory designated by the
      * keyPrefix given to the destination directory given. All virtual
@@ -843,6 +865,12 @@ public class TransferManager {
      * http://docs.aws.amazon.com/AmazonS3/latest/dev/UsingAWSSDK.html#
      * specify-signature-version
      * </p>
+     * <p>
+     * By default the whole virtual directory is listed before any object is
+     * downloaded. When streaming directory downloads are enabled in the
+     * {@link TransferManagerConfiguration}, virtual subdirectories are listed
+     * concurrently and objects start downloading as soon as they are listed.
+     * </p>
      *
      * @param bucketName
      *            The bucket containing the virtual directory
@@ -857,6 +885,13 @@ public class TransferManager {
     public MultipleFileDownload downloadDirectory(String bucketName, String keyPrefix, File destinationDirectory) {
         if ( keyPrefix == null )
             keyPrefix = "";
+        if ( configuration.isStreamingDirectoryDownloadEnabled() ) {
+            StreamingMultipleFileDownload multipleFileDownload = new StreamingMultipleFileDownload(this, s3,
+                    bucketName, keyPrefix, DEFAULT_DELIMITER, destinationDirectory,
+                    configuration.getDirectoryListingThreads(), configuration.getMaximumQueuedDirectoryDownloads());
+            multipleFileDownload.start();
+            return multipleFileDownload;
+        }
         List<S3ObjectSummary> objectSummaries = new LinkedList<S3ObjectSummary>();
         Stack<String> commonPrefixes = new Stack<String>();
         commonPrefixes.add(keyPrefix);
@@ -876,12 +911,13 @@ public class TransferManager {
                     listObjectsResponse = s3.listNextBatchOfObjects(listObjectsResponse);
                 }
 
+                Set<String> virtualDirectories = new HashSet<String>(listObjectsResponse.getCommonPrefixes());
                 for ( S3ObjectSummary s : listObjectsResponse.getObjectSummaries() ) {
                     // Skip any files that are also virtual directories, since
                     // we can't save both a directory and a file of the same
                     // name.
                     if ( !s.getKey().equals(prefix)
-                            && !listObjectsResponse.getCommonPrefixes().contains(s.getKey() + DEFAULT_DELIMITER) ) {
+                            && !virtualDirectories.contains(s.getKey() + DEFAULT_DELIMITER) ) {
                         objectSummaries.add(s);
                         totalSize += s.getSize();
                     } else {
@@ -964,6 +1000,12 @@ public class TransferManager {
      * http://docs.aws.amazon.com/AmazonS3/latest/dev/UsingAWSSDK.html#
      * specify-signature-version
      * </p>
+     * <p>
+     * By default all the files are listed before any file is uploaded. When
+     * streaming directory uploads are enabled in the
+     * {@link TransferManagerConfiguration}, subdirectories are listed
+     * concurrently and files start uploading as soon as they are listed.
+     * </p>
      *
      * @param bucketName
      *            The name of the bucket to upload objects to.
@@ -997,6 +1039,12 @@ public class TransferManager {
      * http://docs.aws.amazon.com/AmazonS3/latest/dev/UsingAWSSDK.html#
      * specify-signature-version
      * </p>
+     * <p>
+     * By default all the files are listed before any file is uploaded. When
+     * streaming directory uploads are enabled in the
+     * {@link TransferManagerConfiguration}, subdirectories are listed
+     * concurrently and files start uploading as soon as they are listed.
+     * </p>
      *
      * @param bucketName
      *            The name of the bucket to upload objects to.
@@ -1019,6 +1067,13 @@ public class TransferManager {
             throw new IllegalArgumentException("Must provide a directory to upload");
         }
 
+        if ( configuration.isStreamingDirectoryUploadEnabled() ) {
+            StreamingMultipleFileUpload multipleFileUpload = newStreamingUpload(bucketName,
+                    virtualDirectoryKeyPrefix, directory, metadataProvider);
+            multipleFileUpload.uploadDirectory(includeSubdirectories);
+            return multipleFileUpload;
+        }
+
         List<File> files = new LinkedList<File>();
         listFiles(directory, files, includeSubdirectories);
 
@@ -1100,12 +1155,15 @@ public class TransferManager {
             throw new IllegalArgumentException("Must provide a common base directory for uploaded files");
         }
 
-        if (virtualDirectoryKeyPrefix == null || virtualDirectoryKeyPrefix.length() == 0) {
-            virtualDirectoryKeyPrefix = "";
-        } else if ( !virtualDirectoryKeyPrefix.endsWith("/") ) {
-            virtualDirectoryKeyPrefix = virtualDirectoryKeyPrefix + "/";
+        if ( configuration.isStreamingDirectoryUploadEnabled() && files != null ) {
+            StreamingMultipleFileUpload multipleFileUpload = newStreamingUpload(bucketName,
+                    virtualDirectoryKeyPrefix, directory, metadataProvider);
+            multipleFileUpload.uploadFiles(files);
+            return multipleFileUpload;
         }
 
+        virtualDirectoryKeyPrefix = toVirtualDirectoryKeyPrefix(virtualDirectoryKeyPrefix);
+
         /* This is the hook for adding additional progress listeners */
         ProgressListenerChain additionalListeners = new ProgressListenerChain();
         TransferProgress progress = new TransferProgress();
@@ -1168,6 +1226,11 @@ public class TransferManager {
                 }
             }
             progress.setTotalBytesToTransfer(totalSize);
+
+            // None of the files given may be a regular file
+            if ( uploads.isEmpty() ) {
+                multipleFileUpload.setState(TransferState.Completed);
+            }
         }
 
         // Notify all state changes waiting for the uploads to all be queued
@@ -1176,6 +1239,33 @@ public class TransferManager {
         return multipleFileUpload;
     }
 
+    /**
+     * Returns the key prefix given, ending with a slash unless it is empty.
+     */
+    private static String toVirtualDirectoryKeyPrefix(String virtualDirectoryKeyPrefix) {
+        if (virtualDirectoryKeyPrefix == null || virtualDirectoryKeyPrefix.length() == 0) {
+            return "";
+        } else if ( !virtualDirectoryKeyPrefix.endsWith("/") ) {
+            return virtualDirectoryKeyPrefix + "/";
+        }
+        return virtualDirectoryKeyPrefix;
+    }
+
+    private StreamingMultipleFileUpload newStreamingUpload(String bucketName, String virtualDirectoryKeyPrefix,
+            File directory, ObjectMetadataProvider metadataProvider) {
+        return new StreamingMultipleFileUpload(this, bucketName,
+                toVirtualDirectoryKeyPrefix(virtualDirectoryKeyPrefix), directory, metadataProvider,
+                configuration.getDirectoryListingThreads(), configuration.getMaximumQueuedDirectoryUploads());
+    }
+
+    /**
+     * Starts the upload of one file of a directory uploaded by a
+     * {@link StreamingMultipleFileUpload}.
+     */
+    UploadImpl uploadDirectoryFile(PutObjectRequest putObjectRequest, TransferStateChangeListener stateListener) {
+        return (UploadImpl) doUpload(putObjectRequest, stateListener, null, null);
+    }
+
     /**
      * Lists files in the directory given and adds them to the result list
      * passed in, optionally adding subdirectories recursively.
@@ -39,6 +39,24 @@ public class TransferManagerConfiguration {
     /** Default minimum size of each part for multi-part copy. */
     private static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /** Default size threshold for when to use parallel ranged downloads. */
+    private static final long DEFAULT_PARALLEL_DOWNLOAD_THRESHOLD = 64 * MB;
+
+    /** Default size of each byte range fetched during a parallel download. */
+    private static final long DEFAULT_PARALLEL_DOWNLOAD_PART_SIZE = 16 * MB;
+
+    /** Default maximum part size for adaptive multipart uploads. */
+    private static final long DEFAULT_MAXIMUM_UPLOAD_PART_SIZE = 256 * MB;
+
+    /** Default number of threads listing directories in a streaming directory transfer. */
+    private static final int DEFAULT_DIRECTORY_LISTING_THREADS = 4;
+
+    /** Default maximum number of objects queued for download in a streaming directory download. */
+    private static final int DEFAULT_MAXIMUM_QUEUED_DIRECTORY_DOWNLOADS = 1000;
+
+    /** Default maximum number of files queued for upload in a streaming directory upload. */
+    private static final int DEFAULT_MAXIMUM_QUEUED_DIRECTORY_UPLOADS = 1000;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -77,6 +95,73 @@ public class TransferManagerConfiguration {
      */
     private long multipartCopyPartSize = DEFAULT_MINIMUM_COPY_PART_SIZE;
 
+    /**
+     * Whether downloads over the parallel download threshold are split into
+     * byte ranges which are fetched concurrently and written into the
+     * destination file at their respective offsets. Disabled by default.
+     */
+    private boolean parallelDownloadEnabled = false;
+
+    /**
+     * The size threshold, in bytes, for when to use parallel ranged downloads.
+     * Downloads over this size will be split into multiple ranged GET requests
+     * when parallel downloads are enabled, while downloads smaller than this
+     * threshold will use a single connection to download the whole object.
+     */
+    private long parallelDownloadThreshold = DEFAULT_PARALLEL_DOWNLOAD_THRESHOLD;
+
+    /**
+     * The minimum size in bytes of each byte range fetched when a parallel
+     * download is carried out.
+     */
+    private long parallelDownloadPartSize = DEFAULT_PARALLEL_DOWNLOAD_PART_SIZE;
+
+    /**
+     * Whether parallel multipart uploads adapt their part size and the number
+     * of parts in flight to the throughput measured while uploading. Disabled
+     * by default.
+     */
+    private boolean adaptiveUploadEnabled = false;
+
+    /**
+     * The maximum part size for upload parts when adaptive uploads are
+     * enabled. The part size grows towards this size as long as parts upload
+     * quickly.
+     */
+    private long maximumUploadPartSize = DEFAULT_MAXIMUM_UPLOAD_PART_SIZE;
+
+    /**
+     * Whether directory downloads start downloading objects as soon as they
+     * are listed, instead of listing the whole virtual directory first.
+     * Disabled by default.
+     */
+    private boolean streamingDirectoryDownloadEnabled = false;
+
+    /**
+     * Whether directory uploads start uploading files as soon as they are
+     * listed, instead of listing all the files first. Disabled by default.
+     */
+    private boolean streamingDirectoryUploadEnabled = false;
+
+    /**
+     * The number of threads concurrently listing the virtual subdirectories
+     * of a streaming directory download, or the subdirectories of a streaming
+     * directory upload.
+     */
+    private int directoryListingThreads = DEFAULT_DIRECTORY_LISTING_THREADS;
+
+    /**
+     * The maximum number of listed objects of a streaming directory download
+     * which are waiting to be downloaded or being downloaded at once.
+     */
+    private int maximumQueuedDirectoryDownloads = DEFAULT_MAXIMUM_QUEUED_DIRECTORY_DOWNLOADS;
+
+    /**
+     * The maximum number of listed files of a streaming directory upload which
+     * are waiting to be uploaded or being uploaded at once.
+     */
+    private int maximumQueuedDirectoryUploads = DEFAULT_MAXIMUM_QUEUED_DIRECTORY_UPLOADS;
+
     /**
      * Returns the minimum part size for upload parts.
      * Decreasing the minimum part size causes
@@ -192,4 +277,263 @@ public class TransferManagerConfiguration {
     public void setMultipartCopyThreshold(long multipartCopyThreshold) {
         this.multipartCopyThreshold = multipartCopyThreshold;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns true if downloads over the parallel download threshold are split
+     * into byte ranges which are fetched concurrently on the
+     * <code>TransferManager</code> thread pool.
+     *
+     * @return True if parallel ranged downloads are enabled.
+     */
+    public boolean isParallelDownloadEnabled() {
+        return parallelDownloadEnabled;
+    }
+
+    /**
+     * Sets whether downloads over the parallel download threshold are split
+     * into byte ranges which are fetched concurrently on the
+     * <code>TransferManager</code> thread pool, and written into the
+     * destination file at their respective offsets.
+     * <p>
+     * Note that a ranged GET does not return the MD5 of the whole object, so
+     * the client side integrity check performed for single connection
+     * downloads is skipped for parallel downloads.
+     *
+     * @param parallelDownloadEnabled
+     *            True to enable parallel ranged downloads.
+     */
+    public void setParallelDownloadEnabled(boolean parallelDownloadEnabled) {
+        this.parallelDownloadEnabled = parallelDownloadEnabled;
+    }
+
+    /**
+     * Returns the size threshold in bytes for when to use parallel ranged
+     * downloads. Downloads over this size will be split into multiple ranged
+     * GET requests when parallel downloads are enabled.
+     *
+     * @return The size threshold in bytes for when to use parallel downloads.
+     */
+    public long getParallelDownloadThreshold() {
+        return parallelDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to use parallel ranged
+     * downloads. Downloads over this size will be split into multiple ranged
+     * GET requests when parallel downloads are enabled, while downloads
+     * smaller than this threshold will use a single connection to download the
+     * whole object.
+     *
+     * @param parallelDownloadThreshold
+     *            The size threshold in bytes for when to use parallel
+     *            downloads.
+     */
+    public void setParallelDownloadThreshold(long parallelDownloadThreshold) {
+        this.parallelDownloadThreshold = parallelDownloadThreshold;
+    }
+
+    /**
+     * Returns the minimum size in bytes of each byte range fetched during a
+     * parallel download.
+     *
+     * @return The minimum size in bytes of each part of a parallel download.
+     */
+    public long getParallelDownloadPartSize() {
+        return parallelDownloadPartSize;
+    }
+
+    /**
+     * Sets the minimum size in bytes of each byte range fetched during a
+     * parallel download. Decreasing this size will result in an increase in
+     * the number of ranged GET requests sent to Amazon S3.
+     *
+     * @param parallelDownloadPartSize
+     *            The minimum size in bytes of each part of a parallel
+     *            download.
+     */
+    public void setParallelDownloadPartSize(long parallelDownloadPartSize) {
+        this.parallelDownloadPartSize = parallelDownloadPartSize;
+    }
+
+    /**
+     * Returns true if parallel multipart uploads adapt their part size and the
+     * number of parts in flight to the throughput measured while uploading.
+     *
+     * @return True if adaptive uploads are enabled.
+     */
+    public boolean isAdaptiveUploadEnabled() {
+        return adaptiveUploadEnabled;
+    }
+
+    /**
+     * Sets whether parallel multipart uploads, that is uploads of files, adapt
+     * their part size and the number of parts in flight to the throughput
+     * measured while uploading.
+     * <p>
+     * An adaptive upload starts with a few parts of the minimum upload part
+     * size in flight. The number of parts in flight keeps doubling while this
+     * raises the throughput of the upload, up to the size of the
+     * <code>TransferManager</code> thread pool, and is halved when Amazon S3
+     * throttles a part; a throttled part is uploaded again. The part size
+     * grows, up to the maximum upload part size, so that each part takes a
+     * couple of seconds to upload.
+     * <p>
+     * Note that the parts of an adaptive upload differ in size, so adaptive
+     * uploads can not be paused and resumed later. Resumed uploads never
+     * adapt their part size.
+     *
+     * @param adaptiveUploadEnabled
+     *            True to enable adaptive uploads.
+     */
+    public void setAdaptiveUploadEnabled(boolean adaptiveUploadEnabled) {
+        this.adaptiveUploadEnabled = adaptiveUploadEnabled;
+    }
+
+    /**
+     * Returns the maximum part size for upload parts when adaptive uploads are
+     * enabled.
+     *
+     * @return The maximum part size for adaptive upload parts.
+     */
+    public long getMaximumUploadPartSize() {
+        return maximumUploadPartSize;
+    }
+
+    /**
+     * Sets the maximum part size for upload parts when adaptive uploads are
+     * enabled. Parts grow up to this size as long as they upload quickly; a
+     * larger part costs more to upload again when it fails.
+     *
+     * @param maximumUploadPartSize
+     *            The maximum part size for adaptive upload parts.
+     */
+    public void setMaximumUploadPartSize(long maximumUploadPartSize) {
+        this.maximumUploadPartSize = maximumUploadPartSize;
+    }
+
+    /**
+     * Returns true if directory downloads start downloading objects as soon
+     * as they are listed.
+     *
+     * @return True if streaming directory downloads are enabled.
+     */
+    public boolean isStreamingDirectoryDownloadEnabled() {
+        return streamingDirectoryDownloadEnabled;
+    }
+
+    /**
+     * Sets whether directory downloads start downloading objects as soon as
+     * they are listed, instead of listing the whole virtual directory first.
+     * <p>
+     * A streaming directory download lists the virtual subdirectories
+     * concurrently and feeds the listed objects to the
+     * <code>TransferManager</code> thread pool through a bounded queue, so
+     * that neither the time before the first download starts nor the memory
+     * used grows with the number of objects. The total size of the transfer
+     * grows as objects are listed.
+     *
+     * @param streamingDirectoryDownloadEnabled
+     *            True to enable streaming directory downloads.
+     */
+    public void setStreamingDirectoryDownloadEnabled(boolean streamingDirectoryDownloadEnabled) {
+        this.streamingDirectoryDownloadEnabled = streamingDirectoryDownloadEnabled;
+    }
+
+    /**
+     * Returns the number of threads concurrently listing the virtual
+     * subdirectories of a streaming directory download, or the subdirectories
+     * of a streaming directory upload.
+     *
+     * @return The number of directory listing threads.
+     */
+    public int getDirectoryListingThreads() {
+        return directoryListingThreads;
+    }
+
+    /**
+     * Sets the number of threads concurrently listing the virtual
+     * subdirectories of a streaming directory download, or the subdirectories
+     * of a streaming directory upload. Each streaming directory transfer
+     * starts its own listing threads.
+     *
+     * @param directoryListingThreads
+     *            The number of directory listing threads.
+     */
+    public void setDirectoryListingThreads(int directoryListingThreads) {
+        this.directoryListingThreads = directoryListingThreads;
+    }
+
+    /**
+     * Returns the maximum number of listed objects of a streaming directory
+     * download which are waiting to be downloaded or being downloaded at once.
+     *
+     * @return The maximum number of queued directory downloads.
+     */
+    public int getMaximumQueuedDirectoryDownloads() {
+        return maximumQueuedDirectoryDownloads;
+    }
+
+    /**
+     * Sets the maximum number of listed objects of a streaming directory
+     * download which are waiting to be downloaded or being downloaded at once.
+     * Listing pauses while this many objects are queued.
+     *
+     * @param maximumQueuedDirectoryDownloads
+     *            The maximum number of queued directory downloads.
+     */
+    public void setMaximumQueuedDirectoryDownloads(int maximumQueuedDirectoryDownloads) {
+        this.maximumQueuedDirectoryDownloads = maximumQueuedDirectoryDownloads;
+    }
+
+    /**
+     * Returns true if directory uploads start uploading files as soon as they
+     * are listed.
+     *
+     * @return True if streaming directory uploads are enabled.
+     */
+    public boolean isStreamingDirectoryUploadEnabled() {
+        return streamingDirectoryUploadEnabled;
+    }
+
+    /**
+     * Sets whether directory uploads start uploading files as soon as they are
+     * listed, instead of listing all the files first.
+     * <p>
+     * A streaming directory upload lists the subdirectories concurrently and
+     * feeds the listed files to the <code>TransferManager</code> thread pool
+     * through a bounded queue, so that memory use does not grow with the
+     * number of files. The total size of the transfer grows as directories
+     * are listed, and the sub-transfers of the upload only include the
+     * uploads which have not completed. The
+     * <code>ObjectMetadataProvider</code> of the upload, if any, is called
+     * from several threads.
+     *
+     * @param streamingDirectoryUploadEnabled
+     *            True to enable streaming directory uploads.
+     */
+    public void setStreamingDirectoryUploadEnabled(boolean streamingDirectoryUploadEnabled) {
+        this.streamingDirectoryUploadEnabled = streamingDirectoryUploadEnabled;
+    }
+
+    /**
+     * Returns the maximum number of listed files of a streaming directory
+     * upload which are waiting to be uploaded or being uploaded at once.
+     *
+     * @return The maximum number of queued directory uploads.
+     */
+    public int getMaximumQueuedDirectoryUploads() {
+        return maximumQueuedDirectoryUploads;
+    }
+
+    /**
+     * Sets the maximum number of listed files of a streaming directory upload
+     * which are waiting to be uploaded or being uploaded at once. Listing
+     * pauses while this many files are queued.
+     *
+     * @param maximumQueuedDirectoryUploads
+     *            The maximum number of queued directory uploads.
+     */
+    public void setMaximumQueuedDirectoryUploads(int maximumQueuedDirectoryUploads) {
+        this.maximumQueuedDirectoryUploads = maximumQueuedDirectoryUploads;
+    }
+}
@@ -94,4 +94,12 @@ public final class TransferProgress {
     public void setTotalBytesToTransfer(long totalBytesToTransfer) {
         this.totalBytesToTransfer = totalBytesToTransfer;
     }
+
+    /**
+     * Adds to the total size of a transfer whose parts are discovered while
+     * it is in progress.
+     */
+    synchronized void addTotalBytesToTransfer(long bytes) {
+        this.totalBytesToTransfer += bytes;
+    }
 }
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
+import com.amazonaws.services.s3.transfer.model.UploadResult;
+
+/**
+ * Uploads the parts of a parallel multipart upload, adapting the part size and
+ * the number of parts in flight to the throughput measured while uploading.
+ * <p>
+ * The number of parts in flight starts small and doubles after each round of
+ * parts for as long as this raises the throughput of the upload. It doubles
+ * again when the throughput later rises, and is halved, at most once a round,
+ * when Amazon S3 throttles a part; throttled parts are uploaded again. Once
+ * the number of parts in flight has first settled, the part size follows the
+ * throughput of a single part, so that each part takes about
+ * {@link #TARGET_PART_UPLOAD_NANOS} to upload.
+ * <p>
+ * No thread waits for the parts: each part, as it finishes, submits the next
+ * ones, and the last one runs the task completing the multipart upload.
+ */
+class AdaptivePartUploader {
+
+    private static final Log log = LogFactory.getLog(AdaptivePartUploader.class);
+
+    /** The number of parts in flight when the upload starts. */
+    private static final int INITIAL_PARTS_IN_FLIGHT = 2;
+
+    /** The number of parts in flight when the thread pool does not bound it. */
+    private static final int MAXIMUM_PARTS_IN_FLIGHT = 64;
+
+    /** The time each part should take to upload. */
+    private static final long TARGET_PART_UPLOAD_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /** The number of times a part is uploaded before a throttle fails the upload. */
+    private static final int MAXIMUM_THROTTLED_ATTEMPTS = 4;
+
+    /** The throughput gain that doubling the parts in flight has to bring. */
+    private static final double MINIMUM_GAIN = 1.1;
+
+    /** The rise of throughput after which the parts in flight are doubled again. */
+    private static final double STEADY_TOLERANCE = 0.25;
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final UploadPartRequestFactory requestFactory;
+    private final long minimumPartSize;
+    private final long maximumPartSize;
+    private final int maximumPartsInFlight;
+
+    /** The futures of all the part uploads, for the upload to cancel them. */
+    private final List<Future<PartETag>> futures;
+
+    /** The futures of the uploaded parts, in part number order, once all are done. */
+    private final List<Future<PartETag>> partFutures = new ArrayList<Future<PartETag>>();
+
+    private FutureTask<UploadResult> completion;
+
+    /* The following are guarded by this. */
+    private final SortedMap<Integer, Future<PartETag>> partResults = new TreeMap<Integer, Future<PartETag>>();
+    private final Set<PartUploadTask> inFlight = new HashSet<PartUploadTask>();
+    private final LinkedList<PartUploadTask> throttled = new LinkedList<PartUploadTask>();
+    private int partsInFlightLimit;
+    private boolean probing = true;
+    /** Whether the number of parts in flight has settled once. */
+    private boolean settled;
+    private boolean stopped;
+    private boolean completed;
+    /** Average throughput of a single part, in bytes per nanosecond. */
+    private double partThroughput;
+    private long roundStartNanos;
+    private long roundBytes;
+    private int roundParts;
+    private double lastRoundThroughput;
+    private double steadyThroughput;
+    private long lastThrottleNanos;
+
+    AdaptivePartUploader(AmazonS3 s3, ExecutorService threadPool,
+            UploadPartRequestFactory requestFactory, long initialPartSize,
+            TransferManagerConfiguration configuration,
+            List<Future<PartETag>> futures) {
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.requestFactory = requestFactory;
+        this.minimumPartSize = initialPartSize;
+        this.maximumPartSize = Math.max(initialPartSize, configuration.getMaximumUploadPartSize());
+        this.futures = futures;
+        int poolSize = threadPool instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) threadPool).getMaximumPoolSize()
+                : MAXIMUM_PARTS_IN_FLIGHT;
+        this.maximumPartsInFlight = Math.max(1, Math.min(poolSize, MAXIMUM_PARTS_IN_FLIGHT));
+        this.partsInFlightLimit = Math.min(INITIAL_PARTS_IN_FLIGHT, maximumPartsInFlight);
+    }
+
+    /**
+     * Returns the futures of the uploaded parts, which are filled in before
+     * the completion task is run.
+     */
+    List<Future<PartETag>> getPartFutures() {
+        return partFutures;
+    }
+
+    /**
+     * Starts uploading the parts. The specified task is run once all the parts
+     * are uploaded, or once a part has failed and the other parts have
+     * stopped; it is not run if it has been cancelled.
+     */
+    void start(FutureTask<UploadResult> completion) {
+        this.completion = completion;
+        List<PartUploadTask> tasks;
+        synchronized (this) {
+            roundStartNanos = System.nanoTime();
+            tasks = nextTasks();
+        }
+        submit(tasks);
+        finishIfDone();
+    }
+
+    private void onPartDone(PartUploadTask task) {
+        List<PartUploadTask> toCancel = null;
+        List<PartUploadTask> tasks;
+        synchronized (this) {
+            inFlight.remove(task);
+            if (task.isCancelled()) {
+                stopped = true;
+            } else {
+                try {
+                    task.get();
+                    partResults.put(task.request.getPartNumber(), task);
+                    onPartUploaded(task);
+                } catch (ExecutionException e) {
+                    if (!stopped && isThrottle(e.getCause())
+                            && task.attempt < MAXIMUM_THROTTLED_ATTEMPTS) {
+                        throttled.add(new PartUploadTask(task.request, task.attempt + 1));
+                        onThrottled(task);
+                    } else {
+                        partResults.put(task.request.getPartNumber(), task);
+                        stopped = true;
+                        toCancel = new ArrayList<PartUploadTask>(inFlight);
+                    }
+                } catch (InterruptedException e) {
+                    // never happens, the task is done
+                    Thread.currentThread().interrupt();
+                }
+            }
+            tasks = nextTasks();
+        }
+        if (toCancel != null) {
+            for (PartUploadTask other : toCancel) {
+                other.cancel(true);
+            }
+        }
+        submit(tasks);
+        finishIfDone();
+    }
+
+    /**
+     * Runs the completion task once no part is in flight and no more parts are
+     * to be uploaded.
+     */
+    private void finishIfDone() {
+        synchronized (this) {
+            if (completed || !inFlight.isEmpty()) {
+                return;
+            }
+            if (!stopped && (!throttled.isEmpty() || requestFactory.hasMoreRequests())) {
+                return;
+            }
+            completed = true;
+            partFutures.addAll(partResults.values());
+        }
+        completion.run();
+    }
+
+    /** Takes the parts to upload next, as many as the limit allows. */
+    private List<PartUploadTask> nextTasks() {
+        List<PartUploadTask> tasks = new ArrayList<PartUploadTask>();
+        if (stopped || completion.isCancelled()) {
+            stopped = true;
+            return tasks;
+        }
+        while (inFlight.size() < partsInFlightLimit) {
+            PartUploadTask task;
+            if (!throttled.isEmpty()) {
+                task = throttled.removeFirst();
+            } else if (requestFactory.hasMoreRequests()) {
+                task = new PartUploadTask(requestFactory.getNextUploadPartRequest(nextPartSize()), 1);
+            } else {
+                break;
+            }
+            inFlight.add(task);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private void submit(List<PartUploadTask> tasks) {
+        for (PartUploadTask task : tasks) {
+            futures.add(task);
+            try {
+                threadPool.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.fail(new CancellationException("TransferManager has been shutdown"));
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the next part: what a single part uploads in the
+     * target time, but small enough to leave a part for each part in flight.
+     * Parts are kept small until the number of parts in flight has settled,
+     * so that the first rounds of parts are short.
+     */
+    private long nextPartSize() {
+        long partSize = settled
+                ? (long) (partThroughput * TARGET_PART_UPLOAD_NANOS)
+                : minimumPartSize;
+        partSize = Math.min(partSize, requestFactory.getRemainingBytes() / partsInFlightLimit);
+        return Math.min(Math.max(partSize, minimumPartSize), maximumPartSize);
+    }
+
+    private void onPartUploaded(PartUploadTask task) {
+        long now = System.nanoTime();
+        long bytes = task.request.getPartSize();
+        double throughput = (double) bytes / Math.max(1, now - task.startNanos);
+        partThroughput = partThroughput == 0 ? throughput : (partThroughput + throughput) / 2;
+
+        roundBytes += bytes;
+        if (++roundParts < partsInFlightLimit) {
+            return;
+        }
+        // A round is over when as many parts as may be in flight have finished
+        double roundThroughput = (double) roundBytes / Math.max(1, now - roundStartNanos);
+        if (probing) {
+            if (lastRoundThroughput == 0 || roundThroughput >= lastRoundThroughput * MINIMUM_GAIN) {
+                if (partsInFlightLimit < maximumPartsInFlight) {
+                    partsInFlightLimit = Math.min(partsInFlightLimit * 2, maximumPartsInFlight);
+                } else {
+                    probing = false;
+                }
+            } else {
+                // The last doubling did not pay off
+                partsInFlightLimit = Math.max(1, partsInFlightLimit / 2);
+                probing = false;
+            }
+            if (!probing) {
+                settled = true;
+                steadyThroughput = Math.max(roundThroughput, lastRoundThroughput);
+            }
+        } else if (steadyThroughput == 0) {
+            steadyThroughput = roundThroughput;
+        } else if (roundThroughput > steadyThroughput * (1 + STEADY_TOLERANCE)) {
+            // More bandwidth may have become available
+            probing = true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Upload throughput " + (long) (roundThroughput * 1e9) + " bytes/s, "
+                    + partsInFlightLimit + " parts in flight, part size " + nextPartSize());
+        }
+        lastRoundThroughput = roundThroughput;
+        startRound(now);
+    }
+
+    private void onThrottled(PartUploadTask task) {
+        if (task.startNanos < lastThrottleNanos) {
+            // The limit has been halved since this part started
+            return;
+        }
+        lastThrottleNanos = System.nanoTime();
+        partsInFlightLimit = Math.max(1, partsInFlightLimit / 2);
+        probing = false;
+        settled = true;
+        steadyThroughput = 0;
+        lastRoundThroughput = 0;
+        startRound(System.nanoTime());
+        log.debug("Upload part throttled, " + partsInFlightLimit + " parts in flight");
+    }
+
+    private void startRound(long now) {
+        roundStartNanos = now;
+        roundBytes = 0;
+        roundParts = 0;
+    }
+
+    private static boolean isThrottle(Throwable t) {
+        if (!(t instanceof AmazonServiceException)) {
+            return false;
+        }
+        AmazonServiceException ase = (AmazonServiceException) t;
+        return ase.getStatusCode() == 503 || RetryUtils.isThrottlingException(ase);
+    }
+
+    /**
+     * Uploads a part, recording when it started, and reports back to the
+     * uploader when it is done.
+     */
+    private class PartUploadTask extends FutureTask<PartETag> {
+        private final UploadPartRequest request;
+        private final int attempt;
+        private volatile long startNanos;
+
+        PartUploadTask(UploadPartRequest request, int attempt) {
+            super(new UploadPartCallable(s3, request));
+            this.request = request;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            startNanos = System.nanoTime();
+            super.run();
+        }
+
+        void fail(Throwable t) {
+            setException(t);
+        }
+
+        @Override
+        protected void done() {
+            onPartDone(this);
+        }
+    }
+}
@@ -35,6 +35,11 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     private final PersistableDownload persistableDownload;
 
+    /**
+     * The shared state of the parts if this is a parallel download; or null.
+     */
+    private ParallelDownloadContext parallelDownloadContext;
+
     public DownloadImpl(String description, TransferProgress transferProgress,
             ProgressListenerChain progressListenerChain, S3Object s3Object,
             TransferStateChangeListener listener,
@@ -81,6 +86,7 @@ public class DownloadImpl extends AbstractTransfer implements Download {
     public synchronized void abort() throws IOException {
 
         this.monitor.getFuture().cancel(true);
+        abortParallelDownload();
 
         if ( s3Object != null ) {
               s3Object.getObjectContent().abort();
@@ -95,6 +101,7 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     public synchronized void abortWithoutNotifyingStateChangeListener() throws IOException {
         this.monitor.getFuture().cancel(true);
+        abortParallelDownload();
         this.state = TransferState.Canceled;
     }
 
@@ -105,6 +112,23 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         this.s3Object = s3Object;
     }
 
+    /**
+     * Set the shared state of the parts if this is a parallel download.
+     */
+    public synchronized void setParallelDownloadContext(
+            ParallelDownloadContext parallelDownloadContext) {
+        this.parallelDownloadContext = parallelDownloadContext;
+    }
+
+    /**
+     * Signals the parts of a parallel download, if any, to stop downloading.
+     */
+    private synchronized void abortParallelDownload() {
+        if (parallelDownloadContext != null) {
+            parallelDownloadContext.abort();
+        }
+    }
+
     /**
      * This method is also responsible for firing COMPLETED signal to the
      * listeners.
@@ -145,6 +169,7 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         boolean forceCancel = true;
         TransferState currentState = getState();
         this.monitor.getFuture().cancel(true);
+        abortParallelDownload();
 
         if (persistableDownload == null) {
             throw new PauseException(TransferManagerUtils.determinePauseStatus(
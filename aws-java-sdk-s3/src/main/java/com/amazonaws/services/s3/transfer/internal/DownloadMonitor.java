@@ -18,7 +18,7 @@ import java.util.concurrent.Future;
 
 public class DownloadMonitor implements TransferMonitor {
 
-    private final Future<?> future;
+    private Future<?> future;
     private final DownloadImpl download;
 
     public DownloadMonitor(DownloadImpl download, Future<?> future) {
@@ -27,10 +27,18 @@ public class DownloadMonitor implements TransferMonitor {
     }
 
     @Override
-    public Future<?> getFuture() {
+    public synchronized Future<?> getFuture() {
         return future;
     }
 
+    /**
+     * Replaces the future being monitored; used when the download continues
+     * in a separate task, such as the completion of a parallel download.
+     */
+    public synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
     @Override
     public boolean isDone() {
         return download.isDone();
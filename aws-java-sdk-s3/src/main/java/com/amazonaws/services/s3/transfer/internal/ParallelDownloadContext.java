@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.services.s3.internal.FileLocks;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+
+/**
+ * State shared by all the parts of a parallel ranged download.
+ * <p>
+ * Each part is fetched with its own ranged GET request and written into the
+ * destination file at its offset through a single positional
+ * {@link FileChannel}. Within a part the bytes are always written in order,
+ * so the longest contiguous run of downloaded bytes at the start of the
+ * remaining range can be computed at any time. When the download stops
+ * before all the parts have completed, the destination file is truncated to
+ * that length once the last part exits. This keeps the length of the file
+ * equal to the number of bytes safely downloaded, which is what
+ * {@link com.amazonaws.services.s3.transfer.PersistableDownload} relies on
+ * to resume a paused download.
+ */
+public class ParallelDownloadContext {
+    private static final Log log = LogFactory.getLog(ParallelDownloadContext.class);
+
+    /** The destination file. */
+    private final File file;
+
+    /** The file opened for positional writes by the parts. */
+    private final RandomAccessFile randomAccessFile;
+
+    /** The channel used for positional writes by the parts. */
+    private final FileChannel channel;
+
+    /** The position in the file at which the first part starts. */
+    private final long fileOffset;
+
+    /** The total number of bytes to be downloaded across all the parts. */
+    private final long totalBytes;
+
+    /** The size of every part but the last one. */
+    private final long partSize;
+
+    /** The number of bytes written so far for each part. */
+    private final AtomicLongArray bytesWritten;
+
+    /** The number of parts which have not yet exited. */
+    private final AtomicInteger remainingParts;
+
+    /** The objects whose content is currently being read by the parts. */
+    private final Set<S3Object> inflightObjects = new HashSet<S3Object>();
+
+    /** True if the parts should stop downloading as soon as possible. */
+    private volatile boolean aborted;
+
+    /** The first error which caused the download to be aborted, if any. */
+    private Throwable failure;
+
+    /**
+     * Opens the specified file for positional writes by the parts of a
+     * parallel download. The caller must already hold the
+     * {@link FileLocks lock} on the file; it is released once the last part
+     * exits.
+     *
+     * @param file
+     *            The destination file.
+     * @param fileOffset
+     *            The position in the file at which the first part starts;
+     *            any existing content after this position is discarded.
+     * @param totalBytes
+     *            The total number of bytes to be downloaded.
+     * @param partSize
+     *            The size of each part.
+     */
+    public ParallelDownloadContext(File file, long fileOffset,
+            long totalBytes, long partSize) throws IOException {
+        if (partSize <= 0)
+            throw new IllegalArgumentException("partSize must be positive");
+        this.file = file;
+        this.fileOffset = fileOffset;
+        this.totalBytes = totalBytes;
+        this.partSize = partSize;
+
+        int numParts = (int) ((totalBytes + partSize - 1) / partSize);
+        this.bytesWritten = new AtomicLongArray(numParts);
+        this.remainingParts = new AtomicInteger(numParts);
+
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+        try {
+            channel.truncate(fileOffset);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(randomAccessFile, log);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of parts in this download.
+     */
+    public int getNumberOfParts() {
+        return bytesWritten.length();
+    }
+
+    /**
+     * Returns the number of bytes the specified part has to download.
+     */
+    public long getPartLength(int partIndex) {
+        return Math.min(partSize, totalBytes - partIndex * partSize);
+    }
+
+    /**
+     * Returns the offset, relative to the first byte of this download, at
+     * which the specified part starts.
+     */
+    public long getPartOffset(int partIndex) {
+        return partIndex * partSize;
+    }
+
+    /**
+     * Returns the number of bytes written so far for the specified part.
+     */
+    public long getBytesWritten(int partIndex) {
+        return bytesWritten.get(partIndex);
+    }
+
+    /**
+     * Returns true if all the bytes of the specified part have been written.
+     */
+    public boolean isPartComplete(int partIndex) {
+        return bytesWritten.get(partIndex) == getPartLength(partIndex);
+    }
+
+    /**
+     * Returns true if all the bytes of all the parts have been written.
+     */
+    public boolean isComplete() {
+        return getContiguousBytesWritten() == totalBytes;
+    }
+
+    /**
+     * Writes the given bytes into the destination file right after the bytes
+     * previously written for the specified part. Each part must only be
+     * written by a single thread.
+     */
+    public void write(int partIndex, byte[] buffer, int length)
+            throws IOException {
+        long written = bytesWritten.get(partIndex);
+        if (written + length > getPartLength(partIndex)) {
+            throw new IOException("Received more data than requested for part "
+                    + (partIndex + 1) + " of " + file);
+        }
+        long position = fileOffset + getPartOffset(partIndex) + written;
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+        while (byteBuffer.hasRemaining()) {
+            position += channel.write(byteBuffer, position);
+        }
+        bytesWritten.addAndGet(partIndex, length);
+    }
+
+    /**
+     * Returns the number of bytes that have been written contiguously from
+     * the start of this download.
+     */
+    public long getContiguousBytesWritten() {
+        long contiguous = 0;
+        for (int i = 0; i < bytesWritten.length(); i++) {
+            long written = bytesWritten.get(i);
+            contiguous += written;
+            if (written < getPartLength(i))
+                break;
+        }
+        return contiguous;
+    }
+
+    /**
+     * Returns true if the parts should stop downloading.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Signals all the parts to stop downloading, aborting the content streams
+     * that are currently being read.
+     */
+    public void abort() {
+        aborted = true;
+        synchronized (inflightObjects) {
+            for (S3Object s3Object : inflightObjects) {
+                s3Object.getObjectContent().abort();
+            }
+        }
+    }
+
+    /**
+     * Records the given error as the cause of this download failing and
+     * signals all the parts to stop downloading. Only the first error
+     * recorded is retained.
+     */
+    public void fail(Throwable t) {
+        synchronized (this) {
+            if (failure == null)
+                failure = t;
+        }
+        abort();
+    }
+
+    /**
+     * Returns the first error which caused this download to fail; or null if
+     * there is none.
+     */
+    public synchronized Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Registers the object whose content is being read by a part, so that the
+     * read can be aborted if the download is aborted.
+     *
+     * @return false if the download has already been aborted, in which case
+     *         the object has not been registered.
+     */
+    public boolean register(S3Object s3Object) {
+        synchronized (inflightObjects) {
+            if (aborted)
+                return false;
+            inflightObjects.add(s3Object);
+            return true;
+        }
+    }
+
+    /**
+     * Unregisters an object previously registered via
+     * {@link #register(S3Object)}.
+     */
+    public void unregister(S3Object s3Object) {
+        synchronized (inflightObjects) {
+            inflightObjects.remove(s3Object);
+        }
+    }
+
+    /**
+     * Must be called exactly once by each part when it exits, whether it has
+     * completed or not. The last part to exit truncates the destination file
+     * to the contiguous bytes written if the download is incomplete, closes
+     * the file and releases the lock on it.
+     */
+    public void partExited() {
+        if (remainingParts.decrementAndGet() > 0)
+            return;
+        try {
+            long contiguous = getContiguousBytesWritten();
+            if (contiguous < totalBytes) {
+                log.info("Truncating " + file + " to "
+                        + (fileOffset + contiguous)
+                        + " bytes for incomplete parallel download");
+                channel.truncate(fileOffset + contiguous);
+            }
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            IOUtils.closeQuietly(randomAccessFile, log);
+            FileLocks.unlock(file);
+        }
+    }
+}
@@ -164,6 +164,55 @@ public class TransferManagerUtils {
                 configuration.getMultipartCopyPartSize());
     }
 
+    /**
+     * Returns true if a download of the specified number of bytes should be
+     * split into byte ranges which are fetched in parallel.
+     *
+     * @param totalBytesToDownload
+     *            The number of bytes remaining to be downloaded.
+     * @param configuration
+     *            Configuration settings controlling how transfer manager
+     *            processes requests.
+     * @param isUsingEncryption
+     *            True if the download is an encrypted download, otherwise
+     *            false.
+     *
+     * @return True if the download should be carried out as a parallel ranged
+     *         download.
+     */
+    public static boolean shouldUseParallelDownload(long totalBytesToDownload,
+            TransferManagerConfiguration configuration,
+            boolean isUsingEncryption) {
+        // Ranged GETs of client side encrypted objects have to be aligned
+        // along cipher block boundaries and decrypted from the start of the
+        // object, so we cannot fetch them concurrently.
+        if (isUsingEncryption) return false;
+
+        return configuration.isParallelDownloadEnabled()
+                && totalBytesToDownload > configuration.getParallelDownloadThreshold();
+    }
+
+    /**
+     * Calculates the optimal size of each byte range fetched if the download
+     * is carried out as a parallel ranged download.
+     *
+     * @param totalBytesToDownload
+     *            The number of bytes remaining to be downloaded.
+     * @param configuration
+     *            configuration containing the default part size.
+     * @return the optimal size for each ranged GET request.
+     */
+    public static long calculateOptimalPartSizeForDownload(
+            long totalBytesToDownload,
+            TransferManagerConfiguration configuration) {
+        double optimalPartSize = (double) totalBytesToDownload
+                / (double) MAXIMUM_UPLOAD_PARTS;
+        // round up so we don't split the download into too many parts
+        optimalPartSize = Math.ceil(optimalPartSize);
+        return (long) Math.max(optimalPartSize,
+                configuration.getParallelDownloadPartSize());
+    }
+
     /**
      * Determines the pause status based on the current state of transfer.
      */
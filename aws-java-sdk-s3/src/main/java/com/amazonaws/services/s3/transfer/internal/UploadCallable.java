@@ -18,6 +18,7 @@ import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -62,7 +63,8 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private static final Log log = LogFactory.getLog(UploadCallable.class);
     private final TransferManagerConfiguration configuration;
-    private final List<Future<PartETag>> futures = new ArrayList<Future<PartETag>>();
+    private final List<Future<PartETag>> futures = Collections
+            .synchronizedList(new ArrayList<Future<PartETag>>());
     private final ProgressListenerChain listener;
     private final TransferProgress transferProgress;
 
@@ -74,6 +76,12 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private PersistableUpload persistableUpload;
 
+    /**
+     * Uploads the parts when the upload adapts its part size and concurrency;
+     * null otherwise.
+     */
+    private AdaptivePartUploader adaptivePartUploader;
+
     public UploadCallable(TransferManager transferManager,
             ExecutorService threadPool, UploadImpl upload,
             PutObjectRequest origReq,
@@ -106,6 +114,14 @@ public class UploadCallable implements Callable<UploadResult> {
         return multipartUploadId;
     }
 
+    /**
+     * Returns the uploader of the parts if this is an adaptive parallel
+     * upload, which has not started uploading the parts yet; null otherwise.
+     */
+    AdaptivePartUploader getAdaptivePartUploader() {
+        return adaptivePartUploader;
+    }
+
     /**
      * Returns true if this UploadCallable is processing a multipart upload.
      * @return True if this UploadCallable is processing a multipart upload.
@@ -172,6 +188,8 @@ public class UploadCallable implements Callable<UploadResult> {
     private UploadResult uploadInParts() throws Exception {
         boolean isUsingEncryption = s3 instanceof AmazonS3Encryption;
         long optimalPartSize = getOptimalPartSize(isUsingEncryption);
+        // The parts of a resumed upload must line up with the uploaded ones
+        final boolean isResuming = multipartUploadId != null;
 
         try {
             if (multipartUploadId == null) {
@@ -182,6 +200,14 @@ public class UploadCallable implements Callable<UploadResult> {
             UploadPartRequestFactory requestFactory = new UploadPartRequestFactory(origReq, multipartUploadId, optimalPartSize);
 
             if (TransferManagerUtils.isUploadParallelizable(origReq, isUsingEncryption)) {
+                if (configuration.isAdaptiveUploadEnabled() && !isResuming) {
+                    // Parts of varying size can not be resumed, so the state
+                    // of an adaptive upload is not captured
+                    adaptivePartUploader = new AdaptivePartUploader(s3,
+                            threadPool, requestFactory, optimalPartSize,
+                            configuration, futures);
+                    return null;
+                }
                 captureUploadStateIfPossible();
                 uploadPartsInParallel(requestFactory, multipartUploadId);
                 return null;
@@ -23,6 +23,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.event.ProgressEventType;
@@ -144,6 +145,20 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
              * request.
              */
             if (result == null) {
+                AdaptivePartUploader partUploader = multipartUploadCallable
+                        .getAdaptivePartUploader();
+                if (partUploader != null) {
+                    // The parts are submitted as earlier parts finish, and the
+                    // last one runs the completion task
+                    FutureTask<UploadResult> completion = new FutureTask<UploadResult>(
+                            new CompleteMultipartUpload(
+                                    multipartUploadCallable.getMultipartUploadId(), s3,
+                                    origReq, partUploader.getPartFutures(),
+                                    multipartUploadCallable.getETags(), listener, this));
+                    setFuture(completion);
+                    partUploader.start(completion);
+                    return result;
+                }
                 futures.addAll(multipartUploadCallable.getFutures());
                 setFuture(threadPool.submit(new CompleteMultipartUpload(
                         multipartUploadCallable.getMultipartUploadId(), s3,
@@ -208,6 +223,14 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
         for (Future<PartETag> f : futures) {
             f.cancel(true);
         }
+        // Parts of adaptive uploads are submitted after this monitor has run
+        List<Future<PartETag>> partFutures = multipartUploadCallable.getFutures();
+        synchronized (partFutures) {
+            partFutures = new ArrayList<Future<PartETag>>(partFutures);
+        }
+        for (Future<PartETag> f : partFutures) {
+            f.cancel(true);
+        }
         multipartUploadCallable.getFutures().clear();
         futures.clear();
     }
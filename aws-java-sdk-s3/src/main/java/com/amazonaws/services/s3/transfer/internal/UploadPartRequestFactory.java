@@ -14,6 +14,8 @@
  */
 package com.amazonaws.services.s3.transfer.internal;
 
+import static com.amazonaws.services.s3.internal.Constants.MAXIMUM_UPLOAD_PARTS;
+
 import java.io.File;
 import java.io.FileInputStream;
 
@@ -73,8 +75,28 @@ public class UploadPartRequestFactory {
         return (remainingBytes > 0);
     }
 
+    /**
+     * Returns the number of bytes not yet covered by a part request.
+     */
+    public synchronized long getRemainingBytes() {
+        return remainingBytes;
+    }
+
     public synchronized UploadPartRequest getNextUploadPartRequest() {
-        long partSize = Math.min(optimalPartSize, remainingBytes);
+        return getNextUploadPartRequest(optimalPartSize);
+    }
+
+    /**
+     * Returns the request for the next part, covering the specified number of
+     * bytes. The part size is raised if needed so that the remaining bytes fit
+     * into the maximum number of parts of a multipart upload.
+     */
+    public synchronized UploadPartRequest getNextUploadPartRequest(long requestedPartSize) {
+        int partsLeft = MAXIMUM_UPLOAD_PARTS - partNumber + 1;
+        long minimumPartSize = partsLeft > 0
+                ? (remainingBytes + partsLeft - 1) / partsLeft
+                : remainingBytes;
+        long partSize = Math.min(Math.max(requestedPartSize, minimumPartSize), remainingBytes);
         boolean isLastPart = (remainingBytes - partSize <= 0);
 
         UploadPartRequest req = null;
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+
+public class TransferManagerUploadFileListTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TransferManager tm;
+
+    @Before
+    public void setUp() {
+        tm = new TransferManager(new AmazonS3Client(new BasicAWSCredentials("access", "secret")));
+    }
+
+    @After
+    public void tearDown() {
+        tm.shutdownNow();
+    }
+
+    @Test(timeout = 10 * 1000)
+    public void testUploadFileListOfDirectoriesOnly() throws Exception {
+        MultipleFileUpload upload = tm.uploadFileList("bucket", "prefix", folder.getRoot(), directories());
+
+        upload.waitForCompletion();
+        assertTrue(upload.isDone());
+        assertTrue(upload.getSubTransfers().isEmpty());
+    }
+
+    @Test(timeout = 10 * 1000)
+    public void testStreamingUploadFileListOfDirectoriesOnly() throws Exception {
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setStreamingDirectoryUploadEnabled(true);
+        tm.setConfiguration(configuration);
+        MultipleFileUpload upload = tm.uploadFileList("bucket", "prefix", folder.getRoot(), directories());
+
+        upload.waitForCompletion();
+        assertTrue(upload.isDone());
+        assertEquals(TransferState.Completed, upload.getState());
+    }
+
+    private List<File> directories() throws IOException {
+        return Arrays.asList(folder.newFolder("a"), folder.newFolder("b"));
+    }
+}
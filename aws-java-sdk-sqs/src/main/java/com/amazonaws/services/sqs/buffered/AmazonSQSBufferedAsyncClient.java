@@ -329,6 +329,22 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         return buffer.deleteMessage(deleteMessageRequest, null);
     }
 
+    /**
+     * Returns a snapshot of the pre-fetching of messages from a queue: how many receive batches
+     * the client aims to keep in flight and buffered, and the consumption rate and receive latency
+     * these targets are derived from when adaptive pre-fetching is enabled.
+     * 
+     * @return the pre-fetch metrics of the queue, or null if this client has not buffered the
+     *         queue yet
+     */
+    public ReceivePrefetchMetrics getReceivePrefetchMetrics(String queueUrl) {
+        QueueBuffer buffer;
+        synchronized (this) {
+            buffer = buffers.get(queueUrl);
+        }
+        return buffer == null ? null : buffer.getReceivePrefetchMetrics();
+    }
+
     /**
      * Returns (creating it if necessary) a queue buffer for a particular queue Since we are only
      * storing a limited number of queue buffers, it is possible that as a result of calling this
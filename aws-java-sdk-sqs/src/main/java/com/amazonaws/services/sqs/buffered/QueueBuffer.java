@@ -18,6 +18,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -62,11 +63,18 @@ class QueueBuffer {
      */
     static ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory());;
 
+    /**
+     * This scheduler closes the outbound batches of all queue buffers once they have been open for
+     * long enough, so that no thread waits for a batch to fill. It also releases the pre-fetched
+     * messages which are not consumed in time.
+     */
+    static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+
     QueueBuffer(QueueBufferConfig paramConfig, String url, AmazonSQSAsync sqs) {
         realSqs = sqs;
         config = paramConfig;
-        sendBuffer = new SendQueueBuffer(sqs, executor, paramConfig, url);
-        receiveBuffer = new ReceiveQueueBuffer(sqs, executor, paramConfig, url);
+        sendBuffer = new SendQueueBuffer(sqs, executor, scheduler, paramConfig, url);
+        receiveBuffer = new ReceiveQueueBuffer(sqs, executor, scheduler, paramConfig, url);
     }
 
     /**
@@ -185,6 +193,13 @@ class QueueBuffer {
         return waitForFuture(future);
     }
 
+    /**
+     * @return a snapshot of the pre-fetching of messages from the queue
+     */
+    public ReceivePrefetchMetrics getReceivePrefetchMetrics() {
+        return receiveBuffer.getPrefetchMetrics();
+    }
+
     /**
      * Shuts down the queue buffer. Once this method has been called, the queue buffer is not
      * operational and all subsequent calls to it may fail
@@ -109,6 +109,17 @@ public class QueueBufferConfig {
 
     public static final int LONGPOLL_WAIT_TIMEOUT_SECONDS_DEFAULT = 20;
 
+    /**
+     * Should the number of receive batches be sized from the observed consumption rate? If true,
+     * maxInflightReceiveBatches and maxDoneReceiveBatches are upper bounds rather than fixed
+     * targets, and pre-fetched messages which are about to exceed their visibility timeout are
+     * released back to the queue.
+     */
+    private boolean adaptivePrefetching;
+
+    /** false */
+    public static final boolean ADAPTIVE_PREFETCHING_DEFAULT = false;
+
     public QueueBufferConfig(long maxBatchOpenMs, int maxInflightOutboundBatches, int maxInflightReceiveBatches,
             int maxDoneReceiveBatches, boolean paramLongPoll, long maxBatchSizeBytes, int visibilityTimeout,
             int longPollTimeout, int maxBatch) {
@@ -122,6 +133,7 @@ public class QueueBufferConfig {
         this.visibilityTimeoutSeconds = visibilityTimeout;
         this.longPollWaitTimeoutSeconds = longPollTimeout;
         this.maxBatchSize = maxBatch;
+        this.adaptivePrefetching = ADAPTIVE_PREFETCHING_DEFAULT;
     }
 
     public QueueBufferConfig() {
@@ -141,6 +153,7 @@ public class QueueBufferConfig {
         maxInflightOutboundBatches = other.maxInflightOutboundBatches;
         maxInflightReceiveBatches = other.maxInflightReceiveBatches;
         visibilityTimeoutSeconds = other.visibilityTimeoutSeconds;
+        adaptivePrefetching = other.adaptivePrefetching;
     }
 
     @Override
@@ -149,7 +162,8 @@ public class QueueBufferConfig {
                 + longPoll + ", maxInflightOutboundBatches=" + maxInflightOutboundBatches
                 + ", maxInflightReceiveBatches=" + maxInflightReceiveBatches + ", maxDoneReceiveBatches="
                 + maxDoneReceiveBatches + ", maxBatchSizeBytes=" + maxBatchSizeBytes + ", visibilityTimeoutSeconds="
-                + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds=" + longPollWaitTimeoutSeconds + "]";
+                + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds=" + longPollWaitTimeoutSeconds + ", adaptivePrefetching="
+                + adaptivePrefetching + "]";
     }
 
     /**
@@ -429,6 +443,40 @@ public class QueueBufferConfig {
         return this;
     }
 
+    /**
+     * If true, the number of concurrent and completed receive batches is sized from the rate at
+     * which messages are consumed, the latency of receive calls and the visibility timeout, up to
+     * maxInflightReceiveBatches and maxDoneReceiveBatches. Pre-fetched messages which have not
+     * been consumed when most of their visibility timeout has elapsed are released back to the
+     * queue with a ChangeMessageVisibilityBatch call, so that other consumers can receive them.
+     */
+    public boolean isAdaptivePrefetching() {
+        return adaptivePrefetching;
+    }
+
+    /**
+     * If true, the number of concurrent and completed receive batches is sized from the rate at
+     * which messages are consumed, the latency of receive calls and the visibility timeout, up to
+     * maxInflightReceiveBatches and maxDoneReceiveBatches. Pre-fetched messages which have not
+     * been consumed when most of their visibility timeout has elapsed are released back to the
+     * queue with a ChangeMessageVisibilityBatch call, so that other consumers can receive them.
+     */
+    public void setAdaptivePrefetching(boolean adaptivePrefetching) {
+        this.adaptivePrefetching = adaptivePrefetching;
+    }
+
+    /**
+     * If true, the number of concurrent and completed receive batches is sized from the rate at
+     * which messages are consumed, the latency of receive calls and the visibility timeout, up to
+     * maxInflightReceiveBatches and maxDoneReceiveBatches. Pre-fetched messages which have not
+     * been consumed when most of their visibility timeout has elapsed are released back to the
+     * queue with a ChangeMessageVisibilityBatch call, so that other consumers can receive them.
+     */
+    public QueueBufferConfig withAdaptivePrefetching(boolean adaptivePrefetching) {
+        setAdaptivePrefetching(adaptivePrefetching);
+        return this;
+    }
+
     /**
      * this method checks the config for validity. If the config is deemed to be invalid, an
      * informative exception is thrown.
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sqs.buffered;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Sizes the pre-fetching of a {@link ReceiveQueueBuffer} from the observed consumption rate.
+ * <p>
+ * The controller keeps exponentially weighted moving averages of the rate at which messages are
+ * handed out to callers, of the latency of receive calls and of the number of messages returned
+ * per receive call. From these it derives:
+ * <ul>
+ * <li>the number of in-flight receive batches needed to keep up with the consumers during one
+ * receive call; the target grows by one batch each time a batch brings messages while callers
+ * are still waiting for more, and shrinks by one batch at a time otherwise</li>
+ * <li>the number of completed batches which can be buffered and still be consumed before
+ * {@link #RELEASE_HEADROOM} of their visibility timeout is left</li>
+ * </ul>
+ * Both targets are clamped between one batch and the maximums of the {@link QueueBufferConfig}.
+ * Unless adaptive pre-fetching is enabled, the targets stay at those maximums and only the
+ * averages are kept, for the metrics.
+ * <p>
+ * Instances are thread-safe. The controller only ever holds its own monitor, so it may be called
+ * while holding the locks of the receive buffer.
+ */
+class ReceivePrefetchController {
+
+    private static final Log log = LogFactory.getLog(ReceivePrefetchController.class);
+
+    /** The weight of a new sample in the moving averages. */
+    private static final double ALPHA = 0.3;
+
+    /** The consumption rate is sampled at most this often. */
+    private static final long MIN_SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The fraction of the visibility timeout left when unconsumed pre-fetched messages are
+     * released back to the queue.
+     */
+    static final double RELEASE_HEADROOM = 0.2;
+
+    private final int maxInflightBatches;
+    private final int maxDoneBatches;
+    private final String qUrl;
+    private final boolean adaptive;
+
+    /** Messages handed out per second. */
+    private double consumptionRate = -1;
+    /** Receive call latency, in nanoseconds. */
+    private double receiveLatencyNanos = -1;
+    private double messagesPerBatch = -1;
+
+    private long consumedSinceSample;
+    private long sampleStartNanos = System.nanoTime();
+
+    private volatile int targetInflightBatches;
+    private volatile int targetDoneBatches;
+
+    private long releasedMessages;
+
+    ReceivePrefetchController(QueueBufferConfig config, String url) {
+        maxInflightBatches = Math.max(1, config.getMaxInflightReceiveBatches());
+        maxDoneBatches = Math.max(1, config.getMaxDoneReceiveBatches());
+        qUrl = url;
+        adaptive = config.isAdaptivePrefetching();
+        // Adaptive pre-fetching starts with a single batch and grows with the demand
+        targetInflightBatches = adaptive ? 1 : maxInflightBatches;
+        targetDoneBatches = adaptive ? 1 : maxDoneBatches;
+    }
+
+    /**
+     * Records that messages were handed out to a caller.
+     */
+    synchronized void messagesConsumed(int count) {
+        consumedSinceSample += count;
+    }
+
+    /**
+     * Records that messages which were not consumed in time were released back to the queue.
+     */
+    synchronized void messagesReleased(int count) {
+        releasedMessages += count;
+    }
+
+    /**
+     * Records a finished receive call and recomputes the targets.
+     *
+     * @param latencyNanos
+     *            how long the receive call took
+     * @param messageCount
+     *            the number of messages the receive call returned
+     * @param starved
+     *            whether callers were waiting for messages when the call finished
+     * @param visibilityTimeoutNanos
+     *            the visibility timeout of the received messages
+     */
+    synchronized void batchReceived(long latencyNanos, int messageCount, boolean starved, long visibilityTimeoutNanos) {
+        receiveLatencyNanos = average(receiveLatencyNanos, latencyNanos);
+        messagesPerBatch = average(messagesPerBatch, messageCount);
+        sampleConsumptionRate();
+        if (!adaptive) {
+            return;
+        }
+
+        double batchSize = Math.max(1.0, messagesPerBatch);
+        double latencySeconds = receiveLatencyNanos / TimeUnit.SECONDS.toNanos(1);
+        double rate = Math.max(0.0, consumptionRate);
+
+        int inflight = (int) Math.ceil(rate * latencySeconds / batchSize);
+        if (starved && messageCount > 0) {
+            inflight = Math.max(inflight, targetInflightBatches + 1);
+        } else {
+            inflight = Math.max(inflight, targetInflightBatches - 1);
+        }
+        inflight = clamp(inflight, maxInflightBatches);
+
+        double usableSeconds = (1.0 - RELEASE_HEADROOM) * visibilityTimeoutNanos / TimeUnit.SECONDS.toNanos(1);
+        int done = clamp((int) Math.floor(rate * usableSeconds / batchSize), maxDoneBatches);
+
+        if (inflight != targetInflightBatches || done != targetDoneBatches) {
+            if (log.isDebugEnabled()) {
+                log.debug("Queue " + qUrl + " now targets " + inflight + " inflight and " + done
+                        + " done receive batches (" + String.format("%.1f", rate) + " messages/s, "
+                        + TimeUnit.NANOSECONDS.toMillis((long) receiveLatencyNanos) + " ms per receive, "
+                        + String.format("%.1f", messagesPerBatch) + " messages per receive)");
+            }
+            targetInflightBatches = inflight;
+            targetDoneBatches = done;
+        }
+    }
+
+    private void sampleConsumptionRate() {
+        long now = System.nanoTime();
+        long elapsed = now - sampleStartNanos;
+        if (elapsed < MIN_SAMPLE_INTERVAL_NANOS) {
+            return;
+        }
+        consumptionRate = average(consumptionRate, consumedSinceSample * (double) TimeUnit.SECONDS.toNanos(1) / elapsed);
+        consumedSinceSample = 0;
+        sampleStartNanos = now;
+    }
+
+    private static double average(double average, double sample) {
+        return average < 0 ? sample : average + ALPHA * (sample - average);
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.min(Math.max(value, 1), max);
+    }
+
+    /**
+     * @return the number of receive batches which should be in flight at once
+     */
+    int getTargetInflightBatches() {
+        return targetInflightBatches;
+    }
+
+    /**
+     * @return the number of completed receive batches which should be buffered
+     */
+    int getTargetDoneBatches() {
+        return targetDoneBatches;
+    }
+
+    synchronized ReceivePrefetchMetrics getMetrics(int inflightBatches, int doneBatches) {
+        return new ReceivePrefetchMetrics(targetInflightBatches, targetDoneBatches, inflightBatches, doneBatches,
+                Math.max(0.0, consumptionRate), TimeUnit.NANOSECONDS.toMillis((long) Math.max(0.0,
+                        receiveLatencyNanos)), Math.max(0.0, messagesPerBatch), releasedMessages);
+    }
+}
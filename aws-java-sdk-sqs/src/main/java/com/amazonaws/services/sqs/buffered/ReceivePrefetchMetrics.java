@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sqs.buffered;
+
+/**
+ * A snapshot of the pre-fetching of messages from one queue by an
+ * {@link AmazonSQSBufferedAsyncClient}: the number of receive batches the client aims for, the
+ * number it has, and the measurements the targets are derived from. Unless adaptive pre-fetching
+ * is enabled in the {@link QueueBufferConfig}, the targets are the configured maximums.
+ */
+public class ReceivePrefetchMetrics {
+
+    private final int targetInflightReceiveBatches;
+    private final int targetDoneReceiveBatches;
+    private final int inflightReceiveBatches;
+    private final int doneReceiveBatches;
+    private final double consumptionRate;
+    private final long receiveLatencyMs;
+    private final double messagesPerReceive;
+    private final long releasedMessages;
+
+    ReceivePrefetchMetrics(int targetInflightReceiveBatches, int targetDoneReceiveBatches,
+            int inflightReceiveBatches, int doneReceiveBatches, double consumptionRate, long receiveLatencyMs,
+            double messagesPerReceive, long releasedMessages) {
+        this.targetInflightReceiveBatches = targetInflightReceiveBatches;
+        this.targetDoneReceiveBatches = targetDoneReceiveBatches;
+        this.inflightReceiveBatches = inflightReceiveBatches;
+        this.doneReceiveBatches = doneReceiveBatches;
+        this.consumptionRate = consumptionRate;
+        this.receiveLatencyMs = receiveLatencyMs;
+        this.messagesPerReceive = messagesPerReceive;
+        this.releasedMessages = releasedMessages;
+    }
+
+    /**
+     * @return the number of receive calls the client allows in flight at once
+     */
+    public int getTargetInflightReceiveBatches() {
+        return targetInflightReceiveBatches;
+    }
+
+    /**
+     * @return the number of completed receive batches the client pre-fetches before it stops
+     *         receiving
+     */
+    public int getTargetDoneReceiveBatches() {
+        return targetDoneReceiveBatches;
+    }
+
+    /**
+     * @return the number of receive calls in flight
+     */
+    public int getInflightReceiveBatches() {
+        return inflightReceiveBatches;
+    }
+
+    /**
+     * @return the number of completed receive batches waiting in the buffer
+     */
+    public int getDoneReceiveBatches() {
+        return doneReceiveBatches;
+    }
+
+    /**
+     * @return the moving average of the number of messages handed out per second
+     */
+    public double getConsumptionRate() {
+        return consumptionRate;
+    }
+
+    /**
+     * @return the moving average of the time a receive call takes, in milliseconds
+     */
+    public long getReceiveLatencyMs() {
+        return receiveLatencyMs;
+    }
+
+    /**
+     * @return the moving average of the number of messages returned by a receive call
+     */
+    public double getMessagesPerReceive() {
+        return messagesPerReceive;
+    }
+
+    /**
+     * @return the total number of pre-fetched messages which were released back to the queue
+     *         because they were not consumed before their visibility timeout was nearly over
+     */
+    public long getReleasedMessages() {
+        return releasedMessages;
+    }
+
+    @Override
+    public String toString() {
+        return "ReceivePrefetchMetrics [targetInflightReceiveBatches=" + targetInflightReceiveBatches
+                + ", targetDoneReceiveBatches=" + targetDoneReceiveBatches + ", inflightReceiveBatches="
+                + inflightReceiveBatches + ", doneReceiveBatches=" + doneReceiveBatches + ", consumptionRate="
+                + consumptionRate + ", receiveLatencyMs=" + receiveLatencyMs + ", messagesPerReceive="
+                + messagesPerReceive + ", releasedMessages=" + releasedMessages + "]";
+    }
+}
@@ -20,6 +20,8 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -39,6 +41,9 @@ import com.amazonaws.services.sqs.model.ReceiveMessageResult;
  * It uses the provided executor to pre-fetch messages from the server and keeps them in a buffer
  * which it uses to satisfy incoming requests. The number of requests pre-fetched and kept in the
  * buffer, as well as the maximum number of threads used to retrieve the messages are configurable.
+ * With adaptive pre-fetching, a {@link ReceivePrefetchController} sizes both from the consumption
+ * rate, and batches which are still buffered when their visibility timeout is nearly over are
+ * released back to the queue.
  * <p>
  * Synchronization strategy: - Threads must hold the TaskSpawnSyncPoint object monitor to spawn a
  * new task or modify the number of inflight tasks - Threads must hold the monitor of the "futures"
@@ -70,8 +75,13 @@ public class ReceiveQueueBuffer {
 
     private final Executor executor;
 
+    /** Releases the batches left unconsumed for too long. */
+    private final ScheduledExecutorService scheduler;
+
     private final AmazonSQS sqsClient;
 
+    private final ReceivePrefetchController prefetchController;
+
     private long bufferCounter = 0;
 
     /**
@@ -101,12 +111,25 @@ public class ReceiveQueueBuffer {
     /** finished batches are stored in this list. */
     private LinkedList<ReceiveMessageBatchTask> finishedTasks = new LinkedList<ReceiveMessageBatchTask>();
 
-    ReceiveQueueBuffer(AmazonSQS paramSQS, Executor paramExecutor, QueueBufferConfig paramConfig, String url) {
+    ReceiveQueueBuffer(AmazonSQS paramSQS, Executor paramExecutor, ScheduledExecutorService paramScheduler,
+            QueueBufferConfig paramConfig, String url) {
         config = paramConfig;
         executor = paramExecutor;
+        scheduler = paramScheduler;
         sqsClient = paramSQS;
         qUrl = url;
+        prefetchController = new ReceivePrefetchController(paramConfig, url);
+    }
 
+    /**
+     * @return a snapshot of the pre-fetching of this buffer
+     */
+    public ReceivePrefetchMetrics getPrefetchMetrics() {
+        int doneBatches;
+        synchronized (finishedTasks) {
+            doneBatches = finishedTasks.size();
+        }
+        return prefetchController.getMetrics(inflightReceiveMessageBatches, doneBatches);
     }
 
     /**
@@ -219,8 +242,9 @@ public class ReceiveQueueBuffer {
         // we may have just drained the batch.
         batchDone = batchDone || task.isEmpty() || (exception != null);
         if (batchDone) {
-            finishedTasks.removeFirst();
+            removeFirstFinishedTask();
         }
+        prefetchController.messagesConsumed(numRetrieved);
         result.setMessages(messages);
 
         // if after the above runs the exception is not null,
@@ -270,7 +294,7 @@ public class ReceiveQueueBuffer {
         int numberPruned = 0;
         while (!finishedTasks.isEmpty()) {
             if (pruneCondition.test(finishedTasks.getFirst())) {
-                finishedTasks.removeFirst();
+                removeFirstFinishedTask();
                 numberPruned++;
             } else {
                 break;
@@ -279,6 +303,14 @@ public class ReceiveQueueBuffer {
         return numberPruned;
     }
 
+    /**
+     * Removes the task at the beginning of the finishedTasks list, and cancels its release. This
+     * method assumes that you are holding the finishedTasks lock when invoking it.
+     */
+    private void removeFirstFinishedTask() {
+        finishedTasks.removeFirst().cancelRelease();
+    }
+
     /**
      * maybe create more receive tasks. extra receive tasks won't be created if we are already at
      * the maximum number of receive tasks, or if we are at the maximum number of prefetched buffers
@@ -288,8 +320,7 @@ public class ReceiveQueueBuffer {
             return;
         }
 
-        int desiredBatches = config.getMaxDoneReceiveBatches();
-        desiredBatches = desiredBatches < 1 ? 1 : desiredBatches;
+        int desiredBatches = prefetchController.getTargetDoneBatches();
 
         synchronized (finishedTasks) {
             if (finishedTasks.size() >= desiredBatches)
@@ -314,10 +345,8 @@ public class ReceiveQueueBuffer {
                 visibilityTimeoutNanos = TimeUnit.NANOSECONDS.convert(visibilityTimeoutSeconds, TimeUnit.SECONDS);
             }
 
-            int max = config.getMaxInflightReceiveBatches();
-            // must allow at least one inflight receive task, or receive won't
-            // work at all.
-            max = max > 0 ? max : 1;
+            // always at least one, or receive won't work at all.
+            int max = prefetchController.getTargetInflightBatches();
             int toSpawn = max - inflightReceiveMessageBatches;
             if (toSpawn > 0) {
                 ReceiveMessageBatchTask task = new ReceiveMessageBatchTask(this);
@@ -336,8 +365,19 @@ public class ReceiveQueueBuffer {
      * This method is called by the batches after they have finished retrieving the messages.
      */
     void reportBatchFinished(ReceiveMessageBatchTask batch) {
+        if (batch.getException() == null) {
+            boolean starved;
+            synchronized (futures) {
+                starved = !futures.isEmpty();
+            }
+            prefetchController.batchReceived(System.nanoTime() - batch.receiveStartNano, batch.messages.size(),
+                    starved, batch.visibilityTimeoutNano);
+        }
         synchronized (finishedTasks) {
             finishedTasks.addLast(batch);
+            if (config.isAdaptivePrefetching() && !batch.isEmpty() && batch.getException() == null) {
+                scheduleRelease(batch);
+            }
             if (log.isTraceEnabled()) {
                 log.info("Queue " + qUrl + " now has " + finishedTasks.size() + " receive results cached ");
             }
@@ -349,6 +389,45 @@ public class ReceiveQueueBuffer {
         spawnMoreReceiveTasks();
     }
 
+    /**
+     * Schedules the batch to be released back to the queue if it is still buffered when
+     * {@link ReceivePrefetchController#RELEASE_HEADROOM} of its visibility timeout is left. This
+     * method assumes that you are holding the finishedTasks lock when invoking it.
+     */
+    private void scheduleRelease(final ReceiveMessageBatchTask batch) {
+        long headroomNanos = (long) (ReceivePrefetchController.RELEASE_HEADROOM * batch.visibilityTimeoutNano);
+        long delayNanos = batch.visibilityDeadlineNano - headroomNanos - System.nanoTime();
+        batch.release = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // changing the visibility is a call to SQS, so keep it off the shared scheduler
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        release(batch);
+                    }
+                });
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Nacks the remaining messages of the batch if it is still buffered.
+     */
+    private void release(ReceiveMessageBatchTask batch) {
+        boolean buffered;
+        synchronized (finishedTasks) {
+            buffered = finishedTasks.remove(batch);
+        }
+        if (buffered) {
+            int released = batch.clear();
+            prefetchController.messagesReleased(released);
+            if (log.isDebugEnabled()) {
+                log.debug("Released " + released + " unconsumed messages back to queue " + qUrl);
+            }
+        }
+    }
+
     /**
      * Clears and nacks any pre-fetched messages in this buffer.
      */
@@ -361,6 +440,7 @@ public class ReceiveQueueBuffer {
             }
 
             if (currentBatch != null) {
+                currentBatch.cancelRelease();
                 currentBatch.clear();
             } else {
                 // ran out of batches to clear
@@ -394,7 +474,11 @@ public class ReceiveQueueBuffer {
         private Exception exception = null;
         private List<Message> messages;
         private long visibilityDeadlineNano;
+        private long visibilityTimeoutNano;
+        private long receiveStartNano;
         private boolean open = false;
+        /** the scheduled release of the batch, if any; synchronized by {@code finishedTasks} */
+        private ScheduledFuture<?> release;
         private ReceiveQueueBuffer parentBuffer;
 
         /**
@@ -455,10 +539,19 @@ public class ReceiveQueueBuffer {
             return System.nanoTime() > visibilityDeadlineNano;
         }
 
+        void cancelRelease() {
+            if (release != null) {
+                release.cancel(false);
+                release = null;
+            }
+        }
+
         /**
          * Nacks and clears all messages remaining in the batch.
+         * 
+         * @return the number of messages nacked
          */
-        synchronized void clear() {
+        synchronized int clear() {
             if (!open) {
                 throw new IllegalStateException("batch is not open");
             }
@@ -487,7 +580,9 @@ public class ReceiveQueueBuffer {
                     log.warn("ReceiveMessageBatchTask: changeMessageVisibility failed " + e);
                 }
             }
+            int cleared = messages.size();
             messages.clear();
+            return cleared;
         }
 
         /**
@@ -497,15 +592,18 @@ public class ReceiveQueueBuffer {
         public void run() {
 
             try {
-                visibilityDeadlineNano = System.nanoTime() + visibilityTimeoutNanos;
+                receiveStartNano = System.nanoTime();
+                visibilityTimeoutNano = visibilityTimeoutNanos;
+                visibilityDeadlineNano = receiveStartNano + visibilityTimeoutNano;
                 ReceiveMessageRequest request = new ReceiveMessageRequest(qUrl).withMaxNumberOfMessages(config
                         .getMaxBatchSize());
                 ResultConverter.appendUserAgent(request, AmazonSQSBufferedAsyncClient.USER_AGENT);
 
                 if (config.getVisibilityTimeoutSeconds() > 0) {
                     request.setVisibilityTimeout(config.getVisibilityTimeoutSeconds());
-                    visibilityDeadlineNano = System.nanoTime()
-                            + TimeUnit.NANOSECONDS.convert(config.getVisibilityTimeoutSeconds(), TimeUnit.SECONDS);
+                    visibilityTimeoutNano = TimeUnit.NANOSECONDS.convert(config.getVisibilityTimeoutSeconds(),
+                            TimeUnit.SECONDS);
+                    visibilityDeadlineNano = receiveStartNano + visibilityTimeoutNano;
                 }
 
                 if (config.isLongPoll()) {
@@ -17,8 +17,14 @@ package com.amazonaws.services.sqs.buffered;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -51,6 +57,9 @@ import com.amazonaws.services.sqs.model.SendMessageResult;
  * (creating such a batch if there currently isn't one outstanding). When the outstanding batch
  * becomes full, or when a configurable timeout expires, the buffer makes a call to SQS to execute
  * the current batch. <br>
+ * Requests are added to the outstanding batch without locking, and open batches do not occupy a
+ * thread: the timeouts of the batches of all the buffers are run by a single shared scheduler, and
+ * an executor thread is only used while a batch is being sent to SQS. <br>
  * Internally, the batch objects maintain a list of futures corresponding to the requests added to
  * them. When a batch completes, it loads the results into the futures and marks the futures as
  * complete.
@@ -80,37 +89,29 @@ public class SendQueueBuffer {
     private final Executor executor;
 
     /**
-     * Object used to serialize sendMessage calls.
+     * The scheduler closing the batches whose {@code maxBatchOpenMs} elapsed.
      */
-    private final Object sendMessageLock = new Object();
+    private final ScheduledExecutorService scheduler;
 
     /**
-     * Object used to serialize deleteMessage calls.
+     * Current batching task for sendMessage.
      */
-    private final Object deleteMessageLock = new Object();
+    private final AtomicReference<OutboundBatchTask<SendMessageRequest, SendMessageResult>> openSendMessageBatchTask = new AtomicReference<OutboundBatchTask<SendMessageRequest, SendMessageResult>>();
 
     /**
-     * Object used to serialize changeMessageVisibility calls.
+     * Current batching task for deleteMessage.
      */
-    private final Object changeMessageVisibilityLock = new Object();
+    private final AtomicReference<OutboundBatchTask<DeleteMessageRequest, Void>> openDeleteMessageBatchTask = new AtomicReference<OutboundBatchTask<DeleteMessageRequest, Void>>();
 
     /**
-     * Current batching task for sendMessage. Using a size 1 array to allow "passing by reference".
-     * Synchronized by {@code sendMessageLock}.
+     * Current batching task for changeMessageVisibility.
      */
-    private final SendMessageBatchTask[] openSendMessageBatchTask = new SendMessageBatchTask[1];
+    private final AtomicReference<OutboundBatchTask<ChangeMessageVisibilityRequest, Void>> openChangeMessageVisibilityBatchTask = new AtomicReference<OutboundBatchTask<ChangeMessageVisibilityRequest, Void>>();
 
     /**
-     * Current batching task for deleteMessage. Using a size 1 array to allow
-     * "passing by reference". Synchronized by {@code deleteMessageLock}.
+     * The number of permits of each of the semaphores below.
      */
-    private final DeleteMessageBatchTask[] openDeleteMessageBatchTask = new DeleteMessageBatchTask[1];
-
-    /**
-     * Current batching task for changeMessageVisibility. Using a size 1 array to allow
-     * "passing by reference". Synchronized by {@code changeMessageVisibilityLock}.
-     */
-    private final ChangeMessageVisibilityBatchTask[] openChangeMessageVisibilityBatchTask = new ChangeMessageVisibilityBatchTask[1];
+    private final int maxInflightOutboundBatches;
 
     /**
      * Permits controlling the number of in flight SendMessage batches.
@@ -127,15 +128,18 @@ public class SendQueueBuffer {
      */
     private final Semaphore inflightChangeMessageVisibilityBatches;
 
-    SendQueueBuffer(AmazonSQS sqsClient, Executor executor, QueueBufferConfig paramConfig, String url) {
+    SendQueueBuffer(AmazonSQS sqsClient, Executor executor, ScheduledExecutorService scheduler,
+            QueueBufferConfig paramConfig, String url) {
         this.sqsClient = sqsClient;
         this.executor = executor;
+        this.scheduler = scheduler;
         this.config = paramConfig;
         qUrl = url;
         int maxBatch = config.getMaxInflightOutboundBatches();
 
         // must allow at least one outbound batch.
         maxBatch = maxBatch > 0 ? maxBatch : 1;
+        this.maxInflightOutboundBatches = maxBatch;
         this.inflightSendMessageBatches = new Semaphore(maxBatch);
         this.inflightDeleteMessageBatches = new Semaphore(maxBatch);
         this.inflightChangeMessageVisibilityBatches = new Semaphore(maxBatch);
@@ -150,7 +154,7 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<SendMessageRequest, SendMessageResult> sendMessage(SendMessageRequest request,
                                                                                 QueueBufferCallback<SendMessageRequest, SendMessageResult> callback) {
-        QueueBufferFuture<SendMessageRequest, SendMessageResult> result = submitOutboundRequest(sendMessageLock,
+        QueueBufferFuture<SendMessageRequest, SendMessageResult> result = submitOutboundRequest(
                 openSendMessageBatchTask, request, inflightSendMessageBatches, callback);
         return result;
     }
@@ -160,8 +164,7 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<DeleteMessageRequest, Void> deleteMessage(DeleteMessageRequest request,
                                                                        QueueBufferCallback<DeleteMessageRequest, Void> callback) {
-        return submitOutboundRequest(deleteMessageLock, openDeleteMessageBatchTask, request,
-                inflightDeleteMessageBatches, callback);
+        return submitOutboundRequest(openDeleteMessageBatchTask, request, inflightDeleteMessageBatches, callback);
     }
 
     /**
@@ -169,7 +172,7 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<ChangeMessageVisibilityRequest, Void> changeMessageVisibility(ChangeMessageVisibilityRequest request,
                                                                                            QueueBufferCallback<ChangeMessageVisibilityRequest, Void> callback) {
-        return submitOutboundRequest(changeMessageVisibilityLock, openChangeMessageVisibilityBatchTask, request,
+        return submitOutboundRequest(openChangeMessageVisibilityBatchTask, request,
                 inflightChangeMessageVisibilityBatches, callback);
     }
 
@@ -194,38 +197,37 @@ public class SendQueueBuffer {
      * Flushes all outstanding outbound requests ({@code SendMessage}, {@code DeleteMessage},
      * {@code ChangeMessageVisibility}) in this buffer.
      * <p>
-     * The call returns successfully when all outstanding outbound requests submitted before the
-     * call are completed (i.e. processed by SQS).
+     * The open batches are sent right away. The call returns successfully when all outstanding
+     * outbound requests submitted before the call are completed (i.e. processed by SQS).
      */
     public void flush() {
 
         try {
-            synchronized (sendMessageLock) {
-                inflightSendMessageBatches.acquire(config.getMaxInflightOutboundBatches());
-                inflightSendMessageBatches.release(config.getMaxInflightOutboundBatches());
-            }
-            synchronized (deleteMessageLock) {
-                inflightDeleteMessageBatches.acquire(config.getMaxInflightOutboundBatches());
-                inflightDeleteMessageBatches.release(config.getMaxInflightOutboundBatches());
-            }
-            synchronized (changeMessageVisibilityLock) {
-                inflightChangeMessageVisibilityBatches.acquire(config.getMaxInflightOutboundBatches());
-                inflightChangeMessageVisibilityBatches.release(config.getMaxInflightOutboundBatches());
-            }
+            flush(openSendMessageBatchTask, inflightSendMessageBatches);
+            flush(openDeleteMessageBatchTask, inflightDeleteMessageBatches);
+            flush(openChangeMessageVisibilityBatchTask, inflightChangeMessageVisibilityBatches);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    private <R extends AmazonWebServiceRequest, Result> void flush(AtomicReference<OutboundBatchTask<R, Result>> openOutboundBatchTask,
+                                                                   Semaphore inflightOperationBatches) throws InterruptedException {
+        OutboundBatchTask<R, Result> obt = openOutboundBatchTask.get();
+        if (obt != null) {
+            obt.close();
+        }
+        inflightOperationBatches.acquire(maxInflightOutboundBatches);
+        inflightOperationBatches.release(maxInflightOutboundBatches);
+    }
+
     /**
      * Submits an outbound request for delivery to the queue associated with this buffer.
      * <p>
      * 
-     * @param operationLock
-     *            the lock synchronizing calls for the call type ( {@code sendMessage},
-     *            {@code deleteMessage}, {@code changeMessageVisibility} )
      * @param openOutboundBatchTask
-     *            the open batch task for this call type
+     *            the open batch task for this call type ( {@code sendMessage},
+     *            {@code deleteMessage}, {@code changeMessageVisibility} )
      * @param request
      *            the request to submit
      * @param inflightOperationBatches
@@ -234,60 +236,67 @@ public class SendQueueBuffer {
      * @throws AmazonClientException
      *             (see the various outbound calls for details)
      */
-    @SuppressWarnings("unchecked")
-    <OBT extends OutboundBatchTask<R, Result>, R extends AmazonWebServiceRequest, Result> QueueBufferFuture<R, Result> submitOutboundRequest(Object operationLock,
-                                                                                                                                             OBT[] openOutboundBatchTask,
-                                                                                                                                             R request,
-                                                                                                                                             final Semaphore inflightOperationBatches,
-                                                                                                                                             QueueBufferCallback<R, Result> callback) {
+    <R extends AmazonWebServiceRequest, Result> QueueBufferFuture<R, Result> submitOutboundRequest(AtomicReference<OutboundBatchTask<R, Result>> openOutboundBatchTask,
+                                                                                                  R request,
+                                                                                                  final Semaphore inflightOperationBatches,
+                                                                                                  QueueBufferCallback<R, Result> callback) {
         /*
          * Callers add requests to a single batch task (openOutboundBatchTask) until it is full or
          * maxBatchOpenMs elapses. The total number of batch task in flight is controlled by the
          * inflightOperationBatch semaphore capped at maxInflightOutboundBatches.
          */
-        QueueBufferFuture<R, Result> theFuture = null;
-        try {
-            synchronized (operationLock) {
-                if (openOutboundBatchTask[0] == null
-                        || ((theFuture = openOutboundBatchTask[0].addRequest(request, callback))) == null) {
-
-                    OBT obt = (OBT) newOutboundBatchTask(request);
-                    inflightOperationBatches.acquire();
-                    openOutboundBatchTask[0] = obt;
-
-                    // Register a listener for the event signaling that the
-                    // batch task has completed (successfully or not).
-                    openOutboundBatchTask[0].setOnCompleted(new Listener<OutboundBatchTask<R, Result>>() {
-                        @Override
-                        public void invoke(OutboundBatchTask<R, Result> task) {
-                            inflightOperationBatches.release();
-                        }
-                    });
-
-                    if (log.isTraceEnabled()) {
-                        log.trace("Queue " + qUrl + " created new batch for " + request.getClass().toString() + " "
-                                + inflightOperationBatches.availablePermits() + " free slots remain");
-                    }
+        while (true) {
+            OutboundBatchTask<R, Result> current = openOutboundBatchTask.get();
+            if (current != null) {
+                QueueBufferFuture<R, Result> theFuture = current.addRequest(request, callback);
+                if (theFuture != null) {
+                    return theFuture;
+                }
+            }
 
-                    theFuture = openOutboundBatchTask[0].addRequest(request, callback);
-                    executor.execute(openOutboundBatchTask[0]);
-                    if (null == theFuture) {
-                        // this can happen only if the request itself is flawed,
-                        // so that it can't be added to any batch, even a brand
-                        // new one
-                        throw new AmazonClientException("Failed to schedule request " + request + " for execution");
-                    }
+            OutboundBatchTask<R, Result> obt = newOutboundBatchTask(request);
+            if (!obt.isOkToAdd(1, obt.sizeOf(request))) {
+                // this can happen only if the request itself is flawed, so
+                // that it can't be added to any batch, even a brand new one
+                throw new AmazonClientException("Failed to schedule request " + request + " for execution");
+            }
+
+            try {
+                inflightOperationBatches.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                AmazonClientException toThrow = new AmazonClientException("Interrupted while waiting for lock.");
+                toThrow.initCause(e);
+                throw toThrow;
+            }
+
+            // Register a listener for the event signaling that the
+            // batch task has completed (successfully or not).
+            obt.setOnCompleted(new Listener<OutboundBatchTask<R, Result>>() {
+                @Override
+                public void invoke(OutboundBatchTask<R, Result> task) {
+                    inflightOperationBatches.release();
                 }
+            });
+
+            if (!openOutboundBatchTask.compareAndSet(current, obt)) {
+                // another caller opened a batch in the meantime
+                inflightOperationBatches.release();
+                continue;
             }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            AmazonClientException toThrow = new AmazonClientException("Interrupted while waiting for lock.");
-            toThrow.initCause(e);
-            throw toThrow;
-        }
+            if (log.isTraceEnabled()) {
+                log.trace("Queue " + qUrl + " created new batch for " + request.getClass().toString() + " "
+                        + inflightOperationBatches.availablePermits() + " free slots remain");
+            }
 
-        return theFuture;
+            obt.open();
+            // other callers may fill the new batch first, in which case another batch is opened
+            QueueBufferFuture<R, Result> theFuture = obt.addRequest(request, callback);
+            if (theFuture != null) {
+                return theFuture;
+            }
+        }
     }
 
     /**
@@ -295,8 +304,13 @@ public class SendQueueBuffer {
      * <p>
      * The batch task is constructed open and accepts requests until full, or until
      * {@code maxBatchOpenMs} elapses. At that point, the batch closes and the collected requests
-     * are assembled into a single batch request to SQS. Specialized for each type of outbound
-     * request.
+     * are assembled into a single batch request to SQS, which is sent by an executor thread.
+     * Specialized for each type of outbound request.
+     * <p>
+     * Requests are added without locking: a caller first reserves a slot in the batch by updating
+     * {@code state}, which holds whether the batch is closed, the number of requests and their
+     * total size, and then stores its request in the slot. The batch is run once it is closed and
+     * all the reserved slots are filled.
      * <p>
      * Instances of this class (and subclasses) are thread-safe.
      * 
@@ -307,141 +321,165 @@ public class SendQueueBuffer {
      */
     private abstract class OutboundBatchTask<R extends AmazonWebServiceRequest, Result> implements Runnable {
 
-        protected final List<R> requests;
-        protected final ArrayList<QueueBufferFuture<R, Result>> futures;
+        private static final long CLOSED = 1L << 62;
+        private static final int COUNT_SHIFT = 32;
+        private static final long SIZE_MASK = (1L << COUNT_SHIFT) - 1;
+
+        private final AtomicReferenceArray<R> requests;
+        private final AtomicReferenceArray<QueueBufferFuture<R, Result>> futures;
+
+        /** The {@code CLOSED} flag, the number of reserved slots and the total size of their requests. */
+        private final AtomicLong state = new AtomicLong();
 
-        private boolean closed;
+        /** The number of reserved slots which have been filled. */
+        private final AtomicInteger filled = new AtomicInteger();
+
+        private final AtomicBoolean started = new AtomicBoolean();
 
         private volatile Listener<OutboundBatchTask<R, Result>> onCompleted;
 
         public OutboundBatchTask() {
-            this.requests = new ArrayList<R>(config.getMaxBatchSize());
-            this.futures = new ArrayList<QueueBufferFuture<R, Result>>(config.getMaxBatchSize());
+            this.requests = new AtomicReferenceArray<R>(config.getMaxBatchSize());
+            this.futures = new AtomicReferenceArray<QueueBufferFuture<R, Result>>(config.getMaxBatchSize());
         }
 
         public void setOnCompleted(Listener<OutboundBatchTask<R, Result>> value) {
             onCompleted = value;
         }
 
+        /**
+         * Schedules the batch to close once {@code maxBatchOpenMs} elapses.
+         */
+        public void open() {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    close();
+                }
+            }, config.getMaxBatchOpenMs(), TimeUnit.MILLISECONDS);
+        }
+
         /**
          * Adds a request to the batch if it is still open and has capacity.
          * 
          * @return the future that can be used to get the results of the execution, or null if the
          *         addition failed.
          */
-        public synchronized QueueBufferFuture<R, Result> addRequest(R request, QueueBufferCallback<R, Result> callback) {
+        public QueueBufferFuture<R, Result> addRequest(R request, QueueBufferCallback<R, Result> callback) {
 
-            if (closed) {
-                return null;
-            }
+            int size = sizeOf(request);
+            while (true) {
+                long current = state.get();
+                if ((current & CLOSED) != 0) {
+                    return null;
+                }
 
-            QueueBufferFuture<R, Result> theFuture = addIfAllowed(request, callback);
+                int count = (int) ((current & ~CLOSED) >>> COUNT_SHIFT) + 1;
+                long batchSize = (current & SIZE_MASK) + size;
 
-            // if the addition did not work, or this addition made us full,
-            // we can close the request.
-            if ((null == theFuture) || isFull()) {
-                closed = true;
-                notify();
-            }
+                // if the addition did not work, we can close the request.
+                if (!isOkToAdd(count, batchSize)) {
+                    close();
+                    return null;
+                }
 
-            return theFuture;
+                // if this addition makes us full, the batch is closed by it.
+                long next = ((long) count << COUNT_SHIFT) | batchSize;
+                if (isFull(count, batchSize)) {
+                    next |= CLOSED;
+                }
+
+                if (state.compareAndSet(current, next)) {
+                    QueueBufferFuture<R, Result> theFuture = new QueueBufferFuture<R, Result>(callback);
+                    requests.set(count - 1, request);
+                    futures.set(count - 1, theFuture);
+                    startIfReady(filled.incrementAndGet());
+                    return theFuture;
+                }
+            }
         }
 
         /**
-         * Adds the request to the batch if capacity allows it. Called by {@code addRequest} with a
-         * lock on {@code this} held.
-         * 
-         * @param request
-         * @return the future that will be signaled when the request is completed and can be used to
-         *         retrieve the result. Can be null if the addition could not be done
+         * Closes the batch, so that it is sent as soon as the requests being added to it are
+         * added.
          */
-        private QueueBufferFuture<R, Result> addIfAllowed(R request, QueueBufferCallback<R, Result> callback) {
-
-            if (isOkToAdd(request)) {
-
-                requests.add(request);
-
-                QueueBufferFuture<R, Result> theFuture = new QueueBufferFuture<R, Result>(callback);
-
-                futures.add(theFuture);
-                onRequestAdded(request);
-                return theFuture;
+        public void close() {
+            while (true) {
+                long current = state.get();
+                if ((current & CLOSED) != 0) {
+                    return;
+                }
+                if (state.compareAndSet(current, current | CLOSED)) {
+                    startIfReady(filled.get());
+                    return;
+                }
+            }
+        }
 
-            } else {
-                return null;
+        /**
+         * Runs the batch if it is closed and all its reserved slots are filled.
+         */
+        private void startIfReady(int filledSlots) {
+            long current = state.get();
+            if ((current & CLOSED) != 0 && filledSlots == (int) ((current & ~CLOSED) >>> COUNT_SHIFT)
+                    && started.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    failAll(e);
+                    completed();
+                    throw e;
+                }
             }
         }
 
         /**
-         * Checks whether it's okay to add the request to this buffer. Called by
-         * {@code addIfAllowed} with a lock on {@code this} held.
-         * 
-         * @param request
-         *            the request to add
-         * @return true if the request is okay to add, false otherwise
+         * @return the size of the request counted against the limit of the total size of a batch
          */
-        protected boolean isOkToAdd(R request) {
-            return requests.size() < config.getMaxBatchSize();
+        protected int sizeOf(R request) {
+            return 0;
         }
 
         /**
-         * A hook to be run when a request is successfully added to this buffer. Called by
-         * {@code addIfAllowed} with a lock on {@code this} held.
+         * Checks whether a batch of the given number of requests of the given total size is
+         * allowed.
          * 
-         * @param request
-         *            the request that was added
+         * @return true if the request is okay to add, false otherwise
          */
-        protected void onRequestAdded(R request) {
-            // to be overridden by subclasses
+        protected boolean isOkToAdd(int count, long batchSize) {
+            return count <= config.getMaxBatchSize();
         }
 
         /**
-         * Checks whether the buffer is now full. Called by {@code addIfAllowed} with a lock on
-         * {@code this} held.
+         * Checks whether a batch of the given number of requests of the given total size is
+         * filled to capacity.
          * 
          * @return whether the buffer is filled to capacity
          */
-        protected boolean isFull() {
-            return requests.size() >= config.getMaxBatchSize();
+        protected boolean isFull(int count, long batchSize) {
+            return count >= config.getMaxBatchSize();
         }
 
         /**
-         * Processes the batch once closed. Is <em>NOT</em> called with a lock on {@code this}.
-         * However, it's passed a local copy of both the {@code requests} and {@code futures} lists
-         * made while holding the lock.
+         * Processes the batch once closed. Is passed a copy of both the {@code requests} and
+         * {@code futures} lists.
          */
         protected abstract void process(List<R> requests, List<QueueBufferFuture<R, Result>> futures);
 
         @Override
         public final void run() {
-            try {
-
-                long deadlineMs = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS)
-                        + config.getMaxBatchOpenMs() + 1;
-                long t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
-
-                List<R> requests;
-                List<QueueBufferFuture<R, Result>> futures;
-
-                synchronized (this) {
-                    while (!closed && (t < deadlineMs)) {
-                        t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
-
-                        // zero means "wait forever", can't have that.
-                        long toWait = Math.max(1, deadlineMs - t);
-                        wait(toWait);
-                    }
-
-                    closed = true;
+            int count = (int) ((state.get() & ~CLOSED) >>> COUNT_SHIFT);
+            List<R> requests = new ArrayList<R>(count);
+            List<QueueBufferFuture<R, Result>> futures = new ArrayList<QueueBufferFuture<R, Result>>(count);
+            for (int i = 0; i < count; i++) {
+                requests.add(this.requests.get(i));
+                futures.add(this.futures.get(i));
+            }
 
-                    requests = new ArrayList<R>(this.requests);
-                    futures = new ArrayList<QueueBufferFuture<R, Result>>(this.futures);
-                }
+            try {
 
                 process(requests, futures);
 
-            } catch (InterruptedException e) {
-                failAll(e);
             } catch (AmazonClientException e) {
                 failAll(e);
             } catch (RuntimeException e) {
@@ -451,40 +489,44 @@ public class SendQueueBuffer {
                 failAll(new AmazonClientException("Error encountered", e));
                 throw e;
             } finally {
-                // make a copy of the listener since it (theoretically) can be
-                // modified from the outside.
-                Listener<OutboundBatchTask<R, Result>> listener = onCompleted;
-                if (listener != null) {
-                    listener.invoke(this);
-                }
+                completed();
+            }
+        }
+
+        private void completed() {
+            // make a copy of the listener since it (theoretically) can be
+            // modified from the outside.
+            Listener<OutboundBatchTask<R, Result>> listener = onCompleted;
+            if (listener != null) {
+                listener.invoke(this);
             }
         }
 
         private void failAll(Exception e) {
-            for (QueueBufferFuture<R, Result> f : futures) {
-                f.setFailure(e);
+            for (int i = 0, n = futures.length(); i < n; i++) {
+                QueueBufferFuture<R, Result> f = futures.get(i);
+                if (f != null) {
+                    f.setFailure(e);
+                }
             }
         }
     }
 
     private class SendMessageBatchTask extends OutboundBatchTask<SendMessageRequest, SendMessageResult> {
 
-        int batchSizeBytes = 0;
-
         @Override
-        protected boolean isOkToAdd(SendMessageRequest request) {
-            return (requests.size() < config.getMaxBatchSize())
-                    && ((request.getMessageBody().getBytes().length + batchSizeBytes) < config.getMaxBatchSizeBytes());
+        protected int sizeOf(SendMessageRequest request) {
+            return request.getMessageBody().getBytes().length;
         }
 
         @Override
-        protected void onRequestAdded(SendMessageRequest request) {
-            batchSizeBytes += request.getMessageBody().getBytes().length;
+        protected boolean isOkToAdd(int count, long batchSizeBytes) {
+            return (count <= config.getMaxBatchSize()) && (batchSizeBytes < config.getMaxBatchSizeBytes());
         }
 
         @Override
-        protected boolean isFull() {
-            return (requests.size() >= config.getMaxBatchSize()) || (batchSizeBytes >= config.getMaxBatchSizeBytes());
+        protected boolean isFull(int count, long batchSizeBytes) {
+            return (count >= config.getMaxBatchSize()) || (batchSizeBytes >= config.getMaxBatchSizeBytes());
         }
 
         @Override